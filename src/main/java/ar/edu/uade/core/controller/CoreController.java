@@ -1,23 +1,32 @@
 package ar.edu.uade.core.controller;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 import ar.edu.uade.core.model.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import ar.edu.uade.core.service.AckPipeline;
+import ar.edu.uade.core.service.ExportService;
 import ar.edu.uade.core.service.KafkaMockService;
+import ar.edu.uade.core.service.OutboxRelay;
+import ar.edu.uade.core.service.RetryExpiryWorker;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
 @RestController
@@ -27,13 +36,30 @@ public class CoreController {
     @Autowired
     KafkaMockService kafkaMockService;
 
+    @Autowired
+    ExportService exportService;
+
+    @Autowired
+    AckPipeline ackPipeline;
+
+    @Autowired
+    RetryExpiryWorker retryExpiryWorker;
+
+    @Autowired
+    OutboxRelay outboxRelay;
+
+    // Listas paginadas por keyset: ?after=<id>&limit=&type=&origin=&from=&to=&includePayload=
+    // Si la página vino completa, X-Next-After trae el id a usar como after en el siguiente pedido
+    public static final String NEXT_AFTER_HEADER = "X-Next-After";
+
     @GetMapping(value = "/getAll", produces = {MediaType.APPLICATION_JSON_VALUE})
-    public ResponseEntity<List<Event>> getAll(){
+    public ResponseEntity<?> getAll(ListFilter filter){
         try{ 
-            List<Event> events = kafkaMockService.getAll();
-            return new ResponseEntity<>(events,HttpStatus.OK);
+            return page(kafkaMockService.getAll(filter), filter);
         }catch(EmptyResultDataAccessException e){
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }catch(IllegalArgumentException iae){
+            return new ResponseEntity<>(iae.getMessage(), HttpStatus.BAD_REQUEST);
         }
     }
 
@@ -50,23 +76,53 @@ public class CoreController {
         }
     }
 
+    // Ingesta por lotes: devuelve un resultado por item, en el mismo orden recibido
+    @PostMapping(value = "/events:batch", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> receiveEvents(@RequestBody List<EventRequest> requests){
+        try {
+            List<EventBatchItemResult> results = kafkaMockService.ingestEvents(requests);
+            return new ResponseEntity<>(results, HttpStatus.ACCEPTED);
+        } catch (IllegalArgumentException iae){
+            return new ResponseEntity<>(iae.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e){
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     // Endpoints para manejar listas de mensajes (vivos, reintentos, muertos)
     @GetMapping(value = "/live", produces = {MediaType.APPLICATION_JSON_VALUE})
-    public ResponseEntity<List<LiveMessage>> getLiveMessages(){
-        List<LiveMessage> items = kafkaMockService.getLiveMessages();
-        return new ResponseEntity<>(items, HttpStatus.OK);
+    public ResponseEntity<?> getLiveMessages(ListFilter filter){
+        try {
+            return page(kafkaMockService.getLiveMessages(filter), filter);
+        } catch (IllegalArgumentException iae){
+            return new ResponseEntity<>(iae.getMessage(), HttpStatus.BAD_REQUEST);
+        }
     }
 
     @GetMapping(value = "/retries", produces = {MediaType.APPLICATION_JSON_VALUE})
-    public ResponseEntity<List<RetryMessage>> getRetryMessages(){
-        List<RetryMessage> items = kafkaMockService.getRetryMessages();
-        return new ResponseEntity<>(items, HttpStatus.OK);
+    public ResponseEntity<?> getRetryMessages(ListFilter filter){
+        try {
+            return page(kafkaMockService.getRetryMessages(filter), filter);
+        } catch (IllegalArgumentException iae){
+            return new ResponseEntity<>(iae.getMessage(), HttpStatus.BAD_REQUEST);
+        }
     }
 
     @GetMapping(value = "/dead", produces = {MediaType.APPLICATION_JSON_VALUE})
-    public ResponseEntity<List<DeadLetterMessage>> getDeadLetters(){
-        List<DeadLetterMessage> items = kafkaMockService.getDeadLetters();
-        return new ResponseEntity<>(items, HttpStatus.OK);
+    public ResponseEntity<?> getDeadLetters(ListFilter filter){
+        try {
+            return page(kafkaMockService.getDeadLetters(filter), filter);
+        } catch (IllegalArgumentException iae){
+            return new ResponseEntity<>(iae.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    private static <T extends PayloadView> ResponseEntity<List<T>> page(List<T> items, ListFilter filter){
+        ResponseEntity.BodyBuilder res = ResponseEntity.ok();
+        if (!items.isEmpty() && items.size() >= filter.effectiveLimit()){
+            res.header(NEXT_AFTER_HEADER, String.valueOf(items.get(items.size() - 1).getId()));
+        }
+        return res.body(items);
     }
 
     // Simular que todos los consumidores procesaron los mensajes vivos (utilidad)
@@ -128,6 +184,12 @@ public class CoreController {
         return new ResponseEntity<>(payload, HttpStatus.OK);
     }
 
+    // Retry procesado por el consumidor (p. ej. tras una reentrega por <tópico>.retry-*): se saca de la cola
+    @PostMapping(value = "/retry/ack")
+    public ResponseEntity<?> acknowledgeRetry(@RequestParam Integer retryId){
+        return kafkaMockService.acknowledgeRetry(retryId) ? new ResponseEntity<>(HttpStatus.OK) : new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+
     // Mark retry as failed (increment attempts / move to dead si corresponde)
     @PostMapping(value = "/retry/fail")
     public ResponseEntity<?> failRetry(@RequestParam Integer retryId){
@@ -144,15 +206,62 @@ public class CoreController {
         }
     }
 
-    // Procesar reintentos y expirados -> mover a dead-letter
-    @PostMapping(value = "/processRetries")
-    public ResponseEntity<?> processRetries(){
-        kafkaMockService.processRetriesAndExpire();
-        return new ResponseEntity<>(HttpStatus.OK);
+    // Procesar reintentos y expirados -> mover a dead-letter (por tramos; informa filas/s)
+    @PostMapping(value = "/processRetries", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<RetrySweepReport> processRetries(){
+        return ResponseEntity.ok(retryExpiryWorker.sweep());
+    }
+
+    // Export completo en NDJSON por streaming (?after=<id> para retomar, ?gzip=true para comprimir)
+    @GetMapping(value = "/export/events", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportEvents(
+            @RequestParam(defaultValue = "0") int after, @RequestParam(defaultValue = "false") boolean gzip){
+        return export("events", gzip, out -> exportService.exportEvents(out, after));
+    }
+
+    @GetMapping(value = "/export/consumptions", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportConsumptions(
+            @RequestParam(defaultValue = "0") int after, @RequestParam(defaultValue = "false") boolean gzip){
+        return export("consumptions", gzip, out -> exportService.exportConsumptions(out, after));
+    }
+
+    @GetMapping(value = "/export/dead", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportDeadLetters(
+            @RequestParam(defaultValue = "0") int after, @RequestParam(defaultValue = "false") boolean gzip){
+        return export("dead", gzip, out -> exportService.exportDeadLetters(out, after));
+    }
+
+    private interface ExportWriter { long write(OutputStream out) throws IOException; }
+
+    private static ResponseEntity<StreamingResponseBody> export(String name, boolean gzip, ExportWriter writer){
+        ResponseEntity.BodyBuilder res = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + ".ndjson\"");
+        if (!gzip) return res.body(writer::write);
+        return res.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(out -> {
+            GZIPOutputStream gz = new GZIPOutputStream(out, 64 * 1024);
+            writer.write(gz);
+            gz.finish();
+        });
     }
 
+    // Con el pipeline activo responde 202 apenas el ACK queda guardado en ack_inbox; lo aplica la línea de su evento.
+    // 503 si la línea está llena (el consumidor debe reintentar)
     @PostMapping("/ack")
     public ResponseEntity<String> acknowledgeEvent(@RequestBody EventAckEntity ack) {
+        if (ackPipeline.isEnabled()) {
+            try {
+                ackPipeline.submit(ack);
+                return ResponseEntity.accepted().body("ACK encolado");
+            } catch (IllegalArgumentException iae) {
+                return new ResponseEntity<>(iae.getMessage(), HttpStatus.BAD_REQUEST);
+            } catch (IllegalStateException ise) {
+                return new ResponseEntity<>(ise.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("Error encolando ACK: " + e.getMessage());
+            }
+        }
         try {
             kafkaMockService.handleAcknowledgement(ack);
             return ResponseEntity.ok("ACK recibido correctamente");
@@ -162,5 +271,40 @@ public class CoreController {
         }
     }
 
+    // ACKs por lotes: devuelve un resultado por ack, en el mismo orden recibido
+    @PostMapping(value = "/acks:batch", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> acknowledgeEvents(@RequestBody List<EventAckEntity> acks) {
+        try {
+            List<AckBatchItemResult> results = kafkaMockService.handleAcknowledgements(acks);
+            return ResponseEntity.ok(results);
+        } catch (IllegalArgumentException iae) {
+            return new ResponseEntity<>(iae.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error procesando ACKs: " + e.getMessage());
+        }
+    }
+
+    // profundidad, ACKs aplicados y latencia (aceptación -> commit) por línea de AckPipeline
+    @GetMapping(value = "/acks/pipeline", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<AckLaneStats>> ackPipelineStats() {
+        return ResponseEntity.ok(ackPipeline.stats());
+    }
+
+    // filas de la outbox por publicar y apartadas (un apartado > 0 pide revisar last_error)
+    @GetMapping(value = "/outbox", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Long>> outboxStats() {
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("pending", outboxRelay.pendingCount());
+        stats.put("parked", outboxRelay.parkedCount());
+        return ResponseEntity.ok(stats);
+    }
+
+    // vuelve a la cola las filas apartadas de la outbox (todas, o solo ?id=)
+    @PostMapping(value = "/outbox/requeue", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Integer>> requeueOutbox(@RequestParam(required = false) Integer id) {
+        return ResponseEntity.ok(Map.of("requeued", outboxRelay.requeueParked(id)));
+    }
+
 
 }
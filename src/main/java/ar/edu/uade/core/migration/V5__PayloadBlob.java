@@ -0,0 +1,104 @@
+package ar.edu.uade.core.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import ar.edu.uade.core.service.PayloadStore;
+
+/**
+ * Mueve los payloads de event y queue_message a payload_blob, deduplicados por sha-256.
+ * Es una migración Java porque el hash se calcula igual que en PayloadStore (MySQL y H2 no comparten función).
+ */
+public class V5__PayloadBlob extends BaseJavaMigration {
+
+    private static final int CHUNK = 500;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection con = context.getConnection();
+        try (Statement st = con.createStatement()) {
+            st.execute("CREATE TABLE payload_blob ("
+                    + " id BIGINT NOT NULL AUTO_INCREMENT,"
+                    + " hash VARCHAR(64) NOT NULL,"
+                    + " content LONGTEXT,"
+                    + " created_at DATETIME(6),"
+                    + " PRIMARY KEY (id),"
+                    + " CONSTRAINT uk_payload_blob_hash UNIQUE (hash)"
+                    + ") ENGINE=InnoDB");
+            st.execute("ALTER TABLE event ADD COLUMN payload_id BIGINT");
+            st.execute("ALTER TABLE queue_message ADD COLUMN payload_id BIGINT");
+        }
+
+        moveToBlobs(con, "event");
+        moveToBlobs(con, "queue_message");
+
+        try (Statement st = con.createStatement()) {
+            st.execute("ALTER TABLE event DROP COLUMN payload");
+            st.execute("ALTER TABLE queue_message DROP COLUMN payload");
+        }
+    }
+
+    // recorre la tabla por id en bloques para no mantener un result set abierto mientras se escribe
+    private void moveToBlobs(Connection con, String table) throws Exception {
+        int lastId = 0;
+        while (true) {
+            Map<Integer, String> rows = new LinkedHashMap<>();
+            try (PreparedStatement ps = con.prepareStatement(
+                    "SELECT id, payload FROM " + table + " WHERE id > ? AND payload IS NOT NULL ORDER BY id LIMIT " + CHUNK)) {
+                ps.setInt(1, lastId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) rows.put(rs.getInt(1), rs.getString(2));
+                }
+            }
+            if (rows.isEmpty()) return;
+
+            Map<String, String> byHash = new LinkedHashMap<>();
+            Map<Integer, String> hashById = new LinkedHashMap<>();
+            rows.forEach((id, payload) -> {
+                String h = PayloadStore.sha256(payload);
+                hashById.put(id, h);
+                byHash.putIfAbsent(h, payload);
+            });
+
+            try (PreparedStatement ins = con.prepareStatement(
+                    "INSERT IGNORE INTO payload_blob (hash, content, created_at) VALUES (?, ?, CURRENT_TIMESTAMP(6))")) {
+                for (Map.Entry<String, String> e : byHash.entrySet()) {
+                    ins.setString(1, e.getKey());
+                    ins.setString(2, e.getValue());
+                    ins.addBatch();
+                }
+                ins.executeBatch();
+            }
+
+            Map<String, Long> blobIds = new HashMap<>();
+            List<String> hashes = new ArrayList<>(byHash.keySet());
+            String in = String.join(",", java.util.Collections.nCopies(hashes.size(), "?"));
+            try (PreparedStatement sel = con.prepareStatement("SELECT id, hash FROM payload_blob WHERE hash IN (" + in + ")")) {
+                for (int i = 0; i < hashes.size(); i++) sel.setString(i + 1, hashes.get(i));
+                try (ResultSet rs = sel.executeQuery()) {
+                    while (rs.next()) blobIds.put(rs.getString(2), rs.getLong(1));
+                }
+            }
+
+            try (PreparedStatement upd = con.prepareStatement("UPDATE " + table + " SET payload_id = ? WHERE id = ?")) {
+                for (Map.Entry<Integer, String> e : hashById.entrySet()) {
+                    upd.setLong(1, blobIds.get(e.getValue()));
+                    upd.setInt(2, e.getKey());
+                    upd.addBatch();
+                }
+                upd.executeBatch();
+            }
+            for (Integer id : rows.keySet()) lastId = id;
+        }
+    }
+}
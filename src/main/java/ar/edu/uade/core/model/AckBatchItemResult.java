@@ -0,0 +1,31 @@
+package ar.edu.uade.core.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Resultado por ack de POST /core/acks:batch (index = posición en el array recibido)
+@NoArgsConstructor
+@Getter
+@Setter
+public class AckBatchItemResult {
+    // PENDING: consumo registrado, faltan módulos; COMPLETED: el evento pasó a DEAD; RETRY: ack de fallo, pasó a RETRY;
+    // IGNORED: estado de ack desconocido (el consumo se registra igual); NOT_FOUND: el evento no está (o ya no está) en LIVE;
+    // DUPLICATE: el consumidor ya había mandado ese estado para el evento (solo se suma el intento en event_acks)
+    public enum Status { PENDING, COMPLETED, RETRY, IGNORED, NOT_FOUND, REJECTED, DUPLICATE }
+
+    private int index;
+    private Status status;
+    private String eventId;
+    private String consumer;
+    private String error;
+
+    public static AckBatchItemResult of(int index, EventAckEntity ack, Status status){
+        AckBatchItemResult r = new AckBatchItemResult(); r.index = index; r.status = status; r.eventId = ack.getEventId(); r.consumer = ack.getConsumer(); return r;
+    }
+    public static AckBatchItemResult ofRejected(int index, EventAckEntity ack, String error){
+        AckBatchItemResult r = new AckBatchItemResult(); r.index = index; r.status = Status.REJECTED; r.error = error;
+        if (ack != null) { r.eventId = ack.getEventId(); r.consumer = ack.getConsumer(); }
+        return r;
+    }
+}
@@ -0,0 +1,51 @@
+package ar.edu.uade.core.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// ACK aceptado por POST /core/ack y todavía no aplicado. Lo procesa AckPipeline y se borra al aplicarlo.
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "ack_inbox")
+public class AckInboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_id", nullable = false)
+    private Integer eventId;
+
+    private String consumer;
+
+    private String status;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    // réplica que lo tiene encolado (SchedulerLease.owner()); null = libre para el barrido
+    @Column(name = "claimed_by")
+    private String claimedBy;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    public EventAckEntity toAck() {
+        EventAckEntity ack = new EventAckEntity();
+        ack.setEventId(eventId.toString());
+        ack.setConsumer(consumer);
+        ack.setStatus(status);
+        return ack;
+    }
+}
@@ -0,0 +1,19 @@
+package ar.edu.uade.core.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Métricas de una línea de AckPipeline (GET /core/acks/pipeline). La latencia va de la aceptación del ACK al commit.
+@AllArgsConstructor
+@Getter
+public class AckLaneStats {
+    private int lane;
+    // ACKs encolados y todavía no aplicados
+    private int depth;
+    private long processed;
+    private long batches;
+    // ACKs de lotes que agotaron los reintentos: vuelven libres a ack_inbox y los reaplica el próximo barrido
+    private long failed;
+    private double avgLatencyMs;
+    private double maxLatencyMs;
+}
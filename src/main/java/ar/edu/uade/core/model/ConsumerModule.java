@@ -0,0 +1,28 @@
+package ar.edu.uade.core.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Módulo consumidor con id fijo: el id n es el bit n - 1 de expected_mask / consumed_mask (ver ModuleRegistry).
+// Un id asignado no se reutiliza ni se cambia, porque ya está grabado en las máscaras de la cola.
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "consumer_module", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_consumer_module_name", columnNames = "name")
+})
+public class ConsumerModule {
+
+    @Id
+    private Integer id;
+
+    @Column(length = 64, nullable = false)
+    private String name;
+}
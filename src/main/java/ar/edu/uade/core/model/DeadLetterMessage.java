@@ -2,13 +2,11 @@ package ar.edu.uade.core.model;
 
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.DynamicUpdate;
+
 import jakarta.persistence.Column;
+import jakarta.persistence.DiscriminatorValue;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
-import jakarta.persistence.Id;
-import jakarta.persistence.Lob;
-import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -17,20 +15,9 @@ import lombok.Setter;
 @Getter
 @Setter
 @Entity
-@Table(name = "dead_letter")
-public class DeadLetterMessage {
-
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Integer id;
-
-    @Column(name = "event_id")
-    private Integer eventId;
-
-    private String type;
-
-    @Lob
-    private String payload;
+@DiscriminatorValue("DEAD")
+@DynamicUpdate
+public class DeadLetterMessage extends QueueMessage {
 
     private String reason;
 
@@ -38,4 +25,3 @@ public class DeadLetterMessage {
     private LocalDateTime movedAt;
 
 }
-
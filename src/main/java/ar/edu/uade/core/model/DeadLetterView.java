@@ -0,0 +1,27 @@
+package ar.edu.uade.core.model;
+
+import java.time.LocalDateTime;
+
+import lombok.Getter;
+
+@Getter
+public class DeadLetterView extends PayloadView {
+    private final Integer eventId;
+    private final String type;
+    private final String reason;
+    private final LocalDateTime movedAt;
+
+    public DeadLetterView(Integer id, Integer eventId, String type, String reason, LocalDateTime movedAt, Long payloadId){
+        super(id, payloadId);
+        this.eventId = eventId;
+        this.type = type;
+        this.reason = reason;
+        this.movedAt = movedAt;
+    }
+
+    // export: el contenido viene en la misma fila (join con payload_blob)
+    public DeadLetterView(Integer id, Integer eventId, String type, String reason, LocalDateTime movedAt, Long payloadId, String payload){
+        this(id, eventId, type, reason, movedAt, payloadId);
+        setPayload(payload);
+    }
+}
@@ -2,13 +2,19 @@ package ar.edu.uade.core.model;
 
 import java.time.LocalDateTime;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.Lob;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -22,14 +28,22 @@ import lombok.Setter;
 public class Event {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "event_seq")
+    @SequenceGenerator(name = "event_seq", sequenceName = "event_seq", allocationSize = 50)
     @Column(name = "id")
     private Integer id;
 
     @Column(name = "type")
     private String type;
 
-    @Lob
+    // contenido en payload_blob (compartido con el evento y sus mensajes); se lee recién en getPayload()
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "payload_id")
+    private PayloadBlob payloadBlob;
+
+    // texto del payload: el recibido antes de persistir, o el ya leído de payloadBlob
+    @Transient
     private String payload;
 
     private LocalDateTime timestamp;
@@ -51,6 +65,11 @@ public class Event {
         this.originModule = originModule;
     }
 
+    public String getPayload() {
+        if (payload == null && payloadBlob != null) payload = payloadBlob.getContent();
+        return payload;
+    }
+
     @Override
      public String toString() { 
         return "Event{" + 
@@ -0,0 +1,32 @@
+package ar.edu.uade.core.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Resultado por item de POST /core/events:batch (index = posición en el array recibido)
+@NoArgsConstructor
+@Getter
+@Setter
+public class EventBatchItemResult {
+    public enum Status { ACCEPTED, PUBLISHED, PUBLISH_FAILED, REJECTED }
+
+    private int index;
+    private Status status;
+    private Integer eventId;
+    private String topic;
+    private String error;
+
+    public static EventBatchItemResult ofAccepted(int index, Integer eventId, String topic){
+        EventBatchItemResult r = new EventBatchItemResult(); r.index = index; r.status = Status.ACCEPTED; r.eventId = eventId; r.topic = topic; return r;
+    }
+    public static EventBatchItemResult ofPublished(int index, Integer eventId, String topic){
+        EventBatchItemResult r = new EventBatchItemResult(); r.index = index; r.status = Status.PUBLISHED; r.eventId = eventId; r.topic = topic; return r;
+    }
+    public static EventBatchItemResult ofPublishFailed(int index, Integer eventId, String topic, String error){
+        EventBatchItemResult r = new EventBatchItemResult(); r.index = index; r.status = Status.PUBLISH_FAILED; r.eventId = eventId; r.topic = topic; r.error = error; return r;
+    }
+    public static EventBatchItemResult ofRejected(int index, String error){
+        EventBatchItemResult r = new EventBatchItemResult(); r.index = index; r.status = Status.REJECTED; r.error = error; return r;
+    }
+}
@@ -1,7 +1,8 @@
 package ar.edu.uade.core.model;
 
 import java.time.LocalDateTime;
-import java.util.Map;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -12,7 +13,9 @@ import lombok.Setter;
 @Setter
 public class EventRequest {
     private String type;
-    private Object payload; // puede ser Map u otro objeto; se serializa a JSON
+    // desde HTTP llega como RawJson (texto original); por código puede ser Map u otro objeto y se serializa a JSON
+    @JsonDeserialize(using = RawJson.Deserializer.class)
+    private Object payload;
     private LocalDateTime timestamp; // opcional, si null se setea ahora
     private String originModule;
 }
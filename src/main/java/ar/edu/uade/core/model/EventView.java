@@ -0,0 +1,25 @@
+package ar.edu.uade.core.model;
+
+import java.time.LocalDateTime;
+
+import lombok.Getter;
+
+@Getter
+public class EventView extends PayloadView {
+    private final String type;
+    private final LocalDateTime timestamp;
+    private final String originModule;
+
+    public EventView(Integer id, String type, LocalDateTime timestamp, String originModule, Long payloadId){
+        super(id, payloadId);
+        this.type = type;
+        this.timestamp = timestamp;
+        this.originModule = originModule;
+    }
+
+    // export: el contenido viene en la misma fila (join con payload_blob)
+    public EventView(Integer id, String type, LocalDateTime timestamp, String originModule, Long payloadId, String payload){
+        this(id, type, timestamp, originModule, payloadId);
+        setPayload(payload);
+    }
+}
@@ -0,0 +1,41 @@
+package ar.edu.uade.core.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Parámetros de /getAll, /live, /retries y /dead (query string): keyset por id, filtros y si se incluye el payload.
+// from es inclusivo y to exclusivo; para /retries filtran created_at y para /dead moved_at.
+@NoArgsConstructor
+@Getter
+@Setter
+public class ListFilter {
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    // devuelve filas con id > after
+    private Integer after;
+    private Integer limit;
+    private String type;
+    private String origin;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+    private boolean includePayload = true;
+
+    public int afterOrZero(){
+        return after != null ? after : 0;
+    }
+
+    // limit ausente -> DEFAULT_LIMIT; se recorta a MAX_LIMIT
+    public int effectiveLimit(){
+        if (limit == null) return DEFAULT_LIMIT;
+        if (limit < 1) throw new IllegalArgumentException("limit must be >= 1");
+        return Math.min(limit, MAX_LIMIT);
+    }
+}
@@ -0,0 +1,21 @@
+package ar.edu.uade.core.model;
+
+import java.time.LocalDateTime;
+
+import lombok.Getter;
+
+@Getter
+public class LiveMessageView extends PayloadView {
+    private final Integer eventId;
+    private final String type;
+    private final LocalDateTime timestamp;
+    private final String originModule;
+
+    public LiveMessageView(Integer id, Integer eventId, String type, LocalDateTime timestamp, String originModule, Long payloadId){
+        super(id, payloadId);
+        this.eventId = eventId;
+        this.type = type;
+        this.timestamp = timestamp;
+        this.originModule = originModule;
+    }
+}
@@ -7,7 +7,9 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -16,9 +18,14 @@ import lombok.Setter;
 @Getter
 @Setter
 @Entity
-@Table(name = "message_consumption")
+@Table(name = "message_consumption", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_consumption_event_module", columnNames = {"event_id", "module_name"})
+}, indexes = {
+        @Index(name = "idx_consumption_live_message_id", columnList = "live_message_id")
+})
 public class MessageConsumption {
 
+    // se inserta con INSERT IGNORE (MessageConsumptionRepository.insertIgnore), fuera del generador de Hibernate
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
@@ -0,0 +1,59 @@
+package ar.edu.uade.core.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Registro pendiente de publicar en Kafka. Se escribe en la misma transacción que Event/LiveMessage
+// y lo drena OutboxRelay en segundo plano.
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "outbox_message")
+public class OutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_message_seq")
+    @SequenceGenerator(name = "outbox_message_seq", sequenceName = "outbox_message_seq", allocationSize = 50)
+    private Integer id;
+
+    @Column(name = "event_id")
+    private Integer eventId;
+
+    private String topic;
+
+    @Column(name = "message_key")
+    private String messageKey;
+
+    // envelope EventMessage ya serializado a JSON
+    @Lob
+    private String payload;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    private Integer attempts;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    // no se reintenta antes de esta hora (backoff tras un envío fallido)
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    // apartada por un error que no se arregla reintentando; vuelve a salir con OutboxRelay.requeueParked
+    @Column(name = "parked_at")
+    private LocalDateTime parkedAt;
+
+}
@@ -0,0 +1,46 @@
+package ar.edu.uade.core.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Payload JSON guardado una sola vez, direccionado por SHA-256 del contenido.
+// Event y queue_message lo referencian por payload_id (ver PayloadStore).
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "payload_blob", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_payload_blob_hash", columnNames = "hash")
+})
+public class PayloadBlob {
+
+    // IDENTITY: las filas se insertan con INSERT IGNORE desde PayloadStore, no por Hibernate
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // sha-256 en hex del contenido
+    @Column(length = 64, nullable = false)
+    private String hash;
+
+    // comprimido con LZ4 por encima del umbral; ver PayloadCodec
+    @Lob
+    @Convert(converter = PayloadCodec.JpaConverter.class)
+    private String content;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+}
@@ -0,0 +1,81 @@
+package ar.edu.uade.core.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import jakarta.persistence.AttributeConverter;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+/**
+ * Formato binario de payload_blob.content. El primer byte indica el codec de la fila:
+ * 0x01 = LZ4 (seguido del largo original en 4 bytes), 0x00 = texto plano marcado,
+ * cualquier otro = UTF-8 plano sin marcador (filas anteriores a la compresión; un JSON nunca empieza con 0x00/0x01).
+ * Solo se comprime desde MIN_COMPRESS_BYTES y si el resultado es efectivamente más chico.
+ */
+public final class PayloadCodec {
+
+    public static final int MIN_COMPRESS_BYTES = 512;
+
+    static final byte PLAIN = 0x00;
+    static final byte LZ4 = 0x01;
+
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4FastDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+
+    private PayloadCodec() {
+    }
+
+    public static byte[] encode(String text) {
+        if (text == null) return null;
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        if (raw.length >= MIN_COMPRESS_BYTES) {
+            byte[] out = new byte[5 + COMPRESSOR.maxCompressedLength(raw.length)];
+            int len = COMPRESSOR.compress(raw, 0, raw.length, out, 5, out.length - 5);
+            if (5 + len < raw.length) {
+                out[0] = LZ4;
+                ByteBuffer.wrap(out, 1, 4).putInt(raw.length);
+                return Arrays.copyOf(out, 5 + len);
+            }
+        }
+        if (raw.length > 0 && (raw[0] == PLAIN || raw[0] == LZ4)) {
+            byte[] out = new byte[raw.length + 1];
+            out[0] = PLAIN;
+            System.arraycopy(raw, 0, out, 1, raw.length);
+            return out;
+        }
+        return raw;
+    }
+
+    public static String decode(byte[] data) {
+        if (data == null) return null;
+        if (data.length == 0) return "";
+        switch (data[0]) {
+            case LZ4: {
+                int originalLength = ByteBuffer.wrap(data, 1, 4).getInt();
+                byte[] raw = new byte[originalLength];
+                DECOMPRESSOR.decompress(data, 5, raw, 0, originalLength);
+                return new String(raw, StandardCharsets.UTF_8);
+            }
+            case PLAIN:
+                return new String(data, 1, data.length - 1, StandardCharsets.UTF_8);
+            default:
+                return new String(data, StandardCharsets.UTF_8);
+        }
+    }
+
+    @jakarta.persistence.Converter
+    public static class JpaConverter implements AttributeConverter<String, byte[]> {
+        @Override
+        public byte[] convertToDatabaseColumn(String attribute) {
+            return encode(attribute);
+        }
+
+        @Override
+        public String convertToEntityAttribute(byte[] dbData) {
+            return decode(dbData);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package ar.edu.uade.core.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Base de las proyecciones de listas: se arman con un constructor en JPQL (sin entidades ni proxies)
+// y el payload se completa aparte, en una sola consulta por página, solo si se pidió.
+@Getter
+@Setter
+public abstract class PayloadView {
+
+    private Integer id;
+
+    @JsonIgnore
+    private Long payloadId;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String payload;
+
+    protected PayloadView(Integer id, Long payloadId){
+        this.id = id;
+        this.payloadId = payloadId;
+    }
+}
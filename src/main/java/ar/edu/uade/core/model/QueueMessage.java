@@ -0,0 +1,83 @@
+package ar.edu.uade.core.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.DiscriminatorColumn;
+import jakarta.persistence.DiscriminatorType;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Inheritance;
+import jakarta.persistence.InheritanceType;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Fila única por mensaje en la cola. La columna state (LIVE / RETRY / DEAD) decide la subclase;
+// las transiciones son un UPDATE sobre la misma fila (ver RetryMessageRepository / DeadLetterRepository),
+// el payload no se vuelve a copiar.
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "queue_message", indexes = {
+        @Index(name = "idx_queue_message_event_id", columnList = "event_id"),
+        @Index(name = "idx_queue_message_original_live_id", columnList = "original_live_id"),
+        @Index(name = "idx_queue_message_state_next_attempt", columnList = "state, next_attempt_at"),
+        @Index(name = "idx_queue_message_state_id", columnList = "state, id")
+})
+@Inheritance(strategy = InheritanceType.SINGLE_TABLE)
+@DiscriminatorColumn(name = "state", discriminatorType = DiscriminatorType.STRING, length = 10)
+public abstract class QueueMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "queue_message_seq")
+    @SequenceGenerator(name = "queue_message_seq", sequenceName = "queue_message_seq", allocationSize = 50)
+    private Integer id;
+
+    @Column(name = "event_id")
+    private Integer eventId;
+
+    private String type;
+
+    // contenido en payload_blob (compartido con el evento y sus mensajes); se lee recién en getPayload()
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "payload_id")
+    private PayloadBlob payloadBlob;
+
+    // módulos distintos que registraron consumo; solo lo cambia el UPDATE atómico de
+    // QueueMessageRepository.markConsumed, nunca el flush de la entidad
+    @JsonIgnore
+    @Column(name = "consumer_count", nullable = false, updatable = false)
+    private int consumerCount;
+
+    // bits de ModuleRegistry: módulos que tienen que consumir el mensaje (fijado al crearlo) y los que ya lo hicieron.
+    // consumed_mask, igual que el contador, solo cambia por UPDATE (QueueMessageRepository.markConsumed)
+    @JsonIgnore
+    @Column(name = "expected_mask", nullable = false, updatable = false)
+    private long expectedMask;
+
+    @JsonIgnore
+    @Column(name = "consumed_mask", nullable = false, updatable = false)
+    private long consumedMask;
+
+    // texto del payload: el recibido antes de persistir, o el ya leído de payloadBlob
+    @Transient
+    private String payload;
+
+    public String getPayload() {
+        if (payload == null && payloadBlob != null) payload = payloadBlob.getContent();
+        return payload;
+    }
+
+}
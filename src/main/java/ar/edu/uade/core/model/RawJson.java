@@ -0,0 +1,55 @@
+package ar.edu.uade.core.model;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * Payload JSON capturado tal cual llegó en el request. Se copia token a token desde el parser
+ * (sin armar un Map intermedio) y al serializarse se escribe como valor crudo, de modo que el mismo
+ * texto se guarda en la DB y viaja dentro del envelope de Kafka sin volver a serializarse.
+ */
+@JsonSerialize(using = RawJson.Serializer.class)
+public final class RawJson {
+
+    private final String json;
+
+    public RawJson(String json) {
+        this.json = json;
+    }
+
+    public String getJson() {
+        return json;
+    }
+
+    @Override
+    public String toString() {
+        return json;
+    }
+
+    public static class Serializer extends JsonSerializer<RawJson> {
+        @Override
+        public void serialize(RawJson value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeRawValue(value.json);
+        }
+    }
+
+    // Se usa en EventRequest.payload: copia la estructura actual del parser a texto compacto
+    public static class Deserializer extends JsonDeserializer<Object> {
+        @Override
+        public Object deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            StringWriter out = new StringWriter(256);
+            try (JsonGenerator gen = p.getCodec().getFactory().createGenerator(out)) {
+                gen.copyCurrentStructure(p);
+            }
+            return new RawJson(out.toString());
+        }
+    }
+}
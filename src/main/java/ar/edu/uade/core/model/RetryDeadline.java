@@ -0,0 +1,28 @@
+package ar.edu.uade.core.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+// Columnas de un retry que deciden cuándo vence (sin payload): lo que usan RetryTimer y la expiración
+public record RetryDeadline(Integer id, Integer eventId, Integer attempts, Integer maxAttempts,
+                            LocalDateTime createdAt, Long ttlSeconds) {
+
+    // razón con la que pasa a DEAD en 'now', o null si todavía no venció
+    public String expiryReason(LocalDateTime now) {
+        if (attempts != null && maxAttempts != null && attempts >= maxAttempts) return "MAX_ATTEMPTS_EXCEEDED";
+        if (createdAt != null && ttlSeconds != null && createdAt.plusSeconds(ttlSeconds).isBefore(now)) return "TTL_EXPIRED";
+        return null;
+    }
+
+    // epoch millis en que hay que revisarlo: ya si agotó los intentos, si no al vencer el TTL (Long.MAX_VALUE: nunca)
+    public long dueAtMillis() {
+        if (attempts != null && maxAttempts != null && attempts >= maxAttempts) return 0L;
+        if (createdAt == null || ttlSeconds == null) return Long.MAX_VALUE;
+        // isBefore estricto: un milisegundo después del vencimiento
+        return createdAt.plusSeconds(ttlSeconds).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + 1;
+    }
+
+    public static RetryDeadline of(RetryMessage rm) {
+        return new RetryDeadline(rm.getId(), rm.getEventId(), rm.getAttempts(), rm.getMaxAttempts(), rm.getCreatedAt(), rm.getTtlSeconds());
+    }
+}
@@ -0,0 +1,12 @@
+package ar.edu.uade.core.model;
+
+// Retry a reentregar, sin payload (se lee aparte de payload_blob): lo que RetryRedelivery necesita para publicarlo
+public record RetryDelivery(Integer id, Integer eventId, String type, Long payloadId, int redeliveries,
+                            String consumerModule, String originModule) {
+
+    // columnas de RetryMessageRepository.findDueRedeliveries, en ese orden
+    public static RetryDelivery of(Object[] r) {
+        return new RetryDelivery(((Number) r[0]).intValue(), r[1] == null ? null : ((Number) r[1]).intValue(), (String) r[2],
+                r[3] == null ? null : ((Number) r[3]).longValue(), ((Number) r[4]).intValue(), (String) r[5], (String) r[6]);
+    }
+}
@@ -2,13 +2,11 @@ package ar.edu.uade.core.model;
 
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.DynamicUpdate;
+
 import jakarta.persistence.Column;
+import jakarta.persistence.DiscriminatorValue;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
-import jakarta.persistence.Id;
-import jakarta.persistence.Lob;
-import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -17,25 +15,14 @@ import lombok.Setter;
 @Getter
 @Setter
 @Entity
-@Table(name = "retry_message")
-public class RetryMessage {
-
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Integer id;
-
-    @Column(name = "event_id")
-    private Integer eventId;
+@DiscriminatorValue("RETRY")
+@DynamicUpdate
+public class RetryMessage extends QueueMessage {
 
-    // si vino de un live_message, guardamos el id original para buscar por live id
+    // id del live del que salió; coincide con id salvo en filas migradas de la tabla retry_message
     @Column(name = "original_live_id")
     private Integer originalLiveId;
 
-    private String type;
-
-    @Lob
-    private String payload;
-
     private Integer attempts;
 
     @Column(name = "max_attempts")
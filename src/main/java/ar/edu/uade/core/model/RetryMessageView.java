@@ -0,0 +1,32 @@
+package ar.edu.uade.core.model;
+
+import java.time.LocalDateTime;
+
+import lombok.Getter;
+
+@Getter
+public class RetryMessageView extends PayloadView {
+    private final Integer eventId;
+    private final String type;
+    private final Integer originalLiveId;
+    private final Integer attempts;
+    private final Integer maxAttempts;
+    private final Long ttlSeconds;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime nextAttemptAt;
+    private final String consumerModule;
+
+    public RetryMessageView(Integer id, Integer eventId, String type, Integer originalLiveId, Integer attempts, Integer maxAttempts,
+                            Long ttlSeconds, LocalDateTime createdAt, LocalDateTime nextAttemptAt, String consumerModule, Long payloadId){
+        super(id, payloadId);
+        this.eventId = eventId;
+        this.type = type;
+        this.originalLiveId = originalLiveId;
+        this.attempts = attempts;
+        this.maxAttempts = maxAttempts;
+        this.ttlSeconds = ttlSeconds;
+        this.createdAt = createdAt;
+        this.nextAttemptAt = nextAttemptAt;
+        this.consumerModule = consumerModule;
+    }
+}
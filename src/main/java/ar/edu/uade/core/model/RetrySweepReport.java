@@ -0,0 +1,21 @@
+package ar.edu.uade.core.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Resultado de un barrido de retries vencidos (POST /core/processRetries)
+@AllArgsConstructor
+@Getter
+public class RetrySweepReport {
+    // retries pasados a DEAD
+    private long rows;
+    // tramos (transacciones) que hizo falta recorrer, incluido el último incompleto
+    private int chunks;
+    private double elapsedMs;
+    private double rowsPerSecond;
+
+    public static RetrySweepReport of(long rows, int chunks, long elapsedNanos){
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        return new RetrySweepReport(rows, chunks, elapsedNanos / 1_000_000.0, seconds > 0 ? rows / seconds : 0.0);
+    }
+}
@@ -0,0 +1,53 @@
+package ar.edu.uade.core.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import ar.edu.uade.core.model.AckInboxMessage;
+
+@Repository
+public interface AckInboxRepository extends JpaRepository<AckInboxMessage, Long> {
+
+    // ids libres o con claim de más de staleMicros (hora de la DB), en orden de llegada.
+    // SKIP LOCKED: dos réplicas barriendo a la vez se reparten las filas en lugar de esperarse
+    @Query(value = "SELECT id FROM ack_inbox WHERE claimed_by IS NULL "
+            + "OR claimed_at < TIMESTAMPADD(MICROSECOND, -:staleMicros, CURRENT_TIMESTAMP(6)) "
+            + "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockClaimable(@Param("staleMicros") long staleMicros, @Param("limit") int limit);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE ack_inbox SET claimed_by = :owner, claimed_at = CURRENT_TIMESTAMP(6) WHERE id IN (:ids)", nativeQuery = true)
+    int claim(@Param("ids") Collection<Long> ids, @Param("owner") String owner);
+
+    @Query("select a from AckInboxMessage a where a.id in :ids order by a.id asc")
+    List<AckInboxMessage> findAllByIdInOrder(@Param("ids") Collection<Long> ids);
+
+    // la dueña renueva sus filas (encoladas o en curso) para que no parezcan abandonadas
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE ack_inbox SET claimed_at = CURRENT_TIMESTAMP(6) WHERE claimed_by = :owner", nativeQuery = true)
+    int renewClaims(@Param("owner") String owner);
+
+    // lote abandonado o apagado: las filas quedan libres para el próximo barrido de cualquier réplica
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE ack_inbox SET claimed_by = NULL, claimed_at = NULL WHERE id IN (:ids) AND claimed_by = :owner", nativeQuery = true)
+    int release(@Param("ids") Collection<Long> ids, @Param("owner") String owner);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE ack_inbox SET claimed_by = NULL, claimed_at = NULL WHERE claimed_by = :owner", nativeQuery = true)
+    int releaseAll(@Param("owner") String owner);
+
+    // eventos que todavía tienen filas fuera de la cola de 'owner' (libres o de otra réplica)
+    @Query(value = "SELECT DISTINCT event_id FROM ack_inbox WHERE event_id IN (:eventIds) "
+            + "AND (claimed_by IS NULL OR claimed_by <> :owner)", nativeQuery = true)
+    List<Integer> findEventIdsHeldOutside(@Param("eventIds") Collection<Integer> eventIds, @Param("owner") String owner);
+}
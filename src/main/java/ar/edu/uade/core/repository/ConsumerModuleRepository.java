@@ -0,0 +1,10 @@
+package ar.edu.uade.core.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import ar.edu.uade.core.model.ConsumerModule;
+
+@Repository
+public interface ConsumerModuleRepository extends JpaRepository<ConsumerModule, Integer>{
+}
@@ -1,12 +1,59 @@
 package ar.edu.uade.core.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.QueryHint;
 
 import ar.edu.uade.core.model.DeadLetterMessage;
+import ar.edu.uade.core.model.DeadLetterView;
 
 @Repository
 public interface DeadLetterRepository extends JpaRepository<DeadLetterMessage, Integer>{
+    @Query("select new ar.edu.uade.core.model.DeadLetterView(d.id, d.eventId, d.type, d.reason, d.movedAt, d.payloadBlob.id) "
+            + "from DeadLetterMessage d where d.id > :after and (:type is null or d.type = :type) "
+            + "and (:origin is null or exists (select 1 from Event e where e.id = d.eventId and e.originModule = :origin)) "
+            + "and (:from is null or d.movedAt >= :from) and (:to is null or d.movedAt < :to) order by d.id")
+    List<DeadLetterView> findViews(@Param("after") int after, @Param("type") String type, @Param("origin") String origin,
+                                   @Param("from") LocalDateTime from, @Param("to") LocalDateTime to, Limit limit);
 
-}
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new ar.edu.uade.core.model.DeadLetterView(d.id, d.eventId, d.type, d.reason, d.movedAt, b.id, b.content) "
+            + "from DeadLetterMessage d left join d.payloadBlob b where d.id > :after order by d.id")
+    Stream<DeadLetterView> streamExport(@Param("after") int after);
+
+    // LIVE/RETRY -> DEAD sobre la misma fila. Devuelve 0 si la fila no existe o ya estaba en DEAD.
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE queue_message SET state = 'DEAD', reason = :#{#d.reason}, moved_at = :#{#d.movedAt} "
+            + "WHERE id = :#{#d.id} AND state <> 'DEAD'", nativeQuery = true)
+    int markDead(@Param("d") DeadLetterMessage dead);
 
+    // markDead para varias filas con el mismo reason / moved_at (lote de ACKs)
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE queue_message SET state = 'DEAD', reason = :#{#d.reason}, moved_at = :#{#d.movedAt} "
+            + "WHERE id IN (:ids) AND state <> 'DEAD'", nativeQuery = true)
+    int markDeadAll(@Param("ids") Collection<Integer> ids, @Param("d") DeadLetterMessage template);
+
+    // RETRY -> DEAD de un tramo del barrido en un solo UPDATE; la razón sigue la misma regla que expires_at
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE queue_message SET state = 'DEAD', "
+            + "reason = CASE WHEN attempts >= max_attempts THEN 'MAX_ATTEMPTS_EXCEEDED' ELSE 'TTL_EXPIRED' END, moved_at = :now "
+            + "WHERE id IN (:ids) AND state = 'RETRY'", nativeQuery = true)
+    int expireRetries(@Param("ids") Collection<Integer> ids, @Param("now") LocalDateTime now);
+
+}
@@ -0,0 +1,51 @@
+package ar.edu.uade.core.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import ar.edu.uade.core.model.EventAckEntity;
+
+@Repository
+public interface EventAckRepository extends JpaRepository<EventAckEntity, Long> {
+
+    // [eventId, consumer, status] de los ACKs ya vistos de esos eventos (usa el índice único (event_id, consumer))
+    @Query("select a.eventId, a.consumer, a.status from EventAckEntity a where a.eventId in :eventIds")
+    List<Object[]> findStatuses(@Param("eventIds") Collection<String> eventIds);
+
+    // Registra el ACK y devuelve true si (event_id, consumer) ya tenía ese estado (repetido: solo suma un intento).
+    // La decisión sale de las filas afectadas, sin leer antes: de dos ACKs iguales concurrentes solo uno cambia el
+    // estado o inserta la fila (el otro espera el lock de la fila o de la clave única y ve 0)
+    @Transactional
+    default boolean recordRepeated(String eventId, String consumer, String status, LocalDateTime seenAt){
+        if (updateStatusIfChanged(eventId, consumer, status, seenAt) > 0) return false;
+        if (insertIfAbsent(eventId, consumer, status, seenAt) > 0) return false;
+        touch(eventId, consumer, seenAt);
+        return true;
+    }
+
+    @Modifying
+    @Query(value = "UPDATE event_acks SET status = :status, attempts = attempts + 1, last_seen_at = :seenAt "
+            + "WHERE event_id = :eventId AND consumer = :consumer AND (status IS NULL OR UPPER(status) <> UPPER(:status))",
+            nativeQuery = true)
+    int updateStatusIfChanged(@Param("eventId") String eventId, @Param("consumer") String consumer,
+                              @Param("status") String status, @Param("seenAt") LocalDateTime seenAt);
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO event_acks (event_id, consumer, status, first_seen_at, last_seen_at, attempts) "
+            + "VALUES (:eventId, :consumer, :status, :seenAt, :seenAt, 1)", nativeQuery = true)
+    int insertIfAbsent(@Param("eventId") String eventId, @Param("consumer") String consumer,
+                       @Param("status") String status, @Param("seenAt") LocalDateTime seenAt);
+
+    @Modifying
+    @Query(value = "UPDATE event_acks SET attempts = attempts + 1, last_seen_at = :seenAt "
+            + "WHERE event_id = :eventId AND consumer = :consumer", nativeQuery = true)
+    int touch(@Param("eventId") String eventId, @Param("consumer") String consumer, @Param("seenAt") LocalDateTime seenAt);
+}
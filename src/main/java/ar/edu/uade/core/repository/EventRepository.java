@@ -1,11 +1,35 @@
 package ar.edu.uade.core.repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
 import ar.edu.uade.core.model.Event;
+import ar.edu.uade.core.model.EventView;
 
 @Repository
 public interface EventRepository extends JpaRepository<Event, Integer>{
+    // keyset por id para GET /core/getAll; el payload lo completa el servicio si se pidió
+    @Query("select new ar.edu.uade.core.model.EventView(e.id, e.type, e.timestamp, e.originModule, e.payloadBlob.id) from Event e "
+            + "where e.id > :after and (:type is null or e.type = :type) and (:origin is null or e.originModule = :origin) "
+            + "and (:from is null or e.timestamp >= :from) and (:to is null or e.timestamp < :to) order by e.id")
+    List<EventView> findViews(@Param("after") int after, @Param("type") String type, @Param("origin") String origin,
+                              @Param("from") LocalDateTime from, @Param("to") LocalDateTime to, Limit limit);
+
+    // export NDJSON: cursor con fetch size (en MySQL requiere useCursorFetch) y payload en la misma fila
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new ar.edu.uade.core.model.EventView(e.id, e.type, e.timestamp, e.originModule, b.id, b.content) "
+            + "from Event e left join e.payloadBlob b where e.id > :after order by e.id")
+    Stream<EventView> streamExport(@Param("after") int after);
 
 }
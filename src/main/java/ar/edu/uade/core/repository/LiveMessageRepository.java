@@ -1,13 +1,26 @@
 package ar.edu.uade.core.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import ar.edu.uade.core.model.LiveMessage;
+import ar.edu.uade.core.model.LiveMessageView;
 
 @Repository
 public interface LiveMessageRepository extends JpaRepository<LiveMessage, Integer>{
+    @Query("select new ar.edu.uade.core.model.LiveMessageView(l.id, l.eventId, l.type, l.timestamp, l.originModule, l.payloadBlob.id) "
+            + "from LiveMessage l where l.id > :after and (:type is null or l.type = :type) and (:origin is null or l.originModule = :origin) "
+            + "and (:from is null or l.timestamp >= :from) and (:to is null or l.timestamp < :to) order by l.id")
+    List<LiveMessageView> findViews(@Param("after") int after, @Param("type") String type, @Param("origin") String origin,
+                                    @Param("from") LocalDateTime from, @Param("to") LocalDateTime to, Limit limit);
     Optional<LiveMessage> findByEventId(Integer eventId);
+    List<LiveMessage> findByEventIdIn(Collection<Integer> eventIds);
 }
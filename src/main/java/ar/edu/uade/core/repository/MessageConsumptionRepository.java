@@ -1,10 +1,19 @@
 package ar.edu.uade.core.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
 import ar.edu.uade.core.model.MessageConsumption;
 
 @Repository
@@ -12,4 +21,19 @@ public interface MessageConsumptionRepository extends JpaRepository<MessageConsu
     boolean existsByEventIdAndModuleName(Integer eventId, String moduleName);
     List<MessageConsumption> findByEventId(Integer eventId);
     List<MessageConsumption> findByLiveMessageId(Integer liveMessageId);
+
+    // registra el consumo en un solo round-trip; 0 si (event_id, module_name) ya estaba
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO message_consumption (event_id, live_message_id, module_name, consumed_at) "
+            + "VALUES (:eventId, :liveMessageId, :moduleName, :consumedAt)", nativeQuery = true)
+    int insertIgnore(@Param("eventId") Integer eventId, @Param("liveMessageId") Integer liveMessageId,
+                     @Param("moduleName") String moduleName, @Param("consumedAt") LocalDateTime consumedAt);
+
+    // export: entidades read-only; ExportService las desasocia a medida que las escribe
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select c from MessageConsumption c where c.id > :after order by c.id")
+    Stream<MessageConsumption> streamExport(@Param("after") int after);
 }
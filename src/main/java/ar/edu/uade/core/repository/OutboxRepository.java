@@ -0,0 +1,35 @@
+package ar.edu.uade.core.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import ar.edu.uade.core.model.OutboxMessage;
+
+@Repository
+public interface OutboxRepository extends JpaRepository<OutboxMessage, Integer>{
+    // filas publicables: sin apartar y con la espera de backoff cumplida
+    @Query("select o from OutboxMessage o where o.parkedAt is null and (o.nextAttemptAt is null or o.nextAttemptAt <= :now) order by o.id asc")
+    List<OutboxMessage> findBatch(@Param("now") LocalDateTime now, Pageable pageable);
+
+    long countByParkedAtIsNull();
+
+    long countByParkedAtIsNotNull();
+
+    @Modifying
+    @Transactional
+    @Query("update OutboxMessage o set o.parkedAt = null, o.nextAttemptAt = null, o.attempts = 0 where o.parkedAt is not null")
+    int requeueParked();
+
+    @Modifying
+    @Transactional
+    @Query("update OutboxMessage o set o.parkedAt = null, o.nextAttemptAt = null, o.attempts = 0 where o.parkedAt is not null and o.id = :id")
+    int requeueParked(@Param("id") Integer id);
+}
@@ -0,0 +1,23 @@
+package ar.edu.uade.core.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import ar.edu.uade.core.model.PayloadBlob;
+
+@Repository
+public interface PayloadBlobRepository extends JpaRepository<PayloadBlob, Long>{
+
+    // solo [id, hash]: resolver referencias sin leer el contenido
+    @Query("select b.id, b.hash from PayloadBlob b where b.hash in :hashes")
+    List<Object[]> findIdsByHashIn(@Param("hashes") Collection<String> hashes);
+
+    // [id, content] ya decodificado por PayloadCodec
+    @Query("select b.id, b.content from PayloadBlob b where b.id in :ids")
+    List<Object[]> findContentsByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,60 @@
+package ar.edu.uade.core.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.QueryHint;
+
+import ar.edu.uade.core.model.QueueMessage;
+
+// Vista polimórfica de queue_message: devuelve LiveMessage, RetryMessage o DeadLetterMessage según state
+@Repository
+public interface QueueMessageRepository extends JpaRepository<QueueMessage, Integer>{
+
+    // solo el id: ubicar la fila sin cargarla en el contexto (la carga real la hace findById o lockById)
+    @Query("select max(q.id) from QueueMessage q where q.eventId = :eventId")
+    Optional<Integer> findLatestIdByEventId(@Param("eventId") Integer eventId);
+
+    // SELECT ... FOR UPDATE SKIP LOCKED: vacío si la fila no existe o si otra transacción (de este u otro nodo) la tiene tomada.
+    // Nativa como lockDueRetries; state (discriminador) decide si vuelve LiveMessage, RetryMessage o DeadLetterMessage
+    @Query(value = "SELECT * FROM queue_message WHERE id = :id FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<QueueMessage> lockById(@Param("id") Integer id);
+
+    // consumo nuevo: contador +1 y OR del bit del módulo, atómico en la fila
+    // (si la fila está tomada espera al commit del otro); no limpia el contexto.
+    // bitor lo traduce el dialecto (| en MySQL)
+    @Modifying(flushAutomatically = true)
+    @Query("update QueueMessage q set q.consumerCount = q.consumerCount + 1, q.consumedMask = bitor(q.consumedMask, cast(:bit as Long)) "
+            + "where q.id = :id")
+    int markConsumed(@Param("id") Integer id, @Param("bit") long moduleBit);
+
+    // lectura después del propio UPDATE: incluye los bits ya confirmados por otras transacciones
+    @Query(value = "SELECT consumed_mask FROM queue_message WHERE id = :id", nativeQuery = true)
+    Optional<Long> findConsumedMask(@Param("id") Integer id);
+
+    // lote de ACKs, después del batch de INSERT IGNORE: OR de los bits nuevos y contador recontado desde
+    // message_consumption (exacto aunque otro ACK del mismo módulo entre en paralelo). Un UPDATE por combinación de bits.
+    @Modifying(flushAutomatically = true)
+    @Query("update QueueMessage q set q.consumerCount = cast((select count(c) from MessageConsumption c where c.eventId = q.eventId) as Integer), "
+            + "q.consumedMask = bitor(q.consumedMask, cast(:bits as Long)) where q.id in :ids")
+    int syncConsumed(@Param("ids") Collection<Integer> ids, @Param("bits") long moduleBits);
+
+    // [id, consumed_mask] de varias filas en una consulta
+    @Query(value = "SELECT id, consumed_mask FROM queue_message WHERE id IN (:ids)", nativeQuery = true)
+    List<Object[]> findConsumedMasks(@Param("ids") Collection<Integer> ids);
+
+    // [id, event_id, state, original_live_id] de toda la cola, para reconstruir MessageLocationIndex al arrancar
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(value = "SELECT id, event_id, state, original_live_id FROM queue_message ORDER BY id", nativeQuery = true)
+    Stream<Object[]> streamLocations();
+}
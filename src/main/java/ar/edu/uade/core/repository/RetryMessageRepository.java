@@ -1,14 +1,93 @@
 package ar.edu.uade.core.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import ar.edu.uade.core.model.RetryDeadline;
 import ar.edu.uade.core.model.RetryMessage;
+import ar.edu.uade.core.model.RetryMessageView;
 
 @Repository
 public interface RetryMessageRepository extends JpaRepository<RetryMessage, Integer>{
+    // retry/dead no guardan el módulo de origen: el filtro origin se resuelve contra event
+    @Query("select new ar.edu.uade.core.model.RetryMessageView(r.id, r.eventId, r.type, r.originalLiveId, r.attempts, r.maxAttempts, "
+            + "r.ttlSeconds, r.createdAt, r.nextAttemptAt, r.consumerModule, r.payloadBlob.id) from RetryMessage r "
+            + "where r.id > :after and (:type is null or r.type = :type) "
+            + "and (:origin is null or exists (select 1 from Event e where e.id = r.eventId and e.originModule = :origin)) "
+            + "and (:from is null or r.createdAt >= :from) and (:to is null or r.createdAt < :to) order by r.id")
+    List<RetryMessageView> findViews(@Param("after") int after, @Param("type") String type, @Param("origin") String origin,
+                                     @Param("from") LocalDateTime from, @Param("to") LocalDateTime to, Limit limit);
     Optional<RetryMessage> findByEventId(Integer eventId);
     Optional<RetryMessage> findByOriginalLiveId(Integer originalLiveId);
+
+    // vencimientos sin payload: carga inicial de RetryTimer y revalidación de las filas que vencen
+    @Query("select new ar.edu.uade.core.model.RetryDeadline(r.id, r.eventId, r.attempts, r.maxAttempts, r.createdAt, r.ttlSeconds) "
+            + "from RetryMessage r")
+    List<RetryDeadline> findAllDeadlines();
+
+    @Query("select new ar.edu.uade.core.model.RetryDeadline(r.id, r.eventId, r.attempts, r.maxAttempts, r.createdAt, r.ttlSeconds) "
+            + "from RetryMessage r where r.id in :ids")
+    List<RetryDeadline> findDeadlines(@Param("ids") Collection<Integer> ids);
+
+    // tramo del barrido: (id, event_id) de retries vencidos por idx_queue_message_state_expires, sin payload.
+    // SKIP LOCKED: una fila tomada por un ACK en curso queda para el próximo barrido o para RetryTimer
+    @Query(value = "SELECT id, event_id FROM queue_message WHERE state = 'RETRY' AND expires_at < :now "
+            + "ORDER BY expires_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Object[]> lockDueRetries(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // reentregas pendientes: next_attempt_at vencido, con reentregas disponibles y sin vencer (expires_at, V11).
+    // Columnas en el orden de RetryDelivery.of; el módulo de origen sale de event
+    @Query(value = "SELECT q.id, q.event_id, q.type, q.payload_id, q.redeliveries, q.consumer_module, e.origin_module "
+            + "FROM queue_message q LEFT JOIN event e ON e.id = q.event_id "
+            + "WHERE q.state = 'RETRY' AND q.next_attempt_at <= :now AND q.redeliveries < q.max_attempts "
+            + "AND (q.expires_at IS NULL OR q.expires_at >= :now) ORDER BY q.next_attempt_at LIMIT :limit", nativeQuery = true)
+    List<Object[]> findDueRedeliveries(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // reentregas confirmadas por el broker con el mismo número de reentrega: una sola vez por fila
+    // (si otro poll ya la contó, redeliveries ya no coincide) y solo si sigue en RETRY
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE queue_message SET redeliveries = :redeliveries, next_attempt_at = :next "
+            + "WHERE id IN (:ids) AND state = 'RETRY' AND redeliveries = :redeliveries - 1", nativeQuery = true)
+    int markRedelivered(@Param("ids") Collection<Integer> ids, @Param("redeliveries") int redeliveries,
+                        @Param("next") LocalDateTime nextAttemptAt);
+
+    // reentregas que el broker no confirmó: no cuentan, pero no vuelven a salir hasta 'next'
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE queue_message SET next_attempt_at = :next "
+            + "WHERE id IN (:ids) AND state = 'RETRY' AND redeliveries = :redeliveries", nativeQuery = true)
+    int deferRedelivery(@Param("ids") Collection<Integer> ids, @Param("redeliveries") int redeliveries,
+                        @Param("next") LocalDateTime nextAttemptAt);
+
+    @Query("select max(r.id) from RetryMessage r where r.originalLiveId = :liveId")
+    Optional<Integer> findIdByOriginalLiveId(@Param("liveId") Integer originalLiveId);
+
+    // LIVE -> RETRY sobre la misma fila (retry.id = id del live). Devuelve 0 si la fila ya no estaba en LIVE.
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE queue_message SET state = 'RETRY', original_live_id = id, attempts = :#{#r.attempts}, "
+            + "max_attempts = :#{#r.maxAttempts}, ttl_seconds = :#{#r.ttlSeconds}, created_at = :#{#r.createdAt}, "
+            + "next_attempt_at = :#{#r.nextAttemptAt}, consumer_module = :#{#r.consumerModule} "
+            + "WHERE id = :#{#r.id} AND state = 'LIVE'", nativeQuery = true)
+    int markRetry(@Param("r") RetryMessage retry);
+
+    // markRetry para varias filas con los mismos valores de retry (lote de ACKs de fallo del mismo módulo)
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE queue_message SET state = 'RETRY', original_live_id = id, attempts = :#{#r.attempts}, "
+            + "max_attempts = :#{#r.maxAttempts}, ttl_seconds = :#{#r.ttlSeconds}, created_at = :#{#r.createdAt}, "
+            + "next_attempt_at = :#{#r.nextAttemptAt}, consumer_module = :#{#r.consumerModule} "
+            + "WHERE id IN (:ids) AND state = 'LIVE'", nativeQuery = true)
+    int markRetryAll(@Param("ids") Collection<Integer> ids, @Param("r") RetryMessage template);
 }
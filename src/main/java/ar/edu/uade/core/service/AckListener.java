@@ -0,0 +1,59 @@
+package ar.edu.uade.core.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import ar.edu.uade.core.model.AckBatchItemResult;
+import ar.edu.uade.core.model.EventAckEntity;
+
+/**
+ * Consume los ACKs del tópico app.kafka.ack.topic en lotes: cada poll se procesa con handleAcknowledgements
+ * (una transacción por poll, misma semántica que POST /core/acks:batch) y los offsets se confirman recién
+ * cuando la transacción ya se confirmó. Si la DB falla no se confirma nada y el contenedor reintenta el poll
+ * entero; los ACKs que se repitan se descartan contra event_acks.
+ */
+@Component
+public class AckListener {
+
+    private static final Logger log = LoggerFactory.getLogger(AckListener.class);
+
+    @Autowired
+    private KafkaMockService kafkaMockService;
+
+    // max.poll.records = tamaño máximo de lote de ACKs: un poll nunca supera lo que acepta handleAcknowledgements.
+    // Los ACKs de los consumidores no traen headers de tipo: se deserializan siempre como EventAckEntity.
+    @KafkaListener(id = "core-ack-listener", topics = "${app.kafka.ack.topic:core.acks}",
+            autoStartup = "${app.kafka.ack.enabled:false}", batch = "true",
+            properties = {
+                    "enable.auto.commit=false",
+                    "max.poll.records=${app.acks.batch.max-size:1000}",
+                    "spring.json.use.type.headers=false",
+                    "spring.json.value.default.type=ar.edu.uade.core.model.EventAckEntity"
+            })
+    public void onAcks(List<ConsumerRecord<String, EventAckEntity>> records, Acknowledgment acknowledgment){
+        List<EventAckEntity> acks = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, EventAckEntity> r : records) {
+            // valor null: el ErrorHandlingDeserializer no pudo leer el registro, no hay nada que reintentar
+            if (r.value() == null) {
+                log.warn("[Core][Ack] Registro ilegible en {}-{}@{}, se descarta", r.topic(), r.partition(), r.offset());
+                continue;
+            }
+            acks.add(r.value());
+        }
+        if (!acks.isEmpty()) {
+            List<AckBatchItemResult> results = kafkaMockService.handleAcknowledgements(acks);
+            long rejected = results.stream().filter(x -> x.getStatus() == AckBatchItemResult.Status.REJECTED).count();
+            if (rejected > 0) log.warn("[Core][Ack] {} de {} ACKs del poll rechazados", rejected, acks.size());
+        }
+        // handleAcknowledgements ya confirmó su transacción: recién ahora se avanzan los offsets
+        acknowledgment.acknowledge();
+    }
+}
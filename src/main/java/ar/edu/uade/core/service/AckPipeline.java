@@ -0,0 +1,353 @@
+package ar.edu.uade.core.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import ar.edu.uade.core.model.AckInboxMessage;
+import ar.edu.uade.core.model.AckLaneStats;
+import ar.edu.uade.core.model.EventAckEntity;
+import ar.edu.uade.core.repository.AckInboxRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * ACKs de POST /core/ack en segundo plano. Cada ACK se guarda en ack_inbox (eso es lo que se confirma al cliente)
+ * y se encola en la línea eventId mod N: cada línea es un único hilo, así los ACKs de un evento se aplican en
+ * orden sin locks. El hilo junta lo que haya en su cola (hasta app.acks.batch.max-size) y lo aplica como un
+ * lote con handleQueuedAcknowledgements, que borra las filas de ack_inbox en la misma transacción.
+ * Cada fila tiene dueña (claimed_by): la réplica que la aceptó. Cada rescan-interval-ms la dueña renueva sus filas y
+ * toma, con SKIP LOCKED y de a lotes, las libres (lotes que agotaron los reintentos, apagados) o con claim de más de
+ * claim-timeout-ms (réplica caída). Así ninguna réplica carga la tabla entera ni encola filas que otra está procesando.
+ * Un lote que agota los reintentos se libera y sus eventos quedan bloqueados en la línea: los ACKs nuevos de esos
+ * eventos también vuelven libres a ack_inbox, detrás de los fallidos, y el barrido los toma en orden de id. El bloqueo
+ * se levanta cuando ningún ACK del evento queda fuera de la cola de esta réplica.
+ */
+@Component
+public class AckPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(AckPipeline.class);
+    private static final long POLL_TIMEOUT_MS = 200;
+    private static final long STOP_TIMEOUT_MS = 5000;
+
+    @Autowired
+    private KafkaMockService kafkaMockService;
+
+    @Autowired
+    private AckInboxRepository ackInboxRepository;
+
+    @Autowired
+    private SchedulerLease schedulerLease;
+
+    @Value("${app.acks.pipeline.enabled:true}")
+    private boolean enabled;
+    @Value("${app.acks.pipeline.lanes:4}")
+    private int laneCount;
+    // ACKs encolados por línea a partir de los cuales /core/ack responde 503
+    @Value("${app.acks.pipeline.lane-capacity:10000}")
+    private int laneCapacity;
+    @Value("${app.acks.batch.max-size:1000}")
+    private int maxBatchSize;
+    @Value("${app.acks.pipeline.max-retries:5}")
+    private int maxRetries;
+    @Value("${app.acks.pipeline.retry-backoff-ms:500}")
+    private long retryBackoffMs;
+    // sin renovar en este tiempo, las filas de otra réplica se consideran abandonadas
+    @Value("${app.acks.pipeline.claim-timeout-ms:120000}")
+    private long claimTimeoutMs;
+    @Value("${app.acks.pipeline.rescan-interval-ms:30000}")
+    private long rescanIntervalMs;
+
+    private Lane[] lanes = new Lane[0];
+    private volatile boolean running;
+    // filas que no se pudieron liberar (sin DB): se liberan en el próximo barrido, antes de renovar los claims
+    private final ConcurrentLinkedQueue<Long> unreleased = new ConcurrentLinkedQueue<>();
+
+    public boolean isEnabled(){
+        return enabled;
+    }
+
+    // las líneas se arman y toman lo que haya libre en ack_inbox antes de que el servidor web acepte pedidos
+    @PostConstruct
+    void init(){
+        if (!enabled) return;
+        lanes = new Lane[Math.max(1, laneCount)];
+        for (int i = 0; i < lanes.length; i++) lanes[i] = new Lane(i);
+        claimPending();
+    }
+
+    @Scheduled(fixedDelayString = "${app.acks.pipeline.rescan-interval-ms:30000}", initialDelayString = "${app.acks.pipeline.rescan-interval-ms:30000}")
+    public void rescan(){
+        if (!enabled || lanes.length == 0) return;
+        try {
+            releaseUnreleased();
+            ackInboxRepository.renewClaims(schedulerLease.owner());
+        } catch (RuntimeException e) {
+            log.warn("[Core][AckPipeline] No se pudieron liberar o renovar las filas de ack_inbox: {}", e.toString());
+            return;
+        }
+        claimPending();
+    }
+
+    // toma filas libres o abandonadas de a lotes de max-size mientras haya lugar en las líneas
+    int claimPending(){
+        int total = 0;
+        try {
+            while (true) {
+                int room = freeCapacity();
+                if (room <= 0) break;
+                int limit = Math.min(Math.max(1, maxBatchSize), room);
+                List<AckInboxMessage> claimed = kafkaMockService.claimInboxAcks(schedulerLease.owner(), claimTimeoutMs, limit);
+                long now = System.nanoTime();
+                for (AckInboxMessage m : claimed) laneFor(m.getEventId()).queue.add(new Pending(m, now, true));
+                total += claimed.size();
+                if (claimed.size() < limit) break;
+            }
+        } catch (RuntimeException e) {
+            log.warn("[Core][AckPipeline] No se pudo barrer ack_inbox: {}", e.toString());
+        }
+        if (total > 0) log.info("[Core][AckPipeline] {} ACKs pendientes de ack_inbox tomados y encolados", total);
+        return total;
+    }
+
+    private int freeCapacity(){
+        long free = 0;
+        for (Lane lane : lanes) free += Math.max(0, laneCapacity - lane.queue.size());
+        return (int) Math.min(Integer.MAX_VALUE, free);
+    }
+
+    // después de cargar el índice y el registro de módulos (KafkaMockService, HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public synchronized void start(){
+        if (!enabled || running) return;
+        running = true;
+        for (Lane lane : lanes) {
+            lane.thread = new Thread(() -> runLane(lane), "ack-lane-" + lane.index);
+            lane.thread.setDaemon(true);
+            lane.thread.start();
+        }
+        log.info("[Core][AckPipeline] {} líneas activas", lanes.length);
+    }
+
+    // sin interrumpir: el lote en curso termina su transacción; lo que siga en cola queda libre en ack_inbox
+    // para el barrido de otra réplica (o de esta al volver)
+    @PreDestroy
+    public synchronized void stop(){
+        running = false;
+        for (Lane lane : lanes) {
+            if (lane.thread == null) continue;
+            try {
+                lane.thread.join(STOP_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (!enabled || lanes.length == 0) return;
+        try {
+            ackInboxRepository.releaseAll(schedulerLease.owner());
+        } catch (RuntimeException e) {
+            log.warn("[Core][AckPipeline] No se pudieron liberar las filas de ack_inbox: {}", e.toString());
+        }
+    }
+
+    // Guarda el ACK en ack_inbox (commit propio) y lo encola en la línea de su evento
+    public void submit(EventAckEntity ack){
+        Integer eventId = KafkaMockService.parseEventId(ack);
+        if (eventId == null) throw new IllegalArgumentException("eventId inválido");
+        Lane lane = laneFor(eventId);
+        if (lane.queue.size() >= laneCapacity) throw new IllegalStateException("ack lane " + lane.index + " is full");
+
+        AckInboxMessage m = new AckInboxMessage();
+        m.setEventId(eventId);
+        m.setConsumer(ack.getConsumer());
+        m.setStatus(ack.getStatus());
+        m.setReceivedAt(LocalDateTime.now());
+        m.setClaimedBy(schedulerLease.owner());
+        m.setClaimedAt(m.getReceivedAt());
+        ackInboxRepository.save(m);
+        lane.queue.add(new Pending(m, System.nanoTime(), false));
+    }
+
+    public List<AckLaneStats> stats(){
+        List<AckLaneStats> out = new ArrayList<>(lanes.length);
+        for (Lane lane : lanes) out.add(lane.stats());
+        return out;
+    }
+
+    private Lane laneFor(int eventId){
+        return lanes[Math.floorMod(eventId, lanes.length)];
+    }
+
+    private void runLane(Lane lane){
+        List<Pending> batch = new ArrayList<>();
+        while (running) {
+            Pending first;
+            try {
+                first = lane.queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first != null) {
+                batch.clear();
+                batch.add(first);
+                lane.queue.drainTo(batch, Math.max(0, maxBatchSize - 1));
+                process(lane, batch);
+            }
+            if (!lane.blocked.isEmpty() && System.nanoTime() >= lane.nextUnblockCheckNanos) unblock(lane);
+        }
+    }
+
+    // Ante un error se reintenta el mismo lote y la línea espera, así no se adelanta ningún ACK del mismo evento.
+    // Los ACKs recién llegados de un evento bloqueado no se aplican: vuelven libres a ack_inbox detrás de los fallidos
+    void process(Lane lane, List<Pending> batch){
+        List<Pending> apply = batch;
+        if (!lane.blocked.isEmpty()) {
+            apply = new ArrayList<>(batch.size());
+            List<AckInboxMessage> held = new ArrayList<>();
+            boolean reclaimedBlocked = false;
+            for (Pending p : batch) {
+                boolean blocked = lane.blocked.contains(p.message().getEventId());
+                if (blocked && !p.reclaimed()) {
+                    held.add(p.message());
+                } else {
+                    apply.add(p);
+                    reclaimedBlocked |= blocked;
+                }
+            }
+            if (!held.isEmpty()) release(held);
+            // volvieron filas de un evento bloqueado: se revisa enseguida si ya se puede desbloquear
+            if (reclaimedBlocked) lane.nextUnblockCheckNanos = 0;
+            if (apply.isEmpty()) return;
+        }
+        List<AckInboxMessage> queued = apply.stream().map(Pending::message).toList();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                kafkaMockService.handleQueuedAcknowledgements(queued);
+                lane.record(apply, System.nanoTime());
+                return;
+            } catch (RuntimeException e) {
+                if (attempt > maxRetries) {
+                    lane.failed += apply.size();
+                    log.error("[Core][AckPipeline] Línea {}: lote de {} ACKs sin aplicar tras {} intentos, queda libre en ack_inbox "
+                            + "para el próximo barrido y sus eventos se bloquean hasta entonces: {}", lane.index, apply.size(), attempt, e.toString());
+                    giveUp(lane, queued);
+                    return;
+                }
+                log.warn("[Core][AckPipeline] Línea {}: falló el lote de {} ACKs (intento {}): {}", lane.index, apply.size(), attempt, e.toString());
+                try {
+                    Thread.sleep(retryBackoffMs * attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    giveUp(lane, queued);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void giveUp(Lane lane, List<AckInboxMessage> queued){
+        for (AckInboxMessage m : queued) lane.blocked.add(m.getEventId());
+        lane.nextUnblockCheckNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(rescanIntervalMs);
+        release(queued);
+    }
+
+    // desbloquea los eventos sin filas fuera de esta réplica: las que quedaban ya están en la cola, antes que las nuevas
+    void unblock(Lane lane){
+        lane.nextUnblockCheckNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(rescanIntervalMs);
+        try {
+            List<Integer> held = ackInboxRepository.findEventIdsHeldOutside(List.copyOf(lane.blocked), schedulerLease.owner());
+            lane.blocked.retainAll(held);
+        } catch (RuntimeException e) {
+            log.warn("[Core][AckPipeline] Línea {}: no se pudo revisar los eventos bloqueados: {}", lane.index, e.toString());
+        }
+    }
+
+    private void release(List<AckInboxMessage> queued){
+        List<Long> ids = queued.stream().map(AckInboxMessage::getId).toList();
+        try {
+            ackInboxRepository.release(ids, schedulerLease.owner());
+        } catch (RuntimeException e) {
+            // renewClaims las mantendría tomadas: se liberan en el próximo barrido
+            unreleased.addAll(ids);
+            log.warn("[Core][AckPipeline] No se pudieron liberar {} filas de ack_inbox: {}", queued.size(), e.toString());
+        }
+    }
+
+    private void releaseUnreleased(){
+        List<Long> ids = new ArrayList<>();
+        for (Long id; (id = unreleased.poll()) != null; ) ids.add(id);
+        if (ids.isEmpty()) return;
+        try {
+            ackInboxRepository.release(ids, schedulerLease.owner());
+        } catch (RuntimeException e) {
+            unreleased.addAll(ids);
+            throw e;
+        }
+    }
+
+    Lane lane(int index){
+        return lanes[index];
+    }
+
+    // reclaimed: la tomó el barrido de ack_inbox (puede ser de un evento bloqueado que se está reaplicando)
+    record Pending(AckInboxMessage message, long enqueuedNanos, boolean reclaimed) {}
+
+    // los contadores los escribe solo el hilo de la línea; stats() los lee desde otros hilos.
+    // blocked (eventos con un lote fallido todavía en ack_inbox) lo usa solo el hilo de la línea
+    static final class Lane {
+        final int index;
+        final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+        final Set<Integer> blocked = new HashSet<>();
+        long nextUnblockCheckNanos;
+        Thread thread;
+        volatile long processed;
+        volatile long batches;
+        volatile long failed;
+        volatile long totalLatencyNanos;
+        volatile long maxLatencyNanos;
+
+        Lane(int index){
+            this.index = index;
+        }
+
+        void record(List<Pending> batch, long now){
+            long total = totalLatencyNanos;
+            long max = maxLatencyNanos;
+            for (Pending p : batch) {
+                long latency = now - p.enqueuedNanos();
+                total += latency;
+                if (latency > max) max = latency;
+            }
+            totalLatencyNanos = total;
+            maxLatencyNanos = max;
+            processed += batch.size();
+            batches++;
+        }
+
+        AckLaneStats stats(){
+            long n = processed;
+            double avgMs = n == 0 ? 0.0 : totalLatencyNanos / (double) n / 1_000_000.0;
+            return new AckLaneStats(index, queue.size(), n, batches, failed, avgMs, maxLatencyNanos / 1_000_000.0);
+        }
+    }
+}
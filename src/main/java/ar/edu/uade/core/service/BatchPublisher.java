@@ -0,0 +1,54 @@
+package ar.edu.uade.core.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+// Envío en lote de OutboxRelay y RetryRedelivery: todos los send salen en paralelo, un único flush del productor
+// y una espera con plazo total timeoutMs (no por registro). Devuelve, en el orden de records, null para lo que el
+// broker confirmó y el error para lo demás (la causa si vino envuelto en ExecutionException).
+final class BatchPublisher {
+
+    private BatchPublisher() { }
+
+    static <V> List<Throwable> publish(KafkaTemplate<String, V> template, List<ProducerRecord<String, V>> records, long timeoutMs){
+        List<CompletableFuture<SendResult<String, V>>> futures = new ArrayList<>(records.size());
+        for (ProducerRecord<String, V> record : records){
+            CompletableFuture<SendResult<String, V>> future;
+            try {
+                future = template.send(record);
+            } catch (Exception ex){
+                future = CompletableFuture.failedFuture(ex);
+            }
+            futures.add(future);
+        }
+        template.flush();
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        List<Throwable> errors = new ArrayList<>(records.size());
+        for (CompletableFuture<SendResult<String, V>> future : futures){
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                errors.add(future.get(remaining, TimeUnit.NANOSECONDS) != null ? null : new IllegalStateException("Envio sin resultado"));
+            } catch (InterruptedException ie){
+                Thread.currentThread().interrupt();
+                errors.add(ie);
+            } catch (ExecutionException ee){
+                errors.add(ee.getCause() != null ? ee.getCause() : ee);
+            } catch (Exception ex){
+                errors.add(ex);
+            }
+        }
+        return errors;
+    }
+
+    static String message(Throwable error){
+        return error.getMessage() != null ? error.getMessage() : error.toString();
+    }
+}
@@ -0,0 +1,231 @@
+package ar.edu.uade.core.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+
+// Tabla de ruteo de docs/topics.md: tipo de evento -> tópico <dominio>.<accion> -> módulos consumidores esperados.
+// El archivo (app.routing.location) se compila en un mapa inmutable cuyas claves son el tipo tal cual, el tipo
+// normalizado (trim + minúsculas) y el nombre del tópico: el caso común es un get, sin copiar ni recorrer el string.
+// Un tipo que no está en la tabla cae en las reglas por palabra clave de siempre y el resultado se memoiza (acotado).
+// Si la ubicación es un archivo, se recarga en caliente cuando cambia su fecha de modificación (y se publica RoutesReloaded).
+// Con el registro de módulos cargado (KafkaMockService), una tabla que nombra un consumidor que no está en consumer_module
+// se rechaza: si no, cada ingesta de esos tipos fallaría al armar la máscara de esperados.
+@Component
+public class EventRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(EventRouter.class);
+
+    static final String BUILT_IN_LOCATION = "classpath:routing/event-routes.json";
+
+    // topic es null para tipos fuera de la tabla; domain es el prefijo <dominio> (o null si no se puede inferir);
+    // partitions 0 = las del default de app.kafka.topic.partitions
+    public record Route(String topic, String domain, List<String> consumers, int partitions) { }
+
+    // rutas de la tabla recién cargada (una por tópico)
+    public record RoutesReloaded(List<Route> routes) { }
+
+    static final Route UNROUTED = new Route(null, null, List.of(), 0);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Value("${app.routing.location:" + BUILT_IN_LOCATION + "}")
+    private String location = BUILT_IN_LOCATION;
+
+    @Value("${app.routing.memo-size:1024}")
+    private int memoSize = 1024;
+
+    // tabla + memo se reemplazan juntos: un memo nunca guarda resultados de una tabla vieja
+    private volatile Compiled current;
+    private volatile long loadedLastModified;
+
+    @Autowired(required = false)
+    private ApplicationEventPublisher eventPublisher;
+
+    // null hasta que KafkaMockService carga consumer_module; mientras tanto no se validan los consumidores
+    private volatile ModuleRegistry moduleRegistry;
+
+    private record Compiled(Map<String, Route> byType, List<Route> routes, ConcurrentHashMap<String, Route> memo) { }
+
+    // formato del archivo de rutas
+    record RouteFile(List<RouteEntry> routes) { }
+
+    record RouteEntry(String topic, List<String> types, List<String> consumers, Integer partitions) { }
+
+    public EventRouter() {
+        current = compile(read(new DefaultResourceLoader().getResource(BUILT_IN_LOCATION)));
+    }
+
+    @PostConstruct
+    void init() {
+        if (!BUILT_IN_LOCATION.equals(location)) reload();
+    }
+
+    public Route route(String type){
+        if (type == null) return UNROUTED;
+        Compiled c = current;
+        Route r = c.byType.get(type);
+        if (r == null) r = c.memo.get(type);
+        return r != null ? r : resolveSlow(c, type);
+    }
+
+    public List<String> expectedConsumers(String type){
+        return route(type).consumers();
+    }
+
+    public List<Route> routes(){
+        return current.routes;
+    }
+
+    // valida la tabla actual contra el registro y lo usa para validar las recargas siguientes
+    public synchronized void useModuleRegistry(ModuleRegistry registry){
+        checkConsumers(current.routes, registry);
+        moduleRegistry = registry;
+    }
+
+    // vuelve a leer y compilar la tabla; si el archivo no es válido se lanza la excepción y queda la tabla anterior
+    public synchronized int reload(){
+        Resource resource = new DefaultResourceLoader().getResource(location);
+        long modified = lastModified(resource);
+        Compiled compiled = compile(read(resource));
+        checkConsumers(compiled.routes, moduleRegistry);
+        current = compiled;
+        loadedLastModified = modified;
+        log.info("[Core] Tabla de ruteo cargada desde {}: {} claves", location, compiled.byType.size());
+        if (eventPublisher != null) eventPublisher.publishEvent(new RoutesReloaded(compiled.routes));
+        return compiled.byType.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.routing.reload-interval-ms:10000}")
+    public void reloadIfChanged(){
+        Resource resource = new DefaultResourceLoader().getResource(location);
+        // dentro del jar el classpath no cambia
+        if (!resource.isFile()) return;
+        try {
+            if (lastModified(resource) != loadedLastModified) reload();
+        } catch (RuntimeException e) {
+            log.error("[Core] No se pudo recargar la tabla de ruteo {}: {}. Se mantiene la anterior.", location, e.getMessage());
+        }
+    }
+
+    private static void checkConsumers(List<Route> routes, ModuleRegistry registry){
+        if (registry == null) return;
+        List<String> unknown = new ArrayList<>();
+        for (Route r : routes) {
+            for (String c : r.consumers()) {
+                if (registry.bitOf(c) == 0L) unknown.add(r.topic() + " -> " + c);
+            }
+        }
+        if (!unknown.isEmpty()) throw new IllegalStateException("Consumidores no registrados en consumer_module: " + unknown);
+    }
+
+    private Route resolveSlow(Compiled c, String type){
+        String key = normalize(type);
+        Route r = c.byType.get(key);
+        if (r == null) r = fallback(key);
+        // los tipos los manda el cliente: si el memo se llena se empieza de nuevo en lugar de crecer sin límite
+        if (c.memo.size() >= memoSize) c.memo.clear();
+        c.memo.put(type, r);
+        return r;
+    }
+
+    static String normalize(String type){
+        return type.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // reglas por palabra clave para tipos que no están en la tabla (mismo criterio que antes de la tabla)
+    static Route fallback(String key){
+        int dot = key.indexOf('.');
+        String domain = dot > 0 ? key.substring(0, dot) : null;
+        return new Route(null, domain, fallbackConsumers(key), 0);
+    }
+
+    private static List<String> fallbackConsumers(String type){
+        if (type.contains("stock") || type.contains("producto") || type.contains("marca") || type.contains("categoría")) {
+            return List.of("ventas", "analitica");
+        }
+        if (type.contains("pendiente")) {
+            return List.of("inventario");
+        }
+        if (type.contains("confirmada")) {
+            return List.of("inventario", "analitica");
+        }
+        if (type.contains("cancelada") || type.contains("rollback")) {
+            return List.of("inventario");
+        }
+        if (type.contains("review") || type.contains("favorito") || type.contains("vista")) {
+            return List.of("analitica");
+        }
+        if (type.contains("batch")) {
+            return List.of("ventas", "analitica");
+        }
+        return List.of(); // por defecto, ninguno
+    }
+
+    private RouteFile read(Resource resource){
+        try (InputStream in = resource.getInputStream()) {
+            return MAPPER.readValue(in, RouteFile.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo leer la tabla de ruteo " + resource.getDescription() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static long lastModified(Resource resource){
+        try {
+            return resource.isFile() ? resource.lastModified() : 0L;
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private static Compiled compile(RouteFile file){
+        if (file == null || file.routes() == null) throw new IllegalStateException("La tabla de ruteo no tiene 'routes'");
+        Map<String, Route> byType = new HashMap<>();
+        List<Route> routes = new ArrayList<>(file.routes().size());
+        for (RouteEntry e : file.routes()) {
+            String topic = e.topic() == null ? "" : e.topic().trim();
+            int dot = topic.indexOf('.');
+            if (dot <= 0 || dot == topic.length() - 1) {
+                throw new IllegalStateException("Tópico inválido en la tabla de ruteo (se espera <dominio>.<accion>): '" + e.topic() + "'");
+            }
+            int partitions = e.partitions() == null ? 0 : e.partitions();
+            if (partitions < 0) throw new IllegalStateException("partitions inválido para " + topic + ": " + partitions);
+            Route route = new Route(topic, topic.substring(0, dot), e.consumers() == null ? List.of() : List.copyOf(e.consumers()), partitions);
+            put(byType, topic, route);
+            routes.add(route);
+            if (e.types() != null) {
+                for (String type : e.types()) if (type != null) put(byType, type, route);
+            }
+        }
+        return new Compiled(Map.copyOf(byType), List.copyOf(routes), new ConcurrentHashMap<>());
+    }
+
+    // cada tipo se indexa tal cual y normalizado
+    private static void put(Map<String, Route> byType, String type, Route route){
+        for (String key : new String[]{type, normalize(type)}) {
+            Route previous = byType.putIfAbsent(key, route);
+            if (previous != null && previous != route) {
+                throw new IllegalStateException("Tipo '" + key + "' ruteado a " + previous.topic() + " y a " + route.topic());
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ar.edu.uade.core.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.support.JacksonUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import ar.edu.uade.core.model.MessageConsumption;
+import ar.edu.uade.core.repository.DeadLetterRepository;
+import ar.edu.uade.core.repository.EventRepository;
+import ar.edu.uade.core.repository.MessageConsumptionRepository;
+import jakarta.persistence.EntityManager;
+
+// Export NDJSON (un objeto JSON por línea) recorriendo un cursor de la DB: cada fila se escribe y se suelta,
+// así el heap no depende del tamaño de la tabla. La transacción (y la conexión) queda abierta mientras dura el export.
+@Service
+public class ExportService {
+
+    // cada cuántas filas se empuja el buffer al cliente
+    static final int FLUSH_EVERY = 500;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private DeadLetterRepository deadLetterRepository;
+
+    @Autowired
+    private MessageConsumptionRepository consumptionRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private final ObjectMapper mapper = JacksonUtils.enhancedObjectMapper()
+            .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false)
+            .configure(SerializationFeature.FLUSH_AFTER_WRITE_VALUE, false);
+
+    @Transactional(readOnly = true)
+    public long exportEvents(OutputStream out, int after) throws IOException {
+        try (Stream<?> rows = eventRepository.streamExport(after)) {
+            return write(rows, out, row -> { });
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public long exportDeadLetters(OutputStream out, int after) throws IOException {
+        try (Stream<?> rows = deadLetterRepository.streamExport(after)) {
+            return write(rows, out, row -> { });
+        }
+    }
+
+    // consumos se leen como entidades read-only: se desasocian apenas se escriben
+    @Transactional(readOnly = true)
+    public long exportConsumptions(OutputStream out, int after) throws IOException {
+        try (Stream<MessageConsumption> rows = consumptionRepository.streamExport(after)) {
+            return write(rows, out, entityManager::detach);
+        }
+    }
+
+    private <T> long write(Stream<T> rows, OutputStream out, Consumer<T> afterWrite) throws IOException {
+        long[] count = {0};
+        try (JsonGenerator gen = mapper.getFactory().createGenerator(out)) {
+            gen.setRootValueSeparator(null);
+            rows.forEach(row -> {
+                try {
+                    mapper.writeValue(gen, row);
+                    gen.writeRaw('\n');
+                    afterWrite.accept(row);
+                    if (++count[0] % FLUSH_EVERY == 0) gen.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return count[0];
+    }
+}
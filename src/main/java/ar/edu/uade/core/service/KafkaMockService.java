@@ -1,33 +1,56 @@
 package ar.edu.uade.core.service;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import ar.edu.uade.core.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.JacksonUtils;
 import org.springframework.kafka.support.SendResult;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import ar.edu.uade.core.repository.AckInboxRepository;
+import ar.edu.uade.core.repository.ConsumerModuleRepository;
 import ar.edu.uade.core.repository.DeadLetterRepository;
+import ar.edu.uade.core.repository.EventAckRepository;
 import ar.edu.uade.core.repository.EventRepository;
 import ar.edu.uade.core.repository.LiveMessageRepository;
 import ar.edu.uade.core.repository.MessageConsumptionRepository;
+import ar.edu.uade.core.repository.OutboxRepository;
+import ar.edu.uade.core.repository.QueueMessageRepository;
 import ar.edu.uade.core.repository.RetryMessageRepository;
 
 import jakarta.transaction.Transactional;
@@ -49,21 +72,65 @@ public class KafkaMockService {
     @Autowired
     private DeadLetterRepository deadLetterRepository;
 
+    @Autowired
+    private QueueMessageRepository queueMessageRepository;
+
     @Autowired
     private MessageConsumptionRepository consumptionRepository;
 
+    @Autowired
+    private EventAckRepository eventAckRepository;
+
+    @Autowired
+    private AckInboxRepository ackInboxRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
     @Autowired
     private KafkaTemplate<String, Object> kafkaTemplate;
 
     @Autowired
     private TopicResolver topicResolver;
 
+    @Autowired
+    private EventRouter eventRouter;
+
+    @Autowired
+    private RetryPolicies retryPolicies;
+
+    @Autowired
+    private PayloadStore payloadStore;
+
+    @Autowired
+    private ConsumerModuleRepository consumerModuleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
+    // mismo mapper que usa JsonSerializer del productor, para que el envelope de la outbox sea idéntico
+    private final ObjectMapper envelopeMapper = JacksonUtils.enhancedObjectMapper();
 
-    private final int defaultMaxAttempts = 3;
-    private final long defaultRetryDelaySeconds = 30;
-    private final long defaultTtlSeconds = 60 * 60;
     private final int distinctConsumptionThreshold = 2;
+    private static final String STATE_CHANGED = "Message state changed concurrently";
+    private static final String INSERT_CONSUMPTION_SQL =
+            "INSERT IGNORE INTO message_consumption (event_id, live_message_id, module_name, consumed_at) VALUES (?, ?, ?, ?)";
+    private static final String UPSERT_ACK_SQL =
+            "INSERT INTO event_acks (event_id, consumer, status, first_seen_at, last_seen_at, attempts) VALUES (?, ?, ?, ?, ?, 1) "
+                    + "ON DUPLICATE KEY UPDATE attempts = attempts + 1, last_seen_at = VALUES(last_seen_at), status = VALUES(status)";
+    // largos de event_acks.consumer / event_acks.status
+    private static final int ACK_CONSUMER_LENGTH = 64;
+    private static final int ACK_STATUS_LENGTH = 32;
+    static final String MESSAGE_BUSY = "Message is being processed by another consumer";
+
+    // eventId / id de fila -> ubicación en queue_message; se actualiza al confirmar cada transición
+    private final MessageLocationIndex locationIndex = new MessageLocationIndex();
+    // vencimiento (TTL o intentos agotados) de cada fila en RETRY; lo consume RetryExpiryWorker
+    private final RetryTimer retryTimer = new RetryTimer();
+
+    // módulo consumidor -> bit de expected_mask / consumed_mask; se carga de consumer_module al arrancar
+    private final ModuleRegistry moduleRegistry = new ModuleRegistry();
 
     // Config reintentos de envío a Kafka (fail-fast)
     @Value("${app.kafka.send.max-attempts:3}")
@@ -73,52 +140,189 @@ public class KafkaMockService {
     @Value("${app.kafka.send.timeout-ms:5000}")
     private long sendTimeoutMs;
 
+    @Value("${app.events.batch.max-size:500}")
+    private int batchMaxSize;
+
+    @Value("${app.acks.batch.max-size:1000}")
+    private int ackBatchMaxSize;
+
+    // Outbox: si está activa, /events solo escribe en DB y OutboxRelay publica en segundo plano
+    @Value("${app.kafka.outbox.enabled:true}")
+    private boolean outboxEnabled;
+
     // ----------------- event & live creation (from middleware) -----------------
-    private Event persistEvent(String type, String payload, String originModule, LocalDateTime ts) {
+    private Event newEvent(String type, String payload, String originModule, LocalDateTime ts) {
         Event event = new Event();
         event.setType(type);
         event.setPayload(payload);
         event.setOriginModule(originModule);
         event.setTimestamp(ts != null ? ts : LocalDateTime.now());
-        return eventRepository.save(event);
+        return event;
     }
 
-    public Event ingestEvent(EventRequest req){
-        if (req == null) throw new IllegalArgumentException("Request is null");
-        if (req.getType() == null || req.getType().isBlank()) throw new IllegalArgumentException("type is required");
-        if (req.getOriginModule() == null || req.getOriginModule().isBlank()) throw new IllegalArgumentException("originModule is required");
-        String payloadJson;
-        try {
-            payloadJson = objectMapper.writeValueAsString(req.getPayload());
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException("Error serializando payload", e);
-        }
-        Event event = persistEvent(req.getType(), payloadJson, req.getOriginModule(), req.getTimestamp());
-
-        // crear live message para seguimiento interno
+    private LiveMessage newLiveMessage(Event event) {
         LiveMessage lm = new LiveMessage();
         lm.setEventId(event.getId());
         lm.setType(event.getType());
+        lm.setPayloadBlob(event.getPayloadBlob());
         lm.setPayload(event.getPayload());
         lm.setTimestamp(event.getTimestamp());
         lm.setOriginModule(event.getOriginModule());
-        liveMessageRepository.save(lm);
+        lm.setExpectedMask(expectedMask(event.getType()));
+        return lm;
+    }
 
-        // publicar en Kafka con envelope estandarizado
-        String topic = topicResolver.resolveTopic(req.getType(), req.getOriginModule());
-        EventMessage msg = new EventMessage(
+    private EventMessage newEventMessage(EventRequest req) {
+        return new EventMessage(
                 UUID.randomUUID().toString(),
                 req.getType(), // eventType mantiene el tipo original
                 OffsetDateTime.now(ZoneOffset.UTC),
                 req.getOriginModule(),
                 req.getPayload()
         );
+    }
+
+    private void validateRequest(EventRequest req) {
+        if (req == null) throw new IllegalArgumentException("Request is null");
+        if (req.getType() == null || req.getType().isBlank()) throw new IllegalArgumentException("type is required");
+        if (req.getOriginModule() == null || req.getOriginModule().isBlank()) throw new IllegalArgumentException("originModule is required");
+    }
+
+    private String serializePayload(EventRequest req) {
+        // passthrough: el payload ya viene como texto JSON, no se vuelve a serializar
+        if (req.getPayload() instanceof RawJson raw) return raw.getJson();
+        try {
+            return objectMapper.writeValueAsString(req.getPayload());
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error serializando payload", e);
+        }
+    }
+
+    @Transactional
+    public Event ingestEvent(EventRequest req){
+        validateRequest(req);
+        String payloadJson = serializePayload(req);
+        Event event = newEvent(req.getType(), payloadJson, req.getOriginModule(), req.getTimestamp());
+        event.setPayloadBlob(payloadStore.intern(payloadJson));
+        event = eventRepository.save(event);
+
+        // crear live message para seguimiento interno
+        LiveMessage live = newLiveMessage(event);
+        liveMessageRepository.save(live);
+        indexAfterCommit(live, MessageLocationIndex.State.LIVE);
+
+        // publicar en Kafka con envelope estandarizado
+        String topic = topicResolver.resolveTopic(req.getType(), req.getOriginModule());
+        EventMessage msg = newEventMessage(req);
+        if (outboxEnabled) {
+            // se publica al confirmar la transacción, vía OutboxRelay
+            outboxRepository.save(newOutboxMessage(event.getId(), topic, msg));
+            log.info("Event {} encolado en outbox para topic {} (msgId={})", event.getId(), topic, msg.getEventId());
+            return event;
+        }
         // Envío síncrono con reintentos limitados
         sendToKafkaWithRetries(topic, msg.getEventId(), msg);
         log.info("Event {} publicado en topic {} (msgId={})", event.getId(), topic, msg.getEventId());
         return event;
     }
 
+    // Ingesta por lotes: valida todo, inserta event/live con saveAll y publica sin bloquear por mensaje.
+    // Los items inválidos se rechazan individualmente sin afectar al resto del lote.
+    @Transactional
+    public List<EventBatchItemResult> ingestEvents(List<EventRequest> requests){
+        if (requests == null || requests.isEmpty()) throw new IllegalArgumentException("events is empty");
+        if (requests.size() > batchMaxSize) throw new IllegalArgumentException("batch size exceeds " + batchMaxSize);
+
+        EventBatchItemResult[] results = new EventBatchItemResult[requests.size()];
+        List<Integer> validIdx = new ArrayList<>(requests.size());
+        List<Event> events = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++){
+            EventRequest req = requests.get(i);
+            try {
+                validateRequest(req);
+                events.add(newEvent(req.getType(), serializePayload(req), req.getOriginModule(), req.getTimestamp()));
+                validIdx.add(i);
+            } catch (RuntimeException ex){
+                results[i] = EventBatchItemResult.ofRejected(i, ex.getMessage());
+            }
+        }
+        if (events.isEmpty()) return Arrays.asList(results);
+
+        // un solo blob por contenido distinto del lote
+        List<PayloadBlob> blobs = payloadStore.internAll(events.stream().map(Event::getPayload).toList());
+        for (int k = 0; k < events.size(); k++) events.get(k).setPayloadBlob(blobs.get(k));
+        List<Event> saved = eventRepository.saveAll(events);
+        List<LiveMessage> lives = new ArrayList<>(saved.size());
+        for (Event e : saved) lives.add(newLiveMessage(e));
+        liveMessageRepository.saveAll(lives);
+        for (LiveMessage lm : lives) indexAfterCommit(lm, MessageLocationIndex.State.LIVE);
+
+        List<String> topics = new ArrayList<>(saved.size());
+        List<EventMessage> msgs = new ArrayList<>(saved.size());
+        for (int k = 0; k < saved.size(); k++){
+            EventRequest req = requests.get(validIdx.get(k));
+            topics.add(topicResolver.resolveTopic(req.getType(), req.getOriginModule()));
+            msgs.add(newEventMessage(req));
+        }
+
+        if (outboxEnabled) {
+            List<OutboxMessage> outbox = new ArrayList<>(saved.size());
+            for (int k = 0; k < saved.size(); k++) outbox.add(newOutboxMessage(saved.get(k).getId(), topics.get(k), msgs.get(k)));
+            outboxRepository.saveAll(outbox);
+            for (int k = 0; k < saved.size(); k++){
+                results[validIdx.get(k)] = EventBatchItemResult.ofAccepted(validIdx.get(k), saved.get(k).getId(), topics.get(k));
+            }
+            log.info("Lote de {} eventos encolado en outbox ({} rechazados)", saved.size(), requests.size() - saved.size());
+            return Arrays.asList(results);
+        }
+
+        // envío asíncrono de todo el lote y un único flush del productor
+        List<CompletableFuture<SendResult<String, Object>>> futures = new ArrayList<>(saved.size());
+        for (int k = 0; k < saved.size(); k++){
+            try {
+                futures.add(kafkaTemplate.send(topics.get(k), msgs.get(k).getEventId(), msgs.get(k)));
+            } catch (Exception ex){
+                futures.add(CompletableFuture.failedFuture(ex));
+            }
+        }
+        kafkaTemplate.flush();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        for (int k = 0; k < saved.size(); k++){
+            int idx = validIdx.get(k);
+            Integer eventId = saved.get(k).getId();
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                if (futures.get(k).get(remaining, TimeUnit.NANOSECONDS) != null) {
+                    results[idx] = EventBatchItemResult.ofPublished(idx, eventId, topics.get(k));
+                    continue;
+                }
+                results[idx] = EventBatchItemResult.ofPublishFailed(idx, eventId, topics.get(k), "Envio sin resultado");
+            } catch (InterruptedException ie){
+                Thread.currentThread().interrupt();
+                results[idx] = EventBatchItemResult.ofPublishFailed(idx, eventId, topics.get(k), ie.toString());
+            } catch (Exception ex){
+                log.warn("[KafkaSend] Fallo en envio de event {} a '{}': {}", eventId, topics.get(k), ex.getMessage());
+                results[idx] = EventBatchItemResult.ofPublishFailed(idx, eventId, topics.get(k), ex.getMessage());
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private OutboxMessage newOutboxMessage(Integer eventId, String topic, EventMessage msg){
+        OutboxMessage om = new OutboxMessage();
+        om.setEventId(eventId);
+        om.setTopic(topic);
+        om.setMessageKey(msg.getEventId());
+        try {
+            om.setPayload(envelopeMapper.writeValueAsString(msg));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error serializando envelope", e);
+        }
+        om.setCreatedAt(LocalDateTime.now());
+        om.setAttempts(0);
+        return om;
+    }
+
     private void sendToKafkaWithRetries(String topic, String key, Object value){
         int attempt = 0;
         Exception last = null;
@@ -145,74 +349,231 @@ public class KafkaMockService {
         throw new IllegalStateException(err, last);
     }
 
-    public List<Event> getAll(){
-        return eventRepository.findAll();
+    // ----------------- listas -----------------
+    // páginas por keyset (id > after) armadas con proyecciones; sin entidades ni carga de blobs por fila
+    public List<EventView> getAll(ListFilter f){
+        return withPayloads(eventRepository.findViews(f.afterOrZero(), f.getType(), f.getOrigin(), f.getFrom(), f.getTo(),
+                Limit.of(f.effectiveLimit())), f);
+    }
+    public List<LiveMessageView> getLiveMessages(ListFilter f){
+        return withPayloads(liveMessageRepository.findViews(f.afterOrZero(), f.getType(), f.getOrigin(), f.getFrom(), f.getTo(),
+                Limit.of(f.effectiveLimit())), f);
+    }
+    public List<RetryMessageView> getRetryMessages(ListFilter f){
+        return withPayloads(retryMessageRepository.findViews(f.afterOrZero(), f.getType(), f.getOrigin(), f.getFrom(), f.getTo(),
+                Limit.of(f.effectiveLimit())), f);
+    }
+    public List<DeadLetterView> getDeadLetters(ListFilter f){
+        return withPayloads(deadLetterRepository.findViews(f.afterOrZero(), f.getType(), f.getOrigin(), f.getFrom(), f.getTo(),
+                Limit.of(f.effectiveLimit())), f);
     }
 
-    // ----------------- listas -----------------
-    public List<LiveMessage> getLiveMessages(){ return liveMessageRepository.findAll(); }
-    public List<RetryMessage> getRetryMessages(){ return retryMessageRepository.findAll(); }
-    public List<DeadLetterMessage> getDeadLetters(){ return deadLetterRepository.findAll(); }
+    // una sola lectura de payload_blob por página, y solo si se pidió el payload
+    private <T extends PayloadView> List<T> withPayloads(List<T> page, ListFilter f){
+        if (!f.isIncludePayload() || page.isEmpty()) return page;
+        List<Long> ids = page.stream().map(PayloadView::getPayloadId).filter(Objects::nonNull).toList();
+        Map<Long, String> contents = payloadStore.contentsById(ids);
+        for (T v : page) if (v.getPayloadId() != null) v.setPayload(contents.get(v.getPayloadId()));
+        return page;
+    }
 
+    // las entradas LIVE del índice quedan apuntando a filas borradas: el lookup las detecta y las limpia
     public void consumeAllLive(){ liveMessageRepository.deleteAll(); }
 
     // Lookup diagnóstico: devuelve dónde está el mensaje (LIVE / RETRY / DEAD / NOT_FOUND)
+    @Transactional
     public ar.edu.uade.core.model.MessageLookupResult messageLookup(Integer liveId, Integer eventId){
         ar.edu.uade.core.model.MessageLookupResult res = new ar.edu.uade.core.model.MessageLookupResult();
-        // buscar en live
-        LiveMessage lm = null;
-        if (liveId != null) lm = liveMessageRepository.findById(liveId).orElse(null);
-        if (lm == null && eventId != null) lm = liveMessageRepository.findByEventId(eventId).orElse(null);
-        if (lm != null){
+        QueueMessage qm = findQueueMessage(liveId, eventId);
+        if (qm instanceof LiveMessage lm){
             res.setLocation("LIVE");
             res.setLiveId(lm.getId());
-            res.setEventId(lm.getEventId());
             res.setOriginModule(lm.getOriginModule());
-            res.setType(lm.getType());
-            res.setPayload(lm.getPayload());
+        } else if (qm instanceof RetryMessage rm){
+            res.setLocation("RETRY");
+            res.setRetryId(rm.getId());
+        } else if (qm instanceof DeadLetterMessage){
+            res.setLocation("DEAD");
+        } else {
+            res.setLocation("NOT_FOUND");
             return res;
         }
+        res.setEventId(qm.getEventId());
+        res.setType(qm.getType());
+        res.setPayload(qm.getPayload());
+        return res;
+    }
 
-        // buscar en retries
-        RetryMessage rm = null;
-        if (liveId != null) rm = retryMessageRepository.findByOriginalLiveId(liveId).orElse(null);
-        if (rm == null && liveId != null) rm = retryMessageRepository.findById(liveId).orElse(null); // caso cliente pasó retryId
-        if (rm == null && eventId != null) rm = retryMessageRepository.findByEventId(eventId).orElse(null);
-        if (rm == null && eventId == null && liveId != null) rm = retryMessageRepository.findByEventId(liveId).orElse(null);
-        if (rm == null){
-            // fallback: buscar consumptions previas por liveMessageId y usar eventId encontrado
-            if (liveId != null){
-                var consumptions = consumptionRepository.findByLiveMessageId(liveId);
-                if (consumptions != null && !consumptions.isEmpty()){
-                    Integer evt = consumptions.get(0).getEventId();
-                    rm = retryMessageRepository.findByEventId(evt).orElse(null);
-                }
+    // Primero el índice en memoria: una sola lectura por id de fila. Si no está o la fila ya no coincide
+    // (borrada, movida por otro nodo) se ubica por la DB y se corrige el índice.
+    private QueueMessage findQueueMessage(Integer id, Integer eventId){
+        return resolveQueueMessage(id, eventId, rowId -> queueMessageRepository.findById(rowId));
+    }
+
+    // Igual que findQueueMessage pero tomando la fila con FOR UPDATE SKIP LOCKED: si otra transacción
+    // (otra request u otra instancia de Core) la tiene tomada no se espera, se devuelve RowBusyException.
+    private QueueMessage lockQueueMessage(Integer id, Integer eventId){
+        return resolveQueueMessage(id, eventId, rowId -> {
+            Optional<QueueMessage> locked = queueMessageRepository.lockById(rowId);
+            if (locked.isEmpty() && queueMessageRepository.existsById(rowId)) throw new RowBusyException();
+            return locked;
+        });
+    }
+
+    private QueueMessage resolveQueueMessage(Integer id, Integer eventId, Function<Integer, Optional<QueueMessage>> fetch){
+        int indexedEvent = 0;
+        MessageLocationIndex.Location loc = null;
+        if (id != null && (indexedEvent = locationIndex.eventIdOfRow(id)) > 0) loc = locationIndex.byEventId(indexedEvent);
+        if (loc == null && eventId != null) loc = locationIndex.byEventId(indexedEvent = eventId);
+        if (loc == null && eventId == null && id != null) loc = locationIndex.byEventId(indexedEvent = id);
+        if (loc != null) {
+            QueueMessage qm = fetch.apply(loc.rowId()).orElse(null);
+            if (qm != null && qm.getEventId() != null && qm.getEventId() == indexedEvent) {
+                indexNow(qm);
+                return qm;
             }
+            locationIndex.removeRow(loc.rowId());
         }
-        if (rm != null){
-            res.setLocation("RETRY");
-            res.setRetryId(rm.getId());
-            res.setEventId(rm.getEventId());
-            res.setType(rm.getType());
-            res.setPayload(rm.getPayload());
-            return res;
+        // live y retry comparten id, así que normalmente alcanza con el id
+        QueueMessage qm = id != null ? fetch.apply(id).orElse(null) : null;
+        if (qm == null) {
+            Integer rowId = locateInDb(id, eventId);
+            if (rowId != null) qm = fetch.apply(rowId).orElse(null);
         }
+        if (qm != null) indexNow(qm);
+        return qm;
+    }
 
-        // buscar en dead letters por eventId
-        if (eventId != null){
-            for(DeadLetterMessage dm: deadLetterRepository.findAll()){
-                if (dm.getEventId() != null && dm.getEventId().equals(eventId)){
-                    res.setLocation("DEAD");
-                    res.setEventId(dm.getEventId());
-                    res.setType(dm.getType());
-                    res.setPayload(dm.getPayload());
-                    return res;
-                }
-            }
+    // Fallbacks por event_id, retries migrados (id distinto del live original) y clientes que mandan el eventId como id.
+    // Solo se leen ids: la fila se carga (o se bloquea) una vez, después.
+    private Integer locateInDb(Integer id, Integer eventId){
+        Integer rowId = null;
+        if (eventId != null) rowId = queueMessageRepository.findLatestIdByEventId(eventId).orElse(null);
+        if (rowId == null && id != null) rowId = retryMessageRepository.findIdByOriginalLiveId(id).orElse(null);
+        if (rowId == null && eventId == null && id != null) rowId = queueMessageRepository.findLatestIdByEventId(id).orElse(null);
+        return rowId;
+    }
+
+    // la fila existe pero está tomada por otra transacción
+    private static final class RowBusyException extends RuntimeException {
+        RowBusyException() { super(MESSAGE_BUSY, null, false, false); }
+    }
+
+    // índice y registro de módulos antes de que AckPipeline empiece a aplicar ACKs
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void rebuildLocationIndex(){
+        locationIndex.clear();
+        try (Stream<Object[]> rows = queueMessageRepository.streamLocations()) {
+            rows.forEach(r -> {
+                if (r[0] == null || r[1] == null || r[2] == null) return;
+                int id = ((Number) r[0]).intValue(), eventId = ((Number) r[1]).intValue();
+                locationIndex.put(eventId, id, MessageLocationIndex.State.valueOf(r[2].toString()));
+                if (r[3] != null && ((Number) r[3]).intValue() != id) locationIndex.alias(((Number) r[3]).intValue(), eventId);
+            });
         }
+        log.info("[Core] Índice de ubicación de mensajes reconstruido: {} eventos", locationIndex.size());
+    }
 
-        res.setLocation("NOT_FOUND");
-        return res;
+    MessageLocationIndex locationIndex(){ return locationIndex; }
+
+    RetryTimer retryTimer(){ return retryTimer; }
+
+    // también al tomar el lease de SchedulerLease: lo que cambió en otras réplicas no pasó por este RetryTimer
+    @EventListener({ApplicationReadyEvent.class, SchedulerLease.Acquired.class})
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void loadRetryTimer(){
+        retryTimer.clear();
+        List<RetryDeadline> deadlines = retryMessageRepository.findAllDeadlines();
+        for (RetryDeadline d : deadlines) retryTimer.schedule(d.id(), d.dueAtMillis());
+        log.info("[Core] RetryTimer cargado: {} retries programados", retryTimer.size());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void loadModuleRegistry(){
+        Map<Integer, String> modules = new HashMap<>();
+        consumerModuleRepository.findAll().forEach(m -> modules.put(m.getId(), m.getName()));
+        moduleRegistry.load(modules);
+        log.info("[Core] Registro de módulos consumidores cargado: {} módulos", moduleRegistry.size());
+        // desde acá una tabla de ruteo con consumidores desconocidos no se acepta
+        eventRouter.useModuleRegistry(moduleRegistry);
+    }
+
+    ModuleRegistry moduleRegistry(){ return moduleRegistry; }
+
+    private static MessageLocationIndex.State stateOf(QueueMessage qm){
+        if (qm instanceof RetryMessage) return MessageLocationIndex.State.RETRY;
+        if (qm instanceof DeadLetterMessage) return MessageLocationIndex.State.DEAD;
+        return MessageLocationIndex.State.LIVE;
+    }
+
+    private void indexNow(QueueMessage qm){
+        if (qm.getId() == null || qm.getEventId() == null) return;
+        locationIndex.put(qm.getEventId(), qm.getId(), stateOf(qm));
+        if (qm instanceof RetryMessage rm && rm.getOriginalLiveId() != null && !rm.getOriginalLiveId().equals(rm.getId())) {
+            locationIndex.alias(rm.getOriginalLiveId(), rm.getEventId());
+        }
+    }
+
+    // el índice solo refleja lo confirmado: si la transacción hace rollback no queda una ubicación fantasma
+    private void indexAfterCommit(QueueMessage qm, MessageLocationIndex.State state){
+        if (qm.getId() == null || qm.getEventId() == null) return;
+        int eventId = qm.getEventId(), id = qm.getId();
+        afterCommit(() -> locationIndex.put(eventId, id, state));
+    }
+
+    private static void afterCommit(Runnable action){
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() { action.run(); }
+        });
+    }
+
+    // Las transiciones construyen el mensaje destino en memoria con el mismo id de la fila;
+    // markRetry / markDead solo actualizan state y las columnas propias del estado.
+    // El payload no se lee: solo se copia la referencia; withPayload lo resuelve cuando va en la respuesta.
+    // Intentos, TTL y próximo intento salen de la política del tipo y el módulo (RetryPolicies).
+    private RetryMessage newRetryFromLive(LiveMessage live, int attempts, String consumerModule){
+        RetryPolicies.Policy policy = retryPolicies.policyFor(live.getType(), consumerModule);
+        LocalDateTime now = LocalDateTime.now();
+        RetryMessage rm = new RetryMessage();
+        rm.setId(live.getId());
+        rm.setEventId(live.getEventId());
+        rm.setOriginalLiveId(live.getId());
+        rm.setType(live.getType());
+        rm.setPayloadBlob(live.getPayloadBlob());
+        rm.setAttempts(attempts);
+        rm.setMaxAttempts(policy.maxAttempts());
+        rm.setTtlSeconds(policy.ttlSeconds());
+        rm.setCreatedAt(now);
+        rm.setNextAttemptAt(policy.nextAttemptAt(now, attempts - 1));
+        rm.setConsumerModule(consumerModule);
+        return rm;
+    }
+
+    // se llama antes de la transición: después markRetry/markDead limpian el contexto y la referencia ya no se puede cargar
+    private static <T extends QueueMessage> T withPayload(T target, QueueMessage source){
+        target.setPayload(source.getPayload());
+        return target;
+    }
+
+    private DeadLetterMessage newDeadLetter(QueueMessage source, String reason, LocalDateTime movedAt){
+        DeadLetterMessage dm = new DeadLetterMessage();
+        dm.setId(source.getId());
+        dm.setEventId(source.getEventId());
+        dm.setType(source.getType());
+        dm.setPayloadBlob(source.getPayloadBlob());
+        dm.setReason(reason);
+        dm.setMovedAt(movedAt);
+        return dm;
     }
 
     // Obtener consumptions para auditar
@@ -227,117 +588,84 @@ public class KafkaMockService {
     public ConsumeResult consumeOneAndMoveToRetry(Integer liveMessageId, Integer eventId, String consumerModule){
         log.debug("consumeOne called with liveMessageId={} eventId={} module={}", liveMessageId, eventId, consumerModule);
 
-        // 1) intentar localizar live message
-        LiveMessage lm = null;
-        if (liveMessageId != null) lm = liveMessageRepository.findById(liveMessageId).orElse(null);
-        if (lm == null && eventId != null) lm = liveMessageRepository.findByEventId(eventId).orElse(null);
-
-        // 2) si no hay live, intentar localizar retry por varios caminos
-        if (lm == null){
-            RetryMessage rm = null;
-            if (liveMessageId != null) rm = retryMessageRepository.findByOriginalLiveId(liveMessageId).orElse(null);
-            if (rm == null && liveMessageId != null) rm = retryMessageRepository.findById(liveMessageId).orElse(null); // caso cliente pasó retryId
-            if (rm == null && eventId != null) rm = retryMessageRepository.findByEventId(eventId).orElse(null);
-            if (rm == null && eventId == null && liveMessageId != null) rm = retryMessageRepository.findByEventId(liveMessageId).orElse(null);
-            if (rm == null){
-                // fallback: buscar consumptions previas por liveMessageId y usar eventId encontrado
-                if (liveMessageId != null){
-                    var consumptions = consumptionRepository.findByLiveMessageId(liveMessageId);
-                    if (consumptions != null && !consumptions.isEmpty()){
-                        Integer evt = consumptions.get(0).getEventId();
-                        rm = retryMessageRepository.findByEventId(evt).orElse(null);
-                    }
-                }
-            }
-            if (rm == null) return ConsumeResult.ofNotFound();
+        // 1) localizar y tomar la fila (live o retry) en queue_message; el lock dura hasta el commit,
+        // así dos consumidores no pueden validar y mover el mismo mensaje a la vez
+        QueueMessage qm;
+        try {
+            qm = lockQueueMessage(liveMessageId, eventId);
+        } catch (RowBusyException busy) {
+            return ConsumeResult.ofConflict(MESSAGE_BUSY);
+        }
 
+        // 2) mensaje en retry
+        if (qm instanceof RetryMessage rm){
             // validar origen y duplicados
             Event ev = eventRepository.findById(rm.getEventId()).orElse(null);
             String origin = ev != null ? ev.getOriginModule() : null;
             if (origin != null && consumerModule != null && consumerModule.equalsIgnoreCase(origin)) return ConsumeResult.ofConflict("Consumer module cannot be the same as origin module");
-            boolean alreadyConsumed = consumptionRepository.existsByEventIdAndModuleName(rm.getEventId(), consumerModule);
-            if (alreadyConsumed) return ConsumeResult.ofConflict("Already consumed by module");
 
-            // registrar consumo
-            MessageConsumption mc = new MessageConsumption();
-            mc.setEventId(rm.getEventId());
-            mc.setLiveMessageId(rm.getId());
-            mc.setModuleName(consumerModule);
-            mc.setConsumedAt(LocalDateTime.now());
-            consumptionRepository.save(mc);
+            // registrar consumo (duplicado -> conflicto)
+            if (!recordConsumption(rm, consumerModule)) return ConsumeResult.ofConflict("Already consumed by module");
 
             // verificar si alcanza threshold para dead-letter
-            Set<String> distinctModules = consumptionRepository.findByEventId(rm.getEventId()).stream()
-                    .map(MessageConsumption::getModuleName).collect(Collectors.toSet());
-            if (distinctModules.size() >= distinctConsumptionThreshold){
-                DeadLetterMessage dm = new DeadLetterMessage();
-                dm.setEventId(rm.getEventId());
-                dm.setType(rm.getType());
-                dm.setPayload(rm.getPayload());
-                dm.setReason("CONSUMED_BY_" + distinctModules.size() + "_MODULES");
-                dm.setMovedAt(LocalDateTime.now());
-                deadLetterRepository.save(dm);
-                retryMessageRepository.deleteById(rm.getId());
+            if (rm.getConsumerCount() >= distinctConsumptionThreshold){
+                DeadLetterMessage dm = withPayload(newDeadLetter(rm, "CONSUMED_BY_" + rm.getConsumerCount() + "_MODULES", LocalDateTime.now()), rm);
+                if (deadLetterRepository.markDead(dm) == 0) return ConsumeResult.ofConflict(STATE_CHANGED);
+                indexAfterCommit(dm, MessageLocationIndex.State.DEAD);
                 return ConsumeResult.ofDead(dm);
             }
 
             // incrementar intentos y actualizar nextAttemptAt
             int attempts = rm.getAttempts() == null ? 0 : rm.getAttempts();
             rm.setAttempts(attempts + 1);
-            rm.setNextAttemptAt(LocalDateTime.now().plusSeconds(defaultRetryDelaySeconds));
+            rm.setNextAttemptAt(retryPolicies.policyFor(rm.getType(), rm.getConsumerModule()).nextAttemptAt(LocalDateTime.now(), attempts));
             retryMessageRepository.save(rm);
+            scheduleAfterCommit(RetryDeadline.of(rm));
             return ConsumeResult.ofRetry(rm);
         }
+        if (!(qm instanceof LiveMessage lm)) return ConsumeResult.ofNotFound();
 
         // 3) si hay live message: validar origen y duplicados
         if (consumerModule != null && consumerModule.equalsIgnoreCase(lm.getOriginModule())) return ConsumeResult.ofConflict("Consumer module cannot be the same as origin module");
-        boolean alreadyConsumedLive = consumptionRepository.existsByEventIdAndModuleName(lm.getEventId(), consumerModule);
-        if (alreadyConsumedLive) return ConsumeResult.ofConflict("Already consumed by module");
 
         // registrar consumo desde live
-        MessageConsumption mcLive = new MessageConsumption();
-        mcLive.setEventId(lm.getEventId());
-        mcLive.setLiveMessageId(lm.getId());
-        mcLive.setModuleName(consumerModule);
-        mcLive.setConsumedAt(LocalDateTime.now());
-        consumptionRepository.save(mcLive);
+        if (!recordConsumption(lm, consumerModule)) return ConsumeResult.ofConflict("Already consumed by module");
 
         // verificar threshold
-        Set<String> distinctLive = consumptionRepository.findByEventId(lm.getEventId()).stream()
-                .map(MessageConsumption::getModuleName).collect(Collectors.toSet());
-        if (distinctLive.size() >= distinctConsumptionThreshold){
-            DeadLetterMessage dm = new DeadLetterMessage();
-            dm.setEventId(lm.getEventId());
-            dm.setType(lm.getType());
-            dm.setPayload(lm.getPayload());
-            dm.setReason("CONSUMED_BY_" + distinctLive.size() + "_MODULES");
-            dm.setMovedAt(LocalDateTime.now());
-            deadLetterRepository.save(dm);
-            liveMessageRepository.deleteById(lm.getId());
+        if (lm.getConsumerCount() >= distinctConsumptionThreshold){
+            DeadLetterMessage dm = withPayload(newDeadLetter(lm, "CONSUMED_BY_" + lm.getConsumerCount() + "_MODULES", LocalDateTime.now()), lm);
+            if (deadLetterRepository.markDead(dm) == 0) return ConsumeResult.ofConflict(STATE_CHANGED);
+            indexAfterCommit(dm, MessageLocationIndex.State.DEAD);
             return ConsumeResult.ofDead(dm);
         }
 
-        // crear retry a partir de live
-        RetryMessage newRm = new RetryMessage();
-        newRm.setEventId(lm.getEventId());
-        newRm.setOriginalLiveId(lm.getId());
-        newRm.setType(lm.getType());
-        newRm.setPayload(lm.getPayload());
-        newRm.setAttempts(1);
-        newRm.setCreatedAt(LocalDateTime.now());
-        newRm.setNextAttemptAt(LocalDateTime.now().plusSeconds(defaultRetryDelaySeconds));
-        newRm.setMaxAttempts(defaultMaxAttempts);
-        newRm.setTtlSeconds(defaultTtlSeconds);
-        newRm.setConsumerModule(consumerModule);
-        retryMessageRepository.save(newRm);
-        liveMessageRepository.deleteById(lm.getId());
+        // pasar a retry (misma fila)
+        RetryMessage newRm = withPayload(newRetryFromLive(lm, 1, consumerModule), lm);
+        if (retryMessageRepository.markRetry(newRm) == 0) return ConsumeResult.ofConflict(STATE_CHANGED);
+        indexAfterCommit(newRm, MessageLocationIndex.State.RETRY);
+        scheduleAfterCommit(RetryDeadline.of(newRm));
         return ConsumeResult.ofRetry(newRm);
     }
 
+    // INSERT IGNORE del consumo + contador y bit del módulo en la fila. false si el módulo ya lo había consumido.
+    // Con la fila tomada (consumeOne) los valores en memoria quedan exactos; sin lock hay que releerlos.
+    private boolean recordConsumption(QueueMessage qm, String moduleName){
+        if (consumptionRepository.insertIgnore(qm.getEventId(), qm.getId(), moduleName, LocalDateTime.now()) == 0) return false;
+        long bit = moduleRegistry.bitOf(moduleName);
+        queueMessageRepository.markConsumed(qm.getId(), bit);
+        qm.setConsumerCount(qm.getConsumerCount() + 1);
+        qm.setConsumedMask(qm.getConsumedMask() | bit);
+        return true;
+    }
+
     @Transactional
     public boolean acknowledgeRetry(Integer retryId){
         if (!retryMessageRepository.existsById(retryId)) return false;
         retryMessageRepository.deleteById(retryId);
+        afterCommit(() -> {
+            locationIndex.removeRow(retryId);
+            retryTimer.cancel(retryId);
+        });
         return true;
     }
 
@@ -349,42 +677,79 @@ public class KafkaMockService {
         attempts++;
         rm.setAttempts(attempts);
         if (attempts >= rm.getMaxAttempts()){
-            DeadLetterMessage dm = new DeadLetterMessage();
-            dm.setEventId(rm.getEventId());
-            dm.setType(rm.getType());
-            dm.setPayload(rm.getPayload());
-            dm.setReason("MAX_ATTEMPTS_EXCEEDED");
-            dm.setMovedAt(LocalDateTime.now());
-            deadLetterRepository.save(dm);
-            retryMessageRepository.deleteById(retryId);
+            DeadLetterMessage dm = withPayload(newDeadLetter(rm, "MAX_ATTEMPTS_EXCEEDED", LocalDateTime.now()), rm);
+            if (deadLetterRepository.markDead(dm) == 0) return ConsumeResult.ofNotFound();
+            indexAfterCommit(dm, MessageLocationIndex.State.DEAD);
             return ConsumeResult.ofDead(dm);
         } else {
-            rm.setNextAttemptAt(LocalDateTime.now().plusSeconds(defaultRetryDelaySeconds));
+            rm.setNextAttemptAt(retryPolicies.policyFor(rm.getType(), rm.getConsumerModule()).nextAttemptAt(LocalDateTime.now(), attempts - 1));
             retryMessageRepository.save(rm);
+            scheduleAfterCommit(RetryDeadline.of(rm));
             return ConsumeResult.ofRetry(rm);
         }
     }
 
-    @Scheduled(fixedDelayString = "30000")
-    public void scheduledProcessRetries(){ processRetriesAndExpire(); }
+    // Un tramo del barrido de POST /core/processRetries (RetryExpiryWorker.sweep), en una transacción: toma hasta
+    // 'limit' retries vencidos por índice y los pasa a DEAD con un solo UPDATE ... WHERE id IN (...).
+    // Devuelve cuántos movió; un tramo incompleto quiere decir que no queda nada vencido a 'now'.
+    @Transactional
+    public int expireRetryChunk(LocalDateTime now, int limit){
+        List<Object[]> due = retryMessageRepository.lockDueRetries(now, limit);
+        if (due.isEmpty()) return 0;
+        List<Integer> ids = new ArrayList<>(due.size());
+        for (Object[] r : due) ids.add(((Number) r[0]).intValue());
+        int moved = deadLetterRepository.expireRetries(ids, now);
+        for (Object[] r : due) {
+            int id = ((Number) r[0]).intValue();
+            Integer eventId = r[1] == null ? null : ((Number) r[1]).intValue();
+            afterCommit(() -> {
+                retryTimer.cancel(id);
+                if (eventId != null) locationIndex.put(eventId, id, MessageLocationIndex.State.DEAD);
+            });
+        }
+        return moved;
+    }
+
+    // bloquea hasta que venza algún retry (o timeoutMs); RetryExpiryWorker pasa las filas a expireDueRetries
+    public List<Integer> awaitDueRetries(int max, long timeoutMs) throws InterruptedException {
+        return retryTimer.awaitDue(max, timeoutMs);
+    }
 
-    public void processRetriesAndExpire(){
-        List<RetryMessage> retries = retryMessageRepository.findAll();
+    // Filas que RetryTimer dio por vencidas: se revalidan contra la DB (sin payload) y pasan a DEAD con un UPDATE
+    // por razón. Las que ya no están en RETRY se ignoran; las que todavía no vencieron se reprograman.
+    @Transactional
+    public int expireDueRetries(Collection<Integer> rowIds){
+        if (rowIds.isEmpty()) return 0;
         LocalDateTime now = LocalDateTime.now();
-        for (RetryMessage r: retries){
-            boolean expiredByTtl = r.getCreatedAt() != null && r.getCreatedAt().plusSeconds(r.getTtlSeconds()).isBefore(now);
-            if (r.getAttempts() >= r.getMaxAttempts() || expiredByTtl){
-                DeadLetterMessage dm = new DeadLetterMessage();
-                dm.setEventId(r.getEventId());
-                dm.setType(r.getType());
-                dm.setPayload(r.getPayload());
-                String reason = r.getAttempts() >= r.getMaxAttempts() ? "MAX_ATTEMPTS_EXCEEDED" : "TTL_EXPIRED";
-                dm.setReason(reason);
-                dm.setMovedAt(now);
-                deadLetterRepository.save(dm);
-                retryMessageRepository.deleteById(r.getId());
+        Map<String, List<RetryDeadline>> byReason = new LinkedHashMap<>();
+        for (RetryDeadline d : retryMessageRepository.findDeadlines(rowIds)) {
+            String reason = d.expiryReason(now);
+            if (reason == null) retryTimer.schedule(d.id(), d.dueAtMillis());
+            else byReason.computeIfAbsent(reason, k -> new ArrayList<>()).add(d);
+        }
+        int moved = 0;
+        for (Map.Entry<String, List<RetryDeadline>> e : byReason.entrySet()) {
+            DeadLetterMessage template = new DeadLetterMessage();
+            template.setReason(e.getKey());
+            template.setMovedAt(now);
+            moved += deadLetterRepository.markDeadAll(e.getValue().stream().map(RetryDeadline::id).toList(), template);
+            for (RetryDeadline d : e.getValue()) {
+                if (d.eventId() != null) afterCommit(() -> locationIndex.put(d.eventId(), d.id(), MessageLocationIndex.State.DEAD));
             }
         }
+        if (moved > 0) log.info("[Core] {} retries vencidos movidos a DEAD", moved);
+        return moved;
+    }
+
+    // las filas vuelven a la cola de RetryTimer dentro de delayMs (p. ej. si expireDueRetries falló)
+    public void deferRetries(Collection<Integer> rowIds, long delayMs){
+        long dueAt = System.currentTimeMillis() + delayMs;
+        for (Integer id : rowIds) retryTimer.schedule(id, dueAt);
+    }
+
+    private void scheduleAfterCommit(RetryDeadline d){
+        if (d.id() == null) return;
+        afterCommit(() -> retryTimer.schedule(d.id(), d.dueAtMillis()));
     }
     @Transactional
     public void handleAcknowledgement(EventAckEntity ack) {
@@ -405,8 +770,15 @@ public class KafkaMockService {
             return;
         }
 
+        // ACK repetido (mismo consumidor y estado, p. ej. redelivery tras un rebalance): solo suma un intento en event_acks
+        Integer id = Integer.valueOf(eventId);
+        if (recordAck(id, consumer, status)) {
+            log.info("[Core] ACK repetido para eventId={} | consumer={}. Se ignora.", eventId, consumer);
+            return;
+        }
+
         // Buscar LiveMessage asociado al eventId
-        Optional<LiveMessage> liveOpt = liveMessageRepository.findByEventId(Integer.valueOf(ack.getEventId()));
+        Optional<LiveMessage> liveOpt = liveMessageRepository.findByEventId(id);
         if (liveOpt.isEmpty()) {
             log.warn("[Core] No se encontró LiveMessage para eventId={}", eventId);
             return;
@@ -415,34 +787,26 @@ public class KafkaMockService {
         LiveMessage live = liveOpt.get();
         String eventType = live.getType();
 
-        // Registrar consumo
-        MessageConsumption mc = new MessageConsumption();
-        mc.setEventId(live.getEventId());
-        mc.setLiveMessageId(live.getId());
-        mc.setModuleName(consumer != null ? consumer : "Desconocido");
-        mc.setConsumedAt(LocalDateTime.now());
-        consumptionRepository.save(mc);
+        // Registrar consumo (una sola vez por módulo: (event_id, module_name) es único).
+        // La fila no está tomada: otro ACK concurrente pudo sumar su bit, así que la máscara se relee después del UPDATE.
+        String moduleName = consumer != null ? consumer : "Desconocido";
+        long consumed = recordConsumption(live, moduleName)
+                ? queueMessageRepository.findConsumedMask(live.getId()).orElse(live.getConsumedMask())
+                : live.getConsumedMask();
 
         // Procesar el ACK según estado
-        if ("FAIL".equalsIgnoreCase(status) || "FAILED".equalsIgnoreCase(status)) {
+        if (isFailStatus(status)) {
             log.info("[Core] ACK indica fallo. Moviendo LiveMessage {} (eventId={}) a cola de reintentos.",
                     live.getId(), eventId);
-            moveMessageToRetry(live.getId(), consumer);
+            moveMessageToRetry(live, consumer);
             return;
         }
 
-        if ("CONSUMED".equalsIgnoreCase(status) || "SUCCESS".equalsIgnoreCase(status)) {
+        if (isSuccessStatus(status)) {
             // Verificar si todos los consumidores ya consumieron este evento
-            if (allModulesConsumedSuccessfully(live.getEventId(), eventType)) {
-                DeadLetterMessage dm = new DeadLetterMessage();
-                dm.setEventId(live.getEventId());
-                dm.setType(live.getType());
-                dm.setPayload(live.getPayload());
-                dm.setReason("SUCCESS");
-                dm.setMovedAt(LocalDateTime.now());
-
-                deadLetterRepository.save(dm);
-                liveMessageRepository.delete(live);
+            if (allModulesConsumedSuccessfully(live.getEventId(), live.getExpectedMask(), consumed)) {
+                DeadLetterMessage dm = newDeadLetter(live, "SUCCESS", LocalDateTime.now());
+                if (deadLetterRepository.markDead(dm) > 0) indexAfterCommit(dm, MessageLocationIndex.State.DEAD);
 
                 log.info("[Core] Evento {} (tipo: {}) consumido exitosamente por todos los módulos. Movido a DeadLetter y eliminado de Live.",
                         live.getEventId(), eventType);
@@ -455,78 +819,252 @@ public class KafkaMockService {
     }
 
 
-    private boolean allModulesConsumedSuccessfully(Integer eventId, String eventType) {
-        List<String> expectedModules = getExpectedConsumers(eventType);
-        if (expectedModules.isEmpty()) {
-            log.info("[Core] Evento {} no tiene módulos destino configurados, se considera consumido.", eventId);
-            return true;
+    // Lote de ACKs (POST /core/acks:batch). Los ACKs de cada evento se aplican en el orden recibido con las mismas
+    // reglas que handleAcknowledgement (un fallo o la completitud cierran el evento; los siguientes quedan NOT_FOUND),
+    // pero con una consulta para todos los live, un batch de INSERT IGNORE para los consumos, un UPDATE de
+    // contador/máscara por combinación de bits y las transiciones a DEAD / RETRY como UPDATE ... WHERE id IN (...).
+    @Transactional
+    public List<AckBatchItemResult> handleAcknowledgements(List<EventAckEntity> acks) {
+        if (acks == null || acks.isEmpty()) throw new IllegalArgumentException("acks is empty");
+        if (acks.size() > ackBatchMaxSize) throw new IllegalArgumentException("batch size exceeds " + ackBatchMaxSize);
+
+        AckBatchItemResult[] results = new AckBatchItemResult[acks.size()];
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Integer[] eventIds = new Integer[acks.size()];
+        Set<String> ackKeys = new HashSet<>();
+        for (int i = 0; i < acks.size(); i++) {
+            eventIds[i] = parseEventId(acks.get(i));
+            if (eventIds[i] != null) ackKeys.add(eventIds[i].toString());
+        }
+        // "eventId|consumer" -> último estado visto (en event_acks o antes en este lote); el eventId es numérico
+        Map<String, String> seen = new HashMap<>();
+        if (!ackKeys.isEmpty()) {
+            for (Object[] r : eventAckRepository.findStatuses(ackKeys)) seen.put(r[0] + "|" + r[1], (String) r[2]);
+        }
+        // eventId -> posiciones de sus ACKs en el lote; los repetidos solo suman un intento en event_acks
+        Map<Integer, List<Integer>> byEvent = new LinkedHashMap<>();
+        List<Object[]> ackRows = new ArrayList<>();
+        int duplicates = 0;
+        for (int i = 0; i < acks.size(); i++) {
+            EventAckEntity ack = acks.get(i);
+            Integer eventId = eventIds[i];
+            if (eventId == null) {
+                results[i] = AckBatchItemResult.ofRejected(i, ack, "eventId inválido");
+                continue;
+            }
+            String consumer = ackConsumer(ack.getConsumer());
+            String status = ackStatus(ack.getStatus());
+            ackRows.add(new Object[]{eventId.toString(), consumer, status, now, now});
+            String previous = seen.put(eventId + "|" + consumer, status);
+            if (previous != null && previous.equalsIgnoreCase(status)) {
+                results[i] = AckBatchItemResult.of(i, ack, AckBatchItemResult.Status.DUPLICATE);
+                duplicates++;
+                continue;
+            }
+            byEvent.computeIfAbsent(eventId, k -> new ArrayList<>()).add(i);
+        }
+        if (!ackRows.isEmpty()) jdbcTemplate.batchUpdate(UPSERT_ACK_SQL, ackRows);
+        Map<Integer, LiveMessage> lives = new HashMap<>();
+        if (!byEvent.isEmpty()) {
+            for (LiveMessage lm : liveMessageRepository.findByEventIdIn(byEvent.keySet())) {
+                lives.merge(lm.getEventId(), lm, (a, b) -> a.getId() >= b.getId() ? a : b);
+            }
         }
 
-        List<MessageConsumption> consumptions = consumptionRepository.findByEventId(eventId);
-        Set<String> consumedModules = consumptions.stream()
-                .map(mc -> mc.getModuleName().toLowerCase())
-                .collect(Collectors.toSet());
+        List<Object[]> consumptions = new ArrayList<>();
+        Map<Long, List<Integer>> idsByNewBits = new HashMap<>();
+        // live id -> posición del último ACK de éxito de un evento que quedó abierto, y bits que el lote sumó después de él
+        Map<Integer, Integer> pendingSuccess = new HashMap<>();
+        Map<Integer, Long> bitsAfterPending = new HashMap<>();
+        Map<Integer, LiveMessage> completed = new LinkedHashMap<>();
+        Map<String, List<LiveMessage>> failedByModule = new LinkedHashMap<>();
+
+        for (Map.Entry<Integer, List<Integer>> e : byEvent.entrySet()) {
+            LiveMessage live = lives.get(e.getKey());
+            boolean open = live != null;
+            long consumed = open ? live.getConsumedMask() : 0L;
+            long newBits = 0L;
+            long maskAtPending = 0L;
+            Set<String> modules = new HashSet<>();
+            for (int i : e.getValue()) {
+                EventAckEntity ack = acks.get(i);
+                if (!open) {
+                    results[i] = AckBatchItemResult.of(i, ack, AckBatchItemResult.Status.NOT_FOUND);
+                    continue;
+                }
+                String moduleName = ack.getConsumer() != null ? ack.getConsumer() : "Desconocido";
+                if (modules.add(moduleName)) consumptions.add(new Object[]{live.getEventId(), live.getId(), moduleName, now});
+                long bit = moduleRegistry.bitOf(moduleName);
+                consumed |= bit;
+                newBits |= bit;
+
+                if (isFailStatus(ack.getStatus())) {
+                    results[i] = AckBatchItemResult.of(i, ack, AckBatchItemResult.Status.RETRY);
+                    failedByModule.computeIfAbsent(ack.getConsumer(), k -> new ArrayList<>()).add(live);
+                    pendingSuccess.remove(live.getId());
+                    open = false;
+                } else if (isSuccessStatus(ack.getStatus()) && isComplete(live.getExpectedMask(), consumed)) {
+                    results[i] = AckBatchItemResult.of(i, ack, AckBatchItemResult.Status.COMPLETED);
+                    completed.put(live.getId(), live);
+                    pendingSuccess.remove(live.getId());
+                    open = false;
+                } else if (isSuccessStatus(ack.getStatus())) {
+                    results[i] = AckBatchItemResult.of(i, ack, AckBatchItemResult.Status.PENDING);
+                    pendingSuccess.put(live.getId(), i);
+                    maskAtPending = consumed;
+                } else {
+                    results[i] = AckBatchItemResult.of(i, ack, AckBatchItemResult.Status.IGNORED);
+                }
+            }
+            if (!modules.isEmpty()) idsByNewBits.computeIfAbsent(newBits, k -> new ArrayList<>()).add(live.getId());
+            if (open && pendingSuccess.containsKey(live.getId())) bitsAfterPending.put(live.getId(), consumed & ~maskAtPending);
+        }
 
-        boolean allOk = consumedModules.containsAll(expectedModules);
+        if (!consumptions.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_CONSUMPTION_SQL, consumptions);
+            idsByNewBits.forEach((bits, ids) -> queueMessageRepository.syncConsumed(ids, bits));
+        }
 
-        if (allOk) {
-            log.info("[Core] Evento {} consumido por todos los módulos esperados: {}", eventId, expectedModules);
-        } else {
-            log.info("[Core] Evento {} aún pendiente de consumo por: {}",
-                    eventId,
-                    expectedModules.stream().filter(m -> !consumedModules.contains(m)).toList());
+        // eventos que quedaron abiertos: la máscara releída incluye los ACKs confirmados por otras transacciones.
+        // Como en el ACK individual, cuenta lo que había al momento del último éxito (no los bits que el lote sumó después)
+        if (!pendingSuccess.isEmpty()) {
+            Map<Integer, LiveMessage> liveById = new HashMap<>();
+            for (LiveMessage lm : lives.values()) liveById.put(lm.getId(), lm);
+            for (Object[] r : queueMessageRepository.findConsumedMasks(pendingSuccess.keySet())) {
+                LiveMessage live = liveById.get(((Number) r[0]).intValue());
+                if (live == null) continue;
+                long consumed = ((Number) r[1]).longValue() & ~bitsAfterPending.getOrDefault(live.getId(), 0L);
+                if (!isComplete(live.getExpectedMask(), consumed)) continue;
+                int i = pendingSuccess.get(live.getId());
+                results[i] = AckBatchItemResult.of(i, acks.get(i), AckBatchItemResult.Status.COMPLETED);
+                completed.put(live.getId(), live);
+            }
         }
 
-        return allOk;
+        if (!completed.isEmpty()) {
+            DeadLetterMessage template = new DeadLetterMessage();
+            template.setReason("SUCCESS");
+            template.setMovedAt(now.toLocalDateTime());
+            int moved = deadLetterRepository.markDeadAll(completed.keySet(), template);
+            if (moved < completed.size()) log.warn("[Core] {} de {} eventos completos ya no estaban en la cola", completed.size() - moved, completed.size());
+            for (LiveMessage lm : completed.values()) indexAfterCommit(lm, MessageLocationIndex.State.DEAD);
+        }
+        // un UPDATE por módulo y política; el jitter se sortea por grupo
+        failedByModule.forEach((module, failed) -> {
+            Map<RetryPolicies.Policy, List<LiveMessage>> byPolicy = new LinkedHashMap<>();
+            for (LiveMessage lm : failed) byPolicy.computeIfAbsent(retryPolicies.policyFor(lm.getType(), module), k -> new ArrayList<>()).add(lm);
+            byPolicy.forEach((policy, group) -> {
+                RetryMessage template = new RetryMessage();
+                template.setAttempts(0);
+                template.setMaxAttempts(policy.maxAttempts());
+                template.setTtlSeconds(policy.ttlSeconds());
+                template.setCreatedAt(now.toLocalDateTime());
+                template.setNextAttemptAt(policy.nextAttemptAt(now.toLocalDateTime(), 0));
+                template.setConsumerModule(module);
+                List<Integer> ids = group.stream().map(LiveMessage::getId).toList();
+                int moved = retryMessageRepository.markRetryAll(ids, template);
+                if (moved < ids.size()) log.warn("[Core] {} de {} eventos con ACK de fallo ya no estaban en LIVE", ids.size() - moved, ids.size());
+                for (LiveMessage lm : group) {
+                    indexAfterCommit(lm, MessageLocationIndex.State.RETRY);
+                    scheduleAfterCommit(new RetryDeadline(lm.getId(), lm.getEventId(), template.getAttempts(), template.getMaxAttempts(),
+                            template.getCreatedAt(), template.getTtlSeconds()));
+                }
+            });
+        });
+
+        log.info("[Core] Lote de {} ACKs ({} eventos, {} repetidos): {} completos, {} a retry", acks.size(), byEvent.size(),
+                duplicates, completed.size(), failedByModule.values().stream().mapToInt(List::size).sum());
+        return Arrays.asList(results);
     }
 
-    private List<String> getExpectedConsumers(String eventType) {
-        String type = eventType.toLowerCase();
+    // Registra el ACK en event_acks. true si el mismo consumidor ya había mandado un ACK con el mismo estado para
+    // el evento: el llamador no toca la cola. Lo decide el UPDATE / INSERT IGNORE, no una lectura previa
+    private boolean recordAck(Integer eventId, String consumer, String status) {
+        return eventAckRepository.recordRepeated(eventId.toString(), ackConsumer(consumer), ackStatus(status), LocalDateTime.now());
+    }
 
-        if (type.contains("stock") || type.contains("producto") || type.contains("marca") || type.contains("categoría")) {
-            return List.of("ventas", "analitica");
-        }
-        if (type.contains("pendiente")) {
-            return List.of("inventario");
-        }
-        if (type.contains("confirmada")) {
-            return List.of("inventario", "analitica");
-        }
-        if (type.contains("cancelada") || type.contains("rollback")) {
-            return List.of("inventario");
+    private static String ackConsumer(String consumer) {
+        String c = consumer != null ? consumer : "Desconocido";
+        return c.length() > ACK_CONSUMER_LENGTH ? c.substring(0, ACK_CONSUMER_LENGTH) : c;
+    }
+
+    private static String ackStatus(String status) {
+        String s = status != null ? status.trim() : "";
+        return s.length() > ACK_STATUS_LENGTH ? s.substring(0, ACK_STATUS_LENGTH) : s;
+    }
+
+    // Micro-lote de una línea de AckPipeline: se aplica como handleAcknowledgements y sus filas de ack_inbox
+    // se borran en la misma transacción (si falla, quedan para el reintento o el barrido de ack_inbox)
+    @Transactional
+    public List<AckBatchItemResult> handleQueuedAcknowledgements(List<AckInboxMessage> queued) {
+        List<AckBatchItemResult> results = handleAcknowledgements(queued.stream().map(AckInboxMessage::toAck).toList());
+        ackInboxRepository.deleteAllByIdInBatch(queued.stream().map(AckInboxMessage::getId).toList());
+        return results;
+    }
+
+    // Barrido de AckPipeline: toma hasta 'limit' filas de ack_inbox libres o con claim vencido y las pone a
+    // nombre de 'owner' en una transacción, así otra réplica que barre a la vez no se lleva las mismas.
+    @Transactional
+    public List<AckInboxMessage> claimInboxAcks(String owner, long staleMs, int limit) {
+        List<Long> ids = ackInboxRepository.lockClaimable(staleMs * 1000, limit);
+        if (ids.isEmpty()) return List.of();
+        ackInboxRepository.claim(ids, owner);
+        return ackInboxRepository.findAllByIdInOrder(ids);
+    }
+
+    static Integer parseEventId(EventAckEntity ack) {
+        if (ack == null || ack.getEventId() == null || ack.getEventId().isBlank()) return null;
+        try {
+            return Integer.valueOf(ack.getEventId().trim());
+        } catch (NumberFormatException e) {
+            return null;
         }
-        if (type.contains("review") || type.contains("favorito") || type.contains("vista")) {
-            return List.of("analitica");
+    }
+
+    // completo cuando todos los bits esperados están en consumed: sin consultas ni strings en el camino del ACK
+    private boolean allModulesConsumedSuccessfully(Integer eventId, long expected, long consumed) {
+        if (expected == 0L) {
+            log.info("[Core] Evento {} no tiene módulos destino configurados, se considera consumido.", eventId);
+            return true;
         }
-        if (type.contains("batch")) {
-            return List.of("ventas", "analitica");
+
+        boolean allOk = isComplete(expected, consumed);
+
+        if (allOk) {
+            log.info("[Core] Evento {} consumido por todos los módulos esperados", eventId);
+        } else if (log.isDebugEnabled()) {
+            log.debug("[Core] Evento {} aún pendiente de consumo por: {}", eventId, moduleRegistry.namesOf(expected & ~consumed));
         }
-        return List.of(); // por defecto, ninguno
+
+        return allOk;
     }
 
-    private void moveMessageToRetry(Integer liveMessageId, String failedModule) {
-        Optional<LiveMessage> liveOpt = liveMessageRepository.findById(liveMessageId);
-        if (liveOpt.isEmpty()) {
-            log.warn("[Core] No se encontró LiveMessage con ID {} para mover a Retry", liveMessageId);
-            return;
-        }
+    // máscara de módulos esperados según la tabla de ruteo; se calcula una vez, al crear el mensaje
+    long expectedMask(String eventType) {
+        return moduleRegistry.maskOf(eventRouter.expectedConsumers(eventType));
+    }
 
-        LiveMessage live = liveOpt.get();
+    private static boolean isFailStatus(String status) {
+        return "FAIL".equalsIgnoreCase(status) || "FAILED".equalsIgnoreCase(status);
+    }
 
-        RetryMessage retry = new RetryMessage();
-        retry.setEventId(live.getEventId());
-        retry.setOriginalLiveId(live.getId());
-        retry.setType(live.getType());
-        retry.setPayload(live.getPayload());
-        retry.setAttempts(0); //es 0 xq si estaba en la cola de vivos quiere decir que nunca se reintento
-        retry.setMaxAttempts(defaultMaxAttempts);
-        retry.setTtlSeconds(600L); // 10 min. modificarlo para pruebas o expos
-        retry.setCreatedAt(LocalDateTime.now());
-        retry.setNextAttemptAt(LocalDateTime.now().plusMinutes(2)); // reintentar en 2 min
-        retry.setConsumerModule(failedModule);
-
-        retryMessageRepository.save(retry);
-        liveMessageRepository.delete(live);
+    private static boolean isSuccessStatus(String status) {
+        return "CONSUMED".equalsIgnoreCase(status) || "SUCCESS".equalsIgnoreCase(status);
+    }
+
+    private static boolean isComplete(long expected, long consumed) {
+        return (consumed & expected) == expected;
+    }
+
+    private void moveMessageToRetry(LiveMessage live, String failedModule) {
+        //attempts en 0 xq si estaba en la cola de vivos quiere decir que nunca se reintento
+        RetryMessage retry = newRetryFromLive(live, 0, failedModule);
+        if (retryMessageRepository.markRetry(retry) == 0) {
+            log.warn("[Core] LiveMessage {} ya no está en LIVE, no se mueve a Retry", live.getId());
+            return;
+        }
+        indexAfterCommit(retry, MessageLocationIndex.State.RETRY);
+        scheduleAfterCommit(RetryDeadline.of(retry));
 
         log.info("[Core] Evento {} (tipo: {}) movido a Retry. Módulo fallido: {}",
                 live.getEventId(), live.getType(), failedModule);
@@ -0,0 +1,194 @@
+package ar.edu.uade.core.service;
+
+import java.util.concurrent.locks.StampedLock;
+
+// Índice en memoria de dónde está cada mensaje de queue_message: eventId -> (estado, id de fila) e id de fila -> eventId.
+// Lo mantiene KafkaMockService en cada transición y se reconstruye desde la DB al arrancar; ante cualquier
+// duda (miss, fila borrada, otro nodo la movió) la DB manda y el índice se corrige.
+// Mapas int -> long de direccionamiento abierto para no boxear claves ni valores; lecturas optimistas con StampedLock.
+public class MessageLocationIndex {
+
+    public enum State { LIVE, RETRY, DEAD }
+
+    private static final State[] STATES = State.values();
+
+    private final StampedLock lock = new StampedLock();
+    private final IntLongMap byEvent = new IntLongMap();
+    private final IntLongMap byRow = new IntLongMap();
+
+    // ubicación de un evento: estado + id de la fila en queue_message
+    public record Location(State state, int rowId) { }
+
+    public void put(int eventId, int rowId, State state){
+        if (eventId <= 0 || rowId <= 0) return;
+        long stamp = lock.writeLock();
+        try {
+            byEvent.put(eventId, pack(state, rowId));
+            byRow.put(rowId, eventId);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // alias de id (original_live_id de retries migrados) hacia el evento
+    public void alias(int rowId, int eventId){
+        if (eventId <= 0 || rowId <= 0) return;
+        long stamp = lock.writeLock();
+        try {
+            byRow.put(rowId, eventId);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void removeRow(int rowId){
+        if (rowId <= 0) return;
+        long stamp = lock.writeLock();
+        try {
+            long eventId = byRow.remove(rowId);
+            if (eventId > 0 && unpackRow(byEvent.get((int) eventId)) == rowId) byEvent.remove((int) eventId);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public Location byEventId(int eventId){
+        long v = read(byEvent, eventId);
+        return v > 0 ? new Location(STATES[(int) (v >>> 32) - 1], unpackRow(v)) : null;
+    }
+
+    // eventId de una fila (o de un alias), 0 si no está
+    public int eventIdOfRow(int rowId){
+        return (int) read(byRow, rowId);
+    }
+
+    public int size(){
+        long stamp = lock.readLock();
+        try {
+            return byEvent.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public void clear(){
+        long stamp = lock.writeLock();
+        try {
+            byEvent.clear();
+            byRow.clear();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private long read(IntLongMap map, int key){
+        if (key <= 0) return 0;
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            long v = map.get(key);
+            if (lock.validate(stamp)) return v;
+        }
+        stamp = lock.readLock();
+        try {
+            return map.get(key);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static long pack(State state, int rowId){
+        return ((long) (state.ordinal() + 1) << 32) | (rowId & 0xFFFFFFFFL);
+    }
+
+    private static int unpackRow(long v){
+        return (int) v;
+    }
+
+    // int -> long con sondeo lineal; clave 0 = vacío (los ids son positivos), valor 0 = ausente.
+    // Tabla y arreglos se reemplazan juntos al crecer para que una lectura optimista vea un par consistente.
+    static final class IntLongMap {
+        private static final class Table {
+            final int[] keys;
+            final long[] vals;
+            Table(int capacity){ keys = new int[capacity]; vals = new long[capacity]; }
+        }
+
+        private Table table = new Table(1024);
+        private int size;
+
+        long get(int key){
+            Table t = table;
+            int mask = t.keys.length - 1;
+            for (int i = mix(key) & mask, n = 0; n <= mask; i = (i + 1) & mask, n++) {
+                int k = t.keys[i];
+                if (k == key) return t.vals[i];
+                if (k == 0) return 0;
+            }
+            return 0;
+        }
+
+        void put(int key, long value){
+            if ((size + 1) * 4 > table.keys.length * 3) resize(table.keys.length * 2);
+            int[] keys = table.keys;
+            int mask = keys.length - 1;
+            int i = mix(key) & mask;
+            while (keys[i] != 0 && keys[i] != key) i = (i + 1) & mask;
+            if (keys[i] == 0) size++;
+            table.vals[i] = value;
+            keys[i] = key;
+        }
+
+        long remove(int key){
+            int[] keys = table.keys;
+            long[] vals = table.vals;
+            int mask = keys.length - 1;
+            int i = mix(key) & mask;
+            while (keys[i] != key) {
+                if (keys[i] == 0) return 0;
+                i = (i + 1) & mask;
+            }
+            long old = vals[i];
+            // borrado con corrimiento hacia atrás: no deja lápidas en la cadena de sondeo
+            int gap = i;
+            for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+                int home = mix(keys[j]) & mask;
+                if (((j - home) & mask) >= ((j - gap) & mask)) {
+                    keys[gap] = keys[j];
+                    vals[gap] = vals[j];
+                    gap = j;
+                }
+            }
+            keys[gap] = 0;
+            vals[gap] = 0;
+            size--;
+            return old;
+        }
+
+        int size(){ return size; }
+
+        void clear(){
+            table = new Table(1024);
+            size = 0;
+        }
+
+        private void resize(int capacity){
+            Table old = table;
+            Table t = new Table(capacity);
+            int mask = capacity - 1;
+            for (int i = 0; i < old.keys.length; i++) {
+                int k = old.keys[i];
+                if (k == 0) continue;
+                int j = mix(k) & mask;
+                while (t.keys[j] != 0) j = (j + 1) & mask;
+                t.keys[j] = k;
+                t.vals[j] = old.vals[i];
+            }
+            table = t;
+        }
+
+        private static int mix(int key){
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
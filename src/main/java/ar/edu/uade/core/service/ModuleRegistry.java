@@ -0,0 +1,68 @@
+package ar.edu.uade.core.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// Módulos consumidores con un id chico y estable (tabla consumer_module): el módulo con id n es el bit n - 1
+// de las máscaras long de queue_message (expected_mask / consumed_mask), así un ACK es un OR y una comparación.
+// Son pocos módulos: la búsqueda es un recorrido del arreglo con equalsIgnoreCase, sin pasar el nombre a minúscula.
+public class ModuleRegistry {
+
+    public static final int MAX_MODULES = 63;
+
+    // mismos ids que siembra V9__consumer_modules.sql; sirven hasta que se carga la tabla
+    public static final List<String> BUILT_IN = List.of("ventas", "inventario", "analitica");
+
+    // índice = id - 1; null = id libre
+    private volatile String[] byId = BUILT_IN.toArray(new String[0]);
+
+    // reemplaza el registro con las filas de consumer_module (id -> nombre)
+    public synchronized void load(Map<Integer, String> modules){
+        int max = modules.keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
+        if (max > MAX_MODULES) throw new IllegalStateException("consumer_module admite ids 1.." + MAX_MODULES + ", hay " + max);
+        String[] names = new String[Math.max(max, BUILT_IN.size())];
+        for (int i = 0; i < BUILT_IN.size(); i++) names[i] = BUILT_IN.get(i);
+        modules.forEach((id, name) -> {
+            if (id < 1) throw new IllegalStateException("id de consumer_module inválido: " + id);
+            names[id - 1] = name;
+        });
+        byId = names;
+    }
+
+    // bit del módulo, 0 si no está registrado (un módulo no esperado no cambia la completitud)
+    public long bitOf(String name){
+        if (name == null) return 0L;
+        String[] names = byId;
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] != null && names[i].equalsIgnoreCase(name)) return 1L << i;
+        }
+        return 0L;
+    }
+
+    public long maskOf(Collection<String> names){
+        long mask = 0L;
+        for (String n : names) {
+            long bit = bitOf(n);
+            if (bit == 0L) throw new IllegalArgumentException("Módulo no registrado en consumer_module: " + n);
+            mask |= bit;
+        }
+        return mask;
+    }
+
+    // nombres de los bits de la máscara (para logs y diagnósticos, fuera del camino del ACK)
+    public List<String> namesOf(long mask){
+        String[] names = byId;
+        List<String> out = new ArrayList<>(Long.bitCount(mask));
+        for (int i = 0; i < names.length; i++) {
+            if ((mask & (1L << i)) != 0 && names[i] != null) out.add(names[i]);
+        }
+        return out;
+    }
+
+    public int size(){
+        return (int) Arrays.stream(byId).filter(n -> n != null).count();
+    }
+}
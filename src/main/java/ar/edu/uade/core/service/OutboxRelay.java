@@ -0,0 +1,175 @@
+package ar.edu.uade.core.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.InvalidTopicException;
+import org.apache.kafka.common.errors.RecordBatchTooLargeException;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.mapping.AbstractJavaTypeMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import ar.edu.uade.core.model.EventMessage;
+import ar.edu.uade.core.model.OutboxMessage;
+import ar.edu.uade.core.repository.OutboxRepository;
+
+/**
+ * Drena la tabla outbox_message hacia Kafka en lotes. Los envíos de un lote salen en paralelo,
+ * se hace un único flush del productor y luego se borran de una vez las filas confirmadas.
+ * Una fila que falla queda en la tabla (attempts/last_error) y no se reintenta hasta next_attempt_at, con espera
+ * exponencial entre retry-base-delay-ms y retry-max-delay-ms: un corte del broker no aparta nada, solo espacia
+ * los reintentos. Solo los errores que no se arreglan reintentando (mensaje demasiado grande, serialización,
+ * tópico inválido) apartan la fila (parked_at); se cuentan en /core/outbox y vuelven con requeueParked.
+ * Con varias réplicas publica solo la dueña de SchedulerLease, así cada fila sale una vez. No hay orden entre
+ * filas: los envíos de un lote van en paralelo y una fila que falla sale después de las siguientes.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    private final OutboxRepository outboxRepository;
+    // El envelope ya viene serializado: se publica tal cual con StringSerializer
+    private final KafkaTemplate<String, String> rawKafkaTemplate;
+    private final SchedulerLease schedulerLease;
+
+    @Value("${app.kafka.outbox.enabled:true}")
+    private boolean enabled;
+    @Value("${app.kafka.outbox.batch-size:200}")
+    private int batchSize;
+    @Value("${app.kafka.outbox.retry-base-delay-ms:1000}")
+    private long retryBaseDelayMs;
+    @Value("${app.kafka.outbox.retry-max-delay-ms:60000}")
+    private long retryMaxDelayMs;
+    @Value("${app.kafka.send.timeout-ms:5000}")
+    private long sendTimeoutMs;
+
+    @Autowired
+    @SuppressWarnings("unchecked")
+    public OutboxRelay(OutboxRepository outboxRepository, ProducerFactory<String, Object> producerFactory, SchedulerLease schedulerLease) {
+        this(outboxRepository, new KafkaTemplate<>((ProducerFactory<String, String>) (ProducerFactory<?, ?>) producerFactory,
+                Map.of(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class)), schedulerLease);
+    }
+
+    OutboxRelay(OutboxRepository outboxRepository, KafkaTemplate<String, String> rawKafkaTemplate, SchedulerLease schedulerLease) {
+        this.outboxRepository = outboxRepository;
+        this.rawKafkaTemplate = rawKafkaTemplate;
+        this.schedulerLease = schedulerLease;
+    }
+
+    @Scheduled(fixedDelayString = "${app.kafka.outbox.poll-interval-ms:200}")
+    public void scheduledDrain(){
+        if (enabled && schedulerLease.isLeader()) drain();
+    }
+
+    // Publica lotes hasta vaciar la outbox o hasta el primer lote con fallos (broker con problemas).
+    // Si el lease se pierde a mitad de camino se corta: lo que queda lo publica la nueva dueña.
+    public int drain(){
+        int total = 0;
+        while (schedulerLease.isLeader()){
+            List<OutboxMessage> batch = outboxRepository.findBatch(LocalDateTime.now(), PageRequest.of(0, Math.max(1, batchSize)));
+            if (batch.isEmpty()) return total;
+            int sent = relayBatch(batch);
+            total += sent;
+            if (sent < batch.size() || batch.size() < batchSize) return total;
+        }
+        return total;
+    }
+
+    private int relayBatch(List<OutboxMessage> batch){
+        List<ProducerRecord<String, String>> records = new ArrayList<>(batch.size());
+        for (OutboxMessage om : batch){
+            ProducerRecord<String, String> record = new ProducerRecord<>(om.getTopic(), om.getMessageKey(), om.getPayload());
+            // mismo header de tipo que agrega JsonSerializer, para no romper a los consumidores existentes
+            record.headers().add(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME,
+                    EventMessage.class.getName().getBytes(StandardCharsets.UTF_8));
+            records.add(record);
+        }
+        List<Throwable> errors = BatchPublisher.publish(rawKafkaTemplate, records, sendTimeoutMs);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Integer> sentIds = new ArrayList<>(batch.size());
+        List<OutboxMessage> failed = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++){
+            OutboxMessage om = batch.get(i);
+            if (errors.get(i) == null) {
+                sentIds.add(om.getId());
+            } else {
+                markFailed(om, errors.get(i), now);
+                failed.add(om);
+            }
+        }
+
+        if (!sentIds.isEmpty()) outboxRepository.deleteAllByIdInBatch(sentIds);
+        if (!failed.isEmpty()){
+            outboxRepository.saveAll(failed);
+            log.warn("[Outbox] {} de {} mensajes no se pudieron publicar; se reintentan con backoff", failed.size(), batch.size());
+        }
+        log.debug("[Outbox] Lote publicado: {} ok, {} con error", sentIds.size(), failed.size());
+        return sentIds.size();
+    }
+
+    private void markFailed(OutboxMessage om, Throwable error, LocalDateTime now){
+        int attempts = (om.getAttempts() == null ? 0 : om.getAttempts()) + 1;
+        String message = BatchPublisher.message(error);
+        om.setAttempts(attempts);
+        om.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+        if (isPoison(error)) {
+            om.setParkedAt(now);
+            om.setNextAttemptAt(null);
+            log.error("[Outbox] Mensaje {} (evento {}, tópico {}) apartado: {}. Se reintenta con POST /core/outbox/requeue",
+                    om.getId(), om.getEventId(), om.getTopic(), om.getLastError());
+            return;
+        }
+        om.setNextAttemptAt(now.plus(backoffMs(attempts), ChronoUnit.MILLIS));
+    }
+
+    // espera antes del intento siguiente al número 'attempts' (1 = primer fallo): base * 2^(attempts-1) con tope
+    long backoffMs(int attempts){
+        long base = Math.max(1L, retryBaseDelayMs);
+        long max = Math.max(base, retryMaxDelayMs);
+        int shift = Math.min(Math.max(0, attempts - 1), 30);
+        return Math.min(base << shift, max);
+    }
+
+    // errores que se repiten igual en cada intento: reintentar no sirve, la fila se aparta
+    static boolean isPoison(Throwable error){
+        for (Throwable t = error; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof RecordTooLargeException || t instanceof RecordBatchTooLargeException
+                    || t instanceof SerializationException || t instanceof InvalidTopicException) return true;
+        }
+        return false;
+    }
+
+    public long pendingCount(){
+        return outboxRepository.countByParkedAtIsNull();
+    }
+
+    public long parkedCount(){
+        return outboxRepository.countByParkedAtIsNotNull();
+    }
+
+    // vuelve a poner en la cola las filas apartadas (todas o solo 'id'); devuelve cuántas
+    public int requeueParked(Integer id){
+        int requeued = id == null ? outboxRepository.requeueParked() : outboxRepository.requeueParked(id);
+        if (requeued > 0) log.info("[Outbox] {} mensajes apartados vuelven a la cola", requeued);
+        return requeued;
+    }
+}
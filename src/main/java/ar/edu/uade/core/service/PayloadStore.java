@@ -0,0 +1,91 @@
+package ar.edu.uade.core.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import ar.edu.uade.core.model.PayloadBlob;
+import ar.edu.uade.core.model.PayloadCodec;
+import ar.edu.uade.core.repository.PayloadBlobRepository;
+
+// Guarda cada payload una sola vez (clave = sha-256 del contenido) y devuelve referencias sin leer el contenido.
+// INSERT IGNORE sobre la unique de hash evita la carrera entre dos ingestas del mismo payload.
+// El hash es del texto original; el contenido se guarda ya codificado con PayloadCodec.
+@Component
+public class PayloadStore {
+
+    private static final String INSERT_SQL = "INSERT IGNORE INTO payload_blob (hash, content, created_at) VALUES (?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PayloadBlobRepository payloadBlobRepository;
+
+    public PayloadBlob intern(String content){
+        return internAll(java.util.Collections.singletonList(content)).get(0);
+    }
+
+    // Devuelve una referencia (proxy lazy) por cada contenido, en el mismo orden; null para contenido null.
+    // Dos round-trips por lote: un batch de INSERT IGNORE y un select de ids por hash.
+    public List<PayloadBlob> internAll(List<String> contents){
+        Map<String, String> byHash = new LinkedHashMap<>();
+        List<String> hashes = new ArrayList<>(contents.size());
+        for (String c : contents){
+            String h = c != null ? sha256(c) : null;
+            hashes.add(h);
+            if (h != null) byHash.putIfAbsent(h, c);
+        }
+        List<PayloadBlob> result = new ArrayList<>(contents.size());
+        if (byHash.isEmpty()){
+            for (int i = 0; i < contents.size(); i++) result.add(null);
+            return result;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(byHash.size());
+        byHash.forEach((h, c) -> rows.add(new Object[]{h, PayloadCodec.encode(c), now}));
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+
+        Map<String, Long> ids = new HashMap<>();
+        for (Object[] r : payloadBlobRepository.findIdsByHashIn(byHash.keySet())) ids.put((String) r[1], (Long) r[0]);
+        for (String h : hashes){
+            if (h == null) { result.add(null); continue; }
+            Long id = ids.get(h);
+            if (id == null) throw new IllegalStateException("payload_blob sin fila para hash " + h);
+            result.add(payloadBlobRepository.getReferenceById(id));
+        }
+        return result;
+    }
+
+    // Contenido de varios blobs en una consulta (ids repetidos se leen una vez)
+    public Map<Long, String> contentsById(Collection<Long> ids){
+        Map<Long, String> out = new HashMap<>();
+        if (ids.isEmpty()) return out;
+        for (Object[] r : payloadBlobRepository.findContentsByIdIn(new HashSet<>(ids))) out.put((Long) r[0], (String) r[1]);
+        return out;
+    }
+
+    public static String sha256(String content){
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ar.edu.uade.core.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Escalones de la reentrega de retries: la reentrega n (0, 1, ...) sale por <tópico>.retry-<espera>, donde la espera
+ * es initial-delay * multiplier^n con tope en max-delay (con los valores por defecto: retry-30s y después retry-5m).
+ * Solo elige el tópico: cuánto se corre next_attempt_at lo decide la política del tipo (RetryPolicies). Por el tope,
+ * cada tópico base tiene unos pocos tópicos de retry fijos, que TopicProvisioner crea al arrancar.
+ */
+@Component
+public class RetryBackoff {
+
+    // corte de seguridad de tiers() si multiplier y max-delay no convergen
+    private static final int MAX_TIERS = 16;
+
+    @Value("${app.retry.redelivery.initial-delay-ms:30000}")
+    private long initialDelayMs;
+    @Value("${app.retry.redelivery.multiplier:10}")
+    private double multiplier;
+    @Value("${app.retry.redelivery.max-delay-ms:300000}")
+    private long maxDelayMs;
+
+    public long delayMs(int redelivery){
+        long initial = Math.max(1000L, initialDelayMs);
+        double delay = initial * Math.pow(Math.max(1.0, multiplier), Math.max(0, redelivery));
+        return (long) Math.min(delay, Math.max(initial, maxDelayMs));
+    }
+
+    public String topicFor(String baseTopic, int redelivery){
+        return baseTopic + ".retry-" + label(delayMs(redelivery));
+    }
+
+    // esperas distintas, de la primera al tope
+    public List<Long> tiers(){
+        List<Long> out = new ArrayList<>();
+        for (int n = 0; n < MAX_TIERS; n++) {
+            long d = delayMs(n);
+            if (!out.isEmpty() && out.get(out.size() - 1) == d) break;
+            out.add(d);
+        }
+        return out;
+    }
+
+    public List<String> topicsFor(String baseTopic){
+        return tiers().stream().map(d -> baseTopic + ".retry-" + label(d)).toList();
+    }
+
+    // 30000 -> 30s, 300000 -> 5m, 3600000 -> 1h; lo que no cae justo queda en ms
+    static String label(long ms){
+        if (ms % 3_600_000 == 0) return (ms / 3_600_000) + "h";
+        if (ms % 60_000 == 0) return (ms / 60_000) + "m";
+        if (ms % 1000 == 0) return (ms / 1000) + "s";
+        return ms + "ms";
+    }
+}
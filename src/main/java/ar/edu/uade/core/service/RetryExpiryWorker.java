@@ -0,0 +1,129 @@
+package ar.edu.uade.core.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import ar.edu.uade.core.model.RetrySweepReport;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Hilo que espera el próximo vencimiento de RetryTimer y pasa a DEAD los retries vencidos apenas vencen,
+ * en lotes de hasta app.retry.timer.batch-size. Reemplaza al barrido findAll cada 30 s: el costo es
+ * proporcional a lo que vence, no al tamaño de la cola. Si la DB falla, las filas se reprograman.
+ * sweep() es el barrido a pedido de POST /core/processRetries, por índice y en tramos.
+ * Con varias réplicas solo trabaja la dueña de SchedulerLease; su barrido periódico levanta los retries que
+ * cambiaron en otras réplicas (esos no están en su RetryTimer).
+ */
+@Component
+public class RetryExpiryWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(RetryExpiryWorker.class);
+    // cada cuánto el hilo revisa si tiene que terminar cuando no vence nada
+    private static final long POLL_TIMEOUT_MS = 500;
+    private static final long STOP_TIMEOUT_MS = 5000;
+
+    @Autowired
+    private KafkaMockService kafkaMockService;
+
+    @Autowired
+    private SchedulerLease schedulerLease;
+
+    @Value("${app.retry.timer.enabled:true}")
+    private boolean enabled;
+    @Value("${app.retry.timer.batch-size:500}")
+    private int batchSize;
+    @Value("${app.retry.timer.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+    @Value("${app.retry.sweep.chunk-size:1000}")
+    private int sweepChunkSize;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    // después de cargar RetryTimer (KafkaMockService, HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public synchronized void start(){
+        if (!enabled || running) return;
+        running = true;
+        thread = new Thread(this::run, "retry-timer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop(){
+        running = false;
+        if (thread == null) return;
+        try {
+            thread.join(STOP_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run(){
+        while (running) {
+            try {
+                runOnce();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // devuelve cuántos retries pasaron a DEAD
+    int runOnce() throws InterruptedException {
+        if (!schedulerLease.isLeader()) {
+            Thread.sleep(POLL_TIMEOUT_MS);
+            return 0;
+        }
+        List<Integer> due = kafkaMockService.awaitDueRetries(Math.max(1, batchSize), POLL_TIMEOUT_MS);
+        if (due.isEmpty()) return 0;
+        try {
+            return kafkaMockService.expireDueRetries(due);
+        } catch (RuntimeException e) {
+            log.warn("[Core] No se pudieron vencer {} retries, se reprograman en {} ms: {}", due.size(), retryBackoffMs, e.toString());
+            kafkaMockService.deferRetries(due, retryBackoffMs);
+            return 0;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.retry.sweep.interval-ms:60000}", initialDelayString = "${app.retry.sweep.interval-ms:60000}")
+    public void scheduledSweep(){
+        if (enabled && schedulerLease.isLeader()) sweep();
+    }
+
+    // Pasa a DEAD todo lo vencido a la hora de inicio, de a app.retry.sweep.chunk-size filas por transacción,
+    // hasta que un tramo venga incompleto. Lo que vence durante el barrido queda para RetryTimer.
+    public RetrySweepReport sweep(){
+        LocalDateTime now = LocalDateTime.now();
+        int chunkSize = Math.max(1, sweepChunkSize);
+        long start = System.nanoTime();
+        long rows = 0;
+        int chunks = 0;
+        int moved;
+        do {
+            moved = kafkaMockService.expireRetryChunk(now, chunkSize);
+            rows += moved;
+            chunks++;
+        } while (moved >= chunkSize);
+        RetrySweepReport report = RetrySweepReport.of(rows, chunks, System.nanoTime() - start);
+        log.info("[Core] Barrido de retries: {} movidos a DEAD en {} tramos, {} ms ({} filas/s)",
+                rows, chunks, Math.round(report.getElapsedMs()), Math.round(report.getRowsPerSecond()));
+        return report;
+    }
+}
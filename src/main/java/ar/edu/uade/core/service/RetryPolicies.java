@@ -0,0 +1,182 @@
+package ar.edu.uade.core.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+
+// Políticas de retry por tipo de evento y módulo consumidor: intentos, espera base, multiplicador, jitter, tope y TTL.
+// El archivo (app.retry.policy.location) se compila en un mapa inmutable con claves normalizadas: "<clave>|<módulo>",
+// "<clave>" y "*|<módulo>", donde la clave es un tópico de la tabla de ruteo o un tipo. policyFor prueba de la más
+// específica a la más general y si nada coincide usa 'default'. Lo que una entrada no define lo toma de 'default'.
+// Se aplica al crear un RetryMessage, al sumarle intentos y en cada reentrega (RetryRedelivery); RetryBackoff solo
+// elige el tópico de escalón por el que sale la reentrega.
+// Como la tabla de ruteo, si la ubicación es un archivo se recarga en caliente cuando cambia.
+@Component
+public class RetryPolicies {
+
+    private static final Logger log = LoggerFactory.getLogger(RetryPolicies.class);
+
+    static final String BUILT_IN_LOCATION = "classpath:routing/retry-policies.json";
+    private static final String ANY = "*";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public record Policy(int maxAttempts, long baseDelayMs, double multiplier, double jitter, long maxDelayMs, long ttlSeconds) {
+
+        // espera antes del reintento 'retry' (0 = el primero): base * multiplier^retry con tope en maxDelayMs,
+        // corrida al azar hasta ± jitter (random en [0, 1)) para que los fallos de un mismo lote no vuelvan juntos
+        public long delayMs(int retry, double random){
+            double delay = Math.min(baseDelayMs * Math.pow(multiplier, Math.max(0, retry)), maxDelayMs);
+            return Math.max(0L, Math.round(delay * (1 + jitter * (2 * random - 1))));
+        }
+
+        public LocalDateTime nextAttemptAt(LocalDateTime from, int retry){
+            return from.plus(delayMs(retry, ThreadLocalRandom.current().nextDouble()), ChronoUnit.MILLIS);
+        }
+    }
+
+    private record Compiled(Policy defaults, Map<String, Policy> byKey) { }
+
+    // formato del archivo de políticas; los tiempos van en segundos
+    record PolicyFile(@JsonProperty("default") PolicyEntry defaults, List<PolicyEntry> policies) { }
+
+    record PolicyEntry(List<String> keys, List<String> consumers, Integer maxAttempts, Long baseDelaySeconds,
+                       Double multiplier, Double jitter, Long maxDelaySeconds, Long ttlSeconds) { }
+
+    private final EventRouter eventRouter;
+
+    @Value("${app.retry.policy.location:" + BUILT_IN_LOCATION + "}")
+    private String location = BUILT_IN_LOCATION;
+
+    private volatile Compiled current;
+    private volatile long loadedLastModified;
+
+    public RetryPolicies(EventRouter eventRouter) {
+        this.eventRouter = eventRouter;
+        current = compile(read(new DefaultResourceLoader().getResource(BUILT_IN_LOCATION)));
+    }
+
+    @PostConstruct
+    void init() {
+        if (!BUILT_IN_LOCATION.equals(location)) reload();
+    }
+
+    public Policy policyFor(String type, String consumerModule){
+        Compiled c = current;
+        if (type == null) return consumerModule == null ? c.defaults : c.byKey.getOrDefault(key(ANY, consumerModule), c.defaults);
+        String topic = eventRouter.route(type).topic();
+        String normalized = EventRouter.normalize(type);
+        Policy p = null;
+        if (consumerModule != null) {
+            if (topic != null) p = c.byKey.get(key(topic, consumerModule));
+            if (p == null) p = c.byKey.get(key(normalized, consumerModule));
+        }
+        if (p == null && topic != null) p = c.byKey.get(topic);
+        if (p == null) p = c.byKey.get(normalized);
+        if (p == null && consumerModule != null) p = c.byKey.get(key(ANY, consumerModule));
+        return p != null ? p : c.defaults;
+    }
+
+    public Policy defaults(){
+        return current.defaults;
+    }
+
+    // vuelve a leer y compilar las políticas; si el archivo no es válido se lanza la excepción y quedan las anteriores
+    public synchronized int reload(){
+        Resource resource = new DefaultResourceLoader().getResource(location);
+        long modified = lastModified(resource);
+        Compiled compiled = compile(read(resource));
+        current = compiled;
+        loadedLastModified = modified;
+        log.info("[Core] Políticas de retry cargadas desde {}: {} claves", location, compiled.byKey.size());
+        return compiled.byKey.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.routing.reload-interval-ms:10000}")
+    public void reloadIfChanged(){
+        Resource resource = new DefaultResourceLoader().getResource(location);
+        if (!resource.isFile()) return;
+        try {
+            if (lastModified(resource) != loadedLastModified) reload();
+        } catch (RuntimeException e) {
+            log.error("[Core] No se pudieron recargar las políticas de retry {}: {}. Se mantienen las anteriores.", location, e.getMessage());
+        }
+    }
+
+    private static String key(String key, String consumerModule){
+        return EventRouter.normalize(key) + "|" + EventRouter.normalize(consumerModule);
+    }
+
+    private PolicyFile read(Resource resource){
+        try (InputStream in = resource.getInputStream()) {
+            return MAPPER.readValue(in, PolicyFile.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudieron leer las políticas de retry " + resource.getDescription() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static long lastModified(Resource resource){
+        try {
+            return resource.isFile() ? resource.lastModified() : 0L;
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private static Compiled compile(PolicyFile file){
+        if (file == null || file.defaults() == null) throw new IllegalStateException("Las políticas de retry no tienen 'default'");
+        Policy defaults = policy(file.defaults(), null, "default");
+        Map<String, Policy> byKey = new HashMap<>();
+        if (file.policies() != null) {
+            for (PolicyEntry e : file.policies()) {
+                List<String> keys = e.keys() == null || e.keys().isEmpty() ? List.of(ANY) : e.keys();
+                Policy p = policy(e, defaults, String.join(",", keys));
+                for (String k : keys) {
+                    if (k == null || k.isBlank()) throw new IllegalStateException("Clave vacía en las políticas de retry");
+                    if (e.consumers() == null || e.consumers().isEmpty()) {
+                        if (ANY.equals(k.trim())) throw new IllegalStateException("Una política sin 'keys' necesita 'consumers'");
+                        byKey.put(EventRouter.normalize(k), p);
+                    } else {
+                        for (String m : e.consumers()) byKey.put(key(k, m), p);
+                    }
+                }
+            }
+        }
+        return new Compiled(defaults, Map.copyOf(byKey));
+    }
+
+    private static Policy policy(PolicyEntry e, Policy base, String name){
+        int maxAttempts = e.maxAttempts() != null ? e.maxAttempts() : base != null ? base.maxAttempts() : 0;
+        long baseDelayMs = e.baseDelaySeconds() != null ? e.baseDelaySeconds() * 1000 : base != null ? base.baseDelayMs() : -1;
+        double multiplier = e.multiplier() != null ? e.multiplier() : base != null ? base.multiplier() : 1.0;
+        double jitter = e.jitter() != null ? e.jitter() : base != null ? base.jitter() : 0.0;
+        long ttlSeconds = e.ttlSeconds() != null ? e.ttlSeconds() : base != null ? base.ttlSeconds() : 0;
+        // sin tope explícito la espera no pasa del TTL: después de eso el retry ya venció
+        long maxDelayMs = e.maxDelaySeconds() != null ? e.maxDelaySeconds() * 1000
+                : base != null && e.ttlSeconds() == null ? base.maxDelayMs() : ttlSeconds * 1000;
+        if (maxAttempts < 1) throw new IllegalStateException("maxAttempts inválido en la política " + name + ": " + maxAttempts);
+        if (baseDelayMs < 0 || maxDelayMs < baseDelayMs) throw new IllegalStateException("Esperas inválidas en la política " + name);
+        if (multiplier < 1.0) throw new IllegalStateException("multiplier inválido en la política " + name + ": " + multiplier);
+        if (jitter < 0.0 || jitter > 1.0) throw new IllegalStateException("jitter inválido en la política " + name + ": " + jitter);
+        if (ttlSeconds < 1) throw new IllegalStateException("ttlSeconds inválido en la política " + name + ": " + ttlSeconds);
+        return new Policy(maxAttempts, baseDelayMs, multiplier, jitter, maxDelayMs, ttlSeconds);
+    }
+}
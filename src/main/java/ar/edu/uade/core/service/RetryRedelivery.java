@@ -0,0 +1,167 @@
+package ar.edu.uade.core.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import ar.edu.uade.core.model.EventMessage;
+import ar.edu.uade.core.model.RawJson;
+import ar.edu.uade.core.model.RetryDelivery;
+import ar.edu.uade.core.repository.RetryMessageRepository;
+
+/**
+ * Reentrega los retries con next_attempt_at vencido al tópico de retry de su escalón (RetryBackoff), en lotes
+ * con BatchPublisher como OutboxRelay, con el id del evento como clave (mismo evento, misma partición). A los que
+ * el broker confirmó se les suma la reentrega y se corre next_attempt_at según la política de su tipo y módulo
+ * (RetryPolicies), con un UPDATE por número de reentrega y política (el jitter se sortea por grupo). Los tópicos
+ * de escalón son fijos porque se crean al arrancar: solo eligen por dónde sale el mensaje, no cuánto espera.
+ * Los que fallan no suman reentrega pero esperan lo mismo que en el escalón actual antes de volver a salir, así
+ * un broker caído no los reenvía en cada poll; el tope es el TTL del retry. No se reentrega lo que ya agotó las reentregas
+ * (redeliveries = max_attempts) ni lo que venció por TTL o intentos: eso lo pasa a DEAD RetryExpiryWorker.
+ * Los consumidores confirman con POST /core/retry/ack o piden otro intento con POST /core/retry/fail,
+ * usando el id del header core-retry-id. Con varias réplicas reentrega solo la dueña de SchedulerLease.
+ */
+@Component
+public class RetryRedelivery {
+
+    private static final Logger log = LoggerFactory.getLogger(RetryRedelivery.class);
+    static final String EVENT_ID_HEADER = "core-event-id";
+    static final String RETRY_ID_HEADER = "core-retry-id";
+    static final String REDELIVERY_HEADER = "core-retry-redelivery";
+    static final String CONSUMER_HEADER = "core-retry-consumer";
+
+    @Autowired
+    private RetryMessageRepository retryMessageRepository;
+
+    @Autowired
+    private PayloadStore payloadStore;
+
+    @Autowired
+    private TopicResolver topicResolver;
+
+    @Autowired
+    private RetryBackoff retryBackoff;
+
+    @Autowired
+    private RetryPolicies retryPolicies;
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Autowired
+    private SchedulerLease schedulerLease;
+
+    @Value("${app.retry.redelivery.enabled:true}")
+    private boolean enabled;
+    @Value("${app.retry.redelivery.batch-size:200}")
+    private int batchSize;
+    @Value("${app.kafka.send.timeout-ms:5000}")
+    private long sendTimeoutMs;
+
+    @Scheduled(fixedDelayString = "${app.retry.redelivery.poll-interval-ms:1000}")
+    public void scheduledRedeliver(){
+        if (enabled && schedulerLease.isLeader()) redeliver();
+    }
+
+    // Publica lotes hasta que no quede nada vencido o hasta el primer lote con fallos (broker con problemas)
+    public int redeliver(){
+        int size = Math.max(1, batchSize);
+        int total = 0;
+        while (true){
+            List<RetryDelivery> batch = retryMessageRepository.findDueRedeliveries(LocalDateTime.now(), size).stream()
+                    .map(RetryDelivery::of).toList();
+            if (batch.isEmpty()) return total;
+            int sent = redeliverBatch(batch);
+            total += sent;
+            if (sent < batch.size() || batch.size() < size) return total;
+        }
+    }
+
+    private int redeliverBatch(List<RetryDelivery> batch){
+        Map<Long, String> payloads = payloadStore.contentsById(
+                batch.stream().map(RetryDelivery::payloadId).filter(Objects::nonNull).toList());
+        List<ProducerRecord<String, Object>> records = new ArrayList<>(batch.size());
+        for (RetryDelivery d : batch){
+            String topic = retryBackoff.topicFor(topicResolver.resolveTopic(d.type(), d.originModule()), d.redeliveries());
+            records.add(record(topic, d, payloads.get(d.payloadId())));
+        }
+        List<Throwable> errors = BatchPublisher.publish(kafkaTemplate, records, sendTimeoutMs);
+
+        // número de reentrega -> política -> filas; cada grupo espera lo mismo hasta la siguiente.
+        // Las enviadas pasan a la reentrega siguiente; las que fallaron se quedan en la que tenían
+        Map<Integer, Map<RetryPolicies.Policy, List<Integer>>> sentByRedelivery = new TreeMap<>();
+        Map<Integer, Map<RetryPolicies.Policy, List<Integer>>> failedByRedelivery = new TreeMap<>();
+        String lastError = null;
+        for (int i = 0; i < batch.size(); i++){
+            RetryDelivery d = batch.get(i);
+            if (errors.get(i) == null) {
+                group(sentByRedelivery, d.redeliveries() + 1, d);
+            } else {
+                group(failedByRedelivery, d.redeliveries(), d);
+                lastError = BatchPublisher.message(errors.get(i));
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int sent = 0;
+        for (Map.Entry<Integer, Map<RetryPolicies.Policy, List<Integer>>> e : sentByRedelivery.entrySet()){
+            int redeliveries = e.getKey();
+            for (Map.Entry<RetryPolicies.Policy, List<Integer>> g : e.getValue().entrySet()){
+                // el primer intento esperó el reintento 0 de la política; después de n reentregas, el reintento n
+                retryMessageRepository.markRedelivered(g.getValue(), redeliveries, g.getKey().nextAttemptAt(now, redeliveries));
+                sent += g.getValue().size();
+            }
+        }
+        for (Map.Entry<Integer, Map<RetryPolicies.Policy, List<Integer>>> e : failedByRedelivery.entrySet()){
+            int redeliveries = e.getKey();
+            for (Map.Entry<RetryPolicies.Policy, List<Integer>> g : e.getValue().entrySet()){
+                retryMessageRepository.deferRedelivery(g.getValue(), redeliveries, g.getKey().nextAttemptAt(now, redeliveries));
+            }
+        }
+        if (sent < batch.size()){
+            log.warn("[Core][Redelivery] {} de {} retries no se pudieron reentregar; se reintentan tras la espera de su política: {}",
+                    batch.size() - sent, batch.size(), lastError);
+        }
+        log.debug("[Core][Redelivery] Lote reentregado: {} ok, {} con error", sent, batch.size() - sent);
+        return sent;
+    }
+
+    private void group(Map<Integer, Map<RetryPolicies.Policy, List<Integer>>> groups, int redeliveries, RetryDelivery d){
+        groups.computeIfAbsent(redeliveries, k -> new LinkedHashMap<>())
+                .computeIfAbsent(retryPolicies.policyFor(d.type(), d.consumerModule()), k -> new ArrayList<>()).add(d.id());
+    }
+
+    private ProducerRecord<String, Object> record(String topic, RetryDelivery d, String payload){
+        EventMessage msg = new EventMessage(UUID.randomUUID().toString(), d.type(), OffsetDateTime.now(ZoneOffset.UTC),
+                d.originModule(), payload != null ? new RawJson(payload) : null);
+        // clave = id del evento: todas las reentregas de un evento van a la misma partición del tópico de escalón
+        String key = d.eventId() != null ? d.eventId().toString() : null;
+        ProducerRecord<String, Object> record = new ProducerRecord<>(topic, key, msg);
+        header(record, EVENT_ID_HEADER, d.eventId());
+        header(record, RETRY_ID_HEADER, d.id());
+        header(record, REDELIVERY_HEADER, d.redeliveries() + 1);
+        header(record, CONSUMER_HEADER, d.consumerModule());
+        return record;
+    }
+
+    private static void header(ProducerRecord<String, Object> record, String name, Object value){
+        if (value != null) record.headers().add(name, value.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
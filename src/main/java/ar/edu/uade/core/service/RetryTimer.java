@@ -0,0 +1,99 @@
+package ar.edu.uade.core.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+// Vencimientos de los mensajes en RETRY (id de fila -> epoch millis), en una DelayQueue: sacar lo vencido cuesta
+// O(log n) por entrada, con n las entradas de la cola. Cada fila tiene un único vencimiento vigente (dueByRow);
+// al reprogramarla o cancelarla la entrada anterior queda en la cola (sacarla de la DelayQueue es O(n)) y se descarta
+// cuando sale. Las entradas viejas se cuentan: cuando superan a las vigentes la cola se rearma desde dueByRow, así
+// nunca tiene más del doble de entradas que filas programadas (más COMPACT_MIN_STALE).
+// Lo mantiene KafkaMockService en cada alta o cambio de un retry y se carga desde la DB al arrancar.
+public class RetryTimer {
+
+    static final int COMPACT_MIN_STALE = 1024;
+
+    private final DelayQueue<Entry> queue = new DelayQueue<>();
+    private final ConcurrentHashMap<Integer, Long> dueByRow = new ConcurrentHashMap<>();
+    // entradas de la cola que ya no son las vigentes de su fila (aproximado: solo decide cuándo compactar)
+    private int stale;
+
+    public synchronized void schedule(int rowId, long dueAtMillis){
+        if (rowId <= 0 || dueAtMillis == Long.MAX_VALUE) {
+            cancel(rowId);
+            return;
+        }
+        if (dueByRow.put(rowId, dueAtMillis) != null) stale++;
+        queue.add(new Entry(rowId, dueAtMillis));
+        compactIfNeeded();
+    }
+
+    public synchronized void cancel(int rowId){
+        if (dueByRow.remove(rowId) != null) {
+            stale++;
+            compactIfNeeded();
+        }
+    }
+
+    public synchronized void clear(){
+        dueByRow.clear();
+        queue.clear();
+        stale = 0;
+    }
+
+    // entradas en la cola, vigentes o no
+    int queued(){
+        return queue.size();
+    }
+
+    private void compactIfNeeded(){
+        if (stale <= Math.max(COMPACT_MIN_STALE, dueByRow.size())) return;
+        queue.clear();
+        dueByRow.forEach((rowId, dueAt) -> queue.add(new Entry(rowId, dueAt)));
+        stale = 0;
+    }
+
+    // filas con vencimiento vigente
+    public int size(){
+        return dueByRow.size();
+    }
+
+    public Long dueAt(int rowId){
+        return dueByRow.get(rowId);
+    }
+
+    // Espera hasta timeoutMs a que venza algo y devuelve hasta max filas vencidas (vacía si solo salieron entradas viejas).
+    // Las filas devueltas dejan de estar programadas: quien las procesa las reprograma si todavía no correspondía.
+    public List<Integer> awaitDue(int max, long timeoutMs) throws InterruptedException {
+        Entry first = queue.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        if (first == null) return List.of();
+        List<Integer> due = new ArrayList<>();
+        synchronized (this) {
+            take(first, due);
+            Entry e;
+            while (due.size() < max && (e = queue.poll()) != null) take(e, due);
+        }
+        return due;
+    }
+
+    private void take(Entry e, List<Integer> out){
+        if (dueByRow.remove(e.rowId, e.dueAtMillis)) out.add(e.rowId);
+        else if (stale > 0) stale--;
+    }
+
+    private record Entry(int rowId, long dueAtMillis) implements Delayed {
+        @Override
+        public long getDelay(TimeUnit unit){
+            return unit.convert(dueAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other){
+            return Long.compare(dueAtMillis, ((Entry) other).dueAtMillis);
+        }
+    }
+}
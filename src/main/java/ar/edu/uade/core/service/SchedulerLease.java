@@ -0,0 +1,115 @@
+package ar.edu.uade.core.service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Liderazgo del procesamiento de retries entre réplicas: lease en la fila 'retry-processing' de scheduler_lock.
+ * Cada heartbeat intenta tomar o renovar el lease con un único UPDATE condicional (libre, vencido o ya propio),
+ * con la hora de la DB para no depender de los relojes de las réplicas. Solo la réplica dueña vence retries
+ * (RetryExpiryWorker), los reentrega (RetryRedelivery) y publica la outbox (OutboxRelay); al tomar el lease se
+ * publica Acquired.
+ * isLeader() cuenta el lease desde antes del UPDATE, así localmente vence antes que en la DB.
+ * Con app.scheduler.lock.enabled=false (una sola réplica) siempre es líder.
+ */
+@Component
+public class SchedulerLease {
+
+    private static final Logger log = LoggerFactory.getLogger(SchedulerLease.class);
+    static final String RETRY_LOCK = "retry-processing";
+    private static final String ACQUIRE_SQL = "UPDATE scheduler_lock SET owner = ?, "
+            + "lease_until = TIMESTAMPADD(MICROSECOND, ?, CURRENT_TIMESTAMP(6)), heartbeat_at = CURRENT_TIMESTAMP(6) "
+            + "WHERE name = ? AND (owner = ? OR owner IS NULL OR lease_until < CURRENT_TIMESTAMP(6))";
+    private static final String RELEASE_SQL = "UPDATE scheduler_lock SET owner = NULL, lease_until = CURRENT_TIMESTAMP(6) "
+            + "WHERE name = ? AND owner = ?";
+
+    // se publica cuando esta réplica pasa a ser la dueña del lease
+    public record Acquired(String owner) { }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired(required = false)
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.scheduler.lock.enabled:true}")
+    private boolean enabled;
+    @Value("${app.scheduler.lock.lease-ms:15000}")
+    private long leaseMs;
+
+    private final String owner = hostName() + ":" + UUID.randomUUID().toString().substring(0, 8);
+    // System.nanoTime() hasta el que el lease es propio; 0 = no es líder
+    private volatile long validUntilNanos;
+
+    public boolean isLeader(){
+        if (!enabled) return true;
+        long until = validUntilNanos;
+        return until != 0 && System.nanoTime() - until < 0;
+    }
+
+    public String owner(){
+        return owner;
+    }
+
+    @Scheduled(fixedDelayString = "${app.scheduler.lock.heartbeat-ms:5000}")
+    public void heartbeat(){
+        if (!enabled) return;
+        boolean was = isLeader();
+        boolean now;
+        try {
+            now = tryAcquire();
+        } catch (DataAccessException e) {
+            // sin DB no se renueva: el lease local vence solo
+            log.warn("[Core][Lease] No se pudo renovar el lease {}: {}", RETRY_LOCK, e.toString());
+            return;
+        }
+        if (now && !was) {
+            log.info("[Core][Lease] {} es líder de {}", owner, RETRY_LOCK);
+            if (eventPublisher != null) eventPublisher.publishEvent(new Acquired(owner));
+        } else if (!now && was) {
+            log.warn("[Core][Lease] {} perdió el liderazgo de {}", owner, RETRY_LOCK);
+        }
+    }
+
+    boolean tryAcquire(){
+        long start = System.nanoTime();
+        boolean acquired = jdbcTemplate.update(ACQUIRE_SQL, owner, leaseMs * 1000, RETRY_LOCK, owner) == 1;
+        validUntilNanos = acquired ? start + leaseMs * 1_000_000 : 0;
+        return acquired;
+    }
+
+    // al apagar se libera para que otra réplica lo tome sin esperar el vencimiento
+    @PreDestroy
+    public void release(){
+        if (!enabled || validUntilNanos == 0) return;
+        validUntilNanos = 0;
+        try {
+            jdbcTemplate.update(RELEASE_SQL, RETRY_LOCK, owner);
+        } catch (DataAccessException e) {
+            log.warn("[Core][Lease] No se pudo liberar el lease {}: {}", RETRY_LOCK, e.toString());
+        }
+    }
+
+    // scheduler_lock.owner es VARCHAR(128): host + ":" + 8 caracteres
+    private static String hostName(){
+        try {
+            String host = InetAddress.getLocalHost().getHostName();
+            return host.length() > 119 ? host.substring(0, 119) : host;
+        } catch (UnknownHostException e) {
+            return "core";
+        }
+    }
+}
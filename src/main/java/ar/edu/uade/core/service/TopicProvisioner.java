@@ -0,0 +1,117 @@
+package ar.edu.uade.core.service;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.stereotype.Component;
+
+/**
+ * Con app.kafka.topic.mode=fine crea los tópicos <dominio>.<accion> de la tabla de ruteo usando el KafkaAdmin de Spring,
+ * al arrancar y cada vez que la tabla se recarga. createOrModifyTopics solo agrega particiones, nunca achica un tópico.
+ * Si el broker no responde se loguea y se sigue: los envíos fallan y se reintentan como con cualquier otro tópico.
+ * Con app.kafka.ack.enabled también crea el tópico de ACKs que consume AckListener (en cualquier modo), y con
+ * app.retry.redelivery.enabled los tópicos <tópico>.retry-<espera> de RetryBackoff para cada tópico base.
+ */
+@Component
+public class TopicProvisioner {
+
+    private static final Logger log = LoggerFactory.getLogger(TopicProvisioner.class);
+
+    private final KafkaAdmin kafkaAdmin;
+    private final EventRouter eventRouter;
+    private final TopicResolver topicResolver;
+    private final RetryBackoff retryBackoff;
+
+    // particiones de los tópicos sin "partitions" propio en la tabla de ruteo
+    @Value("${app.kafka.topic.partitions:3}")
+    private int defaultPartitions;
+    // <= 0: el default del broker
+    @Value("${app.kafka.topic.replication-factor:-1}")
+    private int replicationFactor;
+    @Value("${app.kafka.ack.enabled:false}")
+    private boolean ackEnabled;
+    @Value("${app.kafka.ack.topic:core.acks}")
+    private String ackTopic;
+    @Value("${app.retry.redelivery.enabled:true}")
+    private boolean redeliveryEnabled;
+
+    public TopicProvisioner(KafkaAdmin kafkaAdmin, EventRouter eventRouter, TopicResolver topicResolver, RetryBackoff retryBackoff) {
+        this.kafkaAdmin = kafkaAdmin;
+        this.eventRouter = eventRouter;
+        this.topicResolver = topicResolver;
+        this.retryBackoff = retryBackoff;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void provisionOnStartup(){
+        provision(eventRouter.routes());
+        provisionAckTopic();
+        provisionRetryTopics(topicResolver.getAllTopics());
+    }
+
+    @EventListener
+    public void onRoutesReloaded(EventRouter.RoutesReloaded event){
+        if (provision(event.routes()) > 0) provisionRetryTopics(event.routes().stream().map(EventRouter.Route::topic).toList());
+    }
+
+    // devuelve cuántos tópicos se enviaron al broker (0 si no aplica o falló)
+    int provision(List<EventRouter.Route> routes){
+        if (!topicResolver.isFineGrained() || routes.isEmpty()) return 0;
+        NewTopic[] topics = routes.stream().map(this::newTopic).toArray(NewTopic[]::new);
+        try {
+            kafkaAdmin.createOrModifyTopics(topics);
+            log.info("[Core] {} tópicos por acción verificados en Kafka", topics.length);
+            return topics.length;
+        } catch (RuntimeException e) {
+            log.error("[Core] No se pudieron crear los tópicos por acción: {}", e.toString());
+            return 0;
+        }
+    }
+
+    boolean provisionAckTopic(){
+        if (!ackEnabled) return false;
+        try {
+            kafkaAdmin.createOrModifyTopics(newTopic(ackTopic));
+            return true;
+        } catch (RuntimeException e) {
+            log.error("[Core] No se pudo crear el tópico de ACKs {}: {}", ackTopic, e.toString());
+            return false;
+        }
+    }
+
+    // devuelve cuántos tópicos de retry se enviaron al broker (0 si no aplica o falló)
+    int provisionRetryTopics(Collection<String> baseTopics){
+        if (!redeliveryEnabled || baseTopics.isEmpty()) return 0;
+        NewTopic[] topics = baseTopics.stream().distinct().flatMap(t -> retryBackoff.topicsFor(t).stream())
+                .map(this::newTopic).toArray(NewTopic[]::new);
+        try {
+            kafkaAdmin.createOrModifyTopics(topics);
+            log.info("[Core] {} tópicos de retry verificados en Kafka", topics.length);
+            return topics.length;
+        } catch (RuntimeException e) {
+            log.error("[Core] No se pudieron crear los tópicos de retry: {}", e.toString());
+            return 0;
+        }
+    }
+
+    private NewTopic newTopic(String name){
+        TopicBuilder builder = TopicBuilder.name(name).partitions(defaultPartitions);
+        if (replicationFactor > 0) builder.replicas(replicationFactor);
+        return builder.build();
+    }
+
+    NewTopic newTopic(EventRouter.Route route){
+        TopicBuilder builder = TopicBuilder.name(route.topic())
+                .partitions(route.partitions() > 0 ? route.partitions() : defaultPartitions);
+        if (replicationFactor > 0) builder.replicas(replicationFactor);
+        return builder.build();
+    }
+}
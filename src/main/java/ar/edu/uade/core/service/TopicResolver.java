@@ -1,13 +1,20 @@
 package ar.edu.uade.core.service;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class TopicResolver {
 
+    // originModule lo manda el cliente: el memo se vacía si llega a este tamaño
+    static final int ORIGIN_MEMO_SIZE = 256;
+    private static final String NO_TOPIC = "";
+
     @Value("${app.kafka.topic.inventario}")
     private String inventarioTopic;
     @Value("${app.kafka.topic.ventas}")
@@ -15,23 +22,62 @@ public class TopicResolver {
     @Value("${app.kafka.topic.notificar}")
     private String notificarTopic;
 
+    @Autowired
+    private EventRouter eventRouter;
+
+    // coarse: un tópico por módulo (los tres de arriba); fine: el tópico <dominio>.<accion> de la tabla de ruteo
+    private boolean fineGrained;
+
+    // originModule tal cual -> tópico ("" si el módulo no define tópico)
+    private final ConcurrentHashMap<String, String> byOrigin = new ConcurrentHashMap<>();
+
+    @Value("${app.kafka.topic.mode:coarse}")
+    void setMode(String mode){
+        fineGrained = "fine".equalsIgnoreCase(mode.trim());
+    }
+
+    public boolean isFineGrained(){
+        return fineGrained;
+    }
+
     public String resolveTopic(String type, String originModule){
+        // 0) En modo fine manda el tópico de la acción; los tipos fuera de la tabla siguen con los tópicos por módulo
+        if (fineGrained){
+            String topic = eventRouter.route(type).topic();
+            if (topic != null) return topic;
+        }
         // 1) Si viene el originModule explícito, usarlo como guía
         if (originModule != null){
-            String m = originModule.trim().toLowerCase();
-            if (m.startsWith("vent")) return ventasTopic;
-            if (m.startsWith("inven") || m.equals("storage-app")) return inventarioTopic;
-            if (m.startsWith("notif")) return notificarTopic;
-        }
-        // 2) Si no, inferir por prefijo del type: <dominio>.<accion>
-        if (type != null){
-            String t = type.trim().toLowerCase();
-            if (t.startsWith("ventas.")) return ventasTopic;
-            if (t.startsWith("inventario.")) return inventarioTopic;
-            if (t.startsWith("notificar.")) return notificarTopic;
+            String topic = topicForOrigin(originModule);
+            if (!topic.isEmpty()) return topic;
         }
+        // 2) Si no, el dominio del type según la tabla de ruteo (o su prefijo <dominio>.<accion>)
+        String topic = topicForDomain(eventRouter.route(type).domain());
         // 3) fallback seguro
-        return inventarioTopic;
+        return topic != null ? topic : inventarioTopic;
+    }
+
+    private String topicForOrigin(String originModule){
+        String topic = byOrigin.get(originModule);
+        if (topic != null) return topic;
+        String m = originModule.trim().toLowerCase(Locale.ROOT);
+        if (m.startsWith("vent")) topic = ventasTopic;
+        else if (m.startsWith("inven") || m.equals("storage-app")) topic = inventarioTopic;
+        else if (m.startsWith("notif")) topic = notificarTopic;
+        else topic = NO_TOPIC;
+        if (byOrigin.size() >= ORIGIN_MEMO_SIZE) byOrigin.clear();
+        byOrigin.put(originModule, topic);
+        return topic;
+    }
+
+    private String topicForDomain(String domain){
+        if (domain == null) return null;
+        return switch (domain) {
+            case "ventas" -> ventasTopic;
+            case "inventario" -> inventarioTopic;
+            case "notificar" -> notificarTopic;
+            default -> null;
+        };
     }
 
     public Set<String> getAllTopics(){
@@ -39,6 +85,9 @@ public class TopicResolver {
         s.add(inventarioTopic);
         s.add(ventasTopic);
         s.add(notificarTopic);
+        if (fineGrained) {
+            for (EventRouter.Route r : eventRouter.routes()) s.add(r.topic());
+        }
         return s;
     }
 }
@@ -0,0 +1,10 @@
+-- ACKs aceptados por POST /core/ack y pendientes de aplicar por AckPipeline. La fila se borra en la misma
+-- transacción que aplica el ACK; las que quedan al reiniciar se vuelven a encolar en orden de id.
+CREATE TABLE ack_inbox (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    event_id INT NOT NULL,
+    consumer VARCHAR(255),
+    status VARCHAR(255),
+    received_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
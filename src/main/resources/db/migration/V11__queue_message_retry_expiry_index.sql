@@ -0,0 +1,9 @@
+-- Vencimiento de cada retry como columna generada (sin mantenimiento desde la app): el barrido de
+-- POST /core/processRetries busca WHERE state = 'RETRY' AND expires_at < ? por índice, en tramos acotados,
+-- en lugar de leer toda la tabla. Agotó los intentos => vence ya; si no, created_at + ttl_seconds.
+-- Misma regla que RetryDeadline.expiryReason; NULL (sin TTL) no vence nunca.
+ALTER TABLE queue_message ADD COLUMN expires_at DATETIME(6) GENERATED ALWAYS AS (
+    CASE WHEN attempts >= max_attempts THEN TIMESTAMP '1970-01-01 00:00:00'
+         ELSE TIMESTAMPADD(SECOND, ttl_seconds, created_at) END);
+
+CREATE INDEX idx_queue_message_state_expires ON queue_message (state, expires_at);
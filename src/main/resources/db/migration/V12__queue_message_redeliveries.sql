@@ -0,0 +1,4 @@
+-- Reentregas de un retry hechas por RetryRedelivery (a <tópico>.retry-<espera>). Va aparte de attempts, que siguen
+-- contando los fallos informados por los consumidores: un retry se reentrega mientras redeliveries < max_attempts.
+-- El poll usa idx_queue_message_state_next_attempt (state, next_attempt_at).
+ALTER TABLE queue_message ADD COLUMN redeliveries INT NOT NULL DEFAULT 0;
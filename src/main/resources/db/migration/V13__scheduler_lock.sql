@@ -0,0 +1,11 @@
+-- Leases de las tareas que deben correr en una sola réplica (SchedulerLease). La réplica dueña renueva lease_until
+-- en cada heartbeat; si deja de hacerlo, cualquier otra la toma cuando lease_until queda en el pasado (hora de la DB).
+CREATE TABLE scheduler_lock (
+    name VARCHAR(64) NOT NULL,
+    owner VARCHAR(128),
+    lease_until DATETIME(6) NOT NULL,
+    heartbeat_at DATETIME(6),
+    PRIMARY KEY (name)
+) ENGINE=InnoDB;
+
+INSERT INTO scheduler_lock (name, owner, lease_until) VALUES ('retry-processing', NULL, TIMESTAMP '1970-01-01 00:00:00');
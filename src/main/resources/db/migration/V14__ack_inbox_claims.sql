@@ -0,0 +1,6 @@
+-- Dueño de cada fila de ack_inbox: la réplica que la aceptó o la que la tomó en el barrido de AckPipeline.
+-- La dueña renueva claimed_at en cada barrido; una fila sin dueño o con claimed_at viejo (réplica caída o lote
+-- abandonado) la toma cualquier réplica con SELECT ... FOR UPDATE SKIP LOCKED.
+ALTER TABLE ack_inbox ADD COLUMN claimed_by VARCHAR(128) NULL;
+ALTER TABLE ack_inbox ADD COLUMN claimed_at DATETIME(6) NULL;
+CREATE INDEX idx_ack_inbox_claim ON ack_inbox (claimed_by, claimed_at);
@@ -0,0 +1,5 @@
+-- Backoff y filas apartadas de la outbox: un envío fallido corre next_attempt_at; un error que no se arregla
+-- reintentando (mensaje demasiado grande, tópico inválido) marca parked_at y la fila sale de los lotes.
+ALTER TABLE outbox_message ADD COLUMN next_attempt_at DATETIME(6) NULL;
+ALTER TABLE outbox_message ADD COLUMN parked_at DATETIME(6) NULL;
+CREATE INDEX idx_outbox_pending ON outbox_message (parked_at, next_attempt_at);
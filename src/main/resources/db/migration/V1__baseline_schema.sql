@@ -0,0 +1,67 @@
+-- Schema original tal como lo generaba ddl-auto=update (ids IDENTITY).
+-- En bases existentes Flyway lo marca como baseline y no lo ejecuta.
+
+CREATE TABLE event (
+    id INT NOT NULL AUTO_INCREMENT,
+    type VARCHAR(255),
+    payload LONGTEXT,
+    timestamp DATETIME(6),
+    origin_module VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE live_message (
+    id INT NOT NULL AUTO_INCREMENT,
+    event_id INT,
+    type VARCHAR(255),
+    payload LONGTEXT,
+    timestamp DATETIME(6),
+    origin_module VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE retry_message (
+    id INT NOT NULL AUTO_INCREMENT,
+    event_id INT,
+    original_live_id INT,
+    type VARCHAR(255),
+    payload LONGTEXT,
+    attempts INT,
+    max_attempts INT,
+    ttl_seconds BIGINT,
+    created_at DATETIME(6),
+    next_attempt_at DATETIME(6),
+    consumer_module VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE dead_letter (
+    id INT NOT NULL AUTO_INCREMENT,
+    event_id INT,
+    type VARCHAR(255),
+    payload LONGTEXT,
+    reason VARCHAR(255),
+    moved_at DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE message_consumption (
+    id INT NOT NULL AUTO_INCREMENT,
+    event_id INT,
+    live_message_id INT,
+    module_name VARCHAR(255),
+    consumed_at DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE event_acks (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    event_id VARCHAR(36) NOT NULL,
+    consumer VARCHAR(64) NOT NULL,
+    status VARCHAR(32) NOT NULL,
+    first_seen_at DATETIME(6) NOT NULL,
+    last_seen_at DATETIME(6) NOT NULL,
+    attempts INT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_event_ack_event_consumer UNIQUE (event_id, consumer)
+) ENGINE=InnoDB;
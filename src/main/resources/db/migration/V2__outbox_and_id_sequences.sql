@@ -0,0 +1,51 @@
+-- Outbox transaccional y tablas *_seq de los generadores pooled-lo.
+-- Pueden existir si la base ya corrió con ddl-auto=update; por eso IF NOT EXISTS y el ajuste idempotente
+-- de next_val por encima del max(id) de cada tabla.
+
+CREATE TABLE IF NOT EXISTS outbox_message (
+    id INT NOT NULL AUTO_INCREMENT,
+    event_id INT,
+    topic VARCHAR(255),
+    message_key VARCHAR(255),
+    payload LONGTEXT,
+    created_at DATETIME(6),
+    attempts INT,
+    last_error VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS event_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO event_seq (next_val)
+    SELECT v FROM (SELECT COALESCE(MAX(id), 0) + 1 AS v FROM event) m WHERE NOT EXISTS (SELECT 1 FROM event_seq);
+UPDATE event_seq SET next_val = (SELECT COALESCE(MAX(id), 0) + 1 FROM event)
+    WHERE next_val <= (SELECT COALESCE(MAX(id), 0) FROM event);
+
+CREATE TABLE IF NOT EXISTS live_message_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO live_message_seq (next_val)
+    SELECT v FROM (SELECT COALESCE(MAX(id), 0) + 1 AS v FROM live_message) m WHERE NOT EXISTS (SELECT 1 FROM live_message_seq);
+UPDATE live_message_seq SET next_val = (SELECT COALESCE(MAX(id), 0) + 1 FROM live_message)
+    WHERE next_val <= (SELECT COALESCE(MAX(id), 0) FROM live_message);
+
+CREATE TABLE IF NOT EXISTS retry_message_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO retry_message_seq (next_val)
+    SELECT v FROM (SELECT COALESCE(MAX(id), 0) + 1 AS v FROM retry_message) m WHERE NOT EXISTS (SELECT 1 FROM retry_message_seq);
+UPDATE retry_message_seq SET next_val = (SELECT COALESCE(MAX(id), 0) + 1 FROM retry_message)
+    WHERE next_val <= (SELECT COALESCE(MAX(id), 0) FROM retry_message);
+
+CREATE TABLE IF NOT EXISTS dead_letter_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO dead_letter_seq (next_val)
+    SELECT v FROM (SELECT COALESCE(MAX(id), 0) + 1 AS v FROM dead_letter) m WHERE NOT EXISTS (SELECT 1 FROM dead_letter_seq);
+UPDATE dead_letter_seq SET next_val = (SELECT COALESCE(MAX(id), 0) + 1 FROM dead_letter)
+    WHERE next_val <= (SELECT COALESCE(MAX(id), 0) FROM dead_letter);
+
+CREATE TABLE IF NOT EXISTS message_consumption_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO message_consumption_seq (next_val)
+    SELECT v FROM (SELECT COALESCE(MAX(id), 0) + 1 AS v FROM message_consumption) m WHERE NOT EXISTS (SELECT 1 FROM message_consumption_seq);
+UPDATE message_consumption_seq SET next_val = (SELECT COALESCE(MAX(id), 0) + 1 FROM message_consumption)
+    WHERE next_val <= (SELECT COALESCE(MAX(id), 0) FROM message_consumption);
+
+CREATE TABLE IF NOT EXISTS outbox_message_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO outbox_message_seq (next_val)
+    SELECT v FROM (SELECT COALESCE(MAX(id), 0) + 1 AS v FROM outbox_message) m WHERE NOT EXISTS (SELECT 1 FROM outbox_message_seq);
+UPDATE outbox_message_seq SET next_val = (SELECT COALESCE(MAX(id), 0) + 1 FROM outbox_message)
+    WHERE next_val <= (SELECT COALESCE(MAX(id), 0) FROM outbox_message);
@@ -0,0 +1,22 @@
+-- Índices para las búsquedas por event_id / live id / next_attempt_at de las colas,
+-- y unicidad de (event_id, module_name) en message_consumption.
+
+-- antes de la unique: quedarse con el primer consumo de cada (event_id, module_name)
+DELETE FROM message_consumption
+    WHERE id NOT IN (
+        SELECT keep_id FROM (
+            SELECT MIN(id) AS keep_id FROM message_consumption GROUP BY event_id, module_name
+        ) k
+    );
+
+CREATE INDEX idx_live_message_event_id ON live_message (event_id);
+
+CREATE INDEX idx_retry_message_event_id ON retry_message (event_id);
+CREATE INDEX idx_retry_message_original_live_id ON retry_message (original_live_id);
+CREATE INDEX idx_retry_message_next_attempt_at ON retry_message (next_attempt_at);
+
+ALTER TABLE message_consumption
+    ADD CONSTRAINT uk_consumption_event_module UNIQUE (event_id, module_name);
+CREATE INDEX idx_consumption_live_message_id ON message_consumption (live_message_id);
+
+CREATE INDEX idx_dead_letter_event_id ON dead_letter (event_id);
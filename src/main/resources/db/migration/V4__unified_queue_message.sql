@@ -0,0 +1,51 @@
+-- live_message / retry_message / dead_letter pasan a una sola tabla con columna state (LIVE / RETRY / DEAD).
+-- Los live conservan su id; retries y dead letters se corren por encima del máximo anterior para no chocar.
+-- original_live_id se conserva, así que un retry migrado se sigue encontrando por el id del live.
+
+CREATE TABLE queue_message (
+    id INT NOT NULL,
+    state VARCHAR(10) NOT NULL,
+    event_id INT,
+    type VARCHAR(255),
+    payload LONGTEXT,
+    timestamp DATETIME(6),
+    origin_module VARCHAR(255),
+    original_live_id INT,
+    attempts INT,
+    max_attempts INT,
+    ttl_seconds BIGINT,
+    created_at DATETIME(6),
+    next_attempt_at DATETIME(6),
+    consumer_module VARCHAR(255),
+    reason VARCHAR(255),
+    moved_at DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+INSERT INTO queue_message (id, state, event_id, type, payload, timestamp, origin_module)
+    SELECT id, 'LIVE', event_id, type, payload, timestamp, origin_module FROM live_message;
+
+INSERT INTO queue_message (id, state, event_id, original_live_id, type, payload, attempts, max_attempts,
+                           ttl_seconds, created_at, next_attempt_at, consumer_module)
+    SELECT r.id + (SELECT COALESCE(MAX(id), 0) FROM live_message), 'RETRY', r.event_id, r.original_live_id, r.type,
+           r.payload, r.attempts, r.max_attempts, r.ttl_seconds, r.created_at, r.next_attempt_at, r.consumer_module
+    FROM retry_message r;
+
+INSERT INTO queue_message (id, state, event_id, type, payload, reason, moved_at)
+    SELECT d.id + (SELECT COALESCE(MAX(id), 0) FROM live_message) + (SELECT COALESCE(MAX(id), 0) FROM retry_message),
+           'DEAD', d.event_id, d.type, d.payload, d.reason, d.moved_at
+    FROM dead_letter d;
+
+CREATE INDEX idx_queue_message_event_id ON queue_message (event_id);
+CREATE INDEX idx_queue_message_original_live_id ON queue_message (original_live_id);
+CREATE INDEX idx_queue_message_state_next_attempt ON queue_message (state, next_attempt_at);
+
+CREATE TABLE queue_message_seq (next_val BIGINT) ENGINE=InnoDB;
+INSERT INTO queue_message_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM queue_message;
+
+DROP TABLE live_message;
+DROP TABLE retry_message;
+DROP TABLE dead_letter;
+DROP TABLE live_message_seq;
+DROP TABLE retry_message_seq;
+DROP TABLE dead_letter_seq;
@@ -0,0 +1,3 @@
+-- payload_blob.content pasa a binario para admitir contenido comprimido (PayloadCodec).
+-- Las filas existentes quedan como UTF-8 plano, que el codec sigue leyendo sin marcador.
+ALTER TABLE payload_blob MODIFY content LONGBLOB;
@@ -0,0 +1,2 @@
+-- Keyset de /live, /retries y /dead: WHERE state = ? AND id > ? ORDER BY id LIMIT n sin ordenar en memoria.
+CREATE INDEX idx_queue_message_state_id ON queue_message (state, id);
@@ -0,0 +1,10 @@
+-- Contador de módulos que consumieron cada mensaje: el umbral de dead-letter y el chequeo de ACKs lo leen
+-- de la fila en vez de cargar todos los consumos del evento.
+ALTER TABLE queue_message ADD COLUMN consumer_count INT NOT NULL DEFAULT 0;
+
+UPDATE queue_message q
+    SET consumer_count = (SELECT COUNT(*) FROM message_consumption c WHERE c.event_id = q.event_id)
+    WHERE EXISTS (SELECT 1 FROM message_consumption c WHERE c.event_id = q.event_id);
+
+-- message_consumption vuelve a AUTO_INCREMENT: los consumos se insertan con INSERT IGNORE, sin el generador pooled-lo
+DROP TABLE IF EXISTS message_consumption_seq;
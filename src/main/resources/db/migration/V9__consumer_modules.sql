@@ -0,0 +1,30 @@
+-- Registro de módulos consumidores (id n = bit n - 1) y máscaras por mensaje: esperados y ya consumidos.
+CREATE TABLE consumer_module (
+    id INT NOT NULL,
+    name VARCHAR(64) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_consumer_module_name UNIQUE (name)
+) ENGINE=InnoDB;
+
+INSERT INTO consumer_module (id, name) VALUES (1, 'ventas'), (2, 'inventario'), (3, 'analitica');
+
+ALTER TABLE queue_message ADD COLUMN expected_mask BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE queue_message ADD COLUMN consumed_mask BIGINT NOT NULL DEFAULT 0;
+
+-- mismos casos que getExpectedConsumers al momento de la migración (ventas = 1, inventario = 2, analitica = 4)
+UPDATE queue_message SET expected_mask = CASE
+    WHEN LOWER(type) LIKE '%stock%' OR LOWER(type) LIKE '%producto%' OR LOWER(type) LIKE '%marca%' OR LOWER(type) LIKE '%categoría%' THEN 5
+    WHEN LOWER(type) LIKE '%pendiente%' THEN 2
+    WHEN LOWER(type) LIKE '%confirmada%' THEN 6
+    WHEN LOWER(type) LIKE '%cancelada%' OR LOWER(type) LIKE '%rollback%' THEN 2
+    WHEN LOWER(type) LIKE '%review%' OR LOWER(type) LIKE '%favorito%' OR LOWER(type) LIKE '%vista%' THEN 4
+    WHEN LOWER(type) LIKE '%batch%' THEN 5
+    ELSE 0 END
+    WHERE type IS NOT NULL;
+
+UPDATE queue_message q SET consumed_mask = (
+    SELECT MAX(CASE WHEN LOWER(c.module_name) = 'ventas' THEN 1 ELSE 0 END)
+         + MAX(CASE WHEN LOWER(c.module_name) = 'inventario' THEN 2 ELSE 0 END)
+         + MAX(CASE WHEN LOWER(c.module_name) = 'analitica' THEN 4 ELSE 0 END)
+    FROM message_consumption c WHERE c.event_id = q.event_id)
+    WHERE EXISTS (SELECT 1 FROM message_consumption c WHERE c.event_id = q.event_id);
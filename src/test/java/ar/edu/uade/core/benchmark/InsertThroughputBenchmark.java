@@ -0,0 +1,166 @@
+package ar.edu.uade.core.benchmark;
+
+import ar.edu.uade.core.model.Event;
+import ar.edu.uade.core.repository.EventRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Throughput de inserts de event con el patrón de statements de cada estrategia de ids:
+ * - IDENTITY: Hibernate no puede agrupar, un INSERT + lectura de la clave generada por fila.
+ * - pooled-lo: un UPDATE/SELECT de la tabla *_seq cada 50 ids y los INSERT en batches de 100.
+ * Ambos caminos van por JDBC plano para comparar solo las idas a la DB; bench.rtt-micros simula la
+ * latencia de red por ida (en H2 en memoria es ~0). También se mide saveAll real del repositorio.
+ * Correr con: mvn test -Pbenchmark [-Dbench.rtt-micros=300]
+ */
+@Tag("benchmark")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class InsertThroughputBenchmark {
+
+    private static final int ROWS = 5_000;
+    private static final int ROUNDS = 3;
+    private static final int ALLOCATION_SIZE = 50;
+    private static final int BATCH_SIZE = 100;
+    private static final String PAYLOAD = "{\"productId\":101,\"stock\":25,\"images\":[\"https://example.com/sony1.jpg\"]}";
+
+    private final long rttNanos = Long.getLong("bench.rtt-micros", 0L) * 1_000L;
+
+    @Autowired private EventRepository eventRepository;
+    @Autowired private EntityManager entityManager;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void identityVsPooledBatchInserts() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS bench_identity_event (id INT AUTO_INCREMENT PRIMARY KEY, "
+                + "type VARCHAR(255), payload CLOB, timestamp TIMESTAMP, origin_module VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS bench_pooled_event (id INT PRIMARY KEY, "
+                + "type VARCHAR(255), payload CLOB, timestamp TIMESTAMP, origin_module VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS bench_pooled_event_seq (next_val BIGINT)");
+        jdbcTemplate.execute("INSERT INTO bench_pooled_event_seq VALUES (1)");
+
+        // warm-up
+        run(this::identityInserts, 500);
+        run(this::pooledInserts, 500);
+        saveAllInserts(500);
+
+        Result identity = new Result(), pooled = new Result();
+        double saveAll = 0;
+        for (int r = 0; r < ROUNDS; r++) {
+            identity = identity.best(run(this::identityInserts, ROWS));
+            pooled = pooled.best(run(this::pooledInserts, ROWS));
+            saveAll = Math.max(saveAll, saveAllInserts(ROWS));
+        }
+        System.out.printf("[bench] inserts x%d (rtt simulado %d us)%n", ROWS, rttNanos / 1_000);
+        System.out.printf("[bench]   IDENTITY          : %8.0f filas/s, %5d idas a la DB%n", identity.rowsPerSec, identity.roundTrips);
+        System.out.printf("[bench]   pooled-lo + batch : %8.0f filas/s, %5d idas a la DB (x%.1f)%n",
+                pooled.rowsPerSec, pooled.roundTrips, pooled.rowsPerSec / identity.rowsPerSec);
+        System.out.printf("[bench]   saveAll (Hibernate): %8.0f filas/s%n", saveAll);
+    }
+
+    private interface Strategy { int insert(Connection con, int rows) throws Exception; }
+
+    private static final class Result {
+        double rowsPerSec;
+        int roundTrips;
+        Result best(Result other) { return other.rowsPerSec > rowsPerSec ? other : this; }
+    }
+
+    private Result run(Strategy strategy, int rows) {
+        return jdbcTemplate.execute((Connection con) -> {
+            try {
+                long start = System.nanoTime();
+                Result res = new Result();
+                res.roundTrips = strategy.insert(con, rows);
+                res.rowsPerSec = rows / ((System.nanoTime() - start) / 1e9);
+                return res;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private void roundTrip() {
+        if (rttNanos > 0) LockSupport.parkNanos(rttNanos);
+    }
+
+    private int identityInserts(Connection con, int rows) throws Exception {
+        int trips = 0;
+        try (PreparedStatement ps = con.prepareStatement(
+                "INSERT INTO bench_identity_event (type, payload, timestamp, origin_module) VALUES (?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < rows; i++) {
+                bind(ps, 1, i);
+                ps.executeUpdate();
+                try (ResultSet keys = ps.getGeneratedKeys()) { keys.next(); }
+                roundTrip();
+                trips++;
+            }
+        }
+        return trips;
+    }
+
+    private int pooledInserts(Connection con, int rows) throws Exception {
+        int trips = 0;
+        long lo = 0, hi = 0;
+        try (PreparedStatement next = con.prepareStatement("SELECT next_val FROM bench_pooled_event_seq FOR UPDATE");
+             PreparedStatement bump = con.prepareStatement("UPDATE bench_pooled_event_seq SET next_val = next_val + ?");
+             PreparedStatement ps = con.prepareStatement(
+                     "INSERT INTO bench_pooled_event (id, type, payload, timestamp, origin_module) VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                if (lo == hi) {
+                    try (ResultSet rs = next.executeQuery()) { rs.next(); lo = rs.getLong(1); }
+                    bump.setInt(1, ALLOCATION_SIZE);
+                    bump.executeUpdate();
+                    hi = lo + ALLOCATION_SIZE;
+                    roundTrip(); roundTrip();
+                    trips += 2;
+                }
+                ps.setLong(1, lo++);
+                bind(ps, 2, i);
+                ps.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0 || i == rows - 1) {
+                    ps.executeBatch();
+                    roundTrip();
+                    trips++;
+                }
+            }
+        }
+        return trips;
+    }
+
+    private static void bind(PreparedStatement ps, int from, int i) throws Exception {
+        ps.setString(from, "inventario.stock-actualizado");
+        ps.setString(from + 1, PAYLOAD);
+        ps.setTimestamp(from + 2, Timestamp.valueOf(LocalDateTime.now()));
+        ps.setString(from + 3, "inventario");
+    }
+
+    private double saveAllInserts(int rows) {
+        List<Event> events = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) events.add(new Event("inventario.stock-actualizado", PAYLOAD, "inventario"));
+        long start = System.nanoTime();
+        eventRepository.saveAll(events);
+        entityManager.flush();
+        double rate = rows / ((System.nanoTime() - start) / 1e9);
+        entityManager.clear();
+        return rate;
+    }
+}
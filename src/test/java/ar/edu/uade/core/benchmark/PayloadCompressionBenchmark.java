@@ -0,0 +1,65 @@
+package ar.edu.uade.core.benchmark;
+
+import ar.edu.uade.core.mock.MockDataFactory;
+import ar.edu.uade.core.model.PayloadCodec;
+import ar.edu.uade.core.model.ProductDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Ratio de compresión y costo de CPU de PayloadCodec (LZ4) sobre payloads armados con MockDataFactory:
+ * una compra con carrito, un producto, un carrito de 20 productos y un lote diario de vistas de productos.
+ * Los payloads por debajo de PayloadCodec.MIN_COMPRESS_BYTES se guardan planos (ratio 1.00).
+ * Correr con: mvn test -Pbenchmark -Dtest=PayloadCompressionBenchmark
+ */
+@Tag("benchmark")
+class PayloadCompressionBenchmark {
+
+    private static final int ITERATIONS = 20_000;
+
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    void compressionRatioAndCpuCost() throws Exception {
+        Map<String, String> payloads = new LinkedHashMap<>();
+        payloads.put("producto", mapper.writeValueAsString(MockDataFactory.sonyHeadphonesUpdated()));
+        payloads.put("compra con carrito", mapper.writeValueAsString(MockDataFactory.purchaseConfirmed()));
+        List<ProductDTO> catalogo = new ArrayList<>();
+        for (int i = 0; i < 20; i++) catalogo.add(i % 2 == 0 ? MockDataFactory.sonyHeadphones() : MockDataFactory.sonyHeadphonesUpdated());
+        payloads.put("carrito x20 productos", mapper.writeValueAsString(catalogo));
+        List<Map<String, Object>> vistas = new ArrayList<>();
+        for (int i = 0; i < 500; i++) vistas.add(Map.of("productoId", 100 + i % 50, "fecha", "2025-09-01", "cantidad", i % 7));
+        payloads.put("vistas diarias x500", mapper.writeValueAsString(Map.of("vistas", vistas)));
+
+        System.out.printf("[bench] PayloadCodec LZ4 (umbral %d bytes), %d iteraciones%n", PayloadCodec.MIN_COMPRESS_BYTES, ITERATIONS);
+        for (Map.Entry<String, String> e : payloads.entrySet()) {
+            String json = e.getValue();
+            int rawBytes = json.getBytes(StandardCharsets.UTF_8).length;
+            byte[] encoded = PayloadCodec.encode(json);
+            assertEquals(json, PayloadCodec.decode(encoded));
+
+            // warm-up
+            for (int i = 0; i < ITERATIONS / 4; i++) PayloadCodec.decode(PayloadCodec.encode(json));
+
+            long t0 = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) encoded = PayloadCodec.encode(json);
+            long t1 = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) PayloadCodec.decode(encoded);
+            long t2 = System.nanoTime();
+
+            System.out.printf("[bench]   %-22s: %7d -> %7d bytes (ratio %5.2f), encode %6.2f us, decode %6.2f us%n",
+                    e.getKey(), rawBytes, encoded.length, (double) rawBytes / encoded.length,
+                    (t1 - t0) / 1e3 / ITERATIONS, (t2 - t1) / 1e3 / ITERATIONS);
+        }
+    }
+}
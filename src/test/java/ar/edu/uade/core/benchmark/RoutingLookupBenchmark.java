@@ -0,0 +1,108 @@
+package ar.edu.uade.core.benchmark;
+
+import ar.edu.uade.core.service.EventRouter;
+import ar.edu.uade.core.service.TopicResolver;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Costo por evento de resolver tópico + consumidores esperados: las cascadas de contains/startsWith que había
+ * en TopicResolver y KafkaMockService contra la tabla de ruteo compilada de EventRouter.
+ * La mezcla de tipos tiene los "originales" de docs/topics.md, los nombres <dominio>.<accion> y algunos
+ * tipos fuera de la tabla (van por el memo).
+ * Correr con: mvn test -Pbenchmark -Dtest=RoutingLookupBenchmark
+ */
+@Tag("benchmark")
+class RoutingLookupBenchmark {
+
+    private static final int ITERATIONS = 2_000_000;
+
+    private static final String[] TYPES = {
+            "POST: Compra confirmada", "ventas.compra-confirmada", "PUT: Actualizar stock", "inventario.stock-actualizado",
+            "POST: Agregar un producto", "PATCH: Marca desactivada", "POST: Review creada", "DELETE: Compra cancelada",
+            "GET: Vista diaria de productos", "POST: Producto agregado a favoritos", "producto creado", "ventas.algo-nuevo"
+    };
+    private static final String[] ORIGINS = {"ventas", "inventario", "Ventas", "storage-app", "analitica", "notificaciones"};
+
+    @Test
+    void legacyCascadesVsCompiledTable() {
+        EventRouter router = new EventRouter();
+        TopicResolver resolver = new TopicResolver();
+        ReflectionTestUtils.setField(resolver, "inventarioTopic", "inventario");
+        ReflectionTestUtils.setField(resolver, "ventasTopic", "ventas");
+        ReflectionTestUtils.setField(resolver, "notificarTopic", "notificar");
+        ReflectionTestUtils.setField(resolver, "eventRouter", router);
+
+        // mismos tópicos con ambas implementaciones cuando el originModule decide (los primeros cuatro);
+        // sin módulo reconocido, los tipos "originales" ahora van al tópico de su dominio en lugar de inventario
+        for (String type : TYPES) {
+            for (String origin : List.of(ORIGINS).subList(0, 4)) {
+                assertEquals(legacyTopic(type, origin), resolver.resolveTopic(type, origin), type + " / " + origin);
+            }
+        }
+
+        // warm-up
+        long sink = run(router, resolver, ITERATIONS / 4, true) + run(router, resolver, ITERATIONS / 4, false);
+
+        long t0 = System.nanoTime();
+        sink += run(router, resolver, ITERATIONS, true);
+        long t1 = System.nanoTime();
+        sink += run(router, resolver, ITERATIONS, false);
+        long t2 = System.nanoTime();
+
+        System.out.printf("[bench] ruteo tópico + consumidores, %d tipos x %d orígenes, %d iteraciones (sink %d)%n",
+                TYPES.length, ORIGINS.length, ITERATIONS, sink);
+        System.out.printf("[bench]   cascadas contains/startsWith: %6.1f ns/evento%n", (t1 - t0) / (double) ITERATIONS);
+        System.out.printf("[bench]   tabla compilada + memo     : %6.1f ns/evento%n", (t2 - t1) / (double) ITERATIONS);
+    }
+
+    private static long run(EventRouter router, TopicResolver resolver, int iterations, boolean legacy) {
+        long sink = 0;
+        for (int i = 0; i < iterations; i++) {
+            String type = TYPES[i % TYPES.length];
+            String origin = ORIGINS[i % ORIGINS.length];
+            if (legacy) {
+                sink += legacyTopic(type, origin).length() + legacyConsumers(type).size();
+            } else {
+                sink += resolver.resolveTopic(type, origin).length() + router.expectedConsumers(type).size();
+            }
+        }
+        return sink;
+    }
+
+    // TopicResolver.resolveTopic antes de la tabla de ruteo
+    private static String legacyTopic(String type, String originModule) {
+        if (originModule != null) {
+            String m = originModule.trim().toLowerCase();
+            if (m.startsWith("vent")) return "ventas";
+            if (m.startsWith("inven") || m.equals("storage-app")) return "inventario";
+            if (m.startsWith("notif")) return "notificar";
+        }
+        if (type != null) {
+            String t = type.trim().toLowerCase();
+            if (t.startsWith("ventas.")) return "ventas";
+            if (t.startsWith("inventario.")) return "inventario";
+            if (t.startsWith("notificar.")) return "notificar";
+        }
+        return "inventario";
+    }
+
+    // KafkaMockService.getExpectedConsumers antes de la tabla de ruteo
+    private static List<String> legacyConsumers(String eventType) {
+        String type = eventType.toLowerCase();
+        if (type.contains("stock") || type.contains("producto") || type.contains("marca") || type.contains("categoría")) {
+            return List.of("ventas", "analitica");
+        }
+        if (type.contains("pendiente")) return List.of("inventario");
+        if (type.contains("confirmada")) return List.of("inventario", "analitica");
+        if (type.contains("cancelada") || type.contains("rollback")) return List.of("inventario");
+        if (type.contains("review") || type.contains("favorito") || type.contains("vista")) return List.of("analitica");
+        if (type.contains("batch")) return List.of("ventas", "analitica");
+        return List.of();
+    }
+}
@@ -1,6 +1,10 @@
 package ar.edu.uade.core.controller;
 
 import ar.edu.uade.core.model.*;
+import ar.edu.uade.core.service.AckPipeline;
+import ar.edu.uade.core.service.OutboxRelay;
+import ar.edu.uade.core.service.RetryExpiryWorker;
+import ar.edu.uade.core.service.ExportService;
 import ar.edu.uade.core.service.KafkaMockService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -10,6 +14,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
@@ -34,6 +39,18 @@ public class CoreControllerAdditionalTests {
     @Autowired
     private KafkaMockService service;
 
+    @MockitoBean
+    private ExportService exportService;
+
+    @MockitoBean
+    private AckPipeline ackPipeline;
+
+    @MockitoBean
+    private RetryExpiryWorker retryExpiryWorker;
+
+    @MockitoBean
+    private OutboxRelay outboxRelay;
+
     @TestConfiguration
     static class TestConfig {
         @Bean
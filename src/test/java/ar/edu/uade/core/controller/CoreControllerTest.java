@@ -1,19 +1,27 @@
 package ar.edu.uade.core.controller;
 
 import ar.edu.uade.core.model.*;
+import ar.edu.uade.core.service.AckPipeline;
+import ar.edu.uade.core.service.OutboxRelay;
+import ar.edu.uade.core.service.RetryExpiryWorker;
+import ar.edu.uade.core.service.ExportService;
 import ar.edu.uade.core.service.KafkaMockService;
 import org.junit.jupiter.api.Test;
-import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
-import org.springframework.boot.test.context.TestConfiguration;
-import org.springframework.context.annotation.Bean;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -29,14 +37,186 @@ class CoreControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
-    @Autowired
+    // @MockitoBean en lugar de un @Bean con Mockito.mock: al ser un bean comun Spring intentaba
+    // inyectar los @Autowired heredados de KafkaMockService y el contexto no levantaba
+    @MockitoBean
     private KafkaMockService service;
 
-    @TestConfiguration
-    static class TestConfig {
-        @Bean
-        public KafkaMockService kafkaMockService() {
-            return Mockito.mock(KafkaMockService.class);
-        }
+    @MockitoBean
+    private ExportService exportService;
+
+    @MockitoBean
+    private AckPipeline ackPipeline;
+
+    @MockitoBean
+    private RetryExpiryWorker retryExpiryWorker;
+
+    @MockitoBean
+    private OutboxRelay outboxRelay;
+
+    @Test
+    void receiveEvents_Batch_Returns202WithPerItemResults() throws Exception {
+        when(service.ingestEvents(anyList())).thenReturn(List.of(
+                EventBatchItemResult.ofAccepted(0, 10, "ventas"),
+                EventBatchItemResult.ofRejected(1, "type is required")));
+
+        mockMvc.perform(post("/core/events:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"type\":\"POST: Compra confirmada\",\"originModule\":\"ventas\",\"payload\":{}},{\"originModule\":\"ventas\"}]"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$[0].status").value("ACCEPTED"))
+                .andExpect(jsonPath("$[0].eventId").value(10))
+                .andExpect(jsonPath("$[1].status").value("REJECTED"));
+    }
+
+    @Test
+    void receiveEvents_Batch_InvalidBatch_Returns400() throws Exception {
+        when(service.ingestEvents(anyList())).thenThrow(new IllegalArgumentException("events is empty"));
+
+        mockMvc.perform(post("/core/events:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void acknowledgeEvents_Batch_Returns200WithPerAckResults() throws Exception {
+        EventAckEntity first = new EventAckEntity();
+        first.setEventId("10");
+        first.setConsumer("inventario");
+        when(service.handleAcknowledgements(anyList())).thenReturn(List.of(
+                AckBatchItemResult.of(0, first, AckBatchItemResult.Status.COMPLETED),
+                AckBatchItemResult.ofRejected(1, new EventAckEntity(), "eventId inválido")));
+
+        mockMvc.perform(post("/core/acks:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"eventId\":\"10\",\"consumer\":\"inventario\",\"status\":\"CONSUMED\"},{\"consumer\":\"ventas\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("COMPLETED"))
+                .andExpect(jsonPath("$[0].eventId").value("10"))
+                .andExpect(jsonPath("$[1].status").value("REJECTED"));
+
+        verify(service).handleAcknowledgements(argThat(acks -> acks.size() == 2 && "CONSUMED".equals(acks.get(0).getStatus())));
+    }
+
+    @Test
+    void acknowledgeRetry_RemovesTheRetry_Or404() throws Exception {
+        when(service.acknowledgeRetry(7)).thenReturn(true);
+        when(service.acknowledgeRetry(8)).thenReturn(false);
+
+        mockMvc.perform(post("/core/retry/ack").param("retryId", "7")).andExpect(status().isOk());
+        mockMvc.perform(post("/core/retry/ack").param("retryId", "8")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void acknowledgeEvent_PipelineEnabled_Returns202WithoutProcessingInline() throws Exception {
+        when(ackPipeline.isEnabled()).thenReturn(true);
+
+        mockMvc.perform(post("/core/ack")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"eventId\":\"10\",\"consumer\":\"inventario\",\"status\":\"CONSUMED\"}"))
+                .andExpect(status().isAccepted());
+
+        verify(ackPipeline).submit(argThat(ack -> "10".equals(ack.getEventId())));
+        verify(service, never()).handleAcknowledgement(any());
+    }
+
+    @Test
+    void acknowledgeEvent_LaneFull_Returns503() throws Exception {
+        when(ackPipeline.isEnabled()).thenReturn(true);
+        doThrow(new IllegalStateException("ack lane 2 is full")).when(ackPipeline).submit(any());
+
+        mockMvc.perform(post("/core/ack")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"eventId\":\"10\",\"consumer\":\"inventario\",\"status\":\"CONSUMED\"}"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    void ackPipelineStats_ReturnsOneEntryPerLane() throws Exception {
+        when(ackPipeline.stats()).thenReturn(List.of(
+                new AckLaneStats(0, 3, 120, 7, 0, 1.5, 9.0),
+                new AckLaneStats(1, 0, 80, 5, 2, 1.0, 4.0)));
+
+        mockMvc.perform(get("/core/acks/pipeline"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].depth").value(3))
+                .andExpect(jsonPath("$[0].avgLatencyMs").value(1.5))
+                .andExpect(jsonPath("$[1].failed").value(2));
+    }
+
+    @Test
+    void outbox_StatsAndRequeueParked() throws Exception {
+        when(outboxRelay.pendingCount()).thenReturn(12L);
+        when(outboxRelay.parkedCount()).thenReturn(2L);
+        when(outboxRelay.requeueParked(null)).thenReturn(2);
+
+        mockMvc.perform(get("/core/outbox"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pending").value(12))
+                .andExpect(jsonPath("$.parked").value(2));
+        mockMvc.perform(post("/core/outbox/requeue"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.requeued").value(2));
+    }
+
+    @Test
+    void getDeadLetters_FullPage_ReturnsNextCursorAndOmitsPayload() throws Exception {
+        when(service.getDeadLetters(any(ListFilter.class))).thenReturn(List.of(
+                new DeadLetterView(7, 70, "T", "SUCCESS", LocalDateTime.of(2025, 9, 1, 10, 0), 1L),
+                new DeadLetterView(9, 90, "T", "SUCCESS", LocalDateTime.of(2025, 9, 1, 10, 5), 1L)));
+
+        mockMvc.perform(get("/core/dead")
+                        .param("after", "5").param("limit", "2").param("origin", "ventas")
+                        .param("from", "2025-09-01T00:00:00").param("includePayload", "false"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CoreController.NEXT_AFTER_HEADER, "9"))
+                .andExpect(jsonPath("$[1].id").value(9))
+                .andExpect(jsonPath("$[0].payload").doesNotExist())
+                .andExpect(jsonPath("$[0].payloadId").doesNotExist());
+
+        verify(service).getDeadLetters(argThat(f -> f.getAfter() == 5 && "ventas".equals(f.getOrigin())
+                && LocalDateTime.of(2025, 9, 1, 0, 0).equals(f.getFrom()) && !f.isIncludePayload()));
+    }
+
+    @Test
+    void getAll_LastPage_HasNoCursor() throws Exception {
+        when(service.getAll(any(ListFilter.class))).thenReturn(List.of(
+                new EventView(3, "T", LocalDateTime.of(2025, 9, 1, 10, 0), "ventas", 1L)));
+
+        mockMvc.perform(get("/core/getAll"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(CoreController.NEXT_AFTER_HEADER))
+                .andExpect(jsonPath("$[0].originModule").value("ventas"));
+    }
+
+    @Test
+    void getLiveMessages_InvalidLimit_Returns400() throws Exception {
+        when(service.getLiveMessages(any(ListFilter.class))).thenThrow(new IllegalArgumentException("limit must be >= 1"));
+
+        mockMvc.perform(get("/core/live").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportEvents_Gzip_StreamsCompressedNdjson() throws Exception {
+        doAnswer(inv -> {
+            OutputStream out = inv.getArgument(0);
+            out.write("{\"id\":11}\n{\"id\":12}\n".getBytes(StandardCharsets.UTF_8));
+            return 2L;
+        }).when(exportService).exportEvents(any(OutputStream.class), eq(10));
+
+        MvcResult started = mockMvc.perform(get("/core/export/events").param("after", "10").param("gzip", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult done = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        byte[] body = done.getResponse().getContentAsByteArray();
+        String ndjson = new String(new GZIPInputStream(new ByteArrayInputStream(body)).readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals("{\"id\":11}\n{\"id\":12}\n", ndjson);
     }
-}
\ No newline at end of file
+}
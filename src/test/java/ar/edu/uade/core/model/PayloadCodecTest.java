@@ -0,0 +1,59 @@
+package ar.edu.uade.core.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayloadCodecTest {
+
+    private static String bigPayload() {
+        StringBuilder sb = new StringBuilder("{\"vistas\":[");
+        for (int i = 0; i < 100; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"productoId\":").append(i).append(",\"nombre\":\"Auriculares Sony WH-1000XM5\",\"cantidad\":3}");
+        }
+        return sb.append("]}").toString();
+    }
+
+    @Test
+    void largePayload_IsCompressedWithMarkerAndRoundTrips() {
+        String json = bigPayload();
+
+        byte[] encoded = PayloadCodec.encode(json);
+
+        assertEquals(PayloadCodec.LZ4, encoded[0]);
+        assertTrue(encoded.length < json.length() / 4);
+        assertEquals(json, PayloadCodec.decode(encoded));
+    }
+
+    @Test
+    void smallPayload_IsStoredAsPlainUtf8() {
+        String json = "{\"compraId\":\"C-1\",\"direccion\":\"Av. Siempre Viva 742\",\"año\":2025}";
+
+        byte[] encoded = PayloadCodec.encode(json);
+
+        assertArrayEquals(json.getBytes(StandardCharsets.UTF_8), encoded);
+        assertEquals(json, PayloadCodec.decode(encoded));
+    }
+
+    @Test
+    void legacyUncompressedRow_IsReadAsIs() {
+        byte[] legacy = "{\"productId\":101}".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals("{\"productId\":101}", PayloadCodec.decode(legacy));
+    }
+
+    @Test
+    void textStartingWithMarkerByte_IsEscapedAndRoundTrips() {
+        String odd = "\u0001no es json";
+
+        byte[] encoded = PayloadCodec.encode(odd);
+
+        assertEquals(PayloadCodec.PLAIN, encoded[0]);
+        assertEquals(odd, PayloadCodec.decode(encoded));
+        assertNull(PayloadCodec.decode(null));
+        assertNull(PayloadCodec.encode(null));
+    }
+}
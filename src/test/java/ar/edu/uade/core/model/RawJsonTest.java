@@ -0,0 +1,53 @@
+package ar.edu.uade.core.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.JacksonUtils;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RawJsonTest {
+
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    void eventRequest_PayloadIsCapturedAsCompactRawJson() throws Exception {
+        String body = "{\"type\":\"POST: Compra confirmada\",\"originModule\":\"ventas\","
+                + "\"payload\": { \"compraId\" : \"C-1\", \"items\": [ {\"sku\":\"A\",\"cantidad\":2} ], \"total\": 10.5 }}";
+
+        EventRequest req = mapper.readValue(body, EventRequest.class);
+
+        RawJson raw = assertInstanceOf(RawJson.class, req.getPayload());
+        assertEquals("{\"compraId\":\"C-1\",\"items\":[{\"sku\":\"A\",\"cantidad\":2}],\"total\":10.5}", raw.getJson());
+        assertEquals("ventas", req.getOriginModule());
+    }
+
+    @Test
+    void eventRequest_NullPayloadStaysNull() throws Exception {
+        EventRequest req = mapper.readValue("{\"type\":\"t\",\"originModule\":\"o\",\"payload\":null}", EventRequest.class);
+        assertNull(req.getPayload());
+    }
+
+    @Test
+    void eventRequest_ScalarAndArrayPayloads() throws Exception {
+        EventRequest arr = mapper.readValue("{\"payload\":[1, 2 ,3]}", EventRequest.class);
+        assertEquals("[1,2,3]", ((RawJson) arr.getPayload()).getJson());
+        EventRequest str = mapper.readValue("{\"payload\":\"hola\"}", EventRequest.class);
+        assertEquals("\"hola\"", ((RawJson) str.getPayload()).getJson());
+    }
+
+    @Test
+    void eventMessage_WritesRawPayloadWithoutReencoding() throws Exception {
+        EventMessage msg = new EventMessage("id-1", "ventas.compra-confirmada",
+                OffsetDateTime.of(2025, 9, 28, 20, 45, 0, 0, ZoneOffset.UTC), "ventas", new RawJson("{\"a\":[1,2]}"));
+
+        String json = JacksonUtils.enhancedObjectMapper().writeValueAsString(msg);
+
+        assertTrue(json.contains("\"payload\":{\"a\":[1,2]}"), json);
+        assertTrue(json.startsWith("{\"eventId\":\"id-1\""), json);
+    }
+}
@@ -0,0 +1,82 @@
+package ar.edu.uade.core.repository;
+
+import ar.edu.uade.core.model.ConsumerModule;
+import ar.edu.uade.core.model.LiveMessage;
+import ar.edu.uade.core.service.ModuleRegistry;
+import ar.edu.uade.core.service.PayloadStore;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Registro de consumos con INSERT IGNORE sobre la unique (event_id, module_name); contador
+ * consumer_count y máscara consumed_mask en la fila de queue_message.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(PayloadStore.class)
+class ConsumptionRecordingTest {
+
+    @Autowired private MessageConsumptionRepository consumptionRepository;
+    @Autowired private QueueMessageRepository queueMessageRepository;
+    @Autowired private ConsumerModuleRepository consumerModuleRepository;
+    @Autowired private LiveMessageRepository liveMessageRepository;
+    @Autowired private PayloadStore payloadStore;
+    @Autowired private EntityManager entityManager;
+
+    private LiveMessage saveLive(int eventId) {
+        LiveMessage lm = new LiveMessage();
+        lm.setEventId(eventId);
+        lm.setType("ventas.compra-confirmada");
+        lm.setPayloadBlob(payloadStore.intern("{\"compraId\":\"C-" + eventId + "\"}"));
+        lm.setOriginModule("ventas");
+        lm.setTimestamp(LocalDateTime.now());
+        return liveMessageRepository.saveAndFlush(lm);
+    }
+
+    @Test
+    void insertIgnore_SecondTimeSameModule_InsertsNothing() {
+        assertEquals(1, consumptionRepository.insertIgnore(50, 5, "inventario", LocalDateTime.now()));
+        assertEquals(0, consumptionRepository.insertIgnore(50, 5, "inventario", LocalDateTime.now()));
+        assertEquals(1, consumptionRepository.insertIgnore(50, 5, "analitica", LocalDateTime.now()));
+
+        assertEquals(2, consumptionRepository.findByEventId(50).size());
+    }
+
+    @Test
+    void markConsumed_CountsAndOrsBits_AndIsNotOverwrittenByEntityFlush() {
+        LiveMessage lm = saveLive(60);
+        assertEquals(0, lm.getConsumerCount());
+
+        queueMessageRepository.markConsumed(lm.getId(), 1L << 1);
+        queueMessageRepository.markConsumed(lm.getId(), 1L << 2);
+        queueMessageRepository.markConsumed(lm.getId(), 0L);
+        // la entidad managed sigue en 0 y además queda sucia: el flush no debe pisar contador ni máscara
+        lm.setOriginModule("inventario");
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(6L, queueMessageRepository.findConsumedMask(lm.getId()).orElseThrow());
+        LiveMessage reloaded = liveMessageRepository.findById(lm.getId()).orElseThrow();
+        assertEquals(3, reloaded.getConsumerCount());
+        assertEquals(6L, reloaded.getConsumedMask());
+        assertEquals(0L, reloaded.getExpectedMask());
+    }
+
+    @Test
+    void consumerModuleSeeds_MatchBuiltInRegistry() {
+        List<String> seeded = consumerModuleRepository.findAll(Sort.by("id")).stream().map(ConsumerModule::getName).toList();
+        assertEquals(ModuleRegistry.BUILT_IN, seeded.subList(0, ModuleRegistry.BUILT_IN.size()));
+    }
+}
@@ -0,0 +1,56 @@
+package ar.edu.uade.core.repository;
+
+import ar.edu.uade.core.model.Event;
+import ar.edu.uade.core.model.LiveMessage;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class EventRepositoryBatchInsertTest {
+
+    @Autowired private EventRepository eventRepository;
+    @Autowired private LiveMessageRepository liveMessageRepository;
+    @Autowired private EntityManager entityManager;
+
+    @Test
+    void saveAll_UsesPooledIdsAndJdbcBatches() {
+        Statistics stats = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 120; i++) events.add(new Event("inventario.stock-actualizado", "{\"i\":" + i + "}", "inventario"));
+        List<Event> saved = eventRepository.saveAll(events);
+        // los ids se asignan antes del flush (no hace falta ir a la DB por cada fila)
+        assertTrue(saved.stream().allMatch(e -> e.getId() != null));
+
+        List<LiveMessage> lives = new ArrayList<>();
+        for (Event e : saved) {
+            LiveMessage lm = new LiveMessage();
+            lm.setEventId(e.getId());
+            lm.setType(e.getType());
+            lm.setPayload(e.getPayload());
+            lives.add(lm);
+        }
+        liveMessageRepository.saveAll(lives);
+        entityManager.flush();
+
+        // 240 inserts agrupados en batches de 100 (event y live ordenados por order_inserts)
+        assertEquals(240, stats.getEntityInsertCount());
+        assertTrue(stats.getPrepareStatementCount() < 20,
+                "se esperaban pocos statements, hubo " + stats.getPrepareStatementCount());
+        assertEquals(120, saved.stream().map(Event::getId).distinct().count());
+    }
+}
@@ -0,0 +1,116 @@
+package ar.edu.uade.core.repository;
+
+import ar.edu.uade.core.model.DeadLetterMessage;
+import ar.edu.uade.core.model.DeadLetterView;
+import ar.edu.uade.core.model.Event;
+import ar.edu.uade.core.model.EventView;
+import ar.edu.uade.core.model.LiveMessage;
+import ar.edu.uade.core.model.LiveMessageView;
+import ar.edu.uade.core.service.PayloadStore;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Consultas de listas: keyset por id, filtros opcionales y proyecciones sin cargar entidades ni payloads.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(PayloadStore.class)
+class ListViewQueryTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 9, 1, 10, 0);
+
+    @Autowired private EventRepository eventRepository;
+    @Autowired private LiveMessageRepository liveMessageRepository;
+    @Autowired private DeadLetterRepository deadLetterRepository;
+    @Autowired private PayloadStore payloadStore;
+    @Autowired private EntityManager entityManager;
+
+    private Event saveEvent(String type, String origin, int minutes) {
+        Event e = new Event(type, "{\"n\":" + minutes + "}", origin);
+        e.setTimestamp(T0.plusMinutes(minutes));
+        e.setPayloadBlob(payloadStore.intern(e.getPayload()));
+        return eventRepository.save(e);
+    }
+
+    private LiveMessage saveLive(Event e) {
+        LiveMessage lm = new LiveMessage();
+        lm.setEventId(e.getId());
+        lm.setType(e.getType());
+        lm.setPayloadBlob(e.getPayloadBlob());
+        lm.setOriginModule(e.getOriginModule());
+        lm.setTimestamp(e.getTimestamp());
+        return liveMessageRepository.save(lm);
+    }
+
+    @Test
+    void events_KeysetPagesDoNotOverlap() {
+        for (int i = 0; i < 5; i++) saveEvent("ventas.compra-confirmada", "ventas", i);
+        entityManager.flush();
+
+        List<EventView> first = eventRepository.findViews(0, null, null, null, null, Limit.of(3));
+        List<EventView> second = eventRepository.findViews(first.get(2).getId(), null, null, null, null, Limit.of(3));
+
+        assertEquals(3, first.size());
+        assertEquals(2, second.size());
+        assertTrue(second.get(0).getId() > first.get(2).getId());
+        assertNotNull(first.get(0).getPayloadId());
+        assertNull(first.get(0).getPayload());
+    }
+
+    @Test
+    void events_FilterByTypeOriginAndTimeRange() {
+        saveEvent("ventas.compra-confirmada", "ventas", 0);
+        saveEvent("ventas.compra-confirmada", "ventas", 30);
+        saveEvent("inventario.stock-actualizado", "inventario", 30);
+        saveEvent("ventas.compra-confirmada", "ventas", 90);
+        entityManager.flush();
+
+        List<EventView> res = eventRepository.findViews(0, "ventas.compra-confirmada", "ventas",
+                T0.plusMinutes(10), T0.plusMinutes(60), Limit.of(100));
+
+        assertEquals(1, res.size());
+        assertEquals(T0.plusMinutes(30), res.get(0).getTimestamp());
+        assertEquals(1, eventRepository.findViews(0, null, "inventario", null, null, Limit.of(100)).size());
+    }
+
+    @Test
+    void liveAndDead_ProjectionsFilterByStateAndOrigin() {
+        Event ventas = saveEvent("ventas.compra-confirmada", "ventas", 0);
+        Event inventario = saveEvent("inventario.stock-actualizado", "inventario", 1);
+        saveLive(ventas);
+        LiveMessage toDead = saveLive(inventario);
+        entityManager.flush();
+        DeadLetterMessage dm = new DeadLetterMessage();
+        dm.setId(toDead.getId());
+        dm.setReason("SUCCESS");
+        dm.setMovedAt(T0.plusMinutes(5));
+        deadLetterRepository.markDead(dm);
+
+        Statistics stats = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        List<LiveMessageView> live = liveMessageRepository.findViews(0, null, null, null, null, Limit.of(100));
+        List<DeadLetterView> dead = deadLetterRepository.findViews(0, null, "inventario", null, null, Limit.of(100));
+
+        assertEquals(1, live.size());
+        assertEquals(ventas.getId(), live.get(0).getEventId());
+        assertEquals(1, dead.size());
+        assertEquals("SUCCESS", dead.get(0).getReason());
+        assertTrue(deadLetterRepository.findViews(0, null, "ventas", null, null, Limit.of(100)).isEmpty());
+        assertEquals(0, stats.getEntityLoadCount());
+    }
+}
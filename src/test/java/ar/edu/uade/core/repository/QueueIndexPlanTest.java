@@ -0,0 +1,66 @@
+package ar.edu.uade.core.repository;
+
+import ar.edu.uade.core.model.MessageConsumption;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica sobre H2 (modo MySQL) que las migraciones de Flyway crean los índices y que el
+ * plan de las consultas calientes los usa en lugar de recorrer la tabla.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class QueueIndexPlanTest {
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private MessageConsumptionRepository consumptionRepository;
+
+    private String plan(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class).toLowerCase();
+    }
+
+    private void assertUsesIndex(String sql, String index) {
+        String plan = plan(sql);
+        assertTrue(plan.contains(index), "se esperaba " + index + " en el plan:\n" + plan);
+        assertFalse(plan.contains("tablescan"), "la consulta no debería recorrer la tabla:\n" + plan);
+    }
+
+    @Test
+    void queueMessage_Lookups_UseIndexes() {
+        assertUsesIndex("SELECT * FROM queue_message WHERE event_id = 1", "idx_queue_message_event_id");
+        assertUsesIndex("SELECT * FROM queue_message WHERE original_live_id = 1", "idx_queue_message_original_live_id");
+        assertUsesIndex("SELECT id FROM queue_message WHERE state = 'RETRY' AND next_attempt_at <= CURRENT_TIMESTAMP",
+                "idx_queue_message_state_next_attempt");
+        assertUsesIndex("SELECT id FROM queue_message WHERE state = 'DEAD' AND id > 100 ORDER BY id LIMIT 50",
+                "idx_queue_message_state_id");
+    }
+
+    @Test
+    void consumption_Lookups_UseIndexes() {
+        assertUsesIndex("SELECT COUNT(*) FROM message_consumption WHERE event_id = 1 AND module_name = 'ventas'",
+                "uk_consumption_event_module");
+        assertUsesIndex("SELECT * FROM message_consumption WHERE event_id = 1", "uk_consumption_event_module");
+        assertUsesIndex("SELECT * FROM message_consumption WHERE live_message_id = 1", "idx_consumption_live_message_id");
+    }
+
+    @Test
+    void consumption_DuplicateEventAndModule_Rejected() {
+        MessageConsumption a = new MessageConsumption();
+        a.setEventId(7); a.setLiveMessageId(1); a.setModuleName("ventas"); a.setConsumedAt(LocalDateTime.now());
+        consumptionRepository.saveAndFlush(a);
+
+        MessageConsumption b = new MessageConsumption();
+        b.setEventId(7); b.setLiveMessageId(1); b.setModuleName("ventas"); b.setConsumedAt(LocalDateTime.now());
+        assertThrows(DataIntegrityViolationException.class, () -> consumptionRepository.saveAndFlush(b));
+    }
+}
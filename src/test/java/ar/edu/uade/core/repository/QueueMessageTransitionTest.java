@@ -0,0 +1,160 @@
+package ar.edu.uade.core.repository;
+
+import ar.edu.uade.core.model.DeadLetterMessage;
+import ar.edu.uade.core.model.LiveMessage;
+import ar.edu.uade.core.model.QueueMessage;
+import ar.edu.uade.core.model.RetryMessage;
+import ar.edu.uade.core.service.PayloadStore;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LIVE -> RETRY -> DEAD sobre la misma fila de queue_message: un UPDATE por transición,
+ * sin insert/delete ni copia del payload, y los repositorios tipados filtran por state.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(PayloadStore.class)
+class QueueMessageTransitionTest {
+
+    @Autowired private LiveMessageRepository liveMessageRepository;
+    @Autowired private RetryMessageRepository retryMessageRepository;
+    @Autowired private DeadLetterRepository deadLetterRepository;
+    @Autowired private QueueMessageRepository queueMessageRepository;
+    @Autowired private PayloadStore payloadStore;
+    @Autowired private EntityManager entityManager;
+
+    private LiveMessage saveLive(int eventId) {
+        LiveMessage lm = new LiveMessage();
+        lm.setEventId(eventId);
+        lm.setType("ventas.compra-confirmada");
+        lm.setPayload("{\"compraId\":\"C-" + eventId + "\"}");
+        lm.setPayloadBlob(payloadStore.intern(lm.getPayload()));
+        lm.setOriginModule("ventas");
+        lm.setTimestamp(LocalDateTime.now());
+        LiveMessage saved = liveMessageRepository.saveAndFlush(lm);
+        entityManager.clear();
+        return saved;
+    }
+
+    private static RetryMessage retryOf(LiveMessage lm) {
+        RetryMessage rm = new RetryMessage();
+        rm.setId(lm.getId());
+        rm.setAttempts(1);
+        rm.setMaxAttempts(3);
+        rm.setTtlSeconds(3600L);
+        rm.setCreatedAt(LocalDateTime.now());
+        rm.setNextAttemptAt(LocalDateTime.now().plusSeconds(30));
+        rm.setConsumerModule("inventario");
+        return rm;
+    }
+
+    private static DeadLetterMessage deadOf(Integer id, String reason) {
+        DeadLetterMessage dm = new DeadLetterMessage();
+        dm.setId(id);
+        dm.setReason(reason);
+        dm.setMovedAt(LocalDateTime.now());
+        return dm;
+    }
+
+    @Test
+    void liveToRetryToDead_UpdatesSameRowWithSingleStatement() {
+        LiveMessage lm = saveLive(10);
+        Statistics stats = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+
+        assertEquals(1, retryMessageRepository.markRetry(retryOf(lm)));
+        assertEquals(1, stats.getPrepareStatementCount());
+        assertEquals(0, stats.getEntityInsertCount());
+        assertEquals(0, stats.getEntityDeleteCount());
+
+        assertTrue(liveMessageRepository.findById(lm.getId()).isEmpty());
+        assertTrue(liveMessageRepository.findAll().isEmpty());
+        RetryMessage rm = retryMessageRepository.findById(lm.getId()).orElseThrow();
+        assertEquals(lm.getPayload(), rm.getPayload());
+        assertEquals(lm.getId(), rm.getOriginalLiveId());
+        assertEquals(1, rm.getAttempts());
+        assertEquals("inventario", rm.getConsumerModule());
+
+        assertEquals(1, deadLetterRepository.markDead(deadOf(lm.getId(), "MAX_ATTEMPTS_EXCEEDED")));
+        assertTrue(retryMessageRepository.findAll().isEmpty());
+        DeadLetterMessage dm = deadLetterRepository.findById(lm.getId()).orElseThrow();
+        assertEquals("MAX_ATTEMPTS_EXCEEDED", dm.getReason());
+        assertEquals(10, dm.getEventId());
+        assertEquals(lm.getPayload(), dm.getPayload());
+    }
+
+    @Test
+    void transitions_FromWrongState_AffectNoRows() {
+        LiveMessage lm = saveLive(20);
+        assertEquals(1, deadLetterRepository.markDead(deadOf(lm.getId(), "SUCCESS")));
+
+        assertEquals(0, retryMessageRepository.markRetry(retryOf(lm)));
+        assertEquals(0, deadLetterRepository.markDead(deadOf(lm.getId(), "SUCCESS")));
+        assertEquals(0, deadLetterRepository.markDead(deadOf(999_999, "SUCCESS")));
+    }
+
+    @Test
+    void queueMessage_ByEventId_ReturnsCurrentState() {
+        LiveMessage lm = saveLive(30);
+        assertInstanceOf(LiveMessage.class, queueMessageRepository.findById(queueMessageRepository.findLatestIdByEventId(30).orElseThrow()).orElseThrow());
+
+        retryMessageRepository.markRetry(retryOf(lm));
+        QueueMessage qm = queueMessageRepository.findById(lm.getId()).orElseThrow();
+        assertInstanceOf(RetryMessage.class, qm);
+        assertTrue(retryMessageRepository.findByEventId(30).isPresent());
+        assertTrue(liveMessageRepository.findByEventId(30).isEmpty());
+    }
+
+    @Test
+    void redeliveries_DueRowsAreTakenOnce_AndExhaustedOrExpiredOnesAreSkipped() {
+        LiveMessage due = saveLive(20);
+        LiveMessage later = saveLive(21);
+        LiveMessage exhausted = saveLive(22);
+        LiveMessage expired = saveLive(23);
+        for (LiveMessage lm : new LiveMessage[]{due, later, exhausted, expired}) retryMessageRepository.markRetry(retryOf(lm));
+        LocalDateTime now = LocalDateTime.now().plusMinutes(1);
+        retryMessageRepository.markRedelivered(List.of(later.getId()), 1, now.plusMinutes(5));
+        entityManager.createNativeQuery("UPDATE queue_message SET redeliveries = max_attempts WHERE id = ?1")
+                .setParameter(1, exhausted.getId()).executeUpdate();
+        entityManager.createNativeQuery("UPDATE queue_message SET created_at = ?1 WHERE id = ?2")
+                .setParameter(1, LocalDateTime.now().minusHours(2)).setParameter(2, expired.getId()).executeUpdate();
+
+        List<Object[]> rows = retryMessageRepository.findDueRedeliveries(now, 10);
+        assertEquals(1, rows.size());
+        assertEquals(due.getId(), ((Number) rows.get(0)[0]).intValue());
+        assertEquals(0, ((Number) rows.get(0)[4]).intValue());
+
+        assertEquals(1, retryMessageRepository.markRedelivered(List.of(due.getId()), 1, now.plusMinutes(5)));
+        // otro poll con el mismo número de reentrega no la vuelve a contar
+        assertEquals(0, retryMessageRepository.markRedelivered(List.of(due.getId()), 1, now.plusMinutes(5)));
+        assertTrue(retryMessageRepository.findDueRedeliveries(now, 10).isEmpty());
+    }
+
+    @Test
+    void deferRedelivery_PushesNextAttempt_WithoutCountingIt() {
+        LiveMessage lm = saveLive(24);
+        retryMessageRepository.markRetry(retryOf(lm));
+        LocalDateTime now = LocalDateTime.now().plusMinutes(1);
+
+        assertEquals(1, retryMessageRepository.deferRedelivery(List.of(lm.getId()), 0, now.plusMinutes(5)));
+        assertTrue(retryMessageRepository.findDueRedeliveries(now, 10).isEmpty());
+        List<Object[]> later = retryMessageRepository.findDueRedeliveries(now.plusMinutes(6), 10);
+        assertEquals(0, ((Number) later.get(0)[4]).intValue());
+        // si otro poll ya la reentregó, no se le pisa la espera
+        assertEquals(0, retryMessageRepository.deferRedelivery(List.of(lm.getId()), 1, now));
+    }
+}
@@ -0,0 +1,84 @@
+package ar.edu.uade.core.service;
+
+import ar.edu.uade.core.model.AckBatchItemResult;
+import ar.edu.uade.core.model.EventAckEntity;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AckListenerTest {
+
+    @Mock private KafkaMockService kafkaMockService;
+    @Mock private Acknowledgment acknowledgment;
+
+    @InjectMocks
+    private AckListener listener;
+
+    private static EventAckEntity ack(String eventId, String consumer) {
+        EventAckEntity a = new EventAckEntity();
+        a.setEventId(eventId);
+        a.setConsumer(consumer);
+        a.setStatus("CONSUMED");
+        return a;
+    }
+
+    private static ConsumerRecord<String, EventAckEntity> record(long offset, EventAckEntity value) {
+        return new ConsumerRecord<>("core.acks", 0, offset, null, value);
+    }
+
+    @Test
+    void wholePoll_IsHandledInOneCall_ThenOffsetsCommitted() {
+        EventAckEntity a1 = ack("1", "ventas");
+        EventAckEntity a2 = ack("1", "analitica");
+        when(kafkaMockService.handleAcknowledgements(List.of(a1, a2)))
+                .thenReturn(List.of(AckBatchItemResult.of(0, a1, AckBatchItemResult.Status.PENDING),
+                        AckBatchItemResult.of(1, a2, AckBatchItemResult.Status.COMPLETED)));
+
+        listener.onAcks(List.of(record(10, a1), record(11, a2)), acknowledgment);
+
+        InOrder inOrder = inOrder(kafkaMockService, acknowledgment);
+        inOrder.verify(kafkaMockService).handleAcknowledgements(List.of(a1, a2));
+        inOrder.verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void unreadableRecords_AreSkipped() {
+        EventAckEntity a1 = ack("2", "ventas");
+        when(kafkaMockService.handleAcknowledgements(List.of(a1)))
+                .thenReturn(List.of(AckBatchItemResult.of(0, a1, AckBatchItemResult.Status.PENDING)));
+
+        listener.onAcks(List.of(record(20, null), record(21, a1)), acknowledgment);
+
+        verify(kafkaMockService).handleAcknowledgements(List.of(a1));
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void onlyUnreadableRecords_CommitsWithoutTouchingDb() {
+        listener.onAcks(List.of(record(30, null)), acknowledgment);
+
+        verifyNoInteractions(kafkaMockService);
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void dbFailure_DoesNotCommitOffsets() {
+        when(kafkaMockService.handleAcknowledgements(any())).thenThrow(new IllegalStateException("db caída"));
+
+        assertThrows(IllegalStateException.class,
+                () -> listener.onAcks(List.of(record(40, ack("3", "ventas"))), acknowledgment));
+        verify(acknowledgment, never()).acknowledge();
+    }
+}
@@ -0,0 +1,291 @@
+package ar.edu.uade.core.service;
+
+import ar.edu.uade.core.model.AckInboxMessage;
+import ar.edu.uade.core.model.AckLaneStats;
+import ar.edu.uade.core.model.EventAckEntity;
+import ar.edu.uade.core.repository.AckInboxRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AckPipelineTest {
+
+    @Mock private KafkaMockService kafkaMockService;
+    @Mock private AckInboxRepository ackInboxRepository;
+    @Mock private SchedulerLease schedulerLease;
+
+    @InjectMocks
+    private AckPipeline pipeline;
+
+    private final AtomicLong ids = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(pipeline, "enabled", true);
+        ReflectionTestUtils.setField(pipeline, "laneCount", 3);
+        ReflectionTestUtils.setField(pipeline, "laneCapacity", 2);
+        ReflectionTestUtils.setField(pipeline, "maxBatchSize", 100);
+        ReflectionTestUtils.setField(pipeline, "maxRetries", 2);
+        ReflectionTestUtils.setField(pipeline, "retryBackoffMs", 1L);
+        ReflectionTestUtils.setField(pipeline, "claimTimeoutMs", 60_000L);
+        lenient().when(schedulerLease.owner()).thenReturn("nodo:1");
+    }
+
+    private void stubClaims(List<AckInboxMessage> rows) {
+        when(kafkaMockService.claimInboxAcks(eq("nodo:1"), eq(60_000L), anyInt())).thenReturn(rows);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.stop();
+    }
+
+    private void stubSave() {
+        when(ackInboxRepository.save(any(AckInboxMessage.class))).thenAnswer(inv -> {
+            AckInboxMessage m = inv.getArgument(0);
+            m.setId(ids.incrementAndGet());
+            return m;
+        });
+    }
+
+    private static EventAckEntity ack(String eventId, String consumer) {
+        EventAckEntity a = new EventAckEntity();
+        a.setEventId(eventId);
+        a.setConsumer(consumer);
+        a.setStatus("CONSUMED");
+        return a;
+    }
+
+    private static AckInboxMessage inbox(long id, int eventId) {
+        AckInboxMessage m = new AckInboxMessage();
+        m.setId(id);
+        m.setEventId(eventId);
+        m.setConsumer("ventas");
+        m.setStatus("CONSUMED");
+        m.setReceivedAt(LocalDateTime.now());
+        return m;
+    }
+
+    @Test
+    void submit_PersistsAndQueuesOnTheEventLane() {
+        stubClaims(List.of());
+        stubSave();
+        pipeline.init();
+
+        pipeline.submit(ack("7", "ventas"));
+        pipeline.submit(ack("10", "analitica"));
+
+        // 7 mod 3 = 1, 10 mod 3 = 1: misma línea, en orden de llegada
+        assertEquals(List.of(7, 10), queuedEventIds(1));
+        assertEquals(0, pipeline.lane(0).queue.size());
+        // la fila queda a nombre de esta réplica: el barrido de las otras no la toma
+        assertEquals("nodo:1", pipeline.lane(1).queue.peek().message().getClaimedBy());
+        verify(ackInboxRepository, times(2)).save(any(AckInboxMessage.class));
+        verify(kafkaMockService, never()).handleQueuedAcknowledgements(anyList());
+    }
+
+    @Test
+    void submit_InvalidEventId_OrFullLane_IsRejectedBeforeSaving() {
+        stubClaims(List.of());
+        stubSave();
+        pipeline.init();
+
+        assertThrows(IllegalArgumentException.class, () -> pipeline.submit(ack("abc", "ventas")));
+        pipeline.submit(ack("3", "ventas"));
+        pipeline.submit(ack("6", "ventas"));
+        assertThrows(IllegalStateException.class, () -> pipeline.submit(ack("9", "ventas")));
+        verify(ackInboxRepository, times(2)).save(any(AckInboxMessage.class));
+    }
+
+    @Test
+    void init_ClaimsFreeInboxRowsIntoTheirLanes() {
+        stubClaims(List.of(inbox(1, 4), inbox(2, 5), inbox(3, 7)));
+        pipeline.init();
+
+        assertEquals(List.of(4, 7), queuedEventIds(1));
+        assertEquals(List.of(5), queuedEventIds(2));
+        // 3 líneas x 2 de capacidad: se pidió a lo sumo el lugar libre y el lote vino incompleto
+        verify(kafkaMockService).claimInboxAcks("nodo:1", 60_000L, 6);
+    }
+
+    @Test
+    void rescan_RenewsOwnRows_ThenClaimsInBatchesWhileThereIsRoom() {
+        ReflectionTestUtils.setField(pipeline, "maxBatchSize", 2);
+        stubClaims(List.of());
+        pipeline.init();
+        reset(kafkaMockService);
+        when(kafkaMockService.claimInboxAcks(eq("nodo:1"), eq(60_000L), anyInt()))
+                .thenReturn(List.of(inbox(1, 3), inbox(2, 4)))
+                .thenReturn(List.of(inbox(3, 5)));
+
+        pipeline.rescan();
+
+        verify(ackInboxRepository).renewClaims("nodo:1");
+        verify(kafkaMockService, times(2)).claimInboxAcks("nodo:1", 60_000L, 2);
+        assertEquals(List.of(3), queuedEventIds(0));
+        assertEquals(List.of(4), queuedEventIds(1));
+        assertEquals(List.of(5), queuedEventIds(2));
+    }
+
+    @Test
+    void rescan_WithoutDb_DoesNotClaim() {
+        stubClaims(List.of());
+        pipeline.init();
+        when(ackInboxRepository.renewClaims("nodo:1")).thenThrow(new IllegalStateException("db caída"));
+
+        pipeline.rescan();
+
+        verify(kafkaMockService, times(1)).claimInboxAcks(any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void lanes_ApplyQueuedAcksAsOneBatch_AndReportStats() throws Exception {
+        stubClaims(List.of(inbox(1, 3), inbox(2, 6), inbox(3, 9)));
+        List<List<AckInboxMessage>> applied = new ArrayList<>();
+        when(kafkaMockService.handleQueuedAcknowledgements(anyList())).thenAnswer(inv -> {
+            synchronized (applied) { applied.add(new ArrayList<>(inv.getArgument(0))); }
+            return List.of();
+        });
+        pipeline.init();
+        pipeline.start();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pipeline.stats().get(0).getProcessed() < 3 && System.currentTimeMillis() < deadline) Thread.sleep(10);
+
+        synchronized (applied) {
+            assertEquals(1, applied.size());
+            assertEquals(List.of(1L, 2L, 3L), applied.get(0).stream().map(AckInboxMessage::getId).toList());
+        }
+        AckLaneStats s = pipeline.stats().get(0);
+        assertEquals(0, s.getDepth());
+        assertEquals(3, s.getProcessed());
+        assertEquals(1, s.getBatches());
+        assertTrue(s.getMaxLatencyMs() >= s.getAvgLatencyMs());
+    }
+
+    @Test
+    void process_RetriesTheSameBatch_ThenLeavesItInTheInbox() {
+        stubClaims(List.of());
+        pipeline.init();
+        when(kafkaMockService.handleQueuedAcknowledgements(anyList()))
+                .thenThrow(new IllegalStateException("db caída"))
+                .thenReturn(List.of());
+
+        AckPipeline.Lane lane = pipeline.lane(0);
+        pipeline.process(lane, List.of(new AckPipeline.Pending(inbox(1, 3), System.nanoTime(), false)));
+        assertEquals(1, lane.stats().getProcessed());
+        assertEquals(0, lane.stats().getFailed());
+
+        reset(kafkaMockService);
+        when(kafkaMockService.handleQueuedAcknowledgements(anyList())).thenThrow(new IllegalStateException("db caída"));
+        pipeline.process(lane, List.of(new AckPipeline.Pending(inbox(2, 3), System.nanoTime(), false)));
+        // 1 intento + 2 reintentos; la fila sigue en ack_inbox (el borrado era parte de la transacción que falló)
+        // y se libera para que la tome el próximo barrido
+        verify(kafkaMockService, times(3)).handleQueuedAcknowledgements(anyList());
+        assertEquals(1, lane.stats().getFailed());
+        verify(ackInboxRepository, never()).deleteAllByIdInBatch(any());
+        verify(ackInboxRepository).release(List.of(2L), "nodo:1");
+    }
+
+    @Test
+    void process_AfterGivingUp_HoldsNewAcksOfTheEvent_UntilItsRowsAreBack() {
+        stubClaims(List.of());
+        pipeline.init();
+        AckPipeline.Lane lane = pipeline.lane(0);
+        when(kafkaMockService.handleQueuedAcknowledgements(anyList())).thenThrow(new IllegalStateException("db caída"));
+        pipeline.process(lane, List.of(new AckPipeline.Pending(inbox(1, 3), System.nanoTime(), false)));
+        assertEquals(Set.of(3), lane.blocked);
+
+        reset(kafkaMockService);
+        List<List<Long>> applied = new ArrayList<>();
+        when(kafkaMockService.handleQueuedAcknowledgements(anyList())).thenAnswer(inv -> {
+            applied.add(inv.<List<AckInboxMessage>>getArgument(0).stream().map(AckInboxMessage::getId).toList());
+            return List.of();
+        });
+        // un ACK nuevo del evento 3 no se adelanta al fallido: vuelve a ack_inbox; el del evento 6 se aplica
+        pipeline.process(lane, List.of(
+                new AckPipeline.Pending(inbox(2, 3), System.nanoTime(), false),
+                new AckPipeline.Pending(inbox(3, 6), System.nanoTime(), false)));
+        verify(ackInboxRepository).release(List.of(2L), "nodo:1");
+        assertEquals(List.of(List.of(3L)), applied);
+
+        // el barrido trae las filas del evento 3 en orden de id: se aplican y la línea revisa si desbloquea
+        pipeline.process(lane, List.of(
+                new AckPipeline.Pending(inbox(1, 3), System.nanoTime(), true),
+                new AckPipeline.Pending(inbox(2, 3), System.nanoTime(), true)));
+        assertEquals(List.of(1L, 2L), applied.get(1));
+        assertEquals(0, lane.nextUnblockCheckNanos);
+        when(ackInboxRepository.findEventIdsHeldOutside(List.of(3), "nodo:1")).thenReturn(List.of());
+        pipeline.unblock(lane);
+        assertTrue(lane.blocked.isEmpty());
+    }
+
+    @Test
+    void process_InterruptedWhileBackingOff_ReleasesTheBatch() {
+        stubClaims(List.of());
+        pipeline.init();
+        ReflectionTestUtils.setField(pipeline, "retryBackoffMs", 10_000L);
+        when(kafkaMockService.handleQueuedAcknowledgements(anyList())).thenThrow(new IllegalStateException("db caída"));
+        AckPipeline.Lane lane = pipeline.lane(0);
+
+        Thread.currentThread().interrupt();
+        try {
+            pipeline.process(lane, List.of(new AckPipeline.Pending(inbox(5, 3), System.nanoTime(), false)));
+        } finally {
+            assertTrue(Thread.interrupted());
+        }
+
+        verify(ackInboxRepository).release(List.of(5L), "nodo:1");
+        assertEquals(Set.of(3), lane.blocked);
+    }
+
+    @Test
+    void rescan_ReleasesRowsThatCouldNotBeReleased_BeforeRenewingClaims() {
+        stubClaims(List.of());
+        pipeline.init();
+        when(kafkaMockService.handleQueuedAcknowledgements(anyList())).thenThrow(new IllegalStateException("db caída"));
+        when(ackInboxRepository.release(List.of(4L), "nodo:1")).thenThrow(new IllegalStateException("db caída")).thenReturn(1);
+        pipeline.process(pipeline.lane(0), List.of(new AckPipeline.Pending(inbox(4, 3), System.nanoTime(), false)));
+
+        pipeline.rescan();
+
+        var order = inOrder(ackInboxRepository);
+        order.verify(ackInboxRepository, times(2)).release(List.of(4L), "nodo:1");
+        order.verify(ackInboxRepository).renewClaims("nodo:1");
+    }
+
+    @Test
+    void disabled_DoesNotTouchTheInbox() {
+        ReflectionTestUtils.setField(pipeline, "enabled", false);
+        pipeline.init();
+        pipeline.start();
+
+        assertFalse(pipeline.isEnabled());
+        assertTrue(pipeline.stats().isEmpty());
+        verifyNoInteractions(ackInboxRepository);
+    }
+
+    private List<Integer> queuedEventIds(int lane) {
+        return pipeline.lane(lane).queue.stream().map(p -> p.message().getEventId()).toList();
+    }
+}
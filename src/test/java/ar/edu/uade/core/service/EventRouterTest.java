@@ -0,0 +1,159 @@
+package ar.edu.uade.core.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventRouterTest {
+
+    private static final String ONE_ROUTE = """
+            { "routes": [ { "topic": "ventas.compra-confirmada", "types": ["POST: Compra confirmada"], "consumers": ["inventario", "analitica"] } ] }
+            """;
+
+    private static EventRouter routerFor(Path file) {
+        EventRouter router = new EventRouter();
+        ReflectionTestUtils.setField(router, "location", file.toUri().toString());
+        return router;
+    }
+
+    private static void write(Path file, String json, long modifiedMillis) throws IOException {
+        Files.writeString(file, json);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modifiedMillis));
+    }
+
+    @Test
+    void builtInTable_ResolvesOriginalTypes_TopicNames_AndCaseVariants() {
+        EventRouter router = new EventRouter();
+
+        EventRouter.Route r = router.route("POST: Compra confirmada");
+        assertEquals("ventas.compra-confirmada", r.topic());
+        assertEquals("ventas", r.domain());
+        assertEquals(List.of("inventario", "analitica"), r.consumers());
+        assertSame(r, router.route("ventas.compra-confirmada"));
+        assertSame(r, router.route("  post: COMPRA CONFIRMADA "));
+
+        assertEquals("inventario.categoria-creada", router.route("POST: Categoria creada").topic());
+        assertEquals("inventario.categoria-creada", router.route("POST: Categoría creada").topic());
+    }
+
+    @Test
+    void builtInTable_FollowsDocsWhereKeywordsWereWrong() {
+        EventRouter router = new EventRouter();
+        // "stock" / "producto" en el nombre no los vuelve eventos de catálogo
+        assertEquals(List.of("inventario"), router.expectedConsumers("POST: Stock rollback - compra cancelada"));
+        assertEquals(List.of("analitica"), router.expectedConsumers("POST: Producto agregado a favoritos"));
+        assertEquals(List.of("analitica"), router.expectedConsumers("analitica.vista-diaria-productos"));
+    }
+
+    @Test
+    void unknownTypes_FallBackToKeywordRules_AndAreMemoizedWithinBound() {
+        EventRouter router = new EventRouter();
+        ReflectionTestUtils.setField(router, "memoSize", 8);
+
+        EventRouter.Route r = router.route("producto creado");
+        assertNull(r.topic());
+        assertNull(r.domain());
+        assertEquals(List.of("ventas", "analitica"), r.consumers());
+        assertSame(r, router.route("producto creado"));
+
+        assertEquals("ventas", router.route("Ventas.algo-nuevo").domain());
+        assertEquals(List.of(), router.expectedConsumers("otro.tipo"));
+        assertSame(EventRouter.UNROUTED, router.route(null));
+
+        for (int i = 0; i < 100; i++) router.route("tipo-" + i);
+        assertEquals(List.of("inventario", "analitica"), router.expectedConsumers("algo confirmada"));
+    }
+
+    @Test
+    void reloadIfChanged_SwapsTable_WhenFileChanges(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("routes.json");
+        write(file, ONE_ROUTE, 1_000_000L);
+        EventRouter router = routerFor(file);
+        assertEquals(3, router.reload());
+        assertNull(router.route("POST: Agregar un producto").topic());
+
+        // sin cambios en el archivo no se recompila
+        router.reloadIfChanged();
+        assertNull(router.route("POST: Agregar un producto").topic());
+
+        write(file, """
+                { "routes": [ { "topic": "inventario.producto-creado", "types": ["POST: Agregar un producto"], "consumers": ["ventas"] } ] }
+                """, 2_000_000L);
+        router.reloadIfChanged();
+
+        assertEquals("inventario.producto-creado", router.route("POST: Agregar un producto").topic());
+        assertEquals(List.of("ventas"), router.expectedConsumers("POST: Agregar un producto"));
+        // la ruta anterior ya no está: vuelve a las reglas por palabra clave
+        assertNull(router.route("POST: Compra confirmada").topic());
+    }
+
+    @Test
+    void reloadIfChanged_WithInvalidFile_KeepsPreviousTable(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("routes.json");
+        write(file, ONE_ROUTE, 1_000_000L);
+        EventRouter router = routerFor(file);
+        router.reload();
+
+        write(file, "{ \"routes\": [ { \"topic\": \"sin-dominio\", \"types\": [] } ] }", 2_000_000L);
+        router.reloadIfChanged();
+        assertEquals("ventas.compra-confirmada", router.route("POST: Compra confirmada").topic());
+
+        write(file, "{ no es json", 3_000_000L);
+        router.reloadIfChanged();
+        assertEquals("ventas.compra-confirmada", router.route("POST: Compra confirmada").topic());
+    }
+
+    @Test
+    void reloadIfChanged_WithUnknownConsumerModule_KeepsPreviousTable(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("routes.json");
+        write(file, ONE_ROUTE, 1_000_000L);
+        EventRouter router = routerFor(file);
+        router.reload();
+        router.useModuleRegistry(new ModuleRegistry());
+
+        write(file, """
+                { "routes": [ { "topic": "ventas.compra-confirmada", "types": ["POST: Compra confirmada"], "consumers": ["inventaro"] } ] }
+                """, 2_000_000L);
+        assertThrows(IllegalStateException.class, router::reload);
+        router.reloadIfChanged();
+
+        assertEquals(List.of("inventario", "analitica"), router.expectedConsumers("POST: Compra confirmada"));
+        // la tabla que sigue vigente arma su máscara sin errores
+        assertEquals(0b110L, new ModuleRegistry().maskOf(router.expectedConsumers("POST: Compra confirmada")));
+    }
+
+    @Test
+    void useModuleRegistry_RejectsCurrentTableWithUnknownConsumer(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("routes.json");
+        write(file, """
+                { "routes": [ { "topic": "ventas.compra-confirmada", "types": ["POST: Compra confirmada"], "consumers": ["logistica"] } ] }
+                """, 1_000_000L);
+        EventRouter router = routerFor(file);
+        router.reload();
+
+        assertThrows(IllegalStateException.class, () -> router.useModuleRegistry(new ModuleRegistry()));
+    }
+
+    @Test
+    void reload_RejectsTypeRoutedTwice(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("routes.json");
+        write(file, """
+                { "routes": [
+                  { "topic": "ventas.compra-cancelada", "types": ["Compra cancelada"], "consumers": ["inventario"] },
+                  { "topic": "inventario.stock-rollback", "types": ["compra cancelada"], "consumers": ["inventario"] }
+                ] }
+                """, 1_000_000L);
+        EventRouter router = routerFor(file);
+        assertThrows(IllegalStateException.class, router::reload);
+        // sigue la tabla incluida en el jar
+        assertEquals("ventas.compra-cancelada", router.route("DELETE: Compra cancelada").topic());
+    }
+}
@@ -0,0 +1,125 @@
+package ar.edu.uade.core.service;
+
+import ar.edu.uade.core.model.DeadLetterMessage;
+import ar.edu.uade.core.model.Event;
+import ar.edu.uade.core.model.LiveMessage;
+import ar.edu.uade.core.model.MessageConsumption;
+import ar.edu.uade.core.repository.DeadLetterRepository;
+import ar.edu.uade.core.repository.EventRepository;
+import ar.edu.uade.core.repository.LiveMessageRepository;
+import ar.edu.uade.core.repository.MessageConsumptionRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({ExportService.class, PayloadStore.class})
+class ExportServiceTest {
+
+    @Autowired private ExportService exportService;
+    @Autowired private PayloadStore payloadStore;
+    @Autowired private EventRepository eventRepository;
+    @Autowired private LiveMessageRepository liveMessageRepository;
+    @Autowired private DeadLetterRepository deadLetterRepository;
+    @Autowired private MessageConsumptionRepository consumptionRepository;
+    @Autowired private EntityManager entityManager;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private List<JsonNode> lines(ByteArrayOutputStream out) throws Exception {
+        String text = out.toString(StandardCharsets.UTF_8);
+        assertTrue(text.isEmpty() || text.endsWith("\n"));
+        return text.lines().map(l -> {
+            try { return mapper.readTree(l); } catch (Exception e) { throw new IllegalStateException(e); }
+        }).toList();
+    }
+
+    private Event saveEvent(int n) {
+        Event e = new Event("ventas.compra-confirmada", "{\"compraId\":\"C-" + n + "\"}", "ventas");
+        e.setPayloadBlob(payloadStore.intern(e.getPayload()));
+        return eventRepository.save(e);
+    }
+
+    @Test
+    void exportEvents_WritesOneLinePerRowWithPayloadAndHonoursAfter() throws Exception {
+        Event first = saveEvent(1);
+        saveEvent(2);
+        saveEvent(3);
+        entityManager.flush();
+        entityManager.clear();
+
+        ByteArrayOutputStream all = new ByteArrayOutputStream();
+        assertEquals(3, exportService.exportEvents(all, 0));
+        List<JsonNode> rows = lines(all);
+        assertEquals(3, rows.size());
+        assertEquals("{\"compraId\":\"C-1\"}", rows.get(0).get("payload").asText());
+        assertEquals("ventas", rows.get(0).get("originModule").asText());
+        assertFalse(rows.get(0).has("payloadId"));
+
+        ByteArrayOutputStream rest = new ByteArrayOutputStream();
+        assertEquals(2, exportService.exportEvents(rest, first.getId()));
+    }
+
+    @Test
+    void exportDeadLetters_OnlyDeadRows() throws Exception {
+        Event e = saveEvent(9);
+        LiveMessage live = new LiveMessage();
+        live.setEventId(e.getId());
+        live.setType(e.getType());
+        live.setPayloadBlob(e.getPayloadBlob());
+        live.setTimestamp(LocalDateTime.now());
+        liveMessageRepository.saveAndFlush(live);
+        LiveMessage other = new LiveMessage();
+        other.setEventId(e.getId());
+        other.setType(e.getType());
+        other.setTimestamp(LocalDateTime.now());
+        liveMessageRepository.saveAndFlush(other);
+        DeadLetterMessage dm = new DeadLetterMessage();
+        dm.setId(live.getId());
+        dm.setReason("SUCCESS");
+        dm.setMovedAt(LocalDateTime.now());
+        deadLetterRepository.markDead(dm);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(1, exportService.exportDeadLetters(out, 0));
+        JsonNode row = lines(out).get(0);
+        assertEquals("SUCCESS", row.get("reason").asText());
+        assertEquals("{\"compraId\":\"C-9\"}", row.get("payload").asText());
+    }
+
+    @Test
+    void exportConsumptions_DetachesEntitiesAsItGoes() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            MessageConsumption c = new MessageConsumption();
+            c.setEventId(100 + i);
+            c.setLiveMessageId(i);
+            c.setModuleName("inventario");
+            c.setConsumedAt(LocalDateTime.now());
+            consumptionRepository.save(c);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(5, exportService.exportConsumptions(out, 0));
+
+        assertEquals(5, lines(out).size());
+        assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+    }
+}
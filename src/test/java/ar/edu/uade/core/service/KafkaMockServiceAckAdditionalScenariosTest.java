@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.kafka.core.KafkaTemplate;
 
@@ -22,6 +23,11 @@ class KafkaMockServiceAckAdditionalScenariosTest {
     @Mock private RetryMessageRepository retryMessageRepository;
     @Mock private DeadLetterRepository deadLetterRepository;
     @Mock private MessageConsumptionRepository consumptionRepository;
+    @Mock private EventAckRepository eventAckRepository;
+    @Mock private QueueMessageRepository queueMessageRepository;
+
+    @Spy private EventRouter eventRouter = new EventRouter();
+    @Spy private RetryPolicies retryPolicies = new RetryPolicies(eventRouter);
 
     @InjectMocks private KafkaMockService service;
 
@@ -30,18 +36,19 @@ class KafkaMockServiceAckAdditionalScenariosTest {
         // eventType contiene "pendiente" => expected [inventario]
         LiveMessage live = new LiveMessage();
         live.setId(1); live.setEventId(10); live.setType("estado pendiente"); live.setPayload("{}");
+        live.setExpectedMask(service.expectedMask(live.getType()));
         when(liveMessageRepository.findByEventId(10)).thenReturn(Optional.of(live));
         // Consumptions contiene el esperado (inventario)
-        MessageConsumption c = new MessageConsumption(); c.setEventId(10); c.setModuleName("inventario");
-        when(consumptionRepository.findByEventId(10)).thenReturn(List.of(c));
+        when(consumptionRepository.insertIgnore(eq(10), any(), any(), any())).thenReturn(1);
+        when(queueMessageRepository.findConsumedMask(anyInt())).thenReturn(Optional.of(service.moduleRegistry().maskOf(List.of("inventario"))));
 
         EventAckEntity ack = new EventAckEntity();
         ack.setEventId("10"); ack.setConsumer("inventario"); ack.setStatus("SUCCESS");
 
         service.handleAcknowledgement(ack);
 
-        verify(deadLetterRepository).save(any(DeadLetterMessage.class));
-        verify(liveMessageRepository).delete(any(LiveMessage.class));
+        verify(deadLetterRepository).markDead(any(DeadLetterMessage.class));
+        verify(liveMessageRepository, never()).delete(any(LiveMessage.class));
     }
 
     @Test
@@ -57,9 +64,9 @@ class KafkaMockServiceAckAdditionalScenariosTest {
 
         service.handleAcknowledgement(ack);
 
-        verify(deadLetterRepository).save(any(DeadLetterMessage.class));
-        verify(liveMessageRepository).delete(any(LiveMessage.class));
-        verify(consumptionRepository, atLeastOnce()).save(any(MessageConsumption.class));
+        verify(deadLetterRepository).markDead(any(DeadLetterMessage.class));
+        verify(liveMessageRepository, never()).delete(any(LiveMessage.class));
+        verify(consumptionRepository, atLeastOnce()).insertIgnore(eq(20), eq(2), eq("mod"), any());
     }
 
     @Test
@@ -67,7 +74,6 @@ class KafkaMockServiceAckAdditionalScenariosTest {
         LiveMessage live = new LiveMessage();
         live.setId(3); live.setEventId(30); live.setType("producto actualizado"); live.setPayload("{}");
         when(liveMessageRepository.findByEventId(30)).thenReturn(Optional.of(live));
-        when(liveMessageRepository.findById(3)).thenReturn(Optional.of(live));
 
         EventAckEntity ack = new EventAckEntity();
         ack.setEventId("30"); ack.setConsumer(null); ack.setStatus("FAILED");
@@ -75,8 +81,8 @@ class KafkaMockServiceAckAdditionalScenariosTest {
         service.handleAcknowledgement(ack);
 
         // Se guarda el consumo con "Desconocido"
-        verify(consumptionRepository).save(argThat(mc -> "Desconocido".equals(mc.getModuleName())));
-        verify(retryMessageRepository).save(any(RetryMessage.class));
-        verify(liveMessageRepository).delete(any(LiveMessage.class));
+        verify(consumptionRepository).insertIgnore(eq(30), eq(3), eq("Desconocido"), any());
+        verify(retryMessageRepository).markRetry(any(RetryMessage.class));
+        verify(liveMessageRepository, never()).delete(any(LiveMessage.class));
     }
 }
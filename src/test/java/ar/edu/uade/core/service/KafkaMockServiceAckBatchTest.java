@@ -0,0 +1,241 @@
+package ar.edu.uade.core.service;
+
+import ar.edu.uade.core.model.AckBatchItemResult;
+import ar.edu.uade.core.model.AckInboxMessage;
+import ar.edu.uade.core.model.EventAckEntity;
+import ar.edu.uade.core.model.LiveMessage;
+import ar.edu.uade.core.repository.AckInboxRepository;
+import ar.edu.uade.core.repository.EventAckRepository;
+import ar.edu.uade.core.repository.LiveMessageRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * POST /core/acks:batch contra la DB: los ACKs de cada evento se aplican en orden con las reglas de
+ * handleAcknowledgement, los consumos entran en un batch y los movimientos son UPDATE ... WHERE id IN (...).
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({KafkaMockService.class, PayloadStore.class, TopicResolver.class, EventRouter.class, RetryPolicies.class})
+class KafkaMockServiceAckBatchTest {
+
+    @MockitoBean private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Autowired private KafkaMockService service;
+    @Autowired private PayloadStore payloadStore;
+    @Autowired private LiveMessageRepository liveMessageRepository;
+    @Autowired private AckInboxRepository ackInboxRepository;
+    @Autowired private EventAckRepository eventAckRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private LiveMessage saveLive(int eventId, String type) {
+        LiveMessage lm = new LiveMessage();
+        lm.setEventId(eventId);
+        lm.setType(type);
+        lm.setPayloadBlob(payloadStore.intern("{\"n\":" + eventId + "}"));
+        lm.setOriginModule("ventas");
+        lm.setTimestamp(LocalDateTime.now());
+        lm.setExpectedMask(service.expectedMask(type));
+        return liveMessageRepository.saveAndFlush(lm);
+    }
+
+    private static EventAckEntity ack(Object eventId, String consumer, String status) {
+        EventAckEntity a = new EventAckEntity();
+        a.setEventId(eventId == null ? null : eventId.toString());
+        a.setConsumer(consumer);
+        a.setStatus(status);
+        return a;
+    }
+
+    private Map<String, Object> row(int eventId) {
+        return jdbcTemplate.queryForMap("SELECT state, consumer_count, consumed_mask, consumer_module, reason FROM queue_message WHERE event_id = ?", eventId);
+    }
+
+    private int ackAttempts(int eventId, String consumer) {
+        return jdbcTemplate.queryForObject("SELECT attempts FROM event_acks WHERE event_id = ? AND consumer = ?",
+                Integer.class, String.valueOf(eventId), consumer);
+    }
+
+    private static List<AckBatchItemResult.Status> statuses(List<AckBatchItemResult> results) {
+        List<AckBatchItemResult.Status> out = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+            out.add(results.get(i).getStatus());
+        }
+        return out;
+    }
+
+    @Test
+    void batch_AppliesAcksInOrderPerEvent_AndMovesWithSetBasedUpdates() {
+        saveLive(70_001, "ventas.compra-confirmada"); // inventario + analitica
+        saveLive(70_002, "ventas.compra-confirmada");
+        saveLive(70_003, "ventas.compra-confirmada");
+
+        List<AckBatchItemResult> results = service.handleAcknowledgements(List.of(
+                ack(70_001, "inventario", "CONSUMED"),
+                ack(70_002, "inventario", "SUCCESS"),
+                ack(70_001, "analitica", "CONSUMED"),
+                ack(70_002, "analitica", "FAIL"),
+                ack(70_002, "inventario", "CONSUMED"),
+                ack(70_003, "inventario", "CONSUMED"),
+                ack(70_003, "inventario", "CONSUMED"),
+                ack(70_003, "analitica", "PROCESSING"),
+                ack("abc", "inventario", "CONSUMED"),
+                ack(79_999, "inventario", "CONSUMED")));
+
+        assertEquals(List.of(
+                AckBatchItemResult.Status.PENDING, AckBatchItemResult.Status.PENDING, AckBatchItemResult.Status.COMPLETED,
+                AckBatchItemResult.Status.RETRY, AckBatchItemResult.Status.NOT_FOUND,
+                AckBatchItemResult.Status.PENDING, AckBatchItemResult.Status.DUPLICATE, AckBatchItemResult.Status.IGNORED,
+                AckBatchItemResult.Status.REJECTED, AckBatchItemResult.Status.NOT_FOUND), statuses(results));
+
+        Map<String, Object> done = row(70_001);
+        assertEquals("DEAD", done.get("state"));
+        assertEquals("SUCCESS", done.get("reason"));
+        assertEquals(2, ((Number) done.get("consumer_count")).intValue());
+        assertEquals(6L, ((Number) done.get("consumed_mask")).longValue());
+
+        // el consumo del ack de fallo se registra (como en el ACK individual); el ack posterior ya no
+        Map<String, Object> failed = row(70_002);
+        assertEquals("RETRY", failed.get("state"));
+        assertEquals("analitica", failed.get("consumer_module"));
+        assertEquals(2, ((Number) failed.get("consumer_count")).intValue());
+
+        // ack duplicado: un solo consumo; estado desconocido: consumo registrado, evento sigue vivo
+        Map<String, Object> open = row(70_003);
+        assertEquals("LIVE", open.get("state"));
+        assertEquals(2, ((Number) open.get("consumer_count")).intValue());
+        assertEquals(6L, ((Number) open.get("consumed_mask")).longValue());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM message_consumption WHERE event_id = ?", Integer.class, 70_003));
+        assertEquals(2, ackAttempts(70_003, "inventario"));
+    }
+
+    @Test
+    void repeatedAck_OnlyBumpsAttemptsInEventAcks_AndSkipsQueueWork() {
+        saveLive(70_020, "ventas.compra-confirmada");
+        service.handleAcknowledgement(ack(70_020, "inventario", "CONSUMED"));
+        service.handleAcknowledgement(ack(70_020, "inventario", "consumed"));
+        assertEquals(2, ackAttempts(70_020, "inventario"));
+        assertEquals(1, ((Number) row(70_020).get("consumer_count")).intValue());
+
+        // mismo consumidor con otro estado: no es un repetido, el fallo mueve el evento a RETRY
+        service.handleAcknowledgement(ack(70_020, "inventario", "FAIL"));
+        assertEquals("RETRY", row(70_020).get("state"));
+        Map<String, Object> ackRow = jdbcTemplate.queryForMap(
+                "SELECT status, attempts, first_seen_at, last_seen_at FROM event_acks WHERE event_id = ? AND consumer = ?", "70020", "inventario");
+        assertEquals("FAIL", ackRow.get("status"));
+        assertEquals(3, ((Number) ackRow.get("attempts")).intValue());
+        assertFalse(((Timestamp) ackRow.get("last_seen_at")).before((Timestamp) ackRow.get("first_seen_at")));
+
+        List<AckBatchItemResult> results = service.handleAcknowledgements(List.of(ack(70_020, "inventario", "FAIL")));
+        assertEquals(List.of(AckBatchItemResult.Status.DUPLICATE), statuses(results));
+        assertEquals(4, ackAttempts(70_020, "inventario"));
+    }
+
+    @Test
+    void recordRepeated_DecidesFromTheAffectedRows() {
+        LocalDateTime now = LocalDateTime.now();
+        assertFalse(eventAckRepository.recordRepeated("70030", "inventario", "CONSUMED", now));
+        // la fila ya existe con ese estado (p. ej. la insertó otra réplica): el INSERT IGNORE no agrega nada
+        assertTrue(eventAckRepository.recordRepeated("70030", "inventario", "consumed", now));
+        // el primer ACK con otro estado lo cambia; uno igual después ya es repetido
+        assertFalse(eventAckRepository.recordRepeated("70030", "inventario", "FAIL", now));
+        assertTrue(eventAckRepository.recordRepeated("70030", "inventario", "FAIL", now));
+        assertEquals(4, ackAttempts(70_030, "inventario"));
+    }
+
+    @Test
+    void batch_CompletesWithConsumptionsRecordedOutsideTheBatch() {
+        LiveMessage live = saveLive(70_010, "ventas.compra-confirmada");
+        service.handleAcknowledgement(ack(70_010, "inventario", "CONSUMED"));
+
+        List<AckBatchItemResult> results = service.handleAcknowledgements(List.of(
+                ack(70_010, "inventario", "CONSUMED"),
+                ack(70_010, "analitica", "CONSUMED")));
+
+        assertEquals(List.of(AckBatchItemResult.Status.DUPLICATE, AckBatchItemResult.Status.COMPLETED), statuses(results));
+        Map<String, Object> r = row(live.getEventId());
+        assertEquals("DEAD", r.get("state"));
+        // el contador se recuenta desde message_consumption: el ack repetido no suma
+        assertEquals(2, ((Number) r.get("consumer_count")).intValue());
+    }
+
+    @Test
+    void queuedAcks_AreAppliedAndRemovedFromTheInbox() {
+        saveLive(70_030, "ventas.compra-confirmada");
+        List<AckInboxMessage> queued = new ArrayList<>();
+        for (String consumer : List.of("inventario", "analitica")) {
+            AckInboxMessage m = new AckInboxMessage();
+            m.setEventId(70_030);
+            m.setConsumer(consumer);
+            m.setStatus("CONSUMED");
+            m.setReceivedAt(LocalDateTime.now());
+            queued.add(ackInboxRepository.saveAndFlush(m));
+        }
+        AckInboxMessage other = new AckInboxMessage();
+        other.setEventId(70_031);
+        other.setReceivedAt(LocalDateTime.now());
+        ackInboxRepository.saveAndFlush(other);
+
+        List<AckBatchItemResult> results = service.handleQueuedAcknowledgements(queued);
+
+        assertEquals(List.of(AckBatchItemResult.Status.PENDING, AckBatchItemResult.Status.COMPLETED), statuses(results));
+        assertEquals("DEAD", row(70_030).get("state"));
+        assertEquals(List.of(other.getId()), ackInboxRepository.findAll().stream().map(AckInboxMessage::getId).toList());
+    }
+
+    private AckInboxMessage inbox(int eventId, String claimedBy) {
+        AckInboxMessage m = new AckInboxMessage();
+        m.setEventId(eventId);
+        m.setStatus("CONSUMED");
+        m.setReceivedAt(LocalDateTime.now());
+        m.setClaimedBy(claimedBy);
+        m.setClaimedAt(claimedBy != null ? LocalDateTime.now() : null);
+        return ackInboxRepository.saveAndFlush(m);
+    }
+
+    @Test
+    void claimInboxAcks_TakesFreeAndStaleRows_NotTheOnesAnotherReplicaKeepsRenewing() {
+        AckInboxMessage free = inbox(70_040, null);
+        AckInboxMessage owned = inbox(70_041, "otro:1");
+        AckInboxMessage stale = inbox(70_042, "caido:1");
+        AckInboxMessage second = inbox(70_043, null);
+        jdbcTemplate.update("UPDATE ack_inbox SET claimed_at = ? WHERE id = ?", LocalDateTime.now().minusMinutes(10), stale.getId());
+
+        List<AckInboxMessage> claimed = service.claimInboxAcks("nodo:1", 60_000, 2);
+        assertEquals(List.of(free.getId(), stale.getId()), claimed.stream().map(AckInboxMessage::getId).toList());
+        assertEquals(List.of(second.getId()), service.claimInboxAcks("nodo:1", 60_000, 2).stream().map(AckInboxMessage::getId).toList());
+        assertTrue(service.claimInboxAcks("nodo:2", 60_000, 2).isEmpty());
+
+        assertEquals("nodo:1", jdbcTemplate.queryForObject("SELECT claimed_by FROM ack_inbox WHERE id = ?", String.class, stale.getId()));
+        assertEquals("otro:1", jdbcTemplate.queryForObject("SELECT claimed_by FROM ack_inbox WHERE id = ?", String.class, owned.getId()));
+
+        // liberadas (lote abandonado) vuelven a estar disponibles para cualquiera
+        assertEquals(1, ackInboxRepository.release(List.of(free.getId()), "nodo:1"));
+        assertEquals(List.of(free.getId()), service.claimInboxAcks("nodo:2", 60_000, 10).stream().map(AckInboxMessage::getId).toList());
+    }
+
+    @Test
+    void batch_RejectsEmptyAndOversizedBatches() {
+        assertThrows(IllegalArgumentException.class, () -> service.handleAcknowledgements(List.of()));
+        List<EventAckEntity> tooMany = new ArrayList<>();
+        for (int i = 0; i < 1001; i++) tooMany.add(ack(1, "inventario", "CONSUMED"));
+        assertThrows(IllegalArgumentException.class, () -> service.handleAcknowledgements(tooMany));
+    }
+}
@@ -2,12 +2,13 @@ package ar.edu.uade.core.service;
 
 import ar.edu.uade.core.model.EventAckEntity;
 import ar.edu.uade.core.model.LiveMessage;
-import ar.edu.uade.core.model.MessageConsumption;
+import ar.edu.uade.core.model.RetryMessage;
 import ar.edu.uade.core.repository.*;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.kafka.core.KafkaTemplate;
 
@@ -23,8 +24,10 @@ class KafkaMockServiceAckEdgeTests {
     @Mock private RetryMessageRepository retryMessageRepository;
     @Mock private DeadLetterRepository deadLetterRepository;
     @Mock private MessageConsumptionRepository consumptionRepository;
+    @Mock private EventAckRepository eventAckRepository;
     @Mock private KafkaTemplate<String, Object> kafkaTemplate;
     @Mock private TopicResolver topicResolver;
+    @Spy private RetryPolicies retryPolicies = new RetryPolicies(new EventRouter());
 
     @InjectMocks private KafkaMockService service;
 
@@ -53,13 +56,12 @@ class KafkaMockServiceAckEdgeTests {
         LiveMessage lm = new LiveMessage();
         lm.setId(1); lm.setEventId(123); lm.setType("T"); lm.setPayload("{}");
         when(liveMessageRepository.findByEventId(123)).thenReturn(Optional.of(lm));
-        when(liveMessageRepository.findById(1)).thenReturn(Optional.of(lm));
 
         service.handleAcknowledgement(ack);
 
-        verify(consumptionRepository).save(any(MessageConsumption.class));
-        verify(retryMessageRepository).save(any());
-        verify(liveMessageRepository).delete(any(LiveMessage.class));
+        verify(consumptionRepository).insertIgnore(any(), any(), any(), any());
+        verify(retryMessageRepository).markRetry(any(RetryMessage.class));
+        verify(liveMessageRepository, never()).delete(any(LiveMessage.class));
     }
 }
 
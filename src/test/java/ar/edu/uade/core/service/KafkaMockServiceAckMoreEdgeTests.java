@@ -7,6 +7,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.List;
@@ -23,6 +24,10 @@ class KafkaMockServiceAckMoreEdgeTests {
     @Mock private RetryMessageRepository retryMessageRepository;
     @Mock private DeadLetterRepository deadLetterRepository;
     @Mock private MessageConsumptionRepository consumptionRepository;
+    @Mock private EventAckRepository eventAckRepository;
+    @Mock private QueueMessageRepository queueMessageRepository;
+
+    @Spy private EventRouter eventRouter = new EventRouter();
 
     @InjectMocks private KafkaMockService service;
 
@@ -51,31 +56,31 @@ class KafkaMockServiceAckMoreEdgeTests {
 
         service.handleAcknowledgement(ack);
 
-        ArgumentCaptor<MessageConsumption> cap = ArgumentCaptor.forClass(MessageConsumption.class);
-        verify(consumptionRepository).save(cap.capture());
-        assertEquals("Desconocido", cap.getValue().getModuleName());
+        ArgumentCaptor<String> cap = ArgumentCaptor.forClass(String.class);
+        verify(consumptionRepository).insertIgnore(eq(10), eq(1), cap.capture(), any());
+        assertEquals("Desconocido", cap.getValue());
         // No movimientos
         verify(liveMessageRepository, never()).delete(any());
-        verify(retryMessageRepository, never()).save(any());
-        verify(deadLetterRepository, never()).save(any());
+        verify(retryMessageRepository, never()).markRetry(any());
+        verify(deadLetterRepository, never()).markDead(any());
     }
 
     @Test
     void handleAcknowledgement_Success_WithCategoriaAccent_AllConsumedMovesToDead() {
         LiveMessage live = new LiveMessage();
         live.setId(3); live.setEventId(33); live.setType("categoría actualizada"); live.setPayload("{}");
+        live.setExpectedMask(service.expectedMask(live.getType()));
         when(liveMessageRepository.findByEventId(33)).thenReturn(Optional.of(live));
         // Para tipos que contienen "categoría" => se esperan [ventas, analitica]
-        MessageConsumption c1 = new MessageConsumption(); c1.setEventId(33); c1.setModuleName("ventas");
-        MessageConsumption c2 = new MessageConsumption(); c2.setEventId(33); c2.setModuleName("analitica");
-        when(consumptionRepository.findByEventId(33)).thenReturn(List.of(c1, c2));
+        when(consumptionRepository.insertIgnore(eq(33), any(), any(), any())).thenReturn(1);
+        when(queueMessageRepository.findConsumedMask(anyInt())).thenReturn(Optional.of(service.moduleRegistry().maskOf(List.of("ventas", "analitica"))));
 
         EventAckEntity ack = new EventAckEntity();
         ack.setEventId("33"); ack.setConsumer("ventas"); ack.setStatus("SUCCESS");
 
         service.handleAcknowledgement(ack);
 
-        verify(deadLetterRepository).save(any(DeadLetterMessage.class));
-        verify(liveMessageRepository).delete(any(LiveMessage.class));
+        verify(deadLetterRepository).markDead(any(DeadLetterMessage.class));
+        verify(liveMessageRepository, never()).delete(any(LiveMessage.class));
     }
 }
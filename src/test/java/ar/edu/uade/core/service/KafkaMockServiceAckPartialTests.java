@@ -6,12 +6,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -20,6 +22,10 @@ class KafkaMockServiceAckPartialTests {
     @Mock private LiveMessageRepository liveMessageRepository;
     @Mock private DeadLetterRepository deadLetterRepository;
     @Mock private MessageConsumptionRepository consumptionRepository;
+    @Mock private EventAckRepository eventAckRepository;
+    @Mock private QueueMessageRepository queueMessageRepository;
+
+    @Spy private EventRouter eventRouter = new EventRouter();
 
     @InjectMocks private KafkaMockService service;
 
@@ -27,17 +33,18 @@ class KafkaMockServiceAckPartialTests {
     void successAck_WithPendingConsumers_DoesNotMoveToDead() {
         LiveMessage live = new LiveMessage();
         live.setId(8); live.setEventId(80); live.setType("compra confirmada"); live.setPayload("{}");
+        live.setExpectedMask(service.expectedMask(live.getType()));
         when(liveMessageRepository.findByEventId(80)).thenReturn(Optional.of(live));
         // Para "confirmada" se espera [inventario, analitica]; sólo uno consumió
-        MessageConsumption c = new MessageConsumption(); c.setEventId(80); c.setModuleName("inventario");
-        when(consumptionRepository.findByEventId(80)).thenReturn(List.of(c));
+        when(consumptionRepository.insertIgnore(eq(80), any(), eq("inventario"), any())).thenReturn(1);
+        when(queueMessageRepository.findConsumedMask(8)).thenReturn(Optional.of(service.moduleRegistry().maskOf(List.of("inventario"))));
 
         EventAckEntity ack = new EventAckEntity();
         ack.setEventId("80"); ack.setConsumer("inventario"); ack.setStatus("SUCCESS");
 
         service.handleAcknowledgement(ack);
 
-        verify(consumptionRepository).save(any(MessageConsumption.class));
+        verify(consumptionRepository).insertIgnore(any(), any(), any(), any());
         verifyNoInteractions(deadLetterRepository);
         verify(liveMessageRepository, never()).delete(any(LiveMessage.class));
     }
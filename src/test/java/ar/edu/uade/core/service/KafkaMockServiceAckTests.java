@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
@@ -23,6 +24,11 @@ class KafkaMockServiceAckTests {
     @Mock private RetryMessageRepository retryMessageRepository;
     @Mock private DeadLetterRepository deadLetterRepository;
     @Mock private MessageConsumptionRepository consumptionRepository;
+    @Mock private EventAckRepository eventAckRepository;
+    @Mock private QueueMessageRepository queueMessageRepository;
+
+    @Spy private EventRouter eventRouter = new EventRouter();
+    @Spy private RetryPolicies retryPolicies = new RetryPolicies(eventRouter);
 
     @InjectMocks private KafkaMockService service;
 
@@ -55,7 +61,6 @@ class KafkaMockServiceAckTests {
         live.setOriginModule("ventas");
 
         when(liveMessageRepository.findByEventId(10)).thenReturn(Optional.of(live));
-        when(liveMessageRepository.findById(3)).thenReturn(Optional.of(live));
 
         EventAckEntity ack = new EventAckEntity();
         ack.setEventId("10");
@@ -65,9 +70,9 @@ class KafkaMockServiceAckTests {
 
         service.handleAcknowledgement(ack);
 
-        verify(consumptionRepository).save(any(MessageConsumption.class));
-        verify(retryMessageRepository).save(any(RetryMessage.class));
-        verify(liveMessageRepository).delete(live);
+        verify(consumptionRepository).insertIgnore(any(), any(), any(), any());
+        verify(retryMessageRepository).markRetry(any(RetryMessage.class));
+        verify(liveMessageRepository, never()).delete(any(LiveMessage.class));
         verifyNoInteractions(deadLetterRepository);
     }
 
@@ -79,14 +84,12 @@ class KafkaMockServiceAckTests {
         live.setEventId(20);
         live.setType("estado pendiente");
         live.setPayload("{}");
+        live.setExpectedMask(service.expectedMask(live.getType()));
         when(liveMessageRepository.findByEventId(20)).thenReturn(Optional.of(live));
 
         // Simulamos que ya estará consumido por el módulo que llega en el ACK
-        MessageConsumption mc = new MessageConsumption();
-        mc.setEventId(20);
-        mc.setLiveMessageId(7);
-        mc.setModuleName("inventario");
-        when(consumptionRepository.findByEventId(20)).thenReturn(List.of(mc));
+        when(consumptionRepository.insertIgnore(eq(20), any(), any(), any())).thenReturn(1);
+        when(queueMessageRepository.findConsumedMask(anyInt())).thenReturn(Optional.of(service.moduleRegistry().maskOf(List.of("inventario"))));
 
         EventAckEntity ack = new EventAckEntity();
         ack.setEventId("20");
@@ -95,9 +98,9 @@ class KafkaMockServiceAckTests {
 
         service.handleAcknowledgement(ack);
 
-        verify(consumptionRepository).save(any(MessageConsumption.class));
-        verify(deadLetterRepository).save(any(DeadLetterMessage.class));
-        verify(liveMessageRepository).delete(live);
+        verify(consumptionRepository).insertIgnore(any(), any(), any(), any());
+        verify(deadLetterRepository).markDead(any(DeadLetterMessage.class));
+        verify(liveMessageRepository, never()).delete(any(LiveMessage.class));
         verifyNoInteractions(retryMessageRepository);
     }
 
@@ -109,12 +112,12 @@ class KafkaMockServiceAckTests {
         live.setEventId(3000);
         live.setType("producto actualizado");
         live.setPayload("{}");
+        live.setExpectedMask(service.expectedMask(live.getType()));
         when(liveMessageRepository.findByEventId(3000)).thenReturn(Optional.of(live));
 
         // Solo uno consumido
-        MessageConsumption prev = new MessageConsumption();
-        prev.setEventId(3000); prev.setLiveMessageId(12); prev.setModuleName("ventas");
-        when(consumptionRepository.findByEventId(3000)).thenReturn(List.of(prev));
+        when(consumptionRepository.insertIgnore(eq(3000), any(), any(), any())).thenReturn(1);
+        when(queueMessageRepository.findConsumedMask(anyInt())).thenReturn(Optional.of(service.moduleRegistry().maskOf(List.of("ventas"))));
 
         EventAckEntity ack = new EventAckEntity();
         ack.setEventId("3000");
@@ -123,7 +126,7 @@ class KafkaMockServiceAckTests {
 
         service.handleAcknowledgement(ack);
 
-        verify(consumptionRepository).save(any(MessageConsumption.class));
+        verify(consumptionRepository).insertIgnore(any(), any(), any(), any());
         verifyNoInteractions(deadLetterRepository);
         verify(liveMessageRepository, never()).delete(any());
     }
@@ -145,7 +148,7 @@ class KafkaMockServiceAckTests {
 
         service.handleAcknowledgement(ack);
 
-        verify(consumptionRepository).save(any(MessageConsumption.class));
+        verify(consumptionRepository).insertIgnore(any(), any(), any(), any());
         verifyNoInteractions(deadLetterRepository, retryMessageRepository);
         verify(liveMessageRepository, never()).delete(any());
     }
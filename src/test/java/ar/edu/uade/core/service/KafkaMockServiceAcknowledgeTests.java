@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.lang.reflect.Field;
@@ -22,8 +23,12 @@ class KafkaMockServiceAcknowledgeTests {
     @Mock private LiveMessageRepository liveMessageRepository;
     @Mock private DeadLetterRepository deadLetterRepository;
     @Mock private MessageConsumptionRepository consumptionRepository;
+    @Mock private EventAckRepository eventAckRepository;
+    @Mock private QueueMessageRepository queueMessageRepository;
     @Mock private RetryMessageRepository retryMessageRepository;
 
+    @Spy private EventRouter eventRouter = new EventRouter();
+
     @InjectMocks private KafkaMockService service;
 
     @BeforeEach
@@ -57,18 +62,19 @@ class KafkaMockServiceAcknowledgeTests {
     void handleAcknowledgement_Success_AllModules_MovesToDeadAndDeleteLive() {
         LiveMessage live = new LiveMessage();
         live.setId(9); live.setEventId(90); live.setType("estado pendiente"); live.setPayload("{}");
+        live.setExpectedMask(service.expectedMask(live.getType()));
         when(liveMessageRepository.findByEventId(90)).thenReturn(Optional.of(live));
         // Para "pendiente" se espera [inventario]
-        MessageConsumption c = new MessageConsumption(); c.setEventId(90); c.setModuleName("inventario");
-        when(consumptionRepository.findByEventId(90)).thenReturn(List.of(c));
+        when(consumptionRepository.insertIgnore(eq(90), any(), any(), any())).thenReturn(1);
+        when(queueMessageRepository.findConsumedMask(anyInt())).thenReturn(Optional.of(service.moduleRegistry().maskOf(List.of("inventario"))));
 
         EventAckEntity ack = new EventAckEntity();
         ack.setEventId("90"); ack.setConsumer("inventario"); ack.setStatus("SUCCESS");
 
         service.handleAcknowledgement(ack);
 
-        verify(deadLetterRepository).save(any(DeadLetterMessage.class));
-        verify(liveMessageRepository).delete(any(LiveMessage.class));
+        verify(deadLetterRepository).markDead(any(DeadLetterMessage.class));
+        verify(liveMessageRepository, never()).delete(any(LiveMessage.class));
     }
 
     @Test
@@ -83,6 +89,6 @@ class KafkaMockServiceAcknowledgeTests {
         service.handleAcknowledgement(ack);
 
         verifyNoInteractions(deadLetterRepository, retryMessageRepository);
-        verify(consumptionRepository).save(any(MessageConsumption.class));
+        verify(consumptionRepository).insertIgnore(any(), any(), any(), any());
     }
 }
@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -24,12 +25,17 @@ class KafkaMockServiceAdditionalTests {
 
     @Mock private EventRepository eventRepository;
     @Mock private LiveMessageRepository liveMessageRepository;
+    @Mock private QueueMessageRepository queueMessageRepository;
     @Mock private RetryMessageRepository retryMessageRepository;
     @Mock private DeadLetterRepository deadLetterRepository;
     @Mock private MessageConsumptionRepository consumptionRepository;
+    @Mock private EventAckRepository eventAckRepository;
     @Mock private KafkaTemplate<String, Object> kafkaTemplate;
+    @Mock private PayloadStore payloadStore;
     @Mock private TopicResolver topicResolver;
 
+    @Spy private EventRouter eventRouter = new EventRouter();
+
     @InjectMocks private KafkaMockService service;
 
     @BeforeEach
@@ -59,8 +65,8 @@ class KafkaMockServiceAdditionalTests {
     void consumeOneAndMoveToRetry_WhenAlreadyConsumed_Conflict() {
         LiveMessage live = new LiveMessage();
         live.setId(2); live.setEventId(20); live.setType("T"); live.setPayload("{}"); live.setOriginModule("ventas");
-        when(liveMessageRepository.findById(2)).thenReturn(Optional.of(live));
-        when(consumptionRepository.existsByEventIdAndModuleName(20, "modA")).thenReturn(true);
+        when(queueMessageRepository.lockById(2)).thenReturn(Optional.of(live));
+        when(consumptionRepository.insertIgnore(eq(20), any(), eq("modA"), any())).thenReturn(0);
 
         ConsumeResult res = service.consumeOneAndMoveToRetry(2, null, "modA");
         assertEquals(ConsumeResult.Status.CONFLICT, res.getStatus());
@@ -71,18 +77,18 @@ class KafkaMockServiceAdditionalTests {
     void handleAcknowledgement_Success_AllModulesConsumed_MovesToDead() {
         LiveMessage live = new LiveMessage();
         live.setId(8); live.setEventId(88); live.setType("compra confirmada"); live.setPayload("{}");
+        live.setExpectedMask(service.expectedMask(live.getType()));
         when(liveMessageRepository.findByEventId(88)).thenReturn(Optional.of(live));
         // Para type que contiene "confirmada" se esperan [inventario, analitica]
-        MessageConsumption c1 = new MessageConsumption(); c1.setEventId(88); c1.setModuleName("inventario");
-        MessageConsumption c2 = new MessageConsumption(); c2.setEventId(88); c2.setModuleName("analitica");
-        when(consumptionRepository.findByEventId(88)).thenReturn(List.of(c1, c2));
+        when(consumptionRepository.insertIgnore(eq(88), any(), any(), any())).thenReturn(1);
+        when(queueMessageRepository.findConsumedMask(anyInt())).thenReturn(Optional.of(service.moduleRegistry().maskOf(List.of("inventario", "analitica"))));
 
         EventAckEntity ack = new EventAckEntity();
         ack.setEventId("88"); ack.setConsumer("inventario"); ack.setStatus("SUCCESS");
 
         service.handleAcknowledgement(ack);
 
-        verify(deadLetterRepository).save(any(DeadLetterMessage.class));
-        verify(liveMessageRepository).delete(any(LiveMessage.class));
+        verify(deadLetterRepository).markDead(any(DeadLetterMessage.class));
+        verify(liveMessageRepository, never()).delete(any(LiveMessage.class));
     }
 }
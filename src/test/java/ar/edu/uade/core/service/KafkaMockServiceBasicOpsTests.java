@@ -50,10 +50,11 @@ class KafkaMockServiceBasicOpsTests {
         rm.setAttempts(2); rm.setMaxAttempts(2);
         when(retryMessageRepository.findById(9)).thenReturn(Optional.of(rm));
 
+        when(deadLetterRepository.markDead(any(DeadLetterMessage.class))).thenReturn(1);
         ConsumeResult r = service.failRetry(9);
         assertEquals(ConsumeResult.Status.DEAD, r.getStatus());
-        verify(deadLetterRepository).save(any(DeadLetterMessage.class));
-        verify(retryMessageRepository).deleteById(9);
+        verify(deadLetterRepository).markDead(any(DeadLetterMessage.class));
+        verify(retryMessageRepository, never()).deleteById(any());
     }
 }
 
@@ -0,0 +1,147 @@
+package ar.edu.uade.core.service;
+
+import ar.edu.uade.core.model.Event;
+import ar.edu.uade.core.model.EventBatchItemResult;
+import ar.edu.uade.core.model.EventRequest;
+import ar.edu.uade.core.model.LiveMessage;
+import ar.edu.uade.core.model.OutboxMessage;
+import ar.edu.uade.core.model.PayloadBlob;
+import ar.edu.uade.core.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KafkaMockServiceBatchIngestTests {
+
+    @Mock private EventRepository eventRepository;
+    @Mock private LiveMessageRepository liveMessageRepository;
+    @Mock private OutboxRepository outboxRepository;
+    @Mock private KafkaTemplate<String, Object> kafkaTemplate;
+    @Mock private TopicResolver topicResolver;
+    @Mock private PayloadStore payloadStore;
+
+    @Spy private EventRouter eventRouter = new EventRouter();
+
+    @InjectMocks private KafkaMockService service;
+
+    @BeforeEach
+    void init() {
+        ReflectionTestUtils.setField(service, "batchMaxSize", 10);
+        ReflectionTestUtils.setField(service, "sendTimeoutMs", 50L);
+    }
+
+    private static EventRequest req(String type, String origin) {
+        EventRequest r = new EventRequest();
+        r.setType(type);
+        r.setOriginModule(origin);
+        r.setPayload(Map.of("k", 1));
+        return r;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void assignIdsOnSaveAll() {
+        when(eventRepository.saveAll(anyList())).thenAnswer(inv -> {
+            List<Event> events = new ArrayList<>((List<Event>) inv.getArgument(0));
+            for (int i = 0; i < events.size(); i++) events.get(i).setId(100 + i);
+            return events;
+        });
+        when(payloadStore.internAll(anyList())).thenAnswer(inv -> {
+            List<PayloadBlob> blobs = new ArrayList<>();
+            for (Object content : (List<?>) inv.getArgument(0)) {
+                PayloadBlob b = new PayloadBlob();
+                b.setContent((String) content);
+                blobs.add(b);
+            }
+            return blobs;
+        });
+    }
+
+    @Test
+    void ingestEvents_NullOrEmpty_ThrowsIAE() {
+        assertThrows(IllegalArgumentException.class, () -> service.ingestEvents(null));
+        assertThrows(IllegalArgumentException.class, () -> service.ingestEvents(List.of()));
+    }
+
+    @Test
+    void ingestEvents_OverMaxSize_ThrowsIAE() {
+        List<EventRequest> many = new ArrayList<>();
+        for (int i = 0; i < 11; i++) many.add(req("ventas.x", "ventas"));
+        assertThrows(IllegalArgumentException.class, () -> service.ingestEvents(many));
+        verifyNoInteractions(eventRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ingestEvents_Direct_SavesAllSendsAsyncAndFlushesOnce() {
+        assignIdsOnSaveAll();
+        when(topicResolver.resolveTopic(anyString(), anyString())).thenReturn("ventas");
+        SendResult<String, Object> sr = (SendResult<String, Object>) mock(SendResult.class);
+        CompletableFuture<SendResult<String, Object>> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new RuntimeException("boom"));
+        when(kafkaTemplate.send(anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(sr))
+                .thenReturn(failed);
+
+        List<EventBatchItemResult> res = service.ingestEvents(List.of(
+                req("ventas.a", "ventas"), req(" ", "ventas"), req("ventas.b", "ventas")));
+
+        assertEquals(3, res.size());
+        assertEquals(EventBatchItemResult.Status.PUBLISHED, res.get(0).getStatus());
+        assertEquals(100, res.get(0).getEventId());
+        assertEquals(EventBatchItemResult.Status.REJECTED, res.get(1).getStatus());
+        assertEquals("type is required", res.get(1).getError());
+        assertEquals(EventBatchItemResult.Status.PUBLISH_FAILED, res.get(2).getStatus());
+        assertEquals(101, res.get(2).getEventId());
+        verify(eventRepository, never()).save(any());
+        verify(payloadStore, times(1)).internAll(argThat(l -> l.size() == 2));
+        verify(liveMessageRepository).saveAll(argThat(l -> {
+            List<?> lives = (List<?>) l;
+            return lives.size() == 2 && ((LiveMessage) lives.get(0)).getPayloadBlob() != null;
+        }));
+        verify(kafkaTemplate, times(2)).send(anyString(), anyString(), any());
+        verify(kafkaTemplate, times(1)).flush();
+    }
+
+    @Test
+    void ingestEvents_Outbox_WritesOutboxRowsAndSkipsKafka() {
+        ReflectionTestUtils.setField(service, "outboxEnabled", true);
+        assignIdsOnSaveAll();
+        when(topicResolver.resolveTopic(anyString(), anyString())).thenReturn("inventario");
+
+        List<EventBatchItemResult> res = service.ingestEvents(List.of(
+                req("inventario.a", "inventario"), req("inventario.b", "inventario")));
+
+        assertTrue(res.stream().allMatch(r -> r.getStatus() == EventBatchItemResult.Status.ACCEPTED));
+        verify(outboxRepository).saveAll(argThat(l -> {
+            List<?> rows = (List<?>) l;
+            return rows.size() == 2 && ((OutboxMessage) rows.get(1)).getEventId() == 101;
+        }));
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    void ingestEvents_AllInvalid_NoPersistence() {
+        List<EventBatchItemResult> res = service.ingestEvents(List.of(req("x", " "), req(null, "ventas")));
+
+        assertEquals(2, res.size());
+        assertTrue(res.stream().allMatch(r -> r.getStatus() == EventBatchItemResult.Status.REJECTED));
+        verifyNoInteractions(eventRepository, liveMessageRepository, kafkaTemplate);
+    }
+}
@@ -0,0 +1,174 @@
+package ar.edu.uade.core.service;
+
+import ar.edu.uade.core.model.ConsumeResult;
+import ar.edu.uade.core.model.LiveMessage;
+import ar.edu.uade.core.repository.LiveMessageRepository;
+import ar.edu.uade.core.repository.QueueMessageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Varios consumidores (como si fueran varias instancias de Core) sobre las mismas filas de queue_message:
+ * cada fila se toma con FOR UPDATE SKIP LOCKED, así que nadie espera por un lock y cada transición pasa una sola vez.
+ * Corre con transacciones reales (commit) para que los locks se vean entre threads. Los consumidores son
+ * maximum-pool-size - 1: cada transacción retiene una conexión y el generador de ids (tablas *_seq) pide otra aparte.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({KafkaMockService.class, PayloadStore.class, TopicResolver.class, EventRouter.class, RetryPolicies.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class KafkaMockServiceConcurrentConsumeTest {
+
+    private static final int FIRST_EVENT = 900_000;
+    private static final int EVENTS = 200;
+    private static final int THREADS = 4;
+
+    @MockitoBean private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Autowired private KafkaMockService service;
+    @Autowired private PayloadStore payloadStore;
+    @Autowired private LiveMessageRepository liveMessageRepository;
+    @Autowired private QueueMessageRepository queueMessageRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM message_consumption WHERE event_id >= ?", FIRST_EVENT);
+        jdbcTemplate.update("DELETE FROM queue_message WHERE event_id >= ?", FIRST_EVENT);
+    }
+
+    private List<Integer> seedLive(int count) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            List<Integer> eventIds = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                LiveMessage lm = new LiveMessage();
+                lm.setEventId(FIRST_EVENT + i);
+                lm.setType("ventas.compra-confirmada");
+                lm.setPayloadBlob(payloadStore.intern("{\"compraId\":\"C-" + i + "\"}"));
+                lm.setOriginModule("ventas");
+                lm.setTimestamp(LocalDateTime.now());
+                eventIds.add(liveMessageRepository.save(lm).getEventId());
+            }
+            return eventIds;
+        });
+    }
+
+    @Test
+    void lockedRow_IsSkippedByOtherTransaction_AndConsumeReturnsBusy() throws Exception {
+        int eventId = seedLive(1).get(0);
+        Integer rowId = queueMessageRepository.findLatestIdByEventId(eventId).orElseThrow();
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> holder = pool.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                // la consulta nativa mapea por el discriminador state
+                assertInstanceOf(LiveMessage.class, queueMessageRepository.lockById(rowId).orElse(null));
+                locked.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+            long t0 = System.nanoTime();
+            Boolean skipped = new TransactionTemplate(transactionManager).execute(status -> queueMessageRepository.lockById(rowId).isEmpty());
+            ConsumeResult busy = service.consumeOneAndMoveToRetry(null, eventId, "inventario");
+            long waitedMs = (System.nanoTime() - t0) / 1_000_000;
+
+            assertTrue(skipped);
+            assertEquals(ConsumeResult.Status.CONFLICT, busy.getStatus());
+            assertEquals(KafkaMockService.MESSAGE_BUSY, busy.getMessage());
+            assertTrue(waitedMs < 5_000, "no debería esperar el lock: " + waitedMs + " ms");
+
+            release.countDown();
+            holder.get(10, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+
+        // liberado el lock, el mismo consumo pasa normalmente
+        assertEquals(ConsumeResult.Status.RETRY, service.consumeOneAndMoveToRetry(null, eventId, "inventario").getStatus());
+    }
+
+    @Test
+    void concurrentConsumers_EachTransitionHappensOnce() throws Exception {
+        List<Integer> eventIds = seedLive(EVENTS);
+        Map<Integer, List<ConsumeResult.Status>> outcomes = new ConcurrentHashMap<>();
+        AtomicInteger busy = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        long t0 = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            // mitad de los consumidores son "inventario" y mitad "analitica": umbral de 2 módulos -> RETRY y después DEAD
+            String module = t % 2 == 0 ? "inventario" : "analitica";
+            List<Integer> order = new ArrayList<>(eventIds);
+            Collections.shuffle(order, new Random(t));
+            workers.add(pool.submit(() -> {
+                for (Integer eventId : order) {
+                    ConsumeResult r;
+                    // un consumidor real vuelve a intentar más tarde si la fila está tomada
+                    while (KafkaMockService.MESSAGE_BUSY.equals((r = service.consumeOneAndMoveToRetry(null, eventId, module)).getMessage())) {
+                        busy.incrementAndGet();
+                        Thread.onSpinWait();
+                    }
+                    outcomes.computeIfAbsent(eventId, k -> Collections.synchronizedList(new ArrayList<>())).add(r.getStatus());
+                }
+                return null;
+            }));
+        }
+        for (Future<?> w : workers) w.get(60, TimeUnit.SECONDS);
+        long elapsedNs = System.nanoTime() - t0;
+        pool.shutdown();
+
+        int calls = EVENTS * THREADS;
+        System.out.printf("[bench] consumo concurrente: %d threads, %d llamadas, %d reintentos por fila tomada, %.0f ops/s%n",
+                THREADS, calls, busy.get(), calls / (elapsedNs / 1e9));
+
+        for (Integer eventId : eventIds) {
+            List<ConsumeResult.Status> statuses = outcomes.get(eventId);
+            assertEquals(THREADS, statuses.size());
+            assertEquals(1, Collections.frequency(statuses, ConsumeResult.Status.RETRY), "evento " + eventId);
+            assertEquals(1, Collections.frequency(statuses, ConsumeResult.Status.DEAD), "evento " + eventId);
+        }
+        assertEquals(EVENTS * 2, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM message_consumption WHERE event_id >= ?", Integer.class, FIRST_EVENT));
+        assertEquals(EVENTS, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM queue_message WHERE event_id >= ? AND state = 'DEAD'", Integer.class, FIRST_EVENT));
+    }
+}
@@ -17,6 +17,7 @@ import static org.mockito.Mockito.*;
 class KafkaMockServiceConsumeConflictTests {
 
     @Mock private LiveMessageRepository liveMessageRepository;
+    @Mock private QueueMessageRepository queueMessageRepository;
     @Mock private RetryMessageRepository retryMessageRepository;
     @Mock private MessageConsumptionRepository consumptionRepository;
     @Mock private EventRepository eventRepository;
@@ -27,7 +28,8 @@ class KafkaMockServiceConsumeConflictTests {
     void consumeFromLive_SameOrigin_Conflict() {
         LiveMessage live = new LiveMessage();
         live.setId(100); live.setEventId(1000); live.setType("x"); live.setOriginModule("ventas");
-        when(liveMessageRepository.findByEventId(1000)).thenReturn(Optional.of(live));
+        when(queueMessageRepository.findLatestIdByEventId(1000)).thenReturn(Optional.of(100));
+        when(queueMessageRepository.lockById(100)).thenReturn(Optional.of(live));
 
         ConsumeResult res = service.consumeOneAndMoveToRetry(null, 1000, "ventas");
         assertEquals(ConsumeResult.Status.CONFLICT, res.getStatus());
@@ -38,8 +40,9 @@ class KafkaMockServiceConsumeConflictTests {
     void consumeFromLive_AlreadyConsumed_Conflict() {
         LiveMessage live = new LiveMessage();
         live.setId(101); live.setEventId(1001); live.setType("x"); live.setOriginModule("core");
-        when(liveMessageRepository.findByEventId(1001)).thenReturn(Optional.of(live));
-        when(consumptionRepository.existsByEventIdAndModuleName(1001, "modX")).thenReturn(true);
+        when(queueMessageRepository.findLatestIdByEventId(1001)).thenReturn(Optional.of(101));
+        when(queueMessageRepository.lockById(101)).thenReturn(Optional.of(live));
+        when(consumptionRepository.insertIgnore(eq(1001), any(), eq("modX"), any())).thenReturn(0);
 
         ConsumeResult res = service.consumeOneAndMoveToRetry(null, 1001, "modX");
         assertEquals(ConsumeResult.Status.CONFLICT, res.getStatus());
@@ -6,10 +6,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -20,11 +20,13 @@ class KafkaMockServiceConsumeFromRetryTests {
 
     @Mock private EventRepository eventRepository;
     @Mock private LiveMessageRepository liveMessageRepository;
+    @Mock private QueueMessageRepository queueMessageRepository;
     @Mock private RetryMessageRepository retryMessageRepository;
     @Mock private DeadLetterRepository deadLetterRepository;
     @Mock private MessageConsumptionRepository consumptionRepository;
     @Mock private org.springframework.kafka.core.KafkaTemplate<String, Object> kafkaTemplate;
     @Mock private TopicResolver topicResolver;
+    @Spy private RetryPolicies retryPolicies = new RetryPolicies(new EventRouter());
 
     @InjectMocks private KafkaMockService service;
 
@@ -32,7 +34,7 @@ class KafkaMockServiceConsumeFromRetryTests {
     void consumeOne_FromRetry_SameOrigin_ReturnsConflict() {
         RetryMessage rm = new RetryMessage();
         rm.setId(5); rm.setEventId(500); rm.setType("T"); rm.setPayload("P");
-        when(retryMessageRepository.findById(5)).thenReturn(Optional.of(rm));
+        when(queueMessageRepository.lockById(5)).thenReturn(Optional.of(rm));
         // origin del evento = consumer, provoca conflicto
         Event ev = new Event();
         ev.setId(500); ev.setOriginModule("m");
@@ -40,16 +42,16 @@ class KafkaMockServiceConsumeFromRetryTests {
 
         ConsumeResult r = service.consumeOneAndMoveToRetry(5, null, "m");
         assertEquals(ConsumeResult.Status.CONFLICT, r.getStatus());
-        verify(consumptionRepository, never()).save(any());
+        verify(consumptionRepository, never()).insertIgnore(any(), any(), any(), any());
     }
 
     @Test
     void consumeOne_FromRetry_AlreadyConsumedByModule_ReturnsConflict() {
         RetryMessage rm = new RetryMessage();
         rm.setId(6); rm.setEventId(600); rm.setType("T"); rm.setPayload("P");
-        when(retryMessageRepository.findById(6)).thenReturn(Optional.of(rm));
+        when(queueMessageRepository.lockById(6)).thenReturn(Optional.of(rm));
         when(eventRepository.findById(600)).thenReturn(Optional.of(new Event()));
-        when(consumptionRepository.existsByEventIdAndModuleName(600, "modX")).thenReturn(true);
+        when(consumptionRepository.insertIgnore(eq(600), any(), eq("modX"), any())).thenReturn(0);
 
         ConsumeResult r = service.consumeOneAndMoveToRetry(6, null, "modX");
         assertEquals(ConsumeResult.Status.CONFLICT, r.getStatus());
@@ -59,14 +61,14 @@ class KafkaMockServiceConsumeFromRetryTests {
     void consumeOne_FromRetry_NewConsumer_RecordsConsumptionAndIncrementsAttempts() {
         RetryMessage rm = new RetryMessage();
         rm.setId(7); rm.setEventId(700); rm.setType("T"); rm.setPayload("P"); rm.setAttempts(0); rm.setMaxAttempts(3);
-        when(retryMessageRepository.findById(7)).thenReturn(Optional.of(rm));
+        when(queueMessageRepository.lockById(7)).thenReturn(Optional.of(rm));
         when(eventRepository.findById(700)).thenReturn(Optional.of(new Event()));
-        when(consumptionRepository.findByEventId(700)).thenReturn(List.of());
+        when(consumptionRepository.insertIgnore(eq(700), any(), any(), any())).thenReturn(1);
 
         ConsumeResult r = service.consumeOneAndMoveToRetry(7, null, "modY");
 
         assertEquals(ConsumeResult.Status.RETRY, r.getStatus());
-        verify(consumptionRepository).save(any(MessageConsumption.class));
+        verify(consumptionRepository).insertIgnore(any(), any(), any(), any());
         verify(retryMessageRepository).save(argThat(x -> x.getAttempts() != null && x.getAttempts() == 1));
         verifyNoInteractions(deadLetterRepository);
     }
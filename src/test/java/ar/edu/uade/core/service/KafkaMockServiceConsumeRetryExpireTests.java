@@ -7,11 +7,11 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.lang.reflect.Field;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,10 +23,12 @@ import static org.mockito.Mockito.*;
 class KafkaMockServiceConsumeRetryExpireTests {
 
     @Mock private LiveMessageRepository liveMessageRepository;
+    @Mock private QueueMessageRepository queueMessageRepository;
     @Mock private RetryMessageRepository retryMessageRepository;
     @Mock private DeadLetterRepository deadLetterRepository;
     @Mock private MessageConsumptionRepository consumptionRepository;
     @Mock private EventRepository eventRepository;
+    @Spy private RetryPolicies retryPolicies = new RetryPolicies(new EventRouter());
 
     @InjectMocks private KafkaMockService service;
 
@@ -47,45 +49,48 @@ class KafkaMockServiceConsumeRetryExpireTests {
     void consumeOne_FromLive_FirstConsumer_CreatesRetryAndDeletesLive() {
         LiveMessage live = new LiveMessage();
         live.setId(1); live.setEventId(10); live.setType("estado pendiente"); live.setPayload("{}"); live.setOriginModule("core");
-        when(liveMessageRepository.findByEventId(10)).thenReturn(Optional.of(live));
-        when(consumptionRepository.existsByEventIdAndModuleName(10, "inventario")).thenReturn(false);
+        when(queueMessageRepository.findLatestIdByEventId(10)).thenReturn(Optional.of(1));
+        when(queueMessageRepository.lockById(1)).thenReturn(Optional.of(live));
+        when(consumptionRepository.insertIgnore(eq(10), any(), eq("inventario"), any())).thenReturn(1);
+        when(retryMessageRepository.markRetry(any(RetryMessage.class))).thenReturn(1);
 
         ConsumeResult res = service.consumeOneAndMoveToRetry(null, 10, "inventario");
 
         assertEquals(ConsumeResult.Status.RETRY, res.getStatus());
-        verify(retryMessageRepository).save(any(RetryMessage.class));
-        verify(liveMessageRepository).deleteById(1);
-        verify(consumptionRepository).save(any(MessageConsumption.class));
+        verify(retryMessageRepository).markRetry(argThat(r -> r.getId() == 1 && r.getOriginalLiveId() == 1 && r.getAttempts() == 1));
+        verify(liveMessageRepository, never()).deleteById(any());
+        verify(consumptionRepository).insertIgnore(any(), any(), any(), any());
     }
 
     @Test
     void consumeOne_FromRetry_SameOrigin_Conflict() {
         RetryMessage rm = new RetryMessage();
         rm.setId(3); rm.setEventId(30); rm.setType("producto"); rm.setPayload("{}"); rm.setAttempts(1);
-        when(retryMessageRepository.findByEventId(30)).thenReturn(Optional.of(rm));
+        when(queueMessageRepository.findLatestIdByEventId(30)).thenReturn(Optional.of(3));
+        when(queueMessageRepository.lockById(3)).thenReturn(Optional.of(rm));
         Event ev = new Event(); ev.setId(30); ev.setOriginModule("modA");
         when(eventRepository.findById(30)).thenReturn(Optional.of(ev));
 
         ConsumeResult res = service.consumeOneAndMoveToRetry(null, 30, "modA");
         assertEquals(ConsumeResult.Status.CONFLICT, res.getStatus());
-        verify(consumptionRepository, never()).save(any());
+        verify(consumptionRepository, never()).insertIgnore(any(), any(), any(), any());
     }
 
     @Test
     void consumeOne_FromRetry_NewConsumer_UnderThreshold_StoresConsumptionAndIncrementsAttempts() {
         RetryMessage rm = new RetryMessage();
         rm.setId(4); rm.setEventId(40); rm.setType("producto"); rm.setPayload("{}"); rm.setAttempts(0); rm.setMaxAttempts(5); rm.setCreatedAt(LocalDateTime.now()); rm.setTtlSeconds(3600L);
-        when(retryMessageRepository.findByEventId(40)).thenReturn(Optional.of(rm));
+        when(queueMessageRepository.findLatestIdByEventId(40)).thenReturn(Optional.of(4));
+        when(queueMessageRepository.lockById(4)).thenReturn(Optional.of(rm));
         Event ev = new Event(); ev.setId(40); ev.setOriginModule("modA");
         when(eventRepository.findById(40)).thenReturn(Optional.of(ev));
-        when(consumptionRepository.existsByEventIdAndModuleName(40, "modB")).thenReturn(false);
-        when(consumptionRepository.findByEventId(40)).thenReturn(new ArrayList<>());
+        when(consumptionRepository.insertIgnore(eq(40), any(), eq("modB"), any())).thenReturn(1);
 
         ConsumeResult res = service.consumeOneAndMoveToRetry(null, 40, "modB");
         assertEquals(ConsumeResult.Status.RETRY, res.getStatus());
-        verify(consumptionRepository).save(any(MessageConsumption.class));
+        verify(consumptionRepository).insertIgnore(any(), any(), any(), any());
         verify(retryMessageRepository).save(any(RetryMessage.class));
-        verify(deadLetterRepository, never()).save(any());
+        verify(deadLetterRepository, never()).markDead(any());
     }
 
     @Test
@@ -102,23 +107,20 @@ class KafkaMockServiceConsumeRetryExpireTests {
         rm.setId(6); rm.setEventId(60); rm.setType("t"); rm.setPayload("{}"); rm.setAttempts(2); rm.setMaxAttempts(3);
         when(retryMessageRepository.findById(6)).thenReturn(Optional.of(rm));
 
+        when(deadLetterRepository.markDead(any(DeadLetterMessage.class))).thenReturn(1);
         ConsumeResult res = service.failRetry(6);
         assertEquals(ConsumeResult.Status.DEAD, res.getStatus());
-        verify(deadLetterRepository).save(any(DeadLetterMessage.class));
-        verify(retryMessageRepository).deleteById(6);
+        verify(deadLetterRepository).markDead(any(DeadLetterMessage.class));
+        verify(retryMessageRepository, never()).deleteById(any());
     }
 
     @Test
-    void processRetriesAndExpire_TtlExpired_MovesToDead() {
-        RetryMessage r = new RetryMessage();
-        r.setId(7); r.setEventId(70); r.setType("x"); r.setPayload("{}"); r.setAttempts(0); r.setMaxAttempts(3);
-        r.setTtlSeconds(1L); r.setCreatedAt(LocalDateTime.now().minusMinutes(5));
-        when(retryMessageRepository.findAll()).thenReturn(List.of(r));
-
-        service.processRetriesAndExpire();
+    void expireRetryChunk_NullEventId_MovesWithoutIndexing() {
+        LocalDateTime now = LocalDateTime.now();
+        when(retryMessageRepository.lockDueRetries(now, 10)).thenReturn(List.<Object[]>of(new Object[]{7L, null}));
+        when(deadLetterRepository.expireRetries(List.of(7), now)).thenReturn(1);
 
-        verify(deadLetterRepository).save(any(DeadLetterMessage.class));
-        verify(retryMessageRepository).deleteById(7);
+        assertEquals(1, service.expireRetryChunk(now, 10));
+        verify(deadLetterRepository).expireRetries(List.of(7), now);
     }
 }
-
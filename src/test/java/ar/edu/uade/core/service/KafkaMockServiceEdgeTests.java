@@ -52,22 +52,12 @@ class KafkaMockServiceEdgeTests {
     }
 
     @Test
-    void processRetriesAndExpire_WhenWithinLimits_DoesNothing() {
-        RetryMessage rm = new RetryMessage();
-        rm.setId(9);
-        rm.setEventId(90);
-        rm.setType("T");
-        rm.setPayload("{}");
-        rm.setAttempts(0);
-        rm.setMaxAttempts(3);
-        rm.setCreatedAt(java.time.LocalDateTime.now());
-        rm.setTtlSeconds(3600L);
+    void expireRetryChunk_WhenNothingDue_DoesNothing() {
+        when(retryMessageRepository.lockDueRetries(any(), eq(3))).thenReturn(List.of());
 
-        when(retryMessageRepository.findAll()).thenReturn(List.of(rm));
+        assertEquals(0, service.expireRetryChunk(java.time.LocalDateTime.now(), 3));
 
-        service.processRetriesAndExpire();
-
-        verify(deadLetterRepository, never()).save(any());
-        verify(retryMessageRepository, never()).deleteById(any());
+        verify(deadLetterRepository, never()).expireRetries(any(), any());
+        verify(deadLetterRepository, never()).markDead(any());
     }
 }
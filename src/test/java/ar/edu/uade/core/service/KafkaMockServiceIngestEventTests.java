@@ -9,6 +9,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
@@ -30,8 +31,11 @@ class KafkaMockServiceIngestEventTests {
     @Mock private RetryMessageRepository retryMessageRepository;
     @Mock private DeadLetterRepository deadLetterRepository;
     @Mock private KafkaTemplate<String, Object> kafkaTemplate;
+    @Mock private PayloadStore payloadStore;
     @Mock private TopicResolver topicResolver;
 
+    @Spy private EventRouter eventRouter = new EventRouter();
+
     @InjectMocks private KafkaMockService service;
 
     @BeforeEach
@@ -74,7 +78,8 @@ class KafkaMockServiceIngestEventTests {
         assertNotNull(ev);
         assertEquals(10, ev.getId());
         verify(eventRepository, atLeastOnce()).save(any(Event.class));
-        verify(liveMessageRepository).save(any(LiveMessage.class));
+        // producto -> ventas (bit 0) + analitica (bit 2)
+        verify(liveMessageRepository).save(argThat((LiveMessage lm) -> lm.getExpectedMask() == 5L));
         verify(kafkaTemplate).send(eq("topicV"), anyString(), any());
         verifyNoMoreInteractions(retryMessageRepository, deadLetterRepository);
     }
@@ -0,0 +1,70 @@
+package ar.edu.uade.core.service;
+
+import ar.edu.uade.core.model.DeadLetterView;
+import ar.edu.uade.core.model.EventView;
+import ar.edu.uade.core.model.ListFilter;
+import ar.edu.uade.core.repository.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KafkaMockServiceListPageTests {
+
+    @Mock private EventRepository eventRepository;
+    @Mock private DeadLetterRepository deadLetterRepository;
+    @Mock private PayloadStore payloadStore;
+
+    @InjectMocks private KafkaMockService service;
+
+    @Test
+    void getAll_WithPayload_LoadsBlobsOnceForThePage() {
+        ListFilter f = new ListFilter();
+        f.setAfter(10);
+        f.setLimit(2);
+        f.setType("ventas.compra-confirmada");
+        when(eventRepository.findViews(10, "ventas.compra-confirmada", null, null, null, Limit.of(2))).thenReturn(List.of(
+                new EventView(11, "ventas.compra-confirmada", LocalDateTime.now(), "ventas", 5L),
+                new EventView(12, "ventas.compra-confirmada", LocalDateTime.now(), "ventas", 5L)));
+        when(payloadStore.contentsById(List.of(5L, 5L))).thenReturn(Map.of(5L, "{\"compraId\":\"C-1\"}"));
+
+        List<EventView> page = service.getAll(f);
+
+        assertEquals(2, page.size());
+        assertEquals("{\"compraId\":\"C-1\"}", page.get(1).getPayload());
+        verify(payloadStore, times(1)).contentsById(anyCollection());
+    }
+
+    @Test
+    void getDeadLetters_WithoutPayload_SkipsBlobStore() {
+        ListFilter f = new ListFilter();
+        f.setIncludePayload(false);
+        when(deadLetterRepository.findViews(0, null, null, null, null, Limit.of(ListFilter.DEFAULT_LIMIT))).thenReturn(List.of(
+                new DeadLetterView(3, 30, "T", "SUCCESS", LocalDateTime.now(), 7L)));
+
+        List<DeadLetterView> page = service.getDeadLetters(f);
+
+        assertNull(page.get(0).getPayload());
+        verifyNoInteractions(payloadStore);
+    }
+
+    @Test
+    void listFilter_LimitIsCappedAndValidated() {
+        ListFilter f = new ListFilter();
+        f.setLimit(50_000);
+        assertEquals(ListFilter.MAX_LIMIT, f.effectiveLimit());
+        f.setLimit(0);
+        assertThrows(IllegalArgumentException.class, f::effectiveLimit);
+    }
+}
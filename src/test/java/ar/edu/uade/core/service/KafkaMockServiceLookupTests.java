@@ -6,12 +6,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -19,11 +20,13 @@ class KafkaMockServiceLookupTests {
 
     @Mock private EventRepository eventRepository;
     @Mock private LiveMessageRepository liveMessageRepository;
+    @Mock private QueueMessageRepository queueMessageRepository;
     @Mock private RetryMessageRepository retryMessageRepository;
     @Mock private DeadLetterRepository deadLetterRepository;
     @Mock private MessageConsumptionRepository consumptionRepository;
     @Mock private org.springframework.kafka.core.KafkaTemplate<String, Object> kafkaTemplate;
     @Mock private TopicResolver topicResolver;
+    @Spy private RetryPolicies retryPolicies = new RetryPolicies(new EventRouter());
 
     @InjectMocks private KafkaMockService service;
 
@@ -31,7 +34,8 @@ class KafkaMockServiceLookupTests {
     void messageLookup_FoundInLive_ByEventId() {
         LiveMessage lm = new LiveMessage();
         lm.setId(1); lm.setEventId(100); lm.setType("T"); lm.setPayload("P"); lm.setOriginModule("ventas");
-        when(liveMessageRepository.findByEventId(100)).thenReturn(Optional.of(lm));
+        when(queueMessageRepository.findLatestIdByEventId(100)).thenReturn(Optional.of(1));
+        when(queueMessageRepository.findById(1)).thenReturn(Optional.of(lm));
 
         MessageLookupResult r = service.messageLookup(null, 100);
         assertEquals("LIVE", r.getLocation());
@@ -44,7 +48,9 @@ class KafkaMockServiceLookupTests {
     void messageLookup_FoundInRetry_ByOriginalLiveId() {
         RetryMessage rm = new RetryMessage();
         rm.setId(2); rm.setEventId(200); rm.setType("T2"); rm.setPayload("P2");
-        when(retryMessageRepository.findByOriginalLiveId(9)).thenReturn(Optional.of(rm));
+        when(queueMessageRepository.findById(9)).thenReturn(Optional.empty());
+        when(retryMessageRepository.findIdByOriginalLiveId(9)).thenReturn(Optional.of(2));
+        when(queueMessageRepository.findById(2)).thenReturn(Optional.of(rm));
 
         MessageLookupResult r = service.messageLookup(9, null);
         assertEquals("RETRY", r.getLocation());
@@ -55,19 +61,87 @@ class KafkaMockServiceLookupTests {
     @Test
     void messageLookup_FoundInDead_ByEventId() {
         DeadLetterMessage dm = new DeadLetterMessage();
-        dm.setEventId(400); dm.setType("T4"); dm.setPayload("P4");
-        when(deadLetterRepository.findAll()).thenReturn(List.of(dm));
+        dm.setId(4); dm.setEventId(400); dm.setType("T4"); dm.setPayload("P4");
+        when(queueMessageRepository.findLatestIdByEventId(400)).thenReturn(Optional.of(4));
+        when(queueMessageRepository.findById(4)).thenReturn(Optional.of(dm));
 
         MessageLookupResult r = service.messageLookup(null, 400);
         assertEquals("DEAD", r.getLocation());
         assertEquals(400, r.getEventId());
     }
 
+    @Test
+    void messageLookup_ById_IsSingleRead() {
+        RetryMessage rm = new RetryMessage();
+        rm.setId(5); rm.setEventId(500); rm.setOriginalLiveId(5); rm.setType("T5"); rm.setPayload("P5");
+        when(queueMessageRepository.findById(5)).thenReturn(Optional.of(rm));
+
+        MessageLookupResult r = service.messageLookup(5, null);
+        assertEquals("RETRY", r.getLocation());
+        assertEquals(5, r.getRetryId());
+        verify(queueMessageRepository).findById(5);
+        verifyNoMoreInteractions(queueMessageRepository);
+        verifyNoInteractions(liveMessageRepository, retryMessageRepository, deadLetterRepository, consumptionRepository);
+    }
+
     @Test
     void messageLookup_NotFound() {
-        when(deadLetterRepository.findAll()).thenReturn(List.of());
         MessageLookupResult r = service.messageLookup(1, 2);
         assertEquals("NOT_FOUND", r.getLocation());
     }
-}
 
+    @Test
+    void messageLookup_IndexedAfterTransition_IsSingleReadById() {
+        LiveMessage lm = new LiveMessage();
+        lm.setId(7); lm.setEventId(700); lm.setType("T7"); lm.setPayload("P7"); lm.setOriginModule("ventas");
+        when(queueMessageRepository.findLatestIdByEventId(700)).thenReturn(Optional.of(7));
+        when(queueMessageRepository.lockById(7)).thenReturn(Optional.of(lm));
+        when(consumptionRepository.insertIgnore(eq(700), any(), any(), any())).thenReturn(1);
+        when(retryMessageRepository.markRetry(any(RetryMessage.class))).thenReturn(1);
+        assertEquals(ConsumeResult.Status.RETRY, service.consumeOneAndMoveToRetry(null, 700, "inventario").getStatus());
+
+        RetryMessage rm = new RetryMessage();
+        rm.setId(7); rm.setEventId(700); rm.setOriginalLiveId(7); rm.setType("T7"); rm.setPayload("P7");
+        when(queueMessageRepository.findById(7)).thenReturn(Optional.of(rm));
+        clearInvocations(queueMessageRepository, retryMessageRepository);
+
+        MessageLookupResult r = service.messageLookup(null, 700);
+
+        assertEquals("RETRY", r.getLocation());
+        verify(queueMessageRepository).findById(7);
+        verifyNoMoreInteractions(queueMessageRepository);
+        verifyNoInteractions(retryMessageRepository);
+    }
+
+    @Test
+    void messageLookup_StaleIndexEntry_FallsBackToDbAndRepairs() {
+        service.locationIndex().put(800, 8, MessageLocationIndex.State.LIVE);
+        DeadLetterMessage dm = new DeadLetterMessage();
+        dm.setId(9); dm.setEventId(800); dm.setType("T8"); dm.setPayload("P8");
+        when(queueMessageRepository.findById(8)).thenReturn(Optional.empty());
+        when(queueMessageRepository.findLatestIdByEventId(800)).thenReturn(Optional.of(9));
+        when(queueMessageRepository.findById(9)).thenReturn(Optional.of(dm));
+
+        MessageLookupResult r = service.messageLookup(null, 800);
+
+        assertEquals("DEAD", r.getLocation());
+        assertEquals(new MessageLocationIndex.Location(MessageLocationIndex.State.DEAD, 9), service.locationIndex().byEventId(800));
+    }
+
+    @Test
+    void rebuildLocationIndex_LoadsStatesAndMigratedRetryAliases() {
+        when(queueMessageRepository.streamLocations()).thenReturn(java.util.stream.Stream.of(
+                new Object[]{1, 10, "LIVE", null},
+                new Object[]{2, 20, "RETRY", 2},
+                new Object[]{30, 30, "RETRY", 3},
+                new Object[]{4, 40, "DEAD", null}));
+
+        service.rebuildLocationIndex();
+
+        MessageLocationIndex idx = service.locationIndex();
+        assertEquals(MessageLocationIndex.State.LIVE, idx.byEventId(10).state());
+        assertEquals(MessageLocationIndex.State.DEAD, idx.byEventId(40).state());
+        assertEquals(30, idx.eventIdOfRow(3));
+        assertEquals(4, idx.size());
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.List;
@@ -20,6 +21,10 @@ class KafkaMockServiceMiscSmallTests {
     @Mock private LiveMessageRepository liveMessageRepository;
     @Mock private DeadLetterRepository deadLetterRepository;
     @Mock private MessageConsumptionRepository consumptionRepository;
+    @Mock private EventAckRepository eventAckRepository;
+    @Mock private QueueMessageRepository queueMessageRepository;
+
+    @Spy private EventRouter eventRouter = new EventRouter();
 
     @InjectMocks private KafkaMockService service;
 
@@ -33,19 +38,19 @@ class KafkaMockServiceMiscSmallTests {
     void handleAcknowledgement_Success_TypeBatch_AllModules_DeadAndDeleted() {
         LiveMessage live = new LiveMessage();
         live.setId(5); live.setEventId(500); live.setType("batch productos"); live.setPayload("{}");
+        live.setExpectedMask(service.expectedMask(live.getType()));
         when(liveMessageRepository.findByEventId(500)).thenReturn(Optional.of(live));
         // para "batch" se esperan [ventas, analitica] y simulamos que ambos ya consumieron
-        MessageConsumption c1 = new MessageConsumption(); c1.setEventId(500); c1.setModuleName("ventas");
-        MessageConsumption c2 = new MessageConsumption(); c2.setEventId(500); c2.setModuleName("analitica");
-        when(consumptionRepository.findByEventId(500)).thenReturn(List.of(c1,c2));
+        when(consumptionRepository.insertIgnore(eq(500), any(), any(), any())).thenReturn(1);
+        when(queueMessageRepository.findConsumedMask(anyInt())).thenReturn(Optional.of(service.moduleRegistry().maskOf(List.of("ventas", "analitica"))));
 
         EventAckEntity ack = new EventAckEntity();
         ack.setEventId("500"); ack.setConsumer("ventas"); ack.setStatus("SUCCESS");
 
         service.handleAcknowledgement(ack);
 
-        verify(deadLetterRepository).save(any(DeadLetterMessage.class));
-        verify(liveMessageRepository).delete(any(LiveMessage.class));
+        verify(deadLetterRepository).markDead(any(DeadLetterMessage.class));
+        verify(liveMessageRepository, never()).delete(any(LiveMessage.class));
     }
 }
 
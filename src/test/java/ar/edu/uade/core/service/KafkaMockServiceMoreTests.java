@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -25,12 +26,18 @@ class KafkaMockServiceMoreTests {
 
     @Mock private EventRepository eventRepository;
     @Mock private LiveMessageRepository liveMessageRepository;
+    @Mock private QueueMessageRepository queueMessageRepository;
     @Mock private RetryMessageRepository retryMessageRepository;
     @Mock private DeadLetterRepository deadLetterRepository;
     @Mock private MessageConsumptionRepository consumptionRepository;
+    @Mock private EventAckRepository eventAckRepository;
     @Mock private KafkaTemplate<String, Object> kafkaTemplate;
+    @Mock private PayloadStore payloadStore;
     @Mock private TopicResolver topicResolver;
 
+    @Spy private EventRouter eventRouter = new EventRouter();
+    @Spy private RetryPolicies retryPolicies = new RetryPolicies(eventRouter);
+
     @InjectMocks
     private KafkaMockService service;
 
@@ -91,7 +98,7 @@ class KafkaMockServiceMoreTests {
     void consumeOneAndMoveToRetry_ConflictWhenConsumerEqualsOrigin() {
         LiveMessage lm = new LiveMessage();
         lm.setId(10); lm.setEventId(100); lm.setOriginModule("ventas");
-        when(liveMessageRepository.findById(10)).thenReturn(Optional.of(lm));
+        when(queueMessageRepository.lockById(10)).thenReturn(Optional.of(lm));
 
         ConsumeResult r = service.consumeOneAndMoveToRetry(10, null, "ventas");
         assertEquals(ConsumeResult.Status.CONFLICT, r.getStatus());
@@ -109,7 +116,7 @@ class KafkaMockServiceMoreTests {
         ConsumeResult r = service.failRetry(9);
         assertEquals(ConsumeResult.Status.RETRY, r.getStatus());
         verify(retryMessageRepository).save(any(RetryMessage.class));
-        verify(deadLetterRepository, never()).save(any());
+        verify(deadLetterRepository, never()).markDead(any());
     }
 
 
@@ -124,16 +131,18 @@ class KafkaMockServiceMoreTests {
         EventAckEntity ack = new EventAckEntity();
         ack.setEventId("1000"); ack.setConsumer("ventas"); ack.setStatus("SUCCESS");
         LiveMessage lm = new LiveMessage(); lm.setId(10); lm.setEventId(1000); lm.setType("compra confirmada");
+        lm.setExpectedMask(service.expectedMask(lm.getType()));
         when(liveMessageRepository.findByEventId(1000)).thenReturn(Optional.of(lm));
         // eventType contiene "confirmada" => se esperan [inventario, analitica]
         // Solo consumió "ventas" (no esperada), igual se registra consumo, pero no se moverá ni borrará
-        when(consumptionRepository.findByEventId(1000)).thenReturn(List.of());
+        when(consumptionRepository.insertIgnore(eq(1000), any(), any(), any())).thenReturn(1);
+        when(queueMessageRepository.findConsumedMask(anyInt())).thenReturn(Optional.of(service.moduleRegistry().maskOf(List.of("ventas"))));
 
         service.handleAcknowledgement(ack);
 
-        verify(consumptionRepository).save(any(MessageConsumption.class));
+        verify(consumptionRepository).insertIgnore(any(), any(), any(), any());
         verify(liveMessageRepository, never()).delete(any(LiveMessage.class));
-        verify(deadLetterRepository, never()).save(any());
+        verify(deadLetterRepository, never()).markDead(any());
         verify(retryMessageRepository, never()).save(any());
     }
 
@@ -146,10 +155,10 @@ class KafkaMockServiceMoreTests {
 
         service.handleAcknowledgement(ack);
 
-        verify(consumptionRepository).save(any(MessageConsumption.class));
+        verify(consumptionRepository).insertIgnore(any(), any(), any(), any());
         verify(liveMessageRepository, never()).delete(any(LiveMessage.class));
         verify(retryMessageRepository, never()).save(any());
-        verify(deadLetterRepository, never()).save(any());
+        verify(deadLetterRepository, never()).markDead(any());
     }
 }
 
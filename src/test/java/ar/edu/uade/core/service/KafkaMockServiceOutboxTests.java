@@ -0,0 +1,92 @@
+package ar.edu.uade.core.service;
+
+import ar.edu.uade.core.model.Event;
+import ar.edu.uade.core.model.EventRequest;
+import ar.edu.uade.core.model.LiveMessage;
+import ar.edu.uade.core.model.OutboxMessage;
+import ar.edu.uade.core.model.RawJson;
+import ar.edu.uade.core.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KafkaMockServiceOutboxTests {
+
+    @Mock private EventRepository eventRepository;
+    @Mock private LiveMessageRepository liveMessageRepository;
+    @Mock private OutboxRepository outboxRepository;
+    @Mock private KafkaTemplate<String, Object> kafkaTemplate;
+    @Mock private TopicResolver topicResolver;
+    @Mock private PayloadStore payloadStore;
+
+    @Spy private EventRouter eventRouter = new EventRouter();
+
+    @InjectMocks private KafkaMockService service;
+
+    @BeforeEach
+    void enableOutbox() {
+        ReflectionTestUtils.setField(service, "outboxEnabled", true);
+    }
+
+    @Test
+    void ingestEvent_WithOutbox_WritesOutboxRowAndDoesNotTouchKafka() {
+        when(topicResolver.resolveTopic("ventas.compra-confirmada", "ventas")).thenReturn("ventas");
+        when(eventRepository.save(any(Event.class))).thenAnswer(inv -> {
+            Event e = inv.getArgument(0);
+            e.setId(42);
+            return e;
+        });
+
+        EventRequest req = new EventRequest();
+        req.setType("ventas.compra-confirmada");
+        req.setOriginModule("ventas");
+        req.setPayload(Map.of("compraId", "C-1"));
+
+        Event ev = service.ingestEvent(req);
+
+        assertEquals(42, ev.getId());
+        verify(liveMessageRepository).save(any(LiveMessage.class));
+        ArgumentCaptor<OutboxMessage> captor = ArgumentCaptor.forClass(OutboxMessage.class);
+        verify(outboxRepository).save(captor.capture());
+        OutboxMessage om = captor.getValue();
+        assertEquals(42, om.getEventId());
+        assertEquals("ventas", om.getTopic());
+        assertEquals(0, om.getAttempts());
+        assertNotNull(om.getMessageKey());
+        assertTrue(om.getPayload().contains("\"eventId\":\"" + om.getMessageKey() + "\""));
+        assertTrue(om.getPayload().contains("\"payload\":{\"compraId\":\"C-1\"}"));
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    void ingestEvent_WithRawPayload_StoresAndPublishesSameText() {
+        when(topicResolver.resolveTopic(anyString(), anyString())).thenReturn("ventas");
+        when(eventRepository.save(any(Event.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        EventRequest req = new EventRequest();
+        req.setType("analitica.vista-diaria-productos");
+        req.setOriginModule("analitica");
+        req.setPayload(new RawJson("{\"vistas\":[{\"productoId\":1,\"cantidad\":3}]}"));
+
+        Event ev = service.ingestEvent(req);
+
+        assertEquals("{\"vistas\":[{\"productoId\":1,\"cantidad\":3}]}", ev.getPayload());
+        ArgumentCaptor<OutboxMessage> captor = ArgumentCaptor.forClass(OutboxMessage.class);
+        verify(outboxRepository).save(captor.capture());
+        assertTrue(captor.getValue().getPayload().contains("\"payload\":{\"vistas\":[{\"productoId\":1,\"cantidad\":3}]}"));
+    }
+}
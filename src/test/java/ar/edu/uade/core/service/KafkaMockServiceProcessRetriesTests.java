@@ -1,17 +1,23 @@
 package ar.edu.uade.core.service;
 
 import ar.edu.uade.core.model.DeadLetterMessage;
+import ar.edu.uade.core.model.RetryDeadline;
 import ar.edu.uade.core.model.RetryMessage;
 import ar.edu.uade.core.repository.*;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,49 +30,67 @@ class KafkaMockServiceProcessRetriesTests {
     @Mock private MessageConsumptionRepository consumptionRepository;
     @Mock private org.springframework.kafka.core.KafkaTemplate<String, Object> kafkaTemplate;
     @Mock private TopicResolver topicResolver;
+    @Spy private RetryPolicies retryPolicies = new RetryPolicies(new EventRouter());
 
     @InjectMocks private KafkaMockService service;
 
     @Test
-    void processRetriesAndExpire_WhenAttemptsExceeded_MovesToDead() {
-        RetryMessage r = new RetryMessage();
-        r.setId(9); r.setEventId(900); r.setType("x"); r.setPayload("{}");
-        r.setAttempts(5); r.setMaxAttempts(3);
-        r.setCreatedAt(LocalDateTime.now().minusMinutes(1)); r.setTtlSeconds(3600L);
-        when(retryMessageRepository.findAll()).thenReturn(List.of(r));
+    void expireRetryChunk_UsesTheSameNowForTheLockAndTheUpdate() {
+        LocalDateTime now = LocalDateTime.now().minusSeconds(5);
+        when(retryMessageRepository.lockDueRetries(now, 2)).thenReturn(List.<Object[]>of(new Object[]{9, 900}, new Object[]{10, 901}));
+        when(deadLetterRepository.expireRetries(List.of(9, 10), now)).thenReturn(2);
+
+        assertEquals(2, service.expireRetryChunk(now, 2));
 
-        service.processRetriesAndExpire();
+        verify(deadLetterRepository, never()).markDeadAll(any(), any());
+        verify(retryMessageRepository, never()).findAll();
+        verify(retryMessageRepository, never()).deleteById(any());
+    }
 
-        verify(deadLetterRepository).save(any(DeadLetterMessage.class));
-        verify(retryMessageRepository).deleteById(9);
+    @Test
+    void expireDueRetries_RevalidatesAndMovesByReason_ReschedulesTheRest() {
+        LocalDateTime now = LocalDateTime.now();
+        when(retryMessageRepository.findDeadlines(List.of(1, 2, 3))).thenReturn(List.of(
+                new RetryDeadline(1, 100, 3, 3, now, 3600L),
+                new RetryDeadline(2, 200, 0, 3, now.minusHours(2), 60L),
+                new RetryDeadline(3, 300, 0, 3, now, 3600L)));
+        when(deadLetterRepository.markDeadAll(anyCollection(), any(DeadLetterMessage.class))).thenReturn(1);
+
+        assertEquals(2, service.expireDueRetries(List.of(1, 2, 3)));
+
+        verify(deadLetterRepository).markDeadAll(eq(List.of(1)), argThat(d -> "MAX_ATTEMPTS_EXCEEDED".equals(d.getReason())));
+        verify(deadLetterRepository).markDeadAll(eq(List.of(2)), argThat(d -> "TTL_EXPIRED".equals(d.getReason())));
+        // la 3 todavía no venció: vuelve al timer con su vencimiento de TTL
+        assertNotNull(service.retryTimer().dueAt(3));
+        assertNull(service.retryTimer().dueAt(1));
+        assertEquals(MessageLocationIndex.State.DEAD, service.locationIndex().byEventId(200).state());
     }
 
     @Test
-    void processRetriesAndExpire_WhenTtlExpired_MovesToDead() {
+    void failRetry_BelowMaxAttempts_SchedulesTtlDeadline() {
         RetryMessage r = new RetryMessage();
-        r.setId(10); r.setEventId(901); r.setType("x"); r.setPayload("{}");
-        r.setAttempts(0); r.setMaxAttempts(5);
-        r.setCreatedAt(LocalDateTime.now().minusHours(2)); r.setTtlSeconds(60L); // TTL vencido
-        when(retryMessageRepository.findAll()).thenReturn(List.of(r));
+        r.setId(12); r.setEventId(903); r.setType("x");
+        r.setAttempts(0); r.setMaxAttempts(3);
+        LocalDateTime createdAt = LocalDateTime.now();
+        r.setCreatedAt(createdAt); r.setTtlSeconds(600L);
+        when(retryMessageRepository.findById(12)).thenReturn(Optional.of(r));
 
-        service.processRetriesAndExpire();
+        service.failRetry(12);
 
-        verify(deadLetterRepository).save(any(DeadLetterMessage.class));
-        verify(retryMessageRepository).deleteById(10);
+        long expected = createdAt.plusSeconds(600).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + 1;
+        assertEquals(expected, service.retryTimer().dueAt(12));
     }
 
     @Test
-    void processRetriesAndExpire_WhenNoneExceeded_NoAction() {
-        RetryMessage r = new RetryMessage();
-        r.setId(11); r.setEventId(902); r.setType("x"); r.setPayload("{}");
-        r.setAttempts(0); r.setMaxAttempts(5);
-        r.setCreatedAt(LocalDateTime.now()); r.setTtlSeconds(3600L);
-        when(retryMessageRepository.findAll()).thenReturn(List.of(r));
+    void loadRetryTimer_SchedulesEveryRetryFromTheDb() {
+        when(retryMessageRepository.findAllDeadlines()).thenReturn(List.of(
+                new RetryDeadline(1, 100, 3, 3, LocalDateTime.now(), 3600L),
+                new RetryDeadline(2, 200, 0, 3, null, null)));
 
-        service.processRetriesAndExpire();
+        service.loadRetryTimer();
 
-        verifyNoInteractions(deadLetterRepository);
-        verify(retryMessageRepository, never()).deleteById(anyInt());
+        assertEquals(0L, service.retryTimer().dueAt(1));
+        // sin created_at no vence por TTL
+        assertNull(service.retryTimer().dueAt(2));
     }
 }
-
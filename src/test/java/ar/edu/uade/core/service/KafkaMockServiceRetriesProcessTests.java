@@ -1,7 +1,5 @@
 package ar.edu.uade.core.service;
 
-import ar.edu.uade.core.model.DeadLetterMessage;
-import ar.edu.uade.core.model.RetryMessage;
 import ar.edu.uade.core.repository.DeadLetterRepository;
 import ar.edu.uade.core.repository.RetryMessageRepository;
 import org.junit.jupiter.api.Test;
@@ -13,6 +11,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,17 +23,13 @@ class KafkaMockServiceRetriesProcessTests {
     @InjectMocks private KafkaMockService service;
 
     @Test
-    void processRetries_NoMove_WhenAttemptsBelowMaxAndNotExpired() {
-        RetryMessage r = new RetryMessage();
-        r.setId(1); r.setEventId(1); r.setType("x"); r.setPayload("{}");
-        r.setAttempts(1); r.setMaxAttempts(5);
-        r.setTtlSeconds(3600L); r.setCreatedAt(LocalDateTime.now());
-        when(retryMessageRepository.findAll()).thenReturn(List.of(r));
+    void expireRetryChunk_NothingDue_DoesNotUpdate() {
+        LocalDateTime now = LocalDateTime.now();
+        when(retryMessageRepository.lockDueRetries(now, 50)).thenReturn(List.of());
 
-        service.processRetriesAndExpire();
+        assertEquals(0, service.expireRetryChunk(now, 50));
 
         verifyNoInteractions(deadLetterRepository);
         verify(retryMessageRepository, never()).deleteById(anyInt());
     }
 }
-
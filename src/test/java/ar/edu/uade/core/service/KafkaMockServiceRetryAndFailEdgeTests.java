@@ -9,6 +9,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
@@ -23,6 +24,7 @@ class KafkaMockServiceRetryAndFailEdgeTests {
 
     @Mock private RetryMessageRepository retryMessageRepository;
     @Mock private DeadLetterRepository deadLetterRepository;
+    @Spy private RetryPolicies retryPolicies = new RetryPolicies(new EventRouter());
 
     @InjectMocks private KafkaMockService service;
 
@@ -47,17 +49,19 @@ class KafkaMockServiceRetryAndFailEdgeTests {
     }
 
     @Test
-    void processRetries_AttemptsExceeded_MovesToDead() {
-        RetryMessage r = new RetryMessage();
-        r.setId(9); r.setEventId(900); r.setType("x"); r.setPayload("{}");
-        r.setAttempts(5); r.setMaxAttempts(3);
-        r.setCreatedAt(LocalDateTime.now().minusMinutes(1)); r.setTtlSeconds(3600L);
-        when(retryMessageRepository.findAll()).thenReturn(List.of(r));
+    void expireRetryChunk_MovesTheLockedRowsWithOneUpdate() {
+        LocalDateTime now = LocalDateTime.now();
+        service.retryTimer().schedule(9, Long.MAX_VALUE);
+        when(retryMessageRepository.lockDueRetries(now, 100)).thenReturn(List.<Object[]>of(new Object[]{9, 900}, new Object[]{10, 1000}));
+        when(deadLetterRepository.expireRetries(List.of(9, 10), now)).thenReturn(2);
 
-        service.processRetriesAndExpire();
+        assertEquals(2, service.expireRetryChunk(now, 100));
 
-        verify(deadLetterRepository).save(any(DeadLetterMessage.class));
-        verify(retryMessageRepository).deleteById(9);
+        verify(deadLetterRepository, never()).markDead(any(DeadLetterMessage.class));
+        verify(retryMessageRepository, never()).deleteById(any());
+        // sin transacción activa el índice y el timer se actualizan en el momento
+        assertEquals(MessageLocationIndex.State.DEAD, service.locationIndex().byEventId(900).state());
+        assertEquals(0, service.retryTimer().size());
     }
 
     @Test
@@ -19,6 +19,7 @@ class KafkaMockServiceRetryConflictTests {
 
     @Mock private EventRepository eventRepository;
     @Mock private LiveMessageRepository liveMessageRepository;
+    @Mock private QueueMessageRepository queueMessageRepository;
     @Mock private RetryMessageRepository retryMessageRepository;
     @Mock private MessageConsumptionRepository consumptionRepository;
 
@@ -27,12 +28,13 @@ class KafkaMockServiceRetryConflictTests {
     @Test
     void consumeOneAndMoveToRetry_FromRetry_SameOrigin_Conflict() {
         // No hay live
-        when(liveMessageRepository.findByEventId(anyInt())).thenReturn(Optional.empty());
+        when(queueMessageRepository.findLatestIdByEventId(anyInt())).thenReturn(Optional.empty());
 
         // Hay retry por eventId 42
         RetryMessage rm = new RetryMessage();
         rm.setId(7); rm.setEventId(42); rm.setType("T"); rm.setPayload("{}"); rm.setAttempts(0); rm.setMaxAttempts(3);
-        when(retryMessageRepository.findByEventId(42)).thenReturn(Optional.of(rm));
+        when(queueMessageRepository.findLatestIdByEventId(42)).thenReturn(Optional.of(7));
+        when(queueMessageRepository.lockById(7)).thenReturn(Optional.of(rm));
 
         // El evento original tiene originModule "ventas"
         Event ev = new Event(); ev.setId(42); ev.setOriginModule("ventas");
@@ -42,7 +44,7 @@ class KafkaMockServiceRetryConflictTests {
         ConsumeResult cr = service.consumeOneAndMoveToRetry(null, 42, "ventas");
         assertEquals(ConsumeResult.Status.CONFLICT, cr.getStatus());
         assertTrue(cr.getMessage().toLowerCase().contains("consumer module"));
-        verify(consumptionRepository, never()).save(any());
+        verify(consumptionRepository, never()).insertIgnore(any(), any(), any(), any());
         verify(retryMessageRepository, never()).save(any());
     }
 }
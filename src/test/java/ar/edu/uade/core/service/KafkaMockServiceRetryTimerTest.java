@@ -0,0 +1,108 @@
+package ar.edu.uade.core.service;
+
+import ar.edu.uade.core.model.EventAckEntity;
+import ar.edu.uade.core.model.LiveMessage;
+import ar.edu.uade.core.repository.LiveMessageRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Vencimiento de retries contra la DB: expireDueRetries relee solo las columnas de vencimiento
+ * y mueve con un UPDATE ... WHERE id IN (...) por razón; expireRetryChunk toma los vencidos por expires_at.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({KafkaMockService.class, PayloadStore.class, TopicResolver.class, EventRouter.class, RetryPolicies.class})
+class KafkaMockServiceRetryTimerTest {
+
+    @MockitoBean private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Autowired private KafkaMockService service;
+    @Autowired private PayloadStore payloadStore;
+    @Autowired private LiveMessageRepository liveMessageRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private LiveMessage saveLive(int eventId) {
+        LiveMessage lm = new LiveMessage();
+        lm.setEventId(eventId);
+        lm.setType("ventas.compra-confirmada");
+        lm.setPayloadBlob(payloadStore.intern("{\"n\":" + eventId + "}"));
+        lm.setOriginModule("ventas");
+        lm.setTimestamp(LocalDateTime.now());
+        lm.setExpectedMask(service.expectedMask(lm.getType()));
+        return liveMessageRepository.saveAndFlush(lm);
+    }
+
+    private void failAck(int eventId) {
+        EventAckEntity ack = new EventAckEntity();
+        ack.setEventId(String.valueOf(eventId));
+        ack.setConsumer("inventario");
+        ack.setStatus("FAIL");
+        service.handleAcknowledgement(ack);
+    }
+
+    private Map<String, Object> row(int id) {
+        return jdbcTemplate.queryForMap("SELECT state, reason FROM queue_message WHERE id = ?", id);
+    }
+
+    @Test
+    void expireDueRetries_MovesOnlyRetriesThatAreDueNow() {
+        LiveMessage ttl = saveLive(71_001);
+        LiveMessage exhausted = saveLive(71_002);
+        LiveMessage fresh = saveLive(71_003);
+        LiveMessage live = saveLive(71_004);
+        failAck(71_001);
+        failAck(71_002);
+        failAck(71_003);
+        jdbcTemplate.update("UPDATE queue_message SET created_at = ? WHERE id = ?", LocalDateTime.now().minusHours(1), ttl.getId());
+        jdbcTemplate.update("UPDATE queue_message SET attempts = max_attempts WHERE id = ?", exhausted.getId());
+
+        int moved = service.expireDueRetries(List.of(ttl.getId(), exhausted.getId(), fresh.getId(), live.getId()));
+
+        assertEquals(2, moved);
+        assertEquals(Map.of("state", "DEAD", "reason", "TTL_EXPIRED"), row(ttl.getId()));
+        assertEquals(Map.of("state", "DEAD", "reason", "MAX_ATTEMPTS_EXCEEDED"), row(exhausted.getId()));
+        assertEquals("RETRY", row(fresh.getId()).get("state"));
+        assertEquals("LIVE", row(live.getId()).get("state"));
+        // la que no venció vuelve al timer con su TTL (15 min en la política de los tipos de compra)
+        assertTrue(service.retryTimer().dueAt(fresh.getId()) > System.currentTimeMillis() + 500_000);
+    }
+
+    @Test
+    void expireRetryChunk_TakesDueRowsByExpiresAt_InBoundedChunks() {
+        LiveMessage ttl = saveLive(72_001);
+        LiveMessage exhausted = saveLive(72_002);
+        LiveMessage fresh = saveLive(72_003);
+        failAck(72_001);
+        failAck(72_002);
+        failAck(72_003);
+        jdbcTemplate.update("UPDATE queue_message SET created_at = ? WHERE id = ?", LocalDateTime.now().minusHours(1), ttl.getId());
+        jdbcTemplate.update("UPDATE queue_message SET attempts = max_attempts WHERE id = ?", exhausted.getId());
+        LocalDateTime now = LocalDateTime.now();
+
+        // intentos agotados vencen primero (expires_at mínimo)
+        assertEquals(1, service.expireRetryChunk(now, 1));
+        assertEquals(Map.of("state", "DEAD", "reason", "MAX_ATTEMPTS_EXCEEDED"), row(exhausted.getId()));
+        assertEquals("RETRY", row(ttl.getId()).get("state"));
+
+        assertEquals(1, service.expireRetryChunk(now, 10));
+        assertEquals(Map.of("state", "DEAD", "reason", "TTL_EXPIRED"), row(ttl.getId()));
+        assertEquals("RETRY", row(fresh.getId()).get("state"));
+
+        assertEquals(0, service.expireRetryChunk(now, 10));
+    }
+}
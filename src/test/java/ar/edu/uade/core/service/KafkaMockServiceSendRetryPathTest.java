@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
@@ -24,8 +25,11 @@ class KafkaMockServiceSendRetryPathTest {
     @Mock private EventRepository eventRepository;
     @Mock private LiveMessageRepository liveMessageRepository;
     @Mock private KafkaTemplate<String, Object> kafkaTemplate;
+    @Mock private PayloadStore payloadStore;
     @Mock private TopicResolver topicResolver;
 
+    @Spy private EventRouter eventRouter = new EventRouter();
+
     @InjectMocks private KafkaMockService service;
 
     @BeforeEach
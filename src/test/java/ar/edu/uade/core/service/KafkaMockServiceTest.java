@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
@@ -26,12 +27,18 @@ class KafkaMockServiceTest {
 
     @Mock private EventRepository eventRepository;
     @Mock private LiveMessageRepository liveMessageRepository;
+    @Mock private QueueMessageRepository queueMessageRepository;
     @Mock private RetryMessageRepository retryMessageRepository;
     @Mock private DeadLetterRepository deadLetterRepository;
     @Mock private MessageConsumptionRepository consumptionRepository;
+    @Mock private EventAckRepository eventAckRepository;
     @Mock private KafkaTemplate<String, Object> kafkaTemplate;
+    @Mock private PayloadStore payloadStore;
     @Mock private TopicResolver topicResolver;
 
+    @Spy private EventRouter eventRouter = new EventRouter();
+    @Spy private RetryPolicies retryPolicies = new RetryPolicies(eventRouter);
+
     @InjectMocks private KafkaMockService service;
 
     @BeforeEach
@@ -94,11 +101,9 @@ class KafkaMockServiceTest {
 
     @Test
     void consumeOneAndMoveToRetry_NotFound_ReturnsNotFound() {
-        when(liveMessageRepository.findById(anyInt())).thenReturn(Optional.empty());
-        when(liveMessageRepository.findByEventId(anyInt())).thenReturn(Optional.empty());
-        when(retryMessageRepository.findByOriginalLiveId(anyInt())).thenReturn(Optional.empty());
-        when(retryMessageRepository.findById(anyInt())).thenReturn(Optional.empty());
-        when(retryMessageRepository.findByEventId(anyInt())).thenReturn(Optional.empty());
+        when(queueMessageRepository.lockById(anyInt())).thenReturn(Optional.empty());
+        when(queueMessageRepository.findLatestIdByEventId(anyInt())).thenReturn(Optional.empty());
+        when(retryMessageRepository.findIdByOriginalLiveId(anyInt())).thenReturn(Optional.empty());
 
         ConsumeResult res = service.consumeOneAndMoveToRetry(99, 100, "modX");
         assertEquals(ConsumeResult.Status.NOT_FOUND, res.getStatus());
@@ -110,7 +115,7 @@ class KafkaMockServiceTest {
         live.setId(1);
         live.setEventId(7);
         live.setOriginModule("ventas");
-        when(liveMessageRepository.findById(1)).thenReturn(Optional.of(live));
+        when(queueMessageRepository.lockById(1)).thenReturn(Optional.of(live));
 
         ConsumeResult res = service.consumeOneAndMoveToRetry(1, null, "VENTAS");
         assertEquals(ConsumeResult.Status.CONFLICT, res.getStatus());
@@ -123,16 +128,17 @@ class KafkaMockServiceTest {
         live.setEventId(7);
         live.setType("ventas.creada");
         live.setPayload("{}");
-        when(liveMessageRepository.findById(1)).thenReturn(Optional.of(live));
-        when(consumptionRepository.existsByEventIdAndModuleName(eq(7), anyString())).thenReturn(false);
-        when(consumptionRepository.findByEventId(7)).thenReturn(java.util.Collections.emptyList());
+        when(queueMessageRepository.lockById(1)).thenReturn(Optional.of(live));
+        when(consumptionRepository.insertIgnore(eq(7), any(), anyString(), any())).thenReturn(1);
+        when(retryMessageRepository.markRetry(any(RetryMessage.class))).thenReturn(1);
 
         ConsumeResult res = service.consumeOneAndMoveToRetry(1, null, "inventario");
 
         assertEquals(ConsumeResult.Status.RETRY, res.getStatus());
         assertNotNull(res.getRetryMessage());
-        verify(retryMessageRepository).save(any(RetryMessage.class));
-        verify(liveMessageRepository).deleteById(1);
+        assertEquals(1, res.getRetryMessage().getId());
+        verify(retryMessageRepository).markRetry(any(RetryMessage.class));
+        verify(liveMessageRepository, never()).deleteById(any());
     }
 
     @Test
@@ -149,7 +155,7 @@ class KafkaMockServiceTest {
         assertEquals(ConsumeResult.Status.RETRY, res.getStatus());
         assertEquals(1, res.getRetryMessage().getAttempts());
         verify(retryMessageRepository).save(any(RetryMessage.class));
-        verify(deadLetterRepository, never()).save(any());
+        verify(deadLetterRepository, never()).markDead(any());
     }
 
     @Test
@@ -163,27 +169,24 @@ class KafkaMockServiceTest {
         rm.setPayload("{}");
         when(retryMessageRepository.findById(5)).thenReturn(Optional.of(rm));
 
+        when(deadLetterRepository.markDead(any(DeadLetterMessage.class))).thenReturn(1);
         ConsumeResult res = service.failRetry(5);
 
         assertEquals(ConsumeResult.Status.DEAD, res.getStatus());
-        verify(deadLetterRepository).save(any(DeadLetterMessage.class));
-        verify(retryMessageRepository).deleteById(5);
+        verify(deadLetterRepository).markDead(any(DeadLetterMessage.class));
+        verify(retryMessageRepository, never()).deleteById(any());
     }
 
     @Test
-    void processRetriesAndExpire_ExpiresByTtlOrAttempts() {
-        RetryMessage a = new RetryMessage();
-        a.setId(1); a.setEventId(1); a.setAttempts(99); a.setMaxAttempts(3); a.setPayload("{}"); a.setType("t");
-        RetryMessage b = new RetryMessage();
-        b.setId(2); b.setEventId(2); b.setAttempts(0); b.setMaxAttempts(9); b.setPayload("{}"); b.setType("t");
-        b.setCreatedAt(LocalDateTime.now().minusHours(2)); b.setTtlSeconds(60L);
-        when(retryMessageRepository.findAll()).thenReturn(List.of(a,b));
-
-        service.processRetriesAndExpire();
-
-        verify(deadLetterRepository, times(2)).save(any(DeadLetterMessage.class));
-        verify(retryMessageRepository).deleteById(1);
-        verify(retryMessageRepository).deleteById(2);
+    void expireRetryChunk_MovesDueRowsWithoutLoadingEntities() {
+        LocalDateTime now = LocalDateTime.now();
+        when(retryMessageRepository.lockDueRetries(now, 500)).thenReturn(List.<Object[]>of(new Object[]{1, 1}, new Object[]{2, 2}));
+        when(deadLetterRepository.expireRetries(List.of(1, 2), now)).thenReturn(2);
+
+        assertEquals(2, service.expireRetryChunk(now, 500));
+
+        verify(retryMessageRepository, never()).findAll();
+        verify(deadLetterRepository, never()).markDead(any(DeadLetterMessage.class));
     }
 
     @Test
@@ -207,7 +210,7 @@ class KafkaMockServiceTest {
 
         service.handleAcknowledgement(ack);
 
-        verify(consumptionRepository).save(any(MessageConsumption.class));
+        verify(consumptionRepository).insertIgnore(any(), any(), any(), any());
         verify(liveMessageRepository, never()).delete(any());
         verify(retryMessageRepository, never()).save(any());
     }
@@ -0,0 +1,57 @@
+package ar.edu.uade.core.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageLocationIndexTest {
+
+    @Test
+    void put_TransitionsOverwriteLocationOfEvent() {
+        MessageLocationIndex idx = new MessageLocationIndex();
+        idx.put(100, 1, MessageLocationIndex.State.LIVE);
+        idx.put(100, 1, MessageLocationIndex.State.RETRY);
+
+        assertEquals(new MessageLocationIndex.Location(MessageLocationIndex.State.RETRY, 1), idx.byEventId(100));
+        assertEquals(100, idx.eventIdOfRow(1));
+        assertNull(idx.byEventId(101));
+        assertEquals(0, idx.eventIdOfRow(2));
+    }
+
+    @Test
+    void removeRow_DropsEventOnlyIfItPointsToThatRow() {
+        MessageLocationIndex idx = new MessageLocationIndex();
+        idx.put(100, 1, MessageLocationIndex.State.DEAD);
+        idx.alias(9, 100);
+
+        idx.removeRow(9);
+        assertNotNull(idx.byEventId(100));
+        idx.removeRow(1);
+        assertNull(idx.byEventId(100));
+        assertEquals(0, idx.eventIdOfRow(1));
+    }
+
+    @Test
+    void intLongMap_MatchesHashMapUnderGrowthAndRemovals() {
+        MessageLocationIndex.IntLongMap map = new MessageLocationIndex.IntLongMap();
+        Map<Integer, Long> expected = new HashMap<>();
+        Random rnd = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            int key = 1 + rnd.nextInt(50_000);
+            if (rnd.nextInt(4) == 0) {
+                Long old = expected.remove(key);
+                assertEquals(old == null ? 0 : old, map.remove(key));
+            } else {
+                long v = 1 + rnd.nextInt(Integer.MAX_VALUE);
+                expected.put(key, v);
+                map.put(key, v);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int k = 1; k <= 50_000; k++) assertEquals(expected.getOrDefault(k, 0L), map.get(k));
+    }
+}
@@ -0,0 +1,45 @@
+package ar.edu.uade.core.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModuleRegistryTest {
+
+    @Test
+    void builtInModules_HaveFixedBits_CaseInsensitive() {
+        ModuleRegistry r = new ModuleRegistry();
+        assertEquals(1L, r.bitOf("ventas"));
+        assertEquals(2L, r.bitOf("Inventario"));
+        assertEquals(4L, r.bitOf("ANALITICA"));
+        assertEquals(0L, r.bitOf("Desconocido"));
+        assertEquals(0L, r.bitOf(null));
+    }
+
+    @Test
+    void maskOf_And_NamesOf_RoundTrip() {
+        ModuleRegistry r = new ModuleRegistry();
+        long mask = r.maskOf(List.of("analitica", "ventas"));
+        assertEquals(5L, mask);
+        assertEquals(List.of("ventas", "analitica"), r.namesOf(mask));
+        assertThrows(IllegalArgumentException.class, () -> r.maskOf(List.of("no-registrado")));
+    }
+
+    @Test
+    void load_AddsModulesFromTable_KeepingIds() {
+        ModuleRegistry r = new ModuleRegistry();
+        r.load(Map.of(1, "ventas", 2, "inventario", 3, "analitica", 10, "notificaciones"));
+        assertEquals(1L << 9, r.bitOf("notificaciones"));
+        assertEquals(2L, r.bitOf("inventario"));
+        assertEquals(4, r.size());
+    }
+
+    @Test
+    void load_IdAboveMaxModules_Fails() {
+        ModuleRegistry r = new ModuleRegistry();
+        assertThrows(IllegalStateException.class, () -> r.load(Map.of(ModuleRegistry.MAX_MODULES + 1, "x")));
+    }
+}
@@ -0,0 +1,181 @@
+package ar.edu.uade.core.service;
+
+import ar.edu.uade.core.model.OutboxMessage;
+import ar.edu.uade.core.repository.OutboxRepository;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock private OutboxRepository outboxRepository;
+    @Mock private KafkaTemplate<String, String> rawKafkaTemplate;
+    @Mock private SchedulerLease schedulerLease;
+
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new OutboxRelay(outboxRepository, rawKafkaTemplate, schedulerLease);
+        ReflectionTestUtils.setField(relay, "batchSize", 10);
+        ReflectionTestUtils.setField(relay, "retryBaseDelayMs", 1000L);
+        ReflectionTestUtils.setField(relay, "retryMaxDelayMs", 8000L);
+        ReflectionTestUtils.setField(relay, "sendTimeoutMs", 50L);
+    }
+
+    private static OutboxMessage outbox(int id) {
+        OutboxMessage om = new OutboxMessage();
+        om.setId(id);
+        om.setEventId(100 + id);
+        om.setTopic("ventas");
+        om.setMessageKey("k" + id);
+        om.setPayload("{\"eventId\":\"k" + id + "\"}");
+        om.setAttempts(0);
+        return om;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void drain_AllSent_DeletesBatchAndFlushesOnce() {
+        when(schedulerLease.isLeader()).thenReturn(true);
+        when(outboxRepository.findBatch(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(outbox(1), outbox(2)));
+        SendResult<String, String> sr = (SendResult<String, String>) mock(SendResult.class);
+        when(rawKafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(sr));
+
+        int sent = relay.drain();
+
+        assertEquals(2, sent);
+        ArgumentCaptor<ProducerRecord<String, String>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(rawKafkaTemplate, times(2)).send(captor.capture());
+        assertEquals("{\"eventId\":\"k1\"}", captor.getAllValues().get(0).value());
+        assertNotNull(captor.getAllValues().get(0).headers().lastHeader("__TypeId__"));
+        verify(rawKafkaTemplate, times(1)).flush();
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(1, 2));
+        verify(outboxRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void drain_PartialFailure_KeepsFailedRowsAndStops() {
+        when(schedulerLease.isLeader()).thenReturn(true);
+        OutboxMessage ok = outbox(1);
+        OutboxMessage ko = outbox(2);
+        when(outboxRepository.findBatch(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(ok, ko));
+        SendResult<String, String> sr = (SendResult<String, String>) mock(SendResult.class);
+        CompletableFuture<SendResult<String, String>> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new RuntimeException("broker caido"));
+        when(rawKafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(sr))
+                .thenReturn(failed);
+
+        int sent = relay.drain();
+
+        assertEquals(1, sent);
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(1));
+        verify(outboxRepository).saveAll(List.of(ko));
+        assertEquals(1, ko.getAttempts());
+        assertTrue(ko.getLastError().contains("broker caido"));
+        // error transitorio: espera de backoff, no se aparta
+        assertNotNull(ko.getNextAttemptAt());
+        assertNull(ko.getParkedAt());
+        verify(outboxRepository, times(1)).findBatch(any(LocalDateTime.class), any(Pageable.class));
+    }
+
+    @Test
+    void drain_EmptyOutbox_DoesNothing() {
+        when(schedulerLease.isLeader()).thenReturn(true);
+        when(outboxRepository.findBatch(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of());
+
+        assertEquals(0, relay.drain());
+        verifyNoInteractions(rawKafkaTemplate);
+    }
+
+    @Test
+    void drain_RecordTooLarge_ParksRowRightAway() {
+        when(schedulerLease.isLeader()).thenReturn(true);
+        OutboxMessage poison = outbox(1);
+        when(outboxRepository.findBatch(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(poison));
+        when(rawKafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new KafkaException("send failed", new RecordTooLargeException("demasiado grande"))));
+
+        assertEquals(0, relay.drain());
+
+        // con parked_at findBatch ya no la devuelve
+        assertEquals(1, poison.getAttempts());
+        assertNotNull(poison.getParkedAt());
+        assertNull(poison.getNextAttemptAt());
+        verify(outboxRepository).saveAll(List.of(poison));
+        verify(outboxRepository, never()).deleteAllByIdInBatch(anyList());
+    }
+
+    @Test
+    void drain_BrokerDownForManyAttempts_BacksOffWithCapAndNeverParks() {
+        when(schedulerLease.isLeader()).thenReturn(true);
+        OutboxMessage row = outbox(1);
+        row.setAttempts(20);
+        when(outboxRepository.findBatch(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(row));
+        when(rawKafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.failedFuture(new TimeoutException("sin broker")));
+
+        LocalDateTime before = LocalDateTime.now();
+        relay.drain();
+
+        assertEquals(21, row.getAttempts());
+        assertNull(row.getParkedAt());
+        long waitMs = ChronoUnit.MILLIS.between(before, row.getNextAttemptAt());
+        assertTrue(waitMs >= 8000 && waitMs < 9000, "espera " + waitMs);
+    }
+
+    @Test
+    void backoffMs_DoublesFromBaseUpToCap() {
+        assertEquals(1000, relay.backoffMs(1));
+        assertEquals(2000, relay.backoffMs(2));
+        assertEquals(4000, relay.backoffMs(3));
+        assertEquals(8000, relay.backoffMs(4));
+        assertEquals(8000, relay.backoffMs(40));
+    }
+
+    @Test
+    void requeueParked_AllOrOne() {
+        when(outboxRepository.requeueParked()).thenReturn(3);
+        when(outboxRepository.requeueParked(7)).thenReturn(1);
+
+        assertEquals(3, relay.requeueParked(null));
+        assertEquals(1, relay.requeueParked(7));
+    }
+
+    @Test
+    void scheduledDrain_NotLeader_SkipsRepository() {
+        when(schedulerLease.isLeader()).thenReturn(false);
+        ReflectionTestUtils.setField(relay, "enabled", true);
+        relay.scheduledDrain();
+        verifyNoInteractions(outboxRepository, rawKafkaTemplate);
+    }
+
+    @Test
+    void scheduledDrain_WhenDisabled_SkipsRepository() {
+        ReflectionTestUtils.setField(relay, "enabled", false);
+        relay.scheduledDrain();
+        verifyNoInteractions(outboxRepository, rawKafkaTemplate);
+    }
+}
@@ -0,0 +1,97 @@
+package ar.edu.uade.core.service;
+
+import ar.edu.uade.core.model.LiveMessage;
+import ar.edu.uade.core.model.PayloadBlob;
+import ar.edu.uade.core.repository.LiveMessageRepository;
+import ar.edu.uade.core.repository.PayloadBlobRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(PayloadStore.class)
+class PayloadStoreTest {
+
+    @Autowired private PayloadStore payloadStore;
+    @Autowired private PayloadBlobRepository payloadBlobRepository;
+    @Autowired private LiveMessageRepository liveMessageRepository;
+    @Autowired private EntityManager entityManager;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void intern_SameContentTwice_ReusesRow() {
+        long before = payloadBlobRepository.count();
+
+        PayloadBlob a = payloadStore.intern("{\"compraId\":\"C-1\"}");
+        PayloadBlob b = payloadStore.intern("{\"compraId\":\"C-1\"}");
+
+        assertEquals(a.getId(), b.getId());
+        assertEquals(before + 1, payloadBlobRepository.count());
+    }
+
+    @Test
+    void internAll_KeepsInputOrderAndDeduplicates() {
+        List<PayloadBlob> blobs = payloadStore.internAll(Arrays.asList("{\"a\":1}", null, "{\"b\":2}", "{\"a\":1}"));
+
+        assertEquals(4, blobs.size());
+        assertNull(blobs.get(1));
+        assertEquals(blobs.get(0).getId(), blobs.get(3).getId());
+        assertNotEquals(blobs.get(0).getId(), blobs.get(2).getId());
+    }
+
+    @Test
+    void intern_LargePayload_IsStoredCompressedAndReadBack() {
+        StringBuilder sb = new StringBuilder("{\"vistas\":[");
+        for (int i = 0; i < 50; i++) sb.append(i > 0 ? "," : "").append("{\"productoId\":").append(i).append(",\"cantidad\":3}");
+        String json = sb.append("]}").toString();
+
+        Long id = payloadStore.intern(json).getId();
+        entityManager.clear();
+
+        byte[] stored = jdbcTemplate.queryForObject("SELECT content FROM payload_blob WHERE id = ?", byte[].class, id);
+        assertTrue(stored.length < json.length());
+        assertEquals(json, payloadBlobRepository.findById(id).orElseThrow().getContent());
+    }
+
+    @Test
+    void legacyPlainRow_IsStillReadable() {
+        jdbcTemplate.update("INSERT INTO payload_blob (hash, content, created_at) VALUES (?, ?, CURRENT_TIMESTAMP)",
+                "legacy-hash", "{\"productId\":101}".getBytes(StandardCharsets.UTF_8));
+        Long id = jdbcTemplate.queryForObject("SELECT id FROM payload_blob WHERE hash = 'legacy-hash'", Long.class);
+
+        assertEquals("{\"productId\":101}", payloadBlobRepository.findById(id).orElseThrow().getContent());
+    }
+
+    @Test
+    void queueMessage_LoadsPayloadBytesOnlyWhenRead() {
+        LiveMessage lm = new LiveMessage();
+        lm.setEventId(77);
+        lm.setType("ventas.compra-confirmada");
+        lm.setPayloadBlob(payloadStore.intern("{\"compraId\":\"C-77\"}"));
+        lm.setOriginModule("ventas");
+        lm.setTimestamp(LocalDateTime.now());
+        Integer id = liveMessageRepository.saveAndFlush(lm).getId();
+        entityManager.clear();
+
+        LiveMessage reloaded = liveMessageRepository.findById(id).orElseThrow();
+        assertFalse(Hibernate.isInitialized(reloaded.getPayloadBlob()));
+
+        assertEquals("{\"compraId\":\"C-77\"}", reloaded.getPayload());
+        assertTrue(Hibernate.isInitialized(reloaded.getPayloadBlob()));
+    }
+}
@@ -0,0 +1,45 @@
+package ar.edu.uade.core.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryBackoffTest {
+
+    private RetryBackoff backoff;
+
+    @BeforeEach
+    void setUp() {
+        backoff = new RetryBackoff();
+        ReflectionTestUtils.setField(backoff, "initialDelayMs", 30_000L);
+        ReflectionTestUtils.setField(backoff, "multiplier", 10.0);
+        ReflectionTestUtils.setField(backoff, "maxDelayMs", 300_000L);
+    }
+
+    @Test
+    void delays_GrowExponentially_UpToTheCap() {
+        assertEquals(30_000L, backoff.delayMs(0));
+        assertEquals(300_000L, backoff.delayMs(1));
+        assertEquals(300_000L, backoff.delayMs(7));
+        assertEquals(List.of(30_000L, 300_000L), backoff.tiers());
+    }
+
+    @Test
+    void topics_AreNamedAfterTheTierDelay() {
+        assertEquals("ventas-topic.retry-30s", backoff.topicFor("ventas-topic", 0));
+        assertEquals("ventas-topic.retry-5m", backoff.topicFor("ventas-topic", 4));
+        assertEquals(List.of("ventas-topic.retry-30s", "ventas-topic.retry-5m"), backoff.topicsFor("ventas-topic"));
+        assertEquals("1h", RetryBackoff.label(3_600_000L));
+        assertEquals("1500ms", RetryBackoff.label(1500L));
+    }
+
+    @Test
+    void multiplierOfOne_IsASingleFixedTier() {
+        ReflectionTestUtils.setField(backoff, "multiplier", 1.0);
+        assertEquals(List.of(30_000L), backoff.tiers());
+    }
+}
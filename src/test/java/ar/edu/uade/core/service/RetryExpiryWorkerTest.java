@@ -0,0 +1,100 @@
+package ar.edu.uade.core.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import ar.edu.uade.core.model.RetrySweepReport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RetryExpiryWorkerTest {
+
+    @Mock private KafkaMockService kafkaMockService;
+    @Mock private SchedulerLease schedulerLease;
+
+    @InjectMocks private RetryExpiryWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(worker, "batchSize", 100);
+        ReflectionTestUtils.setField(worker, "retryBackoffMs", 250L);
+        ReflectionTestUtils.setField(worker, "sweepChunkSize", 2);
+    }
+
+    @Test
+    void runOnce_ExpiresWhatIsDue() throws Exception {
+        when(schedulerLease.isLeader()).thenReturn(true);
+        when(kafkaMockService.awaitDueRetries(eq(100), anyLong())).thenReturn(List.of(1, 2));
+        when(kafkaMockService.expireDueRetries(List.of(1, 2))).thenReturn(2);
+
+        assertEquals(2, worker.runOnce());
+        verify(kafkaMockService, never()).deferRetries(any(), anyLong());
+    }
+
+    @Test
+    void runOnce_NothingDue_DoesNotTouchDb() throws Exception {
+        when(schedulerLease.isLeader()).thenReturn(true);
+        when(kafkaMockService.awaitDueRetries(eq(100), anyLong())).thenReturn(List.of());
+
+        assertEquals(0, worker.runOnce());
+        verify(kafkaMockService, never()).expireDueRetries(any());
+    }
+
+    @Test
+    void runOnce_DbFailure_DefersTheRows() throws Exception {
+        when(schedulerLease.isLeader()).thenReturn(true);
+        when(kafkaMockService.awaitDueRetries(eq(100), anyLong())).thenReturn(List.of(3));
+        when(kafkaMockService.expireDueRetries(List.of(3))).thenThrow(new QueryTimeoutException("timeout"));
+
+        assertEquals(0, worker.runOnce());
+        verify(kafkaMockService).deferRetries(List.of(3), 250L);
+    }
+
+    @Test
+    void notLeader_NeitherExpiresNorSweeps() throws Exception {
+        ReflectionTestUtils.setField(worker, "enabled", true);
+        when(schedulerLease.isLeader()).thenReturn(false);
+
+        assertEquals(0, worker.runOnce());
+        worker.scheduledSweep();
+        verifyNoInteractions(kafkaMockService);
+    }
+
+    @Test
+    void sweep_RunsChunksUntilOneComesBackShort() {
+        when(kafkaMockService.expireRetryChunk(any(LocalDateTime.class), eq(2))).thenReturn(2, 2, 1);
+
+        RetrySweepReport report = worker.sweep();
+
+        assertEquals(5, report.getRows());
+        assertEquals(3, report.getChunks());
+        // todos los tramos barren contra la misma hora de inicio
+        ArgumentCaptor<LocalDateTime> now = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(kafkaMockService, times(3)).expireRetryChunk(now.capture(), eq(2));
+        assertEquals(1, now.getAllValues().stream().distinct().count());
+    }
+
+    @Test
+    void sweep_NothingDue_IsASingleEmptyChunk() {
+        when(kafkaMockService.expireRetryChunk(any(LocalDateTime.class), eq(2))).thenReturn(0);
+
+        RetrySweepReport report = worker.sweep();
+
+        assertEquals(0, report.getRows());
+        assertEquals(1, report.getChunks());
+        assertEquals(0.0, report.getRowsPerSecond());
+    }
+}
@@ -0,0 +1,104 @@
+package ar.edu.uade.core.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryPoliciesTest {
+
+    private final EventRouter router = new EventRouter();
+
+    private RetryPolicies policiesFor(Path file) {
+        RetryPolicies policies = new RetryPolicies(router);
+        ReflectionTestUtils.setField(policies, "location", file.toUri().toString());
+        return policies;
+    }
+
+    private static void write(Path file, String json, long modifiedMillis) throws IOException {
+        Files.writeString(file, json);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modifiedMillis));
+    }
+
+    @Test
+    void builtInTable_HotTypesRetryFast_BulkAnalyticsBacksOff() {
+        RetryPolicies policies = new RetryPolicies(router);
+
+        RetryPolicies.Policy hot = policies.policyFor("POST: Compra confirmada", "inventario");
+        assertEquals(6, hot.maxAttempts());
+        assertEquals(2000, hot.baseDelayMs());
+        // por tipo original, nombre de tópico o variante de mayúsculas es la misma política
+        assertSame(hot, policies.policyFor("ventas.compra-confirmada", "inventario"));
+        assertSame(hot, policies.policyFor("  post: COMPRA CONFIRMADA ", null));
+
+        RetryPolicies.Policy bulk = policies.policyFor("GET: Vista diaria de productos", "analitica");
+        assertEquals(300_000, bulk.baseDelayMs());
+        assertEquals(86_400, bulk.ttlSeconds());
+
+        // sin política por tipo, el módulo analitica espera más que el default
+        assertEquals(120_000, policies.policyFor("POST: Review creada", "analitica").baseDelayMs());
+        assertSame(policies.defaults(), policies.policyFor("POST: Review creada", "ventas"));
+        assertSame(policies.defaults(), policies.policyFor("tipo.desconocido", null));
+        assertSame(policies.defaults(), policies.policyFor(null, null));
+    }
+
+    @Test
+    void delayMs_GrowsExponentially_WithCapAndJitterBounds() {
+        RetryPolicies.Policy p = new RetryPolicies.Policy(5, 1000, 2.0, 0.5, 5000, 3600);
+
+        assertEquals(1000, p.delayMs(0, 0.5));
+        assertEquals(2000, p.delayMs(1, 0.5));
+        assertEquals(4000, p.delayMs(2, 0.5));
+        assertEquals(5000, p.delayMs(3, 0.5));
+        assertEquals(1000, p.delayMs(-1, 0.5));
+        // ± 50 %
+        assertEquals(2000, p.delayMs(2, 0.0));
+        assertEquals(6000, p.delayMs(2, 1.0));
+    }
+
+    @Test
+    void moduleOverride_WinsOverTypePolicy_AndMissingFieldsComeFromDefault(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("retry-policies.json");
+        write(file, """
+                { "default": { "maxAttempts": 3, "baseDelaySeconds": 30, "multiplier": 2, "jitter": 0, "maxDelaySeconds": 300, "ttlSeconds": 3600 },
+                  "policies": [
+                    { "keys": ["ventas.compra-confirmada"], "maxAttempts": 8, "baseDelaySeconds": 1 },
+                    { "keys": ["ventas.compra-confirmada"], "consumers": ["Analitica"], "ttlSeconds": 60 } ] }
+                """, 1_000_000L);
+        RetryPolicies policies = policiesFor(file);
+        policies.init();
+
+        assertEquals(new RetryPolicies.Policy(8, 1000, 2.0, 0.0, 300_000, 3600), policies.policyFor("POST: Compra confirmada", "inventario"));
+        // sin tope propio y con TTL propio, la espera no pasa del TTL
+        assertEquals(new RetryPolicies.Policy(3, 30_000, 2.0, 0.0, 60_000, 60), policies.policyFor("POST: Compra confirmada", "analitica"));
+    }
+
+    @Test
+    void reloadIfChanged_WithInvalidFile_KeepsPreviousPolicies(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("retry-policies.json");
+        write(file, """
+                { "default": { "maxAttempts": 2, "baseDelaySeconds": 5, "ttlSeconds": 600 } }
+                """, 1_000_000L);
+        RetryPolicies policies = policiesFor(file);
+        policies.init();
+        assertEquals(2, policies.defaults().maxAttempts());
+
+        write(file, """
+                { "default": { "maxAttempts": 2, "baseDelaySeconds": 5, "ttlSeconds": 600, "jitter": 3 } }
+                """, 2_000_000L);
+        policies.reloadIfChanged();
+        assertEquals(0.0, policies.defaults().jitter());
+
+        write(file, """
+                { "default": { "maxAttempts": 4, "baseDelaySeconds": 5, "ttlSeconds": 600 } }
+                """, 3_000_000L);
+        policies.reloadIfChanged();
+        assertEquals(4, policies.defaults().maxAttempts());
+    }
+}
@@ -0,0 +1,166 @@
+package ar.edu.uade.core.service;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import ar.edu.uade.core.model.EventMessage;
+import ar.edu.uade.core.repository.RetryMessageRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RetryRedeliveryTest {
+
+    @Mock private RetryMessageRepository retryMessageRepository;
+    @Mock private PayloadStore payloadStore;
+    @Mock private TopicResolver topicResolver;
+    @Mock private KafkaTemplate<String, Object> kafkaTemplate;
+    @Mock private SchedulerLease schedulerLease;
+    @Spy private RetryPolicies retryPolicies = new RetryPolicies(new EventRouter());
+
+    @InjectMocks private RetryRedelivery redelivery;
+
+    @BeforeEach
+    void setUp() {
+        RetryBackoff backoff = new RetryBackoff();
+        ReflectionTestUtils.setField(backoff, "initialDelayMs", 30_000L);
+        ReflectionTestUtils.setField(backoff, "multiplier", 10.0);
+        ReflectionTestUtils.setField(backoff, "maxDelayMs", 300_000L);
+        ReflectionTestUtils.setField(redelivery, "retryBackoff", backoff);
+        ReflectionTestUtils.setField(redelivery, "batchSize", 10);
+        ReflectionTestUtils.setField(redelivery, "sendTimeoutMs", 50L);
+    }
+
+    // columnas de findDueRedeliveries: id, event_id, type, payload_id, redeliveries, consumer_module, origin_module
+    private static Object[] row(int id, int redeliveries) {
+        return new Object[]{id, 100 + id, "ventas.compra-confirmada", 500L + id, redeliveries, "inventario", "ventas"};
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CompletableFuture<SendResult<String, Object>> ok() {
+        return CompletableFuture.completedFuture((SendResult<String, Object>) mock(SendResult.class));
+    }
+
+    private static String header(ProducerRecord<String, Object> r, String name) {
+        return new String(r.headers().lastHeader(name).value(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void redeliver_PublishesToTheTierTopic_ThenAdvancesEachTierWithOneUpdate() {
+        when(retryMessageRepository.findDueRedeliveries(any(LocalDateTime.class), eq(10)))
+                .thenReturn(List.of(row(1, 0), row(2, 1), row(3, 0)));
+        when(payloadStore.contentsById(List.of(501L, 502L, 503L)))
+                .thenReturn(Map.of(501L, "{\"n\":1}", 502L, "{\"n\":2}", 503L, "{\"n\":3}"));
+        when(topicResolver.resolveTopic("ventas.compra-confirmada", "ventas")).thenReturn("ventas-topic");
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(ok());
+
+        assertEquals(3, redelivery.redeliver());
+
+        ArgumentCaptor<ProducerRecord<String, Object>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate, times(3)).send(captor.capture());
+        verify(kafkaTemplate).flush();
+        List<ProducerRecord<String, Object>> sent = captor.getAllValues();
+        assertEquals(List.of("ventas-topic.retry-30s", "ventas-topic.retry-5m", "ventas-topic.retry-30s"),
+                sent.stream().map(ProducerRecord::topic).toList());
+        // misma clave que el evento: sus reentregas caen en la misma partición
+        assertEquals("102", sent.get(1).key());
+        assertEquals("2", header(sent.get(1), RetryRedelivery.RETRY_ID_HEADER));
+        assertEquals("102", header(sent.get(1), RetryRedelivery.EVENT_ID_HEADER));
+        assertEquals("2", header(sent.get(1), RetryRedelivery.REDELIVERY_HEADER));
+        assertEquals("inventario", header(sent.get(1), RetryRedelivery.CONSUMER_HEADER));
+        assertEquals("{\"n\":2}", ((EventMessage) sent.get(1).value()).getPayload().toString());
+
+        verify(retryMessageRepository).markRedelivered(eq(List.of(1, 3)), eq(1), any(LocalDateTime.class));
+        verify(retryMessageRepository).markRedelivered(eq(List.of(2)), eq(2), any(LocalDateTime.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void redeliver_NextAttemptFollowsTheTypePolicy_NotTheTierDelay() {
+        Object[] review = {4, 104, "POST: Review creada", 504L, 0, "analitica", "ventas"};
+        when(retryMessageRepository.findDueRedeliveries(any(LocalDateTime.class), eq(10))).thenReturn(List.of(row(1, 0), review, row(2, 1)));
+        when(payloadStore.contentsById(anyList())).thenReturn(Map.of());
+        when(topicResolver.resolveTopic(any(), any())).thenReturn("t");
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(ok());
+        LocalDateTime before = LocalDateTime.now();
+
+        assertEquals(3, redelivery.redeliver());
+
+        ArgumentCaptor<LocalDateTime> hot = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> bulk = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> hotThird = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(retryMessageRepository).markRedelivered(eq(List.of(1)), eq(1), hot.capture());
+        verify(retryMessageRepository).markRedelivered(eq(List.of(4)), eq(1), bulk.capture());
+        verify(retryMessageRepository).markRedelivered(eq(List.of(2)), eq(2), hotThird.capture());
+        // compra confirmada -> inventario: 2 s * 2^1 ± 20 %, no los 5 min del escalón
+        assertBetween(before, hot.getValue(), 3_200, 4_800 + 1_000);
+        // compra confirmada, tercer intento: 2 s * 2^2 ± 20 %
+        assertBetween(before, hotThird.getValue(), 6_400, 9_600 + 1_000);
+        // analitica: 120 s * 4^1 ± 50 %
+        assertBetween(before, bulk.getValue(), 240_000, 720_000 + 1_000);
+    }
+
+    private static void assertBetween(LocalDateTime from, LocalDateTime next, long minMs, long maxMs) {
+        long ms = Duration.between(from, next).toMillis();
+        assertTrue(ms >= minMs && ms <= maxMs, "espera de " + ms + " ms fuera de [" + minMs + ", " + maxMs + "]");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void redeliver_FailedSendsWaitTheirPolicyDelay_AndStopThePoll() {
+        when(retryMessageRepository.findDueRedeliveries(any(LocalDateTime.class), eq(10))).thenReturn(List.of(row(1, 0), row(2, 0)));
+        when(payloadStore.contentsById(anyList())).thenReturn(Map.of());
+        when(topicResolver.resolveTopic(any(), any())).thenReturn("ventas-topic");
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(ok())
+                .thenReturn(CompletableFuture.failedFuture(new KafkaException("broker caído")));
+        LocalDateTime before = LocalDateTime.now();
+
+        assertEquals(1, redelivery.redeliver());
+
+        verify(retryMessageRepository).markRedelivered(eq(List.of(1)), eq(1), any(LocalDateTime.class));
+        // la fallida no suma reentrega pero no vuelve a salir en el próximo poll: 2 s ± 20 % de su política
+        ArgumentCaptor<LocalDateTime> next = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(retryMessageRepository).deferRedelivery(eq(List.of(2)), eq(0), next.capture());
+        assertBetween(before, next.getValue(), 1_600, 2_400 + 1_000);
+        verify(retryMessageRepository, times(1)).findDueRedeliveries(any(), anyInt());
+    }
+
+    @Test
+    void redeliver_NothingDue_DoesNotTouchKafka() {
+        when(retryMessageRepository.findDueRedeliveries(any(LocalDateTime.class), eq(10))).thenReturn(List.of());
+
+        assertEquals(0, redelivery.redeliver());
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    void scheduledRedeliver_OnlyOnTheLeaseOwner() {
+        ReflectionTestUtils.setField(redelivery, "enabled", true);
+        when(schedulerLease.isLeader()).thenReturn(false);
+
+        redelivery.scheduledRedeliver();
+        verifyNoInteractions(retryMessageRepository, kafkaTemplate);
+    }
+}
@@ -0,0 +1,88 @@
+package ar.edu.uade.core.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryTimerTest {
+
+    @Test
+    void awaitDue_ReturnsDueRowsInDeadlineOrder_AndLeavesTheRest() throws Exception {
+        RetryTimer timer = new RetryTimer();
+        long now = System.currentTimeMillis();
+        timer.schedule(2, now - 5);
+        timer.schedule(1, now - 10);
+        timer.schedule(3, now + 60_000);
+
+        assertEquals(List.of(1, 2), timer.awaitDue(10, 50));
+        assertEquals(1, timer.size());
+        assertEquals(List.of(), timer.awaitDue(10, 20));
+    }
+
+    @Test
+    void reschedule_SupersedesThePreviousDeadline() throws Exception {
+        RetryTimer timer = new RetryTimer();
+        long now = System.currentTimeMillis();
+        timer.schedule(7, now + 60_000);
+        timer.schedule(7, now - 1);
+
+        assertEquals(List.of(7), timer.awaitDue(10, 50));
+        // la entrada vieja sigue en la cola pero ya no es la vigente
+        timer.schedule(8, now + 60_000);
+        timer.schedule(8, now + 120_000);
+        assertEquals(now + 120_000, timer.dueAt(8));
+        assertEquals(1, timer.size());
+    }
+
+    @Test
+    void reschedulingOverAndOver_CompactsTheSupersededEntries() throws Exception {
+        RetryTimer timer = new RetryTimer();
+        long now = System.currentTimeMillis();
+        for (int round = 0; round < 10; round++) {
+            for (int id = 1; id <= 200; id++) timer.schedule(id, now + 60_000 + round);
+        }
+        timer.schedule(201, now - 1);
+
+        // 2001 altas para 201 filas: la cola no pasa de vigentes + COMPACT_MIN_STALE
+        assertEquals(201, timer.size());
+        assertTrue(timer.queued() <= 201 + RetryTimer.COMPACT_MIN_STALE + 1, "entradas en cola: " + timer.queued());
+        assertEquals(List.of(201), timer.awaitDue(10, 50));
+        assertEquals(now + 60_009, timer.dueAt(5));
+    }
+
+    @Test
+    void cancel_AndNeverDue_AreNotReturned() throws Exception {
+        RetryTimer timer = new RetryTimer();
+        timer.schedule(1, System.currentTimeMillis() - 1);
+        timer.cancel(1);
+        timer.schedule(2, Long.MAX_VALUE);
+
+        assertEquals(List.of(), timer.awaitDue(10, 20));
+        assertEquals(0, timer.size());
+    }
+
+    @Test
+    void awaitDue_WakesUpAtTheDeadline() throws Exception {
+        RetryTimer timer = new RetryTimer();
+        long dueAt = System.currentTimeMillis() + 100;
+        timer.schedule(5, dueAt);
+
+        List<Integer> due = timer.awaitDue(10, 5_000);
+        long late = System.currentTimeMillis() - dueAt;
+
+        assertEquals(List.of(5), due);
+        assertTrue(late >= 0 && late < 1_000, "vencido con " + late + " ms de atraso");
+    }
+
+    @Test
+    void awaitDue_RespectsMax() throws Exception {
+        RetryTimer timer = new RetryTimer();
+        long now = System.currentTimeMillis();
+        for (int i = 1; i <= 5; i++) timer.schedule(i, now - 10 + i);
+
+        assertEquals(List.of(1, 2, 3), timer.awaitDue(3, 50));
+        assertEquals(List.of(4, 5), timer.awaitDue(3, 50));
+    }
+}
@@ -0,0 +1,91 @@
+package ar.edu.uade.core.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Lease de scheduler_lock entre dos réplicas contra la DB: una sola lo tiene, lo renueva en cada heartbeat
+ * y la otra lo toma recién cuando se libera o vence.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class SchedulerLeaseTest {
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private SchedulerLease a;
+    private SchedulerLease b;
+    private ApplicationEventPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        publisher = mock(ApplicationEventPublisher.class);
+        a = lease(60_000L);
+        b = lease(60_000L);
+    }
+
+    private SchedulerLease lease(long leaseMs) {
+        SchedulerLease l = new SchedulerLease();
+        ReflectionTestUtils.setField(l, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(l, "eventPublisher", publisher);
+        ReflectionTestUtils.setField(l, "enabled", true);
+        ReflectionTestUtils.setField(l, "leaseMs", leaseMs);
+        return l;
+    }
+
+    private String owner() {
+        return jdbcTemplate.queryForObject("SELECT owner FROM scheduler_lock WHERE name = ?", String.class, SchedulerLease.RETRY_LOCK);
+    }
+
+    @Test
+    void onlyOneReplicaHoldsTheLease_AndRenewsIt() {
+        a.heartbeat();
+        b.heartbeat();
+        a.heartbeat();
+
+        assertTrue(a.isLeader());
+        assertFalse(b.isLeader());
+        assertEquals(a.owner(), owner());
+        // Acquired una sola vez: la renovación no vuelve a publicarlo
+        verify(publisher, times(1)).publishEvent(any(SchedulerLease.Acquired.class));
+    }
+
+    @Test
+    void releasedOrExpiredLease_IsTakenByTheOther() {
+        a.heartbeat();
+        a.release();
+        b.heartbeat();
+        assertFalse(a.isLeader());
+        assertTrue(b.isLeader());
+
+        // b deja de renovar: con lease_until en el pasado, a lo toma en su próximo heartbeat
+        jdbcTemplate.update("UPDATE scheduler_lock SET lease_until = TIMESTAMP '2000-01-01 00:00:00' WHERE name = ?", SchedulerLease.RETRY_LOCK);
+        a.heartbeat();
+        assertTrue(a.isLeader());
+        assertEquals(a.owner(), owner());
+        b.heartbeat();
+        assertFalse(b.isLeader());
+    }
+
+    @Test
+    void disabled_IsAlwaysLeader_WithoutTouchingTheTable() {
+        SchedulerLease single = lease(60_000L);
+        ReflectionTestUtils.setField(single, "enabled", false);
+        single.heartbeat();
+
+        assertTrue(single.isLeader());
+        assertNull(owner());
+    }
+}
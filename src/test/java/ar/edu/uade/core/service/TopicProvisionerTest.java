@@ -0,0 +1,103 @@
+package ar.edu.uade.core.service;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.KafkaException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TopicProvisionerTest {
+
+    private KafkaAdmin kafkaAdmin;
+    private EventRouter router;
+    private TopicResolver resolver;
+    private TopicProvisioner provisioner;
+
+    @BeforeEach
+    void setUp() {
+        kafkaAdmin = mock(KafkaAdmin.class);
+        router = new EventRouter();
+        resolver = new TopicResolver();
+        ReflectionTestUtils.setField(resolver, "eventRouter", router);
+        RetryBackoff backoff = new RetryBackoff();
+        ReflectionTestUtils.setField(backoff, "initialDelayMs", 30_000L);
+        ReflectionTestUtils.setField(backoff, "multiplier", 10.0);
+        ReflectionTestUtils.setField(backoff, "maxDelayMs", 300_000L);
+        provisioner = new TopicProvisioner(kafkaAdmin, router, resolver, backoff);
+        ReflectionTestUtils.setField(provisioner, "defaultPartitions", 3);
+        ReflectionTestUtils.setField(provisioner, "replicationFactor", -1);
+    }
+
+    @Test
+    void coarseMode_DoesNotTouchKafka() {
+        resolver.setMode("coarse");
+        provisioner.provisionOnStartup();
+        verifyNoInteractions(kafkaAdmin);
+    }
+
+    @Test
+    void fineMode_CreatesOneTopicPerRoute_WithConfiguredPartitions() {
+        resolver.setMode("fine");
+        provisioner.provisionOnStartup();
+
+        ArgumentCaptor<NewTopic[]> captor = ArgumentCaptor.forClass(NewTopic[].class);
+        verify(kafkaAdmin).createOrModifyTopics(captor.capture());
+        Map<String, NewTopic> byName = Arrays.stream(captor.getValue()).collect(Collectors.toMap(NewTopic::name, t -> t));
+        assertEquals(router.routes().size(), byName.size());
+        assertEquals(6, byName.get("ventas.compra-confirmada").numPartitions());
+        assertEquals(3, byName.get("ventas.review-creada").numPartitions());
+        // replication-factor <= 0: el del broker
+        assertEquals(-1, byName.get("ventas.review-creada").replicationFactor());
+    }
+
+    @Test
+    void ackListenerEnabled_CreatesAckTopic_EvenInCoarseMode() {
+        resolver.setMode("coarse");
+        ReflectionTestUtils.setField(provisioner, "ackEnabled", true);
+        ReflectionTestUtils.setField(provisioner, "ackTopic", "core.acks");
+        provisioner.provisionOnStartup();
+
+        ArgumentCaptor<NewTopic[]> captor = ArgumentCaptor.forClass(NewTopic[].class);
+        verify(kafkaAdmin).createOrModifyTopics(captor.capture());
+        assertEquals(1, captor.getValue().length);
+        assertEquals("core.acks", captor.getValue()[0].name());
+        assertEquals(3, captor.getValue()[0].numPartitions());
+    }
+
+    @Test
+    void redeliveryEnabled_CreatesOneRetryTopicPerTierAndBaseTopic() {
+        resolver.setMode("coarse");
+        ReflectionTestUtils.setField(resolver, "inventarioTopic", "inventario-topic");
+        ReflectionTestUtils.setField(resolver, "ventasTopic", "ventas-topic");
+        ReflectionTestUtils.setField(resolver, "notificarTopic", "notificar-topic");
+        ReflectionTestUtils.setField(provisioner, "redeliveryEnabled", true);
+        provisioner.provisionOnStartup();
+
+        ArgumentCaptor<NewTopic[]> captor = ArgumentCaptor.forClass(NewTopic[].class);
+        verify(kafkaAdmin).createOrModifyTopics(captor.capture());
+        assertEquals(Set.of("inventario-topic.retry-30s", "inventario-topic.retry-5m", "ventas-topic.retry-30s",
+                        "ventas-topic.retry-5m", "notificar-topic.retry-30s", "notificar-topic.retry-5m"),
+                Arrays.stream(captor.getValue()).map(NewTopic::name).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void fineMode_BrokerDown_IsLoggedNotThrown() {
+        resolver.setMode("fine");
+        ReflectionTestUtils.setField(provisioner, "replicationFactor", 2);
+        doThrow(new KafkaException("sin broker")).when(kafkaAdmin).createOrModifyTopics(any(NewTopic[].class));
+
+        assertEquals(0, provisioner.provision(router.routes()));
+        assertEquals(2, provisioner.newTopic(router.routes().get(0)).replicationFactor());
+    }
+}
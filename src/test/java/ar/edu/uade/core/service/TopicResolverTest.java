@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -18,6 +19,7 @@ class TopicResolverTest {
         ReflectionTestUtils.setField(resolver, "inventarioTopic", "inv-topic");
         ReflectionTestUtils.setField(resolver, "ventasTopic", "ven-topic");
         ReflectionTestUtils.setField(resolver, "notificarTopic", "noti-topic");
+        ReflectionTestUtils.setField(resolver, "eventRouter", new EventRouter());
     }
 
     @Test
@@ -51,6 +53,39 @@ class TopicResolverTest {
         assertEquals("noti-topic", topic, "Origin 'Notificaciones' debe ganar sobre type 'inventario.*'");
     }
 
+    @Test
+    void resolveTopic_WhenOriginNull_UsesDomainFromRoutingTable() {
+        // tipo "original" de docs/topics.md: ventas.compra-confirmada
+        assertEquals("ven-topic", resolver.resolveTopic("POST: Compra confirmada", null));
+        assertEquals("inv-topic", resolver.resolveTopic("put: actualizar STOCK ", null));
+        // analitica no tiene tópico propio en este modo
+        assertEquals("inv-topic", resolver.resolveTopic("GET: Vista diaria de productos", null));
+    }
+
+    @Test
+    void resolveTopic_OriginMemo_IsBounded() {
+        for (int i = 0; i < TopicResolver.ORIGIN_MEMO_SIZE * 3; i++) {
+            assertEquals("ven-topic", resolver.resolveTopic(null, "ventas-" + i));
+        }
+        ConcurrentHashMap<?, ?> memo = (ConcurrentHashMap<?, ?>) ReflectionTestUtils.getField(resolver, "byOrigin");
+        assertTrue(memo.size() <= TopicResolver.ORIGIN_MEMO_SIZE);
+    }
+
+    @Test
+    void resolveTopic_FineMode_UsesActionTopic_AndFallsBackToModuleTopics() {
+        resolver.setMode("fine");
+        assertEquals("ventas.compra-confirmada", resolver.resolveTopic("POST: Compra confirmada", "inventario"));
+        assertEquals("inventario.stock-rollback", resolver.resolveTopic("inventario.stock-rollback", "ventas"));
+        // fuera de la tabla: como en coarse
+        assertEquals("ven-topic", resolver.resolveTopic("producto creado", "ventas"));
+        assertEquals("inv-topic", resolver.resolveTopic("otro.tipo", null));
+
+        Set<String> all = resolver.getAllTopics();
+        assertTrue(all.contains("ven-topic"));
+        assertTrue(all.contains("analitica.vista-diaria-productos"));
+        assertEquals(3 + 18, all.size());
+    }
+
     @Test
     void getAllTopics_ReturnsThreeUnique() {
         Set<String> all = resolver.getAllTopics();
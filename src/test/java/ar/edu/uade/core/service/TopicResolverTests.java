@@ -20,6 +20,7 @@ class TopicResolverTests {
         setPrivate(r, "inventarioTopic", "tInv");
         setPrivate(r, "ventasTopic", "tVen");
         setPrivate(r, "notificarTopic", "tNot");
+        setPrivate(r, "eventRouter", new EventRouter());
 
         assertEquals("tVen", r.resolveTopic("algo", "ventas-app"));
         assertEquals("tInv", r.resolveTopic("algo", "inventario"));
@@ -32,6 +33,7 @@ class TopicResolverTests {
         setPrivate(r, "inventarioTopic", "tInv");
         setPrivate(r, "ventasTopic", "tVen");
         setPrivate(r, "notificarTopic", "tNot");
+        setPrivate(r, "eventRouter", new EventRouter());
 
         assertEquals("tVen", r.resolveTopic("ventas.alta", null));
         assertEquals("tInv", r.resolveTopic("inventario.baja", null));
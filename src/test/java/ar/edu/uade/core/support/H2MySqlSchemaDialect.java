@@ -0,0 +1,51 @@
+package ar.edu.uade.core.support;
+
+import java.sql.Types;
+
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.sequence.NoSequenceSupport;
+import org.hibernate.dialect.sequence.SequenceSupport;
+
+/**
+ * H2 ajustado para validar contra el schema de las migraciones MySQL:
+ * - sin secuencias nativas: los generadores usan tablas *_seq igual que en MySQL;
+ * - LONGTEXT/LONGBLOB en modo MySQL quedan como VARCHAR/VARBINARY grandes, equivalentes a los @Lob;
+ * - FOR UPDATE SKIP LOCKED como MySQL 8 (H2 lo soporta, pero H2Dialect no lo emite).
+ */
+public class H2MySqlSchemaDialect extends H2Dialect {
+
+    @Override
+    public SequenceSupport getSequenceSupport() {
+        return NoSequenceSupport.INSTANCE;
+    }
+
+    @Override
+    public boolean supportsSkipLocked() {
+        return true;
+    }
+
+    @Override
+    public String getForUpdateSkipLockedString() {
+        return getForUpdateString() + " skip locked";
+    }
+
+    @Override
+    public String getForUpdateSkipLockedString(String aliases) {
+        return getForUpdateSkipLockedString();
+    }
+
+    @Override
+    public boolean equivalentTypes(int typeCode1, int typeCode2) {
+        return super.equivalentTypes(typeCode1, typeCode2)
+                || (isText(typeCode1) && isText(typeCode2))
+                || (isBinary(typeCode1) && isBinary(typeCode2));
+    }
+
+    private static boolean isText(int code) {
+        return code == Types.CLOB || code == Types.VARCHAR || code == Types.LONGVARCHAR;
+    }
+
+    private static boolean isBinary(int code) {
+        return code == Types.BLOB || code == Types.VARBINARY || code == Types.LONGVARBINARY;
+    }
+}